@@ -0,0 +1,43 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulator.StreamingAssembler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StreamingAssembler over generated sources of several sizes, as the server assembles them, on
+ * the single-pass and parallel paths. Loads pick the parallel path from 32768 lines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AssemblerBenchmark {
+
+    private static final int START_ADDRESS = 0x00400000;
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private String source;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = String.join("\n", Programs.generate(lines));
+        StreamingAssembler.Result result = StreamingAssembler.assemble(source, START_ADDRESS, parallel);
+        if (!result.errors.isEmpty()) {
+            throw new IllegalStateException(result.errors.get(0));
+        }
+    }
+
+    @Benchmark
+    public StreamingAssembler.Result assemble() {
+        return StreamingAssembler.assemble(source, START_ADDRESS, parallel);
+    }
+}
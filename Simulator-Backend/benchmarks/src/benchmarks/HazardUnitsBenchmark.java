@@ -0,0 +1,60 @@
+package benchmarks;
+
+import model.control.ForwardingUnit;
+import model.control.HazardDetectionUnit;
+import model.pipeline.registers.PipelineRegisters;
+import org.openjdk.jmh.annotations.*;
+import simulator.PipelineController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HazardDetectionUnit and ForwardingUnit in isolation, over latch states captured from a real run
+ * of every benchmark program so the branch mix matches the simulator's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HazardUnitsBenchmark {
+
+    private static final int STATES_PER_PROGRAM = 64;
+
+    private final HazardDetectionUnit hazardDetectionUnit = new HazardDetectionUnit();
+    private final ForwardingUnit forwardingUnit = new ForwardingUnit();
+    private PipelineRegisters[] states;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[][] programs = {Programs.ALU, Programs.MEMORY, Programs.BRANCHY};
+        states = new PipelineRegisters[programs.length * STATES_PER_PROGRAM];
+        int n = 0;
+        for (String[] program : programs) {
+            PipelineController controller = Programs.load(program);
+            controller.setUndoDepth(0);
+            for (int i = 0; i < STATES_PER_PROGRAM; i++) {
+                controller.runCycle();
+                states[n++] = controller.getPipelineRegisters().copy();
+            }
+        }
+    }
+
+    private PipelineRegisters nextState() {
+        PipelineRegisters regs = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return regs;
+    }
+
+    @Benchmark
+    public HazardDetectionUnit.HazardReport checkAllHazards() {
+        return hazardDetectionUnit.checkAllHazards(nextState());
+    }
+
+    @Benchmark
+    public ForwardingUnit.ForwardingResult determineForwarding() {
+        return forwardingUnit.determineForwarding(nextState());
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulator.PipelineController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state throughput of PipelineController.runCycle, reported per simulated cycle.
+ * History is cleared after each batch so memory stays flat over long runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    private static final int CYCLES = 1000;
+
+    @Param({"alu", "memory", "branchy"})
+    public String program;
+
+    @Param({"0", "4096"})
+    public int undoDepth;
+
+    private PipelineController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = Programs.load(Programs.byName(program));
+        controller.setUndoDepth(undoDepth);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public PipelineController runCycles() {
+        for (int i = 0; i < CYCLES; i++) {
+            controller.runCycle();
+        }
+        controller.getHistory().clear();
+        return controller;
+    }
+}
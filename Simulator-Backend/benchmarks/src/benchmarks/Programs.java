@@ -0,0 +1,79 @@
+package benchmarks;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+
+/**
+ * Endless loops in the supported ISA, so the pipeline stays in steady state for any number of cycles.
+ */
+final class Programs {
+
+    /** Dependent ALU chain: exercises EX/MEM and MEM/WB forwarding. */
+    static final String[] ALU = {
+            "loop: addi $t0, $t0, 1",
+            "add $t1, $t1, $t0",
+            "xor $t2, $t1, $t0",
+            "slt $t3, $t2, $t1",
+            "sll $t4, $t0, 2",
+            "or $t5, $t4, $t3",
+            "j loop"
+    };
+
+    /** Store, load and an immediate use of the load: one load-use stall per iteration. */
+    static final String[] MEMORY = {
+            "addi $s0, $zero, 64",
+            "loop: sw $t0, 0($s0)",
+            "lw $t1, 0($s0)",
+            "add $t0, $t1, $t1",
+            "addi $s0, $s0, 4",
+            "andi $s0, $s0, 1020",
+            "j loop"
+    };
+
+    /** Alternating taken and not-taken branches: one flush per taken branch. */
+    static final String[] BRANCHY = {
+            "loop: addi $t0, $t0, 1",
+            "andi $t1, $t0, 1",
+            "beq $t1, $zero, even",
+            "addi $t2, $t2, 1",
+            "even: bne $t0, $zero, loop"
+    };
+
+    private Programs() {}
+
+    static String[] byName(String name) {
+        switch (name) {
+            case "alu": return ALU;
+            case "memory": return MEMORY;
+            case "branchy": return BRANCHY;
+            default: throw new IllegalArgumentException("Unknown program: " + name);
+        }
+    }
+
+    static PipelineController load(String[] program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        return new PipelineController(cpuState);
+    }
+
+    /** Straight-line program mixing every instruction format; lines should be a multiple of 8. */
+    static String[] generate(int lines) {
+        String[] body = {
+                "add $t0, $t1, $t2",
+                "addi $t1, $t1, -1",
+                "lw $t2, 8($sp)",
+                "sw $t2, 12($sp)",
+                "slt $t3, $t0, $t1",
+                "beq $t3, $zero, L%d",
+                "sll $t4, $t0, 2",
+                "L%d: ori $t5, $t4, 0x0F0F"
+        };
+        String[] program = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            program[i] = String.format(body[i % body.length], i / body.length);
+        }
+        return program;
+    }
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulator.PipelineController;
+import simulator.api.utils.StateSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StateSerializer.serialize as the pipeline history grows, which is what /api/state pays per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateSerializerBenchmark {
+
+    @Param({"0", "100", "1000", "10000"})
+    public int history;
+
+    private PipelineController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = Programs.load(Programs.MEMORY);
+        controller.setUndoDepth(0);
+        for (int i = 0; i < history; i++) {
+            controller.runCycle();
+        }
+    }
+
+    @Benchmark
+    public String serialize() {
+        return StateSerializer.serialize(controller.getCpuState(), controller);
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import simulator.Workload;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each standard workload run to completion at its default size. The result digest is checked
+ * against the reference so a faster but wrong simulator fails the trial instead of reporting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkloadBenchmark {
+
+    @Param({"MATMUL", "BUBBLE_SORT", "FIBONACCI", "MEMCPY", "PREFIX_SUM", "LINKED_LIST"})
+    public Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long digest = workload.run().digest;
+        if (digest != workload.getExpectedDigest()) {
+            throw new IllegalStateException(workload.getName() + " digest mismatch: " + Long.toHexString(digest));
+        }
+    }
+
+    @Benchmark
+    public Workload.Result run() {
+        return workload.run();
+    }
+}
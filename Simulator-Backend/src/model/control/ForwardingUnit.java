@@ -1,18 +1,21 @@
 package model.control;
 
+import model.pipeline.registers.MEM_WB_Register;
 import model.pipeline.registers.PipelineRegisters;
 
 public class ForwardingUnit {
 
     // 00 = no forwarding
     // 10 = forward from EX/MEM
-    // 01 = forward from MEM/WB
+    // 01 = forward from MEM/WB, or from a latch between split memory stages
     private int forwardA = 0;
     private int forwardB = 0;
 
     public ForwardingResult determineForwarding(PipelineRegisters regs) {
         forwardA = 0;
         forwardB = 0;
+        MEM_WB_Register sourceA = null;
+        MEM_WB_Register sourceB = null;
 
         int exRs = regs.ID_EX.getRs();
         int exRt = regs.ID_EX.getRt();
@@ -31,31 +34,44 @@ public class ForwardingUnit {
             }
         }
 
-        // MEM/WB - dist = 2
-        if (regs.MEM_WB.isRegWrite() && regs.MEM_WB.getDestReg() != 0) {
-            int memWbDest = regs.MEM_WB.getDestReg();
+        // Memory side, nearest first: the latches between split memory stages, then MEM/WB
+        // dist = 2 .. memory stages + 1
+        for (int i = regs.memoryBuffer.length; i >= 0; i--) {
+            MEM_WB_Register latch = i > 0 ? regs.memoryBuffer[i - 1] : regs.MEM_WB;
+            if (!latch.isRegWrite() || latch.getDestReg() == 0) {
+                continue;
+            }
+            int memWbDest = latch.getDestReg();
 
-            if (exRs == memWbDest &&
-                    (!regs.EX_MEM.isRegWrite() || regs.EX_MEM.getDestReg() != exRs)) {
+            if (forwardA == 0 && exRs == memWbDest) {
                 forwardA = 1;
+                sourceA = latch;
             }
 
-            if (exRt == memWbDest &&
-                    (!regs.EX_MEM.isRegWrite() || regs.EX_MEM.getDestReg() != exRt)) {
+            if (forwardB == 0 && exRt == memWbDest) {
                 forwardB = 1;
+                sourceB = latch;
             }
         }
 
-        return new ForwardingResult(forwardA, forwardB);
+        return new ForwardingResult(forwardA, forwardB, sourceA, sourceB);
     }
 
     public static class ForwardingResult {
         public final int forwardA;
         public final int forwardB;
+        public final MEM_WB_Register sourceA; // latch forwarded from when forwardA is 1
+        public final MEM_WB_Register sourceB;
 
         public ForwardingResult(int forwardA, int forwardB) {
+            this(forwardA, forwardB, null, null);
+        }
+
+        public ForwardingResult(int forwardA, int forwardB, MEM_WB_Register sourceA, MEM_WB_Register sourceB) {
             this.forwardA = forwardA;
             this.forwardB = forwardB;
+            this.sourceA = sourceA;
+            this.sourceB = sourceB;
         }
     }
 }
@@ -1,5 +1,6 @@
 package model.control;
 
+import model.pipeline.registers.MEM_WB_Register;
 import model.pipeline.registers.PipelineRegisters;
 import model.instruction.ITypeInstruction;
 import model.instruction.RTypeInstruction;
@@ -9,11 +10,23 @@ import java.util.List;
 public class HazardDetectionUnit {
 
     private final List<String> detectedHazards = new ArrayList<>();
+    private boolean earlyBranches = false;
+
+    /**
+     * With branches resolved in ID, a branch waits for a register written by the instruction
+     * in EX, and for a load still in a memory stage.
+     */
+    public void setEarlyBranches(boolean earlyBranches) {
+        this.earlyBranches = earlyBranches;
+    }
 
     public HazardReport checkAllHazards(PipelineRegisters regs) {
         detectedHazards.clear();
 
         checkDataHazards(regs);
+        if (earlyBranches) {
+            checkBranchHazards(regs);
+        }
         checkControlHazards(regs);
         checkStructuralHazards(regs);
 
@@ -47,6 +60,20 @@ public class HazardDetectionUnit {
             }
         }
 
+        // Load data is only forwarded from MEM/WB; with split memory stages a load in MEM, or more
+        // than one latch away from MEM/WB, would not get there before the instruction reaches EX
+        if (regs.memoryBuffer.length > 0) {
+            if (regs.EX_MEM.getInstruction() != null && regs.EX_MEM.isMemRead()
+                    && isSource(regs.EX_MEM.getDestReg(), idRs, idRt)) {
+                detectedHazards.add("LOAD_USE_HAZARD: Instruction in ID needs data from load in MEM");
+            }
+            for (int i = 1; i < regs.memoryBuffer.length; i++) {
+                if (isLoad(regs.memoryBuffer[i]) && isSource(regs.memoryBuffer[i].getDestReg(), idRs, idRt)) {
+                    detectedHazards.add("LOAD_USE_HAZARD: Instruction in ID needs data from load in MEM" + (i + 2));
+                }
+            }
+        }
+
         if (regs.ID_EX.getInstruction() != null && regs.ID_EX.isRegWrite() && !regs.ID_EX.isMemRead()) {
             int exDestReg = regs.ID_EX.isRegDst() ? regs.ID_EX.getRd() : regs.ID_EX.getRt();
 
@@ -63,6 +90,44 @@ public class HazardDetectionUnit {
         }
     }
 
+    private void checkBranchHazards(PipelineRegisters regs) {
+        if (!(regs.IF_ID.getInstruction() instanceof ITypeInstruction)) {
+            return;
+        }
+        ITypeInstruction branch = (ITypeInstruction) regs.IF_ID.getInstruction();
+        if (branch.getOpcode() != 0x04 && branch.getOpcode() != 0x05) {
+            return;
+        }
+        branch.decodeFields();
+        int rs = branch.getRs();
+        int rt = branch.getRt();
+
+        if (regs.ID_EX.getInstruction() != null && regs.ID_EX.isRegWrite()) {
+            int exDestReg = regs.ID_EX.isRegDst() ? regs.ID_EX.getRd() : regs.ID_EX.getRt();
+            if (exDestReg != 0 && (rs == exDestReg || rt == exDestReg)) {
+                detectedHazards.add("BRANCH_HAZARD: Branch in ID needs a result still in EX");
+            }
+        }
+
+        if (regs.EX_MEM.getInstruction() != null && regs.EX_MEM.isMemRead()
+                && isSource(regs.EX_MEM.getDestReg(), rs, rt)) {
+            detectedHazards.add("BRANCH_HAZARD: Branch in ID needs data from load in MEM");
+        }
+        for (MEM_WB_Register latch : regs.memoryBuffer) {
+            if (isLoad(latch) && isSource(latch.getDestReg(), rs, rt)) {
+                detectedHazards.add("BRANCH_HAZARD: Branch in ID needs data from load in MEM");
+            }
+        }
+    }
+
+    private static boolean isLoad(MEM_WB_Register latch) {
+        return latch.getInstruction() != null && latch.isMemToReg();
+    }
+
+    private static boolean isSource(int destReg, int rs, int rt) {
+        return destReg != 0 && (rs == destReg || rt == destReg);
+    }
+
     private void checkControlHazards(PipelineRegisters regs) {
         if (regs.EX_MEM.isBranch() && regs.EX_MEM.isBranchTaken()) {
             detectedHazards.add("CONTROL_HAZARD: Branch taken - pipeline needs flushing");
@@ -129,6 +194,10 @@ public class HazardDetectionUnit {
             return hazards.stream().anyMatch(h -> h.contains("LOAD_USE_HAZARD"));
         }
 
+        public boolean hasBranchHazard() {
+            return hazards.stream().anyMatch(h -> h.contains("BRANCH_HAZARD"));
+        }
+
         public boolean hasControlHazard() {
             return hazards.stream().anyMatch(h -> h.contains("CONTROL_HAZARD"));
         }
@@ -10,6 +10,7 @@ public class StallUnit {
     private boolean pcWrite = true;
     private boolean ifidWrite = true;
     private boolean idExClear = false;
+    private boolean branchStall = false;
 
     public boolean detectStall(PipelineRegisters regs) {
         stall = false;
@@ -18,8 +19,9 @@ public class StallUnit {
         idExClear = false;
 
         HazardDetectionUnit.HazardReport report = hazardDetectionUnit.checkAllHazards(regs);
+        branchStall = report.hasBranchHazard();
 
-        if (report.hasLoadUseHazard()) {
+        if (report.hasLoadUseHazard() || branchStall) {
             stall = true;
             pcWrite = false;
             ifidWrite = false;
@@ -28,10 +30,26 @@ public class StallUnit {
         return stall;
     }
 
+    /** True when the last stall came from a branch resolved in ID waiting for an operand. */
+    public boolean isBranchStall() {
+        return branchStall;
+    }
+
+    public void setEarlyBranches(boolean earlyBranches) {
+        hazardDetectionUnit.setEarlyBranches(earlyBranches);
+    }
+
     public StallControl getStallControl() {
         return new StallControl(stall, pcWrite, ifidWrite, idExClear);
     }
 
+    public void setStallControl(StallControl control) {
+        stall = control.stall;
+        pcWrite = control.pcWrite;
+        ifidWrite = control.ifidWrite;
+        idExClear = control.idExClear;
+    }
+
     public static class StallControl {
         public final boolean stall;
         public final boolean pcWrite;
@@ -0,0 +1,57 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Direction predictor for conditional branches, consulted by FetchStage for every fetched branch
+ * the branch target buffer knows about and trained when the branch resolves.
+ */
+public interface BranchPredictor {
+
+    /** Predicts whether the branch at pc, whose target is target, is taken. */
+    boolean predict(int pc, int target);
+
+    /** Trains the predictor with the resolved outcome of the branch at pc. */
+    void update(int pc, boolean taken);
+
+    void reset();
+
+    BranchPredictor copy();
+
+    String getName();
+
+    /** Table entries, as passed to create; 0 for a static predictor. */
+    int getEntries();
+
+    /** Writes the tables and history for a checkpoint. */
+    void writeTo(DataOutput out) throws IOException;
+
+    /** Replaces the tables and history with a checkpoint written by writeTo on a predictor of the same kind and size. */
+    void readFrom(DataInput in) throws IOException;
+
+    /**
+     * Creates a predictor by name: not-taken, taken, btfn, 1bit, 2bit, gshare or tournament.
+     * Table-based predictors get the given number of entries, a power of two.
+     */
+    static BranchPredictor create(String name, int entries) {
+        switch (name) {
+            case "not-taken": return new StaticPredictor(StaticPredictor.Policy.NOT_TAKEN);
+            case "taken": return new StaticPredictor(StaticPredictor.Policy.TAKEN);
+            case "btfn": return new StaticPredictor(StaticPredictor.Policy.BTFN);
+            case "1bit": return new CounterPredictor(1, entries);
+            case "2bit": return new CounterPredictor(2, entries);
+            case "gshare": return new GsharePredictor(entries);
+            case "tournament": return new TournamentPredictor(entries);
+            default: throw new IllegalArgumentException("Unknown branch predictor: " + name);
+        }
+    }
+
+    static int checkEntries(int entries) {
+        if (entries < 1 || Integer.bitCount(entries) != 1) {
+            throw new IllegalArgumentException("Predictor table size must be a power of two: " + entries);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,75 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Direct-mapped table of branch addresses and their taken targets, so fetch can redirect to a
+ * predicted-taken target before the branch is decoded. Entries are allocated when a branch is
+ * first taken.
+ */
+public class BranchTargetBuffer {
+
+    public static final int MISS = -1;
+
+    private final int[] tags;    // branch PC per entry, MISS when empty
+    private final int[] targets;
+
+    public BranchTargetBuffer(int entries) {
+        BranchPredictor.checkEntries(entries);
+        this.tags = new int[entries];
+        this.targets = new int[entries];
+        Arrays.fill(tags, MISS);
+    }
+
+    private BranchTargetBuffer(BranchTargetBuffer source) {
+        this.tags = source.tags.clone();
+        this.targets = source.targets.clone();
+    }
+
+    /** Target of the branch at pc, or MISS. */
+    public int lookup(int pc) {
+        int i = index(pc);
+        return tags[i] == pc ? targets[i] : MISS;
+    }
+
+    public void update(int pc, int target) {
+        int i = index(pc);
+        tags[i] = pc;
+        targets[i] = target;
+    }
+
+    private int index(int pc) {
+        return (pc >>> 2) & (tags.length - 1);
+    }
+
+    public int size() {
+        return tags.length;
+    }
+
+    public void reset() {
+        Arrays.fill(tags, MISS);
+    }
+
+    /** Writes the entries for a checkpoint. */
+    public void writeTo(DataOutput out) throws IOException {
+        for (int i = 0; i < tags.length; i++) {
+            out.writeInt(tags[i]);
+            out.writeInt(targets[i]);
+        }
+    }
+
+    /** Replaces the entries with a checkpoint written by writeTo on a buffer of the same size. */
+    public void readFrom(DataInput in) throws IOException {
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = in.readInt();
+            targets[i] = in.readInt();
+        }
+    }
+
+    public BranchTargetBuffer copy() {
+        return new BranchTargetBuffer(this);
+    }
+}
@@ -0,0 +1,88 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Table of saturating counters indexed by branch address. One-bit counters remember the last
+ * outcome; two-bit counters need two mispredictions in a row to change their prediction.
+ */
+public final class CounterPredictor implements BranchPredictor {
+
+    private final int bits;
+    private final int max;
+    private final byte[] counters;
+
+    public CounterPredictor(int bits, int entries) {
+        if (bits != 1 && bits != 2) {
+            throw new IllegalArgumentException("Counters must have 1 or 2 bits: " + bits);
+        }
+        this.bits = bits;
+        this.max = (1 << bits) - 1;
+        this.counters = new byte[BranchPredictor.checkEntries(entries)];
+        reset();
+    }
+
+    private CounterPredictor(CounterPredictor source) {
+        this.bits = source.bits;
+        this.max = source.max;
+        this.counters = source.counters.clone();
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        return counters[index(pc)] > max / 2;
+    }
+
+    @Override
+    public void update(int pc, boolean taken) {
+        int i = index(pc);
+        counters[i] = bump(counters[i], taken, max);
+    }
+
+    static byte bump(byte counter, boolean up, int max) {
+        if (up) return counter < max ? (byte) (counter + 1) : counter;
+        return counter > 0 ? (byte) (counter - 1) : counter;
+    }
+
+    private int index(int pc) {
+        return (pc >>> 2) & (counters.length - 1);
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(counters, (byte) (max / 2)); // weakly not taken
+    }
+
+    @Override
+    public BranchPredictor copy() {
+        return new CounterPredictor(this);
+    }
+
+    @Override
+    public String getName() {
+        return bits + "bit";
+    }
+
+    @Override
+    public int getEntries() {
+        return counters.length;
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        out.write(counters);
+    }
+
+    @Override
+    public void readFrom(DataInput in) throws IOException {
+        in.readFully(counters);
+        for (byte counter : counters) {
+            if (counter < 0 || counter > max) {
+                throw new IllegalArgumentException("Corrupt predictor checkpoint");
+            }
+        }
+    }
+}
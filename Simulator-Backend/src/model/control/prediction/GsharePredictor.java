@@ -0,0 +1,83 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Two-bit counters indexed by the branch address XOR the global history of branch outcomes.
+ * The history is updated when branches resolve, not speculatively at fetch.
+ */
+public final class GsharePredictor implements BranchPredictor {
+
+    private final byte[] counters;
+    private final int historyMask;
+    private int history;
+
+    public GsharePredictor(int entries) {
+        this.counters = new byte[BranchPredictor.checkEntries(entries)];
+        this.historyMask = entries - 1;
+        reset();
+    }
+
+    private GsharePredictor(GsharePredictor source) {
+        this.counters = source.counters.clone();
+        this.historyMask = source.historyMask;
+        this.history = source.history;
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        return counters[index(pc)] > 1;
+    }
+
+    @Override
+    public void update(int pc, boolean taken) {
+        int i = index(pc);
+        counters[i] = CounterPredictor.bump(counters[i], taken, 3);
+        history = ((history << 1) | (taken ? 1 : 0)) & historyMask;
+    }
+
+    private int index(int pc) {
+        return ((pc >>> 2) ^ history) & historyMask;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(counters, (byte) 1);
+        history = 0;
+    }
+
+    @Override
+    public BranchPredictor copy() {
+        return new GsharePredictor(this);
+    }
+
+    @Override
+    public String getName() {
+        return "gshare";
+    }
+
+    @Override
+    public int getEntries() {
+        return counters.length;
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        out.write(counters);
+        out.writeInt(history);
+    }
+
+    @Override
+    public void readFrom(DataInput in) throws IOException {
+        in.readFully(counters);
+        history = in.readInt() & historyMask;
+        for (byte counter : counters) {
+            if (counter < 0 || counter > 3) {
+                throw new IllegalArgumentException("Corrupt predictor checkpoint");
+            }
+        }
+    }
+}
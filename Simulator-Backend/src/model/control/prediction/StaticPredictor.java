@@ -0,0 +1,58 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+
+/**
+ * Fixed predictions: never taken, always taken, or backward taken / forward not taken.
+ */
+public class StaticPredictor implements BranchPredictor {
+
+    public enum Policy { NOT_TAKEN, TAKEN, BTFN }
+
+    private final Policy policy;
+
+    public StaticPredictor(Policy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        switch (policy) {
+            case TAKEN: return true;
+            case BTFN: return target <= pc;
+            default: return false;
+        }
+    }
+
+    @Override
+    public void update(int pc, boolean taken) {}
+
+    @Override
+    public void reset() {}
+
+    @Override
+    public BranchPredictor copy() {
+        return this;
+    }
+
+    @Override
+    public int getEntries() {
+        return 0;
+    }
+
+    @Override
+    public void writeTo(DataOutput out) {}
+
+    @Override
+    public void readFrom(DataInput in) {}
+
+    @Override
+    public String getName() {
+        switch (policy) {
+            case TAKEN: return "taken";
+            case BTFN: return "btfn";
+            default: return "not-taken";
+        }
+    }
+}
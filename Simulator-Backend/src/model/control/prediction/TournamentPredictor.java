@@ -0,0 +1,92 @@
+package model.control.prediction;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Chooses per branch between a two-bit counter table and gshare, using a table of two-bit
+ * choosers that move toward whichever component was right when the two disagreed.
+ */
+public final class TournamentPredictor implements BranchPredictor {
+
+    private final CounterPredictor local;
+    private final GsharePredictor global;
+    private final byte[] choosers; // above 1 prefers gshare
+
+    public TournamentPredictor(int entries) {
+        this.local = new CounterPredictor(2, entries);
+        this.global = new GsharePredictor(entries);
+        this.choosers = new byte[entries];
+        reset();
+    }
+
+    private TournamentPredictor(TournamentPredictor source) {
+        this.local = (CounterPredictor) source.local.copy();
+        this.global = (GsharePredictor) source.global.copy();
+        this.choosers = source.choosers.clone();
+    }
+
+    @Override
+    public boolean predict(int pc, int target) {
+        return choosers[index(pc)] > 1 ? global.predict(pc, target) : local.predict(pc, target);
+    }
+
+    @Override
+    public void update(int pc, boolean taken) {
+        boolean localRight = local.predict(pc, 0) == taken;
+        boolean globalRight = global.predict(pc, 0) == taken;
+        if (localRight != globalRight) {
+            int i = index(pc);
+            choosers[i] = CounterPredictor.bump(choosers[i], globalRight, 3);
+        }
+        local.update(pc, taken);
+        global.update(pc, taken);
+    }
+
+    private int index(int pc) {
+        return (pc >>> 2) & (choosers.length - 1);
+    }
+
+    @Override
+    public void reset() {
+        local.reset();
+        global.reset();
+        Arrays.fill(choosers, (byte) 1);
+    }
+
+    @Override
+    public BranchPredictor copy() {
+        return new TournamentPredictor(this);
+    }
+
+    @Override
+    public String getName() {
+        return "tournament";
+    }
+
+    @Override
+    public int getEntries() {
+        return choosers.length;
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        local.writeTo(out);
+        global.writeTo(out);
+        out.write(choosers);
+    }
+
+    @Override
+    public void readFrom(DataInput in) throws IOException {
+        local.readFrom(in);
+        global.readFrom(in);
+        in.readFully(choosers);
+        for (byte chooser : choosers) {
+            if (chooser < 0 || chooser > 3) {
+                throw new IllegalArgumentException("Corrupt predictor checkpoint");
+            }
+        }
+    }
+}
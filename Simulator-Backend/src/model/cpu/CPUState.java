@@ -12,7 +12,24 @@ public class CPUState {
     public CPUState(InstructionMemory instrMem) {
         this.instructionMemory = instrMem;
     }
+
+    public CPUState(InstructionMemory instrMem, DataMemory dataMem) {
+        this.instructionMemory = instrMem;
+        this.dataMemory = dataMem;
+    }
+
     public void setPC(int target) {
         this.pc.set(target);
     }
+
+    /**
+     * Copies registers and PC and shares both memories copy-on-write, so the cost of a fork
+     * is paid in the pages either state writes afterwards.
+     */
+    public CPUState fork() {
+        CPUState copy = new CPUState(instructionMemory.fork(), dataMemory.fork());
+        copy.registerFile = registerFile.copy();
+        copy.pc.set(pc.get());
+        return copy;
+    }
 }
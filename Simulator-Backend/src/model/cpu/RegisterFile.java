@@ -15,4 +15,10 @@ public class RegisterFile {
             regs[index] = value;
         }
     }
-}
\ No newline at end of file
+
+    public RegisterFile copy() {
+        RegisterFile c = new RegisterFile();
+        System.arraycopy(regs, 0, c.regs, 0, regs.length);
+        return c;
+    }
+}
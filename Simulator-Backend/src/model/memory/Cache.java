@@ -0,0 +1,286 @@
+package model.memory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Set-associative cache timing model. Only tags are kept: the data stays in InstructionMemory and
+ * DataMemory, so a cache changes how many cycles an access takes, never the value it returns.
+ * Tags, dirty bits, replacement stamps and statistics all live in primitive arrays. Latencies
+ * belong to the CacheHierarchy the cache is part of.
+ */
+public class Cache {
+
+    public enum Replacement { LRU, FIFO, RANDOM }
+
+    // Indices into the statistics array
+    public static final int READ_HITS = 0;
+    public static final int READ_MISSES = 1;
+    public static final int WRITE_HITS = 2;
+    public static final int WRITE_MISSES = 3;
+    public static final int EVICTIONS = 4;
+    public static final int WRITEBACKS = 5; // dirty lines written back, or every write a write-through cache passes down
+    private static final int STAT_COUNT = 6;
+
+    static final int INVALID = -1;
+
+    private final int sizeBytes;
+    private final int lineBytes;
+    private final int ways;
+    private final int sets;
+    private final int lineShift;
+
+    private final int[] tags;        // line number held by way w of set s at s * ways + w, INVALID when empty
+    private final boolean[] dirty;
+    private final long[] stamps;     // last use for LRU, fill time for FIFO
+    private final long[] stats = new long[STAT_COUNT];
+    private long time;
+    private int random = 0x2545F491;
+    private int evictedLine = INVALID; // line displaced by the last fill, INVALID when the way was empty
+    private boolean evictedDirty;
+
+    private Replacement replacement = Replacement.LRU;
+    private boolean writeBack = true;
+    private boolean writeAllocate = true;
+
+    public Cache(int sizeBytes, int lineBytes, int ways) {
+        if (lineBytes < 4 || Integer.bitCount(lineBytes) != 1) {
+            throw new IllegalArgumentException("Line size must be a power of two of at least 4 bytes: " + lineBytes);
+        }
+        if (ways < 1 || sizeBytes < lineBytes * ways || sizeBytes % (lineBytes * ways) != 0
+                || Integer.bitCount(sizeBytes / (lineBytes * ways)) != 1) {
+            throw new IllegalArgumentException("Cache of " + sizeBytes + " bytes cannot hold a power-of-two number of "
+                    + ways + "-way sets of " + lineBytes + "-byte lines");
+        }
+        this.sizeBytes = sizeBytes;
+        this.lineBytes = lineBytes;
+        this.ways = ways;
+        this.sets = sizeBytes / (lineBytes * ways);
+        this.lineShift = Integer.numberOfTrailingZeros(lineBytes);
+        this.tags = new int[sets * ways];
+        this.dirty = new boolean[sets * ways];
+        this.stamps = new long[sets * ways];
+        Arrays.fill(tags, INVALID);
+    }
+
+    private Cache(Cache source) {
+        this.sizeBytes = source.sizeBytes;
+        this.lineBytes = source.lineBytes;
+        this.ways = source.ways;
+        this.sets = source.sets;
+        this.lineShift = source.lineShift;
+        this.tags = source.tags.clone();
+        this.dirty = source.dirty.clone();
+        this.stamps = source.stamps.clone();
+        System.arraycopy(source.stats, 0, stats, 0, STAT_COUNT);
+        this.time = source.time;
+        this.random = source.random;
+        this.replacement = source.replacement;
+        this.writeBack = source.writeBack;
+        this.writeAllocate = source.writeAllocate;
+    }
+
+    /**
+     * Looks up the line holding address and returns true on a hit. A miss fills the line, unless it
+     * is a write and the cache does not allocate on writes; lineEvicted then reports what the fill
+     * displaced.
+     */
+    public boolean access(int address, boolean write) {
+        int slot = find(address);
+        if (slot >= 0) {
+            stats[write ? WRITE_HITS : READ_HITS]++;
+            touch(slot, write);
+            return true;
+        }
+        stats[write ? WRITE_MISSES : READ_MISSES]++;
+        evictedLine = INVALID;
+        if (write && !writeAllocate) {
+            stats[WRITEBACKS]++;
+        } else {
+            slot = fill(address, false);
+            if (write) write(slot);
+        }
+        return false;
+    }
+
+    /** Slot holding address, or -1. Changes neither statistics nor replacement order. */
+    int find(int address) {
+        int line = address >>> lineShift;
+        int base = (line & (sets - 1)) * ways;
+        for (int i = base; i < base + ways; i++) {
+            if (tags[i] == line) return i;
+        }
+        return -1;
+    }
+
+    void touch(int slot, boolean write) {
+        time++;
+        if (replacement == Replacement.LRU) stamps[slot] = time;
+        if (write) write(slot);
+    }
+
+    /** Installs the line holding address, which must not be present, and returns its slot. */
+    int fill(int address, boolean lineDirty) {
+        int line = address >>> lineShift;
+        int slot = victim((line & (sets - 1)) * ways);
+        evictedLine = tags[slot];
+        evictedDirty = dirty[slot];
+        if (evictedLine != INVALID) {
+            stats[EVICTIONS]++;
+            if (evictedDirty) stats[WRITEBACKS]++;
+        }
+        time++;
+        tags[slot] = line;
+        dirty[slot] = lineDirty;
+        stamps[slot] = time;
+        return slot;
+    }
+
+    /** Drops the line holding address if present; returns 1 if it was dirty, 0 if clean, -1 if absent. */
+    int remove(int address) {
+        int slot = find(address);
+        if (slot < 0) return -1;
+        tags[slot] = INVALID;
+        boolean wasDirty = dirty[slot];
+        dirty[slot] = false;
+        return wasDirty ? 1 : 0;
+    }
+
+    /** Clears the dirty bit of the line holding address, once its data has been written to memory. */
+    void clean(int address) {
+        int slot = find(address);
+        if (slot >= 0) dirty[slot] = false;
+    }
+
+    /** Byte address of the line displaced by the last fill, or -1 when it went into an empty way. */
+    int lineEvicted() {
+        return evictedLine == INVALID ? INVALID : evictedLine << lineShift;
+    }
+
+    boolean lineEvictedDirty() {
+        return evictedLine != INVALID && evictedDirty;
+    }
+
+    void count(int stat) {
+        stats[stat]++;
+    }
+
+    private void write(int slot) {
+        if (writeBack) {
+            dirty[slot] = true;
+        } else {
+            stats[WRITEBACKS]++;
+        }
+    }
+
+    private int victim(int base) {
+        for (int i = base; i < base + ways; i++) {
+            if (tags[i] == INVALID) return i;
+        }
+        if (replacement == Replacement.RANDOM) {
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            return base + Integer.remainderUnsigned(random, ways);
+        }
+        int oldest = base;
+        for (int i = base + 1; i < base + ways; i++) {
+            if (stamps[i] < stamps[oldest]) oldest = i;
+        }
+        return oldest;
+    }
+
+    public boolean contains(int address) {
+        return find(address) >= 0;
+    }
+
+    /** Drops every line without writing dirty ones back. Statistics are kept. */
+    public void invalidate() {
+        Arrays.fill(tags, INVALID);
+        Arrays.fill(dirty, false);
+        Arrays.fill(stamps, 0);
+        time = 0;
+        evictedLine = INVALID;
+    }
+
+    public Cache copy() {
+        return new Cache(this);
+    }
+
+    /**
+     * Writes the geometry, policies and contents for a checkpoint; statistics are not included.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(sizeBytes);
+        out.writeInt(lineBytes);
+        out.writeInt(ways);
+        out.writeByte(replacement.ordinal());
+        out.writeBoolean(writeBack);
+        out.writeBoolean(writeAllocate);
+        out.writeLong(time);
+        out.writeInt(random);
+        out.writeInt(evictedLine);
+        out.writeBoolean(evictedDirty);
+        for (int slot = 0; slot < tags.length; slot++) {
+            out.writeInt(tags[slot]);
+            out.writeBoolean(dirty[slot]);
+            out.writeLong(stamps[slot]);
+        }
+    }
+
+    /**
+     * Reads a cache written by writeTo, with cleared statistics.
+     */
+    public static Cache readFrom(DataInput in) throws IOException {
+        Cache cache = new Cache(in.readInt(), in.readInt(), in.readInt());
+        int replacement = in.readByte();
+        if (replacement < 0 || replacement >= Replacement.values().length) {
+            throw new IllegalArgumentException("Corrupt cache checkpoint");
+        }
+        cache.replacement = Replacement.values()[replacement];
+        cache.writeBack = in.readBoolean();
+        cache.writeAllocate = in.readBoolean();
+        cache.time = in.readLong();
+        cache.random = in.readInt();
+        cache.evictedLine = in.readInt();
+        cache.evictedDirty = in.readBoolean();
+        for (int slot = 0; slot < cache.tags.length; slot++) {
+            cache.tags[slot] = in.readInt();
+            cache.dirty[slot] = in.readBoolean();
+            cache.stamps[slot] = in.readLong();
+        }
+        return cache;
+    }
+
+    public long getStat(int index) { return stats[index]; }
+    public long getHits() { return stats[READ_HITS] + stats[WRITE_HITS]; }
+    public long getMisses() { return stats[READ_MISSES] + stats[WRITE_MISSES]; }
+    public long getEvictions() { return stats[EVICTIONS]; }
+    public long getWritebacks() { return stats[WRITEBACKS]; }
+
+    /** Misses per access, or 0 before the first access. */
+    public double getMissRate() {
+        long accesses = getHits() + getMisses();
+        return accesses == 0 ? 0 : (double) getMisses() / accesses;
+    }
+
+    public void resetStats() {
+        Arrays.fill(stats, 0);
+    }
+
+    public int getSizeBytes() { return sizeBytes; }
+    public int getLineBytes() { return lineBytes; }
+    public int getWays() { return ways; }
+    public int getSets() { return sets; }
+
+    public Replacement getReplacement() { return replacement; }
+    public void setReplacement(Replacement replacement) { this.replacement = replacement; }
+
+    public boolean isWriteBack() { return writeBack; }
+    public void setWriteBack(boolean writeBack) { this.writeBack = writeBack; }
+
+    public boolean isWriteAllocate() { return writeAllocate; }
+    public void setWriteAllocate(boolean writeAllocate) { this.writeAllocate = writeAllocate; }
+}
@@ -0,0 +1,326 @@
+package model.memory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Split L1 instruction and data caches over an optional unified L2 and main memory. Every level
+ * is optional; with no cache at all accesses are free, as in the plain pipeline.
+ *
+ * Reads that miss pay the L2 latency when there is an L2, plus the memory latency and the time to
+ * move the line over the memory bus when the L2 misses as well. Writes that leave a cache (write
+ * through, no write-allocate, dirty victims) drain through a write buffer without stalling; they
+ * only show up in the statistics.
+ *
+ * An inclusive L2 holds every line the L1s hold, so evicting an L2 line invalidates the L1 copies.
+ * An exclusive L2 only holds lines evicted from the L1s, and hands a line back to the L1 on a hit.
+ * All levels must use the same line size.
+ */
+public class CacheHierarchy {
+
+    public enum Inclusion { INCLUSIVE, EXCLUSIVE }
+
+    private Cache instructionCache;
+    private Cache dataCache;
+    private Cache l2;
+    private Inclusion inclusion = Inclusion.INCLUSIVE;
+    private int l2Latency = 8;
+    private int memoryLatency = 40;
+    private int memoryBandwidth = 8; // bytes per cycle
+    private long memoryReads;        // lines fetched from memory
+    private long memoryWrites;       // lines or words written to memory
+    private CoherenceBus bus;        // set when the L1 data cache is one of several kept coherent
+    private int core;
+
+    public CacheHierarchy copy() {
+        CacheHierarchy copy = new CacheHierarchy();
+        copy.instructionCache = instructionCache != null ? instructionCache.copy() : null;
+        copy.dataCache = dataCache != null ? dataCache.copy() : null;
+        copy.l2 = l2 != null ? l2.copy() : null;
+        copy.inclusion = inclusion;
+        copy.l2Latency = l2Latency;
+        copy.memoryLatency = memoryLatency;
+        copy.memoryBandwidth = memoryBandwidth;
+        copy.memoryReads = memoryReads;
+        copy.memoryWrites = memoryWrites;
+        return copy;
+    }
+
+    /** Takes over the configuration, contents and statistics of other, keeping the bus connection. */
+    public void copyFrom(CacheHierarchy other) {
+        instructionCache = other.instructionCache;
+        dataCache = other.dataCache;
+        l2 = other.l2;
+        inclusion = other.inclusion;
+        l2Latency = other.l2Latency;
+        memoryLatency = other.memoryLatency;
+        memoryBandwidth = other.memoryBandwidth;
+        memoryReads = other.memoryReads;
+        memoryWrites = other.memoryWrites;
+    }
+
+    /** Stall cycles for fetching the instruction at address. */
+    public int fetch(int address) {
+        return instructionCache == null ? 0 : access(instructionCache, address, false);
+    }
+
+    /** Stall cycles for a load or store at address. */
+    public int access(int address, boolean write) {
+        if (dataCache == null) return 0;
+        return bus != null ? bus.access(core, address, write) : access(dataCache, address, write);
+    }
+
+    // Data accesses go through the bus from now on; copies are not connected
+    void connect(CoherenceBus bus, int core) {
+        this.bus = bus;
+        this.core = core;
+    }
+
+    private int access(Cache l1, int address, boolean write) {
+        if (l1.access(address, write)) {
+            if (write && !l1.isWriteBack()) writeBelowL1(address);
+            return 0;
+        }
+        if (write && !l1.isWriteAllocate()) {
+            writeBelowL1(address);
+            return 0;
+        }
+        int victim = l1.lineEvicted();
+        boolean victimDirty = l1.lineEvictedDirty();
+        if (l2 != null && inclusion == Inclusion.EXCLUSIVE) {
+            // Look the line up before the victim moves down, or the victim's fill could evict it
+            int cycles = readBelowL1(l1, address);
+            if (victim != Cache.INVALID) fillL2(victim, victimDirty);
+            if (write && !l1.isWriteBack()) writeBelowL1(address);
+            return cycles;
+        }
+        if (victim != Cache.INVALID && victimDirty) {
+            writeBelowL1(victim);
+        }
+
+        int cycles = readBelowL1(l1, address);
+        if (write && !l1.isWriteBack()) writeBelowL1(address);
+        return cycles;
+    }
+
+    // Brings the line into an L1 that has just missed on it
+    private int readBelowL1(Cache l1, int address) {
+        if (l2 == null) {
+            return readMemory();
+        }
+        if (inclusion == Inclusion.EXCLUSIVE) {
+            int wasDirty = l2.remove(address);
+            if (wasDirty >= 0) {
+                l2.count(Cache.READ_HITS);
+                if (wasDirty == 1 && l1.isWriteBack()) {
+                    l1.touch(l1.find(address), true);
+                } else if (wasDirty == 1) {
+                    memoryWrites++;
+                }
+                return l2Latency;
+            }
+            l2.count(Cache.READ_MISSES);
+            return l2Latency + readMemory();
+        }
+        if (l2.access(address, false)) {
+            return l2Latency;
+        }
+        evictFromL2();
+        return l2Latency + readMemory();
+    }
+
+    // A write leaving an L1: a dirty victim, write-through traffic or a write that did not allocate
+    private void writeBelowL1(int address) {
+        if (l2 == null) {
+            memoryWrites++;
+            return;
+        }
+        int slot = l2.find(address);
+        if (slot >= 0) {
+            l2.count(Cache.WRITE_HITS);
+            l2.touch(slot, true);
+            if (!l2.isWriteBack()) memoryWrites++;
+        } else if (inclusion == Inclusion.EXCLUSIVE) {
+            // Not held below the L1; the line itself goes to memory
+            memoryWrites++;
+        } else {
+            l2.access(address, true);
+            if (!l2.isWriteAllocate()) {
+                memoryWrites++;
+            } else {
+                memoryReads++;
+                evictFromL2();
+                if (!l2.isWriteBack()) memoryWrites++;
+            }
+        }
+    }
+
+    private void fillL2(int address, boolean dirty) {
+        int slot = l2.find(address);
+        if (slot >= 0) {
+            l2.touch(slot, dirty);
+            return;
+        }
+        l2.fill(address, dirty && l2.isWriteBack());
+        if (dirty && !l2.isWriteBack()) memoryWrites++;
+        if (l2.lineEvictedDirty()) memoryWrites++;
+    }
+
+    // Handles the victim of the last L2 fill: written to memory if dirty, and for an inclusive L2
+    // dropped from the L1s too, taking any newer dirty copy with it
+    private void evictFromL2() {
+        int victim = l2.lineEvicted();
+        if (victim == Cache.INVALID) return;
+        boolean dirty = l2.lineEvictedDirty();
+        if (inclusion == Inclusion.INCLUSIVE) {
+            if (instructionCache != null && instructionCache.remove(victim) == 1) dirty = true;
+            if (dataCache != null && dataCache.remove(victim) == 1) dirty = true;
+        }
+        if (dirty) memoryWrites++;
+    }
+
+    private int readMemory() {
+        memoryReads++;
+        return memoryLatency + (lineBytes() + memoryBandwidth - 1) / memoryBandwidth;
+    }
+
+    private int lineBytes() {
+        if (l2 != null) return l2.getLineBytes();
+        if (dataCache != null) return dataCache.getLineBytes();
+        return instructionCache != null ? instructionCache.getLineBytes() : 4;
+    }
+
+    /** Drops every line at every level. Statistics are kept. */
+    public void invalidate() {
+        if (instructionCache != null) instructionCache.invalidate();
+        if (dataCache != null) dataCache.invalidate();
+        if (l2 != null) l2.invalidate();
+    }
+
+    public void resetStats() {
+        if (instructionCache != null) instructionCache.resetStats();
+        if (dataCache != null) dataCache.resetStats();
+        if (l2 != null) l2.resetStats();
+        memoryReads = 0;
+        memoryWrites = 0;
+    }
+
+    /**
+     * Writes the configuration and the contents of every level for a checkpoint; statistics are
+     * not included.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(inclusion.ordinal());
+        out.writeInt(l2Latency);
+        out.writeInt(memoryLatency);
+        out.writeInt(memoryBandwidth);
+        for (Cache cache : new Cache[]{instructionCache, dataCache, l2}) {
+            out.writeBoolean(cache != null);
+            if (cache != null) cache.writeTo(out);
+        }
+    }
+
+    /**
+     * Replaces the configuration and contents with a checkpoint written by writeTo and clears the
+     * statistics. A bus connection is kept.
+     */
+    public void readFrom(DataInput in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= Inclusion.values().length) {
+            throw new IllegalArgumentException("Corrupt cache checkpoint");
+        }
+        Inclusion savedInclusion = Inclusion.values()[ordinal];
+        int savedL2Latency = in.readInt();
+        int savedMemoryLatency = in.readInt();
+        int savedBandwidth = in.readInt();
+        Cache[] levels = new Cache[3];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = in.readBoolean() ? Cache.readFrom(in) : null;
+        }
+        checkLineSize(levels[0], levels[1], levels[2]);
+        checkLineSize(levels[1], levels[0], levels[2]);
+
+        setL2Latency(savedL2Latency);
+        setMemoryLatency(savedMemoryLatency);
+        setMemoryBandwidth(savedBandwidth);
+        inclusion = savedInclusion;
+        instructionCache = levels[0];
+        dataCache = levels[1];
+        l2 = levels[2];
+        memoryReads = 0;
+        memoryWrites = 0;
+    }
+
+    public Cache getInstructionCache() { return instructionCache; }
+    public Cache getDataCache() { return dataCache; }
+    public Cache getL2() { return l2; }
+
+    /** Installs a cold L1 instruction cache, or removes it when null. */
+    public void setInstructionCache(Cache cache) {
+        checkLineSize(cache, dataCache, l2);
+        instructionCache = cache;
+    }
+
+    /** Installs a cold L1 data cache, or removes it when null. */
+    public void setDataCache(Cache cache) {
+        checkLineSize(cache, instructionCache, l2);
+        dataCache = cache;
+    }
+
+    /** Installs a cold unified L2, or removes it when null. The L1s are invalidated to keep inclusion. */
+    public void setL2(Cache cache) {
+        checkLineSize(cache, instructionCache, dataCache);
+        l2 = cache;
+        if (instructionCache != null) instructionCache.invalidate();
+        if (dataCache != null) dataCache.invalidate();
+    }
+
+    private static void checkLineSize(Cache cache, Cache other1, Cache other2) {
+        if (cache == null) return;
+        for (Cache other : new Cache[]{other1, other2}) {
+            if (other != null && other.getLineBytes() != cache.getLineBytes()) {
+                throw new IllegalArgumentException("All cache levels must use the same line size: "
+                        + cache.getLineBytes() + " != " + other.getLineBytes());
+            }
+        }
+    }
+
+    public Inclusion getInclusion() { return inclusion; }
+
+    /** Switches the L2 policy; the L2 is invalidated since its contents may break the new policy. */
+    public void setInclusion(Inclusion inclusion) {
+        this.inclusion = inclusion;
+        if (l2 != null) l2.invalidate();
+        if (instructionCache != null) instructionCache.invalidate();
+        if (dataCache != null) dataCache.invalidate();
+    }
+
+    public int getL2Latency() { return l2Latency; }
+    public int getMemoryLatency() { return memoryLatency; }
+    public int getMemoryBandwidth() { return memoryBandwidth; }
+    public long getMemoryReads() { return memoryReads; }
+    public long getMemoryWrites() { return memoryWrites; }
+
+    public void setL2Latency(int cycles) {
+        l2Latency = checkCycles(cycles, "L2 latency");
+    }
+
+    public void setMemoryLatency(int cycles) {
+        memoryLatency = checkCycles(cycles, "Memory latency");
+    }
+
+    public void setMemoryBandwidth(int bytesPerCycle) {
+        if (bytesPerCycle < 1) {
+            throw new IllegalArgumentException("Memory bandwidth must be at least 1 byte per cycle: " + bytesPerCycle);
+        }
+        memoryBandwidth = bytesPerCycle;
+    }
+
+    private static int checkCycles(int cycles, String what) {
+        if (cycles < 0) {
+            throw new IllegalArgumentException(what + " must not be negative: " + cycles);
+        }
+        return cycles;
+    }
+}
@@ -0,0 +1,203 @@
+package model.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snooping MESI protocol between the L1 data caches of several cores on one shared bus. Like the
+ * caches themselves it is a timing model: every core reads and writes the same DataMemory, and
+ * the protocol decides how long each access takes and what traffic it causes.
+ *
+ * A read miss broadcasts BusRd and fills the line EXCLUSIVE, or SHARED when another cache holds
+ * it. A write miss broadcasts BusRdX and a write hit on a SHARED line BusUpgr; both invalidate
+ * every other copy, and the line becomes MODIFIED. A write hit on an EXCLUSIVE line upgrades
+ * silently. A MODIFIED copy snooped by another core's miss is flushed: the data goes cache to
+ * cache and to memory, and the copy drops to SHARED, or INVALID for BusRdX.
+ *
+ * The bus carries one transaction at a time. Requests are granted in the order cores run within
+ * a cycle, which MulticoreController rotates every cycle; a core waits for the transactions ahead
+ * of it and stalls until its own completes. Dirty victims drain through a write buffer, holding
+ * the bus without stalling the core. The bus replaces everything below the L1 data caches.
+ */
+public class CoherenceBus {
+
+    public enum State { MODIFIED, EXCLUSIVE, SHARED, INVALID }
+
+    // Indices into the statistics array
+    public static final int BUS_READS = 0;           // BusRd
+    public static final int BUS_READ_EXCLUSIVES = 1; // BusRdX
+    public static final int BUS_UPGRADES = 2;        // BusUpgr
+    public static final int FLUSHES = 3;             // MODIFIED lines supplied to another cache
+    public static final int WRITEBACKS = 4;          // dirty victims written to memory
+    public static final int MEMORY_READS = 5;        // misses no cache could supply
+    private static final int STAT_COUNT = 6;
+
+    private final List<CacheHierarchy> cores = new ArrayList<>();
+    private final List<Map<Integer, State>> states = new ArrayList<>(); // by line number, valid while the cache holds the line
+    private final List<long[]> coreStats = new ArrayList<>();            // invalidations received, flushes supplied
+    private final long[] stats = new long[STAT_COUNT];
+
+    private int busLatency = 2;       // arbitration and address phase of every transaction
+    private int memoryLatency = 20;
+    private int transferLatency = 4;  // a flushed line moving to the requesting cache
+    private int lineShift = -1;
+
+    private long cycle;
+    private long busyUntil;
+    private long busyCycles;
+    private long waitCycles;
+
+    /**
+     * Adds a core whose hierarchy has a write-back, write-allocate L1 data cache with the same line
+     * size as the others, and returns its index.
+     */
+    public int connect(CacheHierarchy caches) {
+        Cache cache = caches.getDataCache();
+        if (cache == null || !cache.isWriteBack() || !cache.isWriteAllocate()) {
+            throw new IllegalArgumentException("Coherent cores need a write-back, write-allocate L1 data cache");
+        }
+        int shift = Integer.numberOfTrailingZeros(cache.getLineBytes());
+        if (lineShift >= 0 && shift != lineShift) {
+            throw new IllegalArgumentException("All coherent caches must use the same line size: "
+                    + cache.getLineBytes() + " != " + (1 << lineShift));
+        }
+        lineShift = shift;
+        int core = cores.size();
+        cores.add(caches);
+        states.add(new HashMap<>());
+        coreStats.add(new long[2]);
+        caches.connect(this, core);
+        return core;
+    }
+
+    /** Starts the next bus cycle. */
+    public void tick() {
+        cycle++;
+    }
+
+    /** Stall cycles for a load or store by core at address. */
+    public int access(int core, int address, boolean write) {
+        Cache cache = cores.get(core).getDataCache();
+        int line = address >>> lineShift;
+        State state = getState(core, address);
+
+        if (state != State.INVALID) {
+            cache.count(write ? Cache.WRITE_HITS : Cache.READ_HITS);
+            cache.touch(cache.find(address), write);
+            if (!write || state == State.MODIFIED) return 0;
+            states.get(core).put(line, State.MODIFIED);
+            if (state == State.EXCLUSIVE) return 0;
+            stats[BUS_UPGRADES]++;
+            snoop(core, address, true);
+            return transaction(busLatency);
+        }
+
+        cache.count(write ? Cache.WRITE_MISSES : Cache.READ_MISSES);
+        stats[write ? BUS_READ_EXCLUSIVES : BUS_READS]++;
+        int holders = snoop(core, address, write);
+        boolean flushed = holders < 0;
+        if (!flushed) stats[MEMORY_READS]++;
+
+        cache.fill(address, write);
+        int victim = cache.lineEvicted();
+        boolean victimDirty = cache.lineEvictedDirty();
+        if (victim != Cache.INVALID) {
+            states.get(core).remove(victim >>> lineShift);
+        }
+        states.get(core).put(line, write ? State.MODIFIED : holders != 0 ? State.SHARED : State.EXCLUSIVE);
+
+        int stall = transaction(busLatency + (flushed ? transferLatency : memoryLatency));
+        if (victimDirty) {
+            stats[WRITEBACKS]++;
+            transaction(busLatency);
+        }
+        return stall;
+    }
+
+    /**
+     * Every other cache snoops a transaction for address: a MODIFIED copy is flushed, and all copies
+     * are invalidated for writes or drop to SHARED for reads. Returns the number of copies found,
+     * negated when one was flushed.
+     */
+    private int snoop(int requester, int address, boolean invalidate) {
+        int line = address >>> lineShift;
+        int holders = 0;
+        boolean flushed = false;
+        for (int core = 0; core < cores.size(); core++) {
+            State state = core == requester ? State.INVALID : getState(core, address);
+            if (state == State.INVALID) continue;
+            holders++;
+            Cache cache = cores.get(core).getDataCache();
+            if (state == State.MODIFIED) {
+                flushed = true;
+                stats[FLUSHES]++;
+                coreStats.get(core)[1]++;
+            }
+            if (invalidate) {
+                cache.remove(address);
+                states.get(core).remove(line);
+                coreStats.get(core)[0]++;
+            } else {
+                cache.clean(address);
+                states.get(core).put(line, State.SHARED);
+            }
+        }
+        return flushed ? -holders : holders;
+    }
+
+    // Queues a transaction behind those already granted; returns cycles until it completes
+    private int transaction(int duration) {
+        long start = Math.max(cycle, busyUntil);
+        waitCycles += start - cycle;
+        busyUntil = start + duration;
+        busyCycles += duration;
+        return (int) (busyUntil - cycle);
+    }
+
+    /** MESI state of the line holding address in core's L1 data cache. */
+    public State getState(int core, int address) {
+        if (!cores.get(core).getDataCache().contains(address)) return State.INVALID;
+        return states.get(core).getOrDefault(address >>> lineShift, State.INVALID);
+    }
+
+    public int getCoreCount() { return cores.size(); }
+    public long getStat(int index) { return stats[index]; }
+    public long getTransactions() { return stats[BUS_READS] + stats[BUS_READ_EXCLUSIVES] + stats[BUS_UPGRADES] + stats[WRITEBACKS]; }
+    public long getBusyCycles() { return busyCycles; }
+    /** Cycles requests spent waiting for the bus to come free. */
+    public long getWaitCycles() { return waitCycles; }
+    /** Copies of lines held by core that other cores' writes invalidated. */
+    public long getInvalidations(int core) { return coreStats.get(core)[0]; }
+    /** MODIFIED lines core supplied to other cores' misses. */
+    public long getFlushes(int core) { return coreStats.get(core)[1]; }
+
+    /** Fraction of cycles since the first tick the bus was carrying a transaction. */
+    public double getUtilization() {
+        return cycle == 0 ? 0 : Math.min(1.0, (double) busyCycles / cycle);
+    }
+
+    public void resetStats() {
+        Arrays.fill(stats, 0);
+        for (long[] s : coreStats) Arrays.fill(s, 0);
+        busyCycles = 0;
+        waitCycles = 0;
+    }
+
+    public int getBusLatency() { return busLatency; }
+    public int getMemoryLatency() { return memoryLatency; }
+    public int getTransferLatency() { return transferLatency; }
+
+    public void setBusLatency(int cycles) { busLatency = checkCycles(cycles, "Bus latency"); }
+    public void setMemoryLatency(int cycles) { memoryLatency = checkCycles(cycles, "Memory latency"); }
+    public void setTransferLatency(int cycles) { transferLatency = checkCycles(cycles, "Transfer latency"); }
+
+    private static int checkCycles(int cycles, String what) {
+        if (cycles < 0) {
+            throw new IllegalArgumentException(what + " must not be negative: " + cycles);
+        }
+        return cycles;
+    }
+}
@@ -1,22 +1,179 @@
 package model.memory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Word-addressed data memory split into 4KB pages. Pages are allocated on first store and
+ * shared copy-on-write between a memory and its forks.
+ */
 public class DataMemory {
-	private final int[] memory = new int[1024]; // 4KB data memory (1024 words)
+	private static final int PAGE_SHIFT = 10;
+	private static final int PAGE_WORDS = 1 << PAGE_SHIFT; // 1024 words per page
+	private static final int PAGE_MASK = PAGE_WORDS - 1;
+
+	private final int words;
+	private final int[][] pages;
+	private final boolean[] owned; // false while the page may still be shared with a fork
+
+	public DataMemory() {
+		this(1024); // 4KB data memory (1024 words)
+	}
+
+	public DataMemory(int words) {
+		if (words < 0 || words > Integer.MAX_VALUE / 4) {
+			throw new IllegalArgumentException("Unsupported data memory size: " + words + " words");
+		}
+		this.words = words;
+		int pageCount = (words + PAGE_MASK) >>> PAGE_SHIFT;
+		this.pages = new int[pageCount][];
+		this.owned = new boolean[pageCount];
+	}
+
+	private DataMemory(DataMemory source) {
+		this.words = source.words;
+		this.pages = source.pages.clone();
+		this.owned = new boolean[pages.length];
+	}
 
 	public int loadWord(int address) {
-		if (address < 0 || address >= memory.length * 4) {
+		if (address < 0 || address >= words * 4) {
 			return 0;
 		}
-		return memory[address / 4];
+		int word = address / 4;
+		int[] page = pages[word >>> PAGE_SHIFT];
+		return page == null ? 0 : page[word & PAGE_MASK];
 	}
 
 	public void storeWord(int address, int value) {
-		if (address >= 0 && address < memory.length * 4) {
-			memory[address / 4] = value;
+		if (address >= 0 && address < words * 4) {
+			int word = address / 4;
+			writablePage(word >>> PAGE_SHIFT)[word & PAGE_MASK] = value;
 		}
 	}
 
 	public int sizeBytes() {
-		return memory.length * 4;
+		return words * 4;
+	}
+
+	public void clear() {
+		Arrays.fill(pages, null);
+		Arrays.fill(owned, false);
+	}
+
+	/**
+	 * Returns a copy that shares every page with this memory until either side stores to it,
+	 * so forking costs one reference per page and each later write copies at most one page.
+	 */
+	public DataMemory fork() {
+		DataMemory copy = new DataMemory(this);
+		Arrays.fill(owned, false);
+		return copy;
+	}
+
+	/**
+	 * Copies a big-endian memory image into memory starting at address; words past the end are dropped.
+	 */
+	public void loadImage(ByteBuffer image, int address) {
+		if (address < 0 || (address & 0x3) != 0 || address >= sizeBytes()) {
+			throw new IllegalArgumentException("Image address out of data memory bounds: " + address);
+		}
+		IntBuffer src = image.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+		int word = address / 4;
+		int end = word + Math.min(src.remaining(), words - word);
+		while (word < end) {
+			int count = Math.min(PAGE_WORDS - (word & PAGE_MASK), end - word);
+			src.get(writablePage(word >>> PAGE_SHIFT), word & PAGE_MASK, count);
+			word += count;
+		}
+	}
+
+	/**
+	 * Writes the whole memory as a big-endian image, the format accepted by loadImage.
+	 */
+	public void saveImage(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(sizeBytes()).order(ByteOrder.BIG_ENDIAN);
+		IntBuffer dst = buffer.asIntBuffer();
+		for (int p = 0; p < pages.length; p++) {
+			int count = Math.min(PAGE_WORDS, words - (p << PAGE_SHIFT));
+			if (pages[p] == null) {
+				dst.position(dst.position() + count);
+			} else {
+				dst.put(pages[p], 0, count);
+			}
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Writes a sparse checkpoint: the size in words, then (first word, word count, big-endian words)
+	 * for every page holding a non-zero word, terminated by -1.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(words);
+		ByteBuffer buffer = ByteBuffer.allocate(PAGE_WORDS * 4).order(ByteOrder.BIG_ENDIAN);
+		for (int p = 0; p < pages.length; p++) {
+			int[] page = pages[p];
+			int count = Math.min(PAGE_WORDS, words - (p << PAGE_SHIFT));
+			if (page == null || isZero(page, count)) continue;
+
+			buffer.clear();
+			buffer.asIntBuffer().put(page, 0, count);
+			out.writeInt(p << PAGE_SHIFT);
+			out.writeInt(count);
+			out.write(buffer.array(), 0, count * 4);
+		}
+		out.writeInt(-1);
+	}
+
+	/**
+	 * Replaces the contents with a checkpoint written by writeTo. The memory sizes must match.
+	 */
+	public void readFrom(DataInput in) throws IOException {
+		int savedWords = in.readInt();
+		if (savedWords * 4 != sizeBytes()) {
+			throw new IllegalArgumentException("Checkpoint holds " + savedWords + " data words, memory has " + sizeBytes() / 4);
+		}
+		clear();
+		byte[] chunk = new byte[0];
+		for (int first = in.readInt(); first != -1; first = in.readInt()) {
+			int count = in.readInt();
+			if (first < 0 || count < 0 || (long) first + count > savedWords) {
+				throw new IllegalArgumentException("Corrupt data memory checkpoint");
+			}
+			if (chunk.length < count * 4) chunk = new byte[count * 4];
+			in.readFully(chunk, 0, count * 4);
+			loadImage(ByteBuffer.wrap(chunk, 0, count * 4), first * 4);
+		}
+	}
+
+	private static boolean isZero(int[] page, int count) {
+		for (int i = 0; i < count; i++) {
+			if (page[i] != 0) return false;
+		}
+		return true;
+	}
+
+	private int[] writablePage(int index) {
+		int[] page = pages[index];
+		if (!owned[index]) {
+			page = (page == null) ? new int[PAGE_WORDS] : page.clone();
+			pages[index] = page;
+			owned[index] = true;
+		}
+		return page;
 	}
 }
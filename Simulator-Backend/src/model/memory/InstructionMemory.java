@@ -1,28 +1,181 @@
 package model.memory;
 import model.instruction.Instruction;
 
+import java.util.Arrays;
+
+/**
+ * Instruction memory of a fixed capacity. Only the words between the lowest and highest
+ * loaded address are backed by an array, so a large memory holding a small program is cheap
+ * to load and to clear.
+ *
+ * A shared image is not copied on the first write: the written word's page is copied into an
+ * overlay instead, so patching a few instructions of a large program costs a few pages.
+ */
 public class InstructionMemory {
-    private final Instruction[] instructions;
+    private static final Instruction[] EMPTY = new Instruction[0];
+    private static final int PAGE_SHIFT = 8; // 256-word overlay pages
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+
+    private final int capacityWords;
+    private Instruction[] instructions;
+    private int baseWord; // word index of instructions[0]
+    private boolean shared; // image is referenced by a fork and must be copied before the next write
+    private Instruction[][] patched; // copies of the written pages of a shared image, or null
+    private boolean[] pageOwned;     // patched page not referenced by a fork
 
     public InstructionMemory() {
-        this.instructions = new Instruction[1024]; // 4KB (1024 words)
+        this(1024); // 4KB (1024 words)
+    }
+
+    public InstructionMemory(int words) {
+        if (words <= 0 || words > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Unsupported instruction memory size: " + words + " words");
+        }
+        this.capacityWords = words;
+        this.instructions = EMPTY;
     }
 
     public InstructionMemory(Instruction[] instructions) {
+        this.capacityWords = instructions.length;
         this.instructions = instructions;
     }
 
     public Instruction fetch(int address) {
-        if (address < 0 || address >= instructions.length * 4) {
+        int index = (address >> 2) - baseWord;
+        if (address < 0 || index < 0 || index >= instructions.length) {
             return null;
         }
-        return instructions[address / 4];
+        if (patched != null) {
+            Instruction[] page = patched[index >> PAGE_SHIFT];
+            if (page != null) return page[index & (PAGE_WORDS - 1)];
+        }
+        return instructions[index];
     }
 
     public void setInstruction(int address, Instruction instruction) {
-        if (address >= 0 && address < instructions.length * 4) {
-            instructions[address / 4] = instruction;
+        if (address >= 0 && address < sizeBytes()) {
+            int word = address / 4;
+            if (instruction == null && (word < baseWord || word >= baseWord + instructions.length)) {
+                return;
+            }
+            int index = word - baseWord;
+            if (shared && index >= 0 && index < instructions.length) {
+                patchPage(index >> PAGE_SHIFT)[index & (PAGE_WORDS - 1)] = instruction;
+                return;
+            }
+            ensureWritable(word);
+            instructions[word - baseWord] = instruction;
         }
     }
-}
 
+    // Page of a shared image that takes writes, copied from the image or from a fork's page on first use
+    private Instruction[] patchPage(int page) {
+        if (patched == null) {
+            patched = new Instruction[(instructions.length + PAGE_WORDS - 1) >> PAGE_SHIFT][];
+            pageOwned = new boolean[patched.length];
+        }
+        if (patched[page] == null) {
+            int from = page << PAGE_SHIFT;
+            patched[page] = new Instruction[PAGE_WORDS];
+            System.arraycopy(instructions, from, patched[page], 0, Math.min(PAGE_WORDS, instructions.length - from));
+            pageOwned[page] = true;
+        } else if (!pageOwned[page]) {
+            patched[page] = patched[page].clone();
+            pageOwned[page] = true;
+        }
+        return patched[page];
+    }
+
+    // Folds the overlay into a private copy of the image
+    private void applyPatches() {
+        if (patched == null) return;
+        Instruction[] merged = instructions.clone();
+        for (int page = 0; page < patched.length; page++) {
+            if (patched[page] == null) continue;
+            int from = page << PAGE_SHIFT;
+            System.arraycopy(patched[page], 0, merged, from, Math.min(PAGE_WORDS, merged.length - from));
+        }
+        instructions = merged;
+        patched = null;
+        pageOwned = null;
+        shared = false;
+    }
+
+    /**
+     * Replaces the whole program with image placed at startAddress. The array is adopted, not copied:
+     * the caller must not modify it afterwards, and this memory copies it before its own first write.
+     */
+    public void loadImage(Instruction[] image, int startAddress) {
+        if ((startAddress & 0x3) != 0 || startAddress < 0
+                || (long) startAddress / 4 + image.length > capacityWords) {
+            throw new IllegalArgumentException("Program image does not fit in instruction memory");
+        }
+        instructions = image;
+        baseWord = startAddress / 4;
+        shared = true;
+        patched = null;
+        pageOwned = null;
+    }
+
+    /** Byte address of the first word backed by the current image. */
+    public int getImageStart() {
+        return baseWord * 4;
+    }
+
+    /** Number of words backed from getImageStart(); unloaded words fetch as null. */
+    public int getImageWords() {
+        return instructions.length;
+    }
+
+    public void clear() {
+        instructions = EMPTY;
+        baseWord = 0;
+        shared = false;
+        patched = null;
+        pageOwned = null;
+    }
+
+    public int sizeBytes() {
+        return capacityWords * 4;
+    }
+
+    /**
+     * Returns a memory sharing this program image; whichever side writes first takes a private copy.
+     */
+    public InstructionMemory fork() {
+        InstructionMemory copy = new InstructionMemory(capacityWords);
+        copy.instructions = instructions;
+        copy.baseWord = baseWord;
+        copy.shared = true;
+        shared = true;
+        if (patched != null) {
+            copy.patched = patched.clone();
+            copy.pageOwned = new boolean[patched.length];
+            Arrays.fill(pageOwned, false);
+        }
+        return copy;
+    }
+
+    private void ensureWritable(int word) {
+        applyPatches();
+        int end = baseWord + instructions.length;
+        if (instructions.length > 0 && word >= baseWord && word < end) {
+            if (shared) {
+                instructions = instructions.clone();
+                shared = false;
+            }
+            return;
+        }
+
+        int start = instructions.length == 0 ? word : Math.min(baseWord, word);
+        int newEnd = instructions.length == 0 ? word + 1 : Math.max(end, word + 1);
+        int length = Math.max(newEnd - start, Math.min(instructions.length * 2, capacityWords - start));
+        Instruction[] grown = new Instruction[length];
+        if (instructions.length > 0) {
+            System.arraycopy(instructions, 0, grown, baseWord - start, instructions.length);
+        }
+        instructions = grown;
+        baseWord = start;
+        shared = false;
+    }
+}
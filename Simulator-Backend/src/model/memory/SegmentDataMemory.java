@@ -0,0 +1,165 @@
+package model.memory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap data memory backed by a MemorySegment, either anonymous or a memory-mapped file.
+ * Words are stored big-endian so a mapped file is a plain MIPS memory image.
+ */
+public class SegmentDataMemory extends DataMemory implements AutoCloseable {
+
+	private static final ValueLayout.OfInt WORD = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+	private static final int CHUNK_BYTES = 4096;
+	private static final MemorySegment ZERO_CHUNK = MemorySegment.ofArray(new byte[CHUNK_BYTES]);
+
+	private final Arena arena;
+	private final MemorySegment segment;
+	private final FileChannel.MapMode mapMode;
+
+	public SegmentDataMemory(int words) {
+		super(0);
+		this.arena = Arena.ofShared();
+		this.segment = arena.allocate((long) words * 4, 4);
+		this.mapMode = null;
+	}
+
+	private SegmentDataMemory(Arena arena, MemorySegment segment, FileChannel.MapMode mapMode) {
+		super(0);
+		this.arena = arena;
+		this.segment = segment;
+		this.mapMode = mapMode;
+	}
+
+	/**
+	 * Maps file as read-write memory of the given size, creating or growing the file if needed.
+	 * Existing contents become the initial memory image and every store goes straight to the mapping.
+	 */
+	public static SegmentDataMemory map(Path file, int words) throws IOException {
+		return map(file, (long) words * 4, FileChannel.MapMode.READ_WRITE);
+	}
+
+	/**
+	 * Maps an existing memory image privately: stores are visible to this memory only and never reach the file.
+	 */
+	public static SegmentDataMemory open(Path image) throws IOException {
+		try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+			return map(image, channel.size() & ~0x3L, FileChannel.MapMode.PRIVATE);
+		}
+	}
+
+	private static SegmentDataMemory map(Path file, long bytes, FileChannel.MapMode mode) throws IOException {
+		if (bytes <= 0 || bytes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Unsupported data memory size: " + bytes + " bytes");
+		}
+		StandardOpenOption[] options = mode == FileChannel.MapMode.READ_WRITE
+				? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+				: new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+		Arena arena = Arena.ofShared();
+		try (FileChannel channel = FileChannel.open(file, options)) {
+			return new SegmentDataMemory(arena, channel.map(mode, 0, bytes, arena), mode);
+		} catch (IOException | RuntimeException e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public int loadWord(int address) {
+		if (address < 0 || address >= segment.byteSize()) {
+			return 0;
+		}
+		return segment.get(WORD, address & ~0x3);
+	}
+
+	@Override
+	public void storeWord(int address, int value) {
+		if (address >= 0 && address < segment.byteSize()) {
+			segment.set(WORD, address & ~0x3, value);
+		}
+	}
+
+	@Override
+	public int sizeBytes() {
+		return (int) segment.byteSize();
+	}
+
+	@Override
+	public void clear() {
+		segment.fill((byte) 0);
+	}
+
+	/**
+	 * Copies the segment into a new anonymous off-heap memory. A segment cannot share pages
+	 * copy-on-write, so unlike the paged heap memory this costs one bulk copy of the whole image.
+	 */
+	@Override
+	public SegmentDataMemory fork() {
+		SegmentDataMemory copy = new SegmentDataMemory((int) (segment.byteSize() / 4));
+		MemorySegment.copy(segment, 0, copy.segment, 0, segment.byteSize());
+		return copy;
+	}
+
+	@Override
+	public void loadImage(ByteBuffer image, int address) {
+		if (address < 0 || (address & 0x3) != 0 || address >= segment.byteSize()) {
+			throw new IllegalArgumentException("Image address out of data memory bounds: " + address);
+		}
+		long bytes = Math.min(image.remaining() & ~0x3, segment.byteSize() - address);
+		MemorySegment.copy(MemorySegment.ofBuffer(image), 0, segment, address, bytes);
+	}
+
+	@Override
+	public void saveImage(Path file) throws IOException {
+		ByteBuffer buffer = segment.asByteBuffer();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	@Override
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(sizeBytes() / 4);
+		byte[] chunk = new byte[CHUNK_BYTES];
+		for (long offset = 0; offset < segment.byteSize(); offset += CHUNK_BYTES) {
+			int bytes = (int) Math.min(CHUNK_BYTES, segment.byteSize() - offset);
+			MemorySegment slice = segment.asSlice(offset, bytes);
+			if (slice.mismatch(ZERO_CHUNK.asSlice(0, bytes)) == -1) continue;
+
+			MemorySegment.copy(slice, ValueLayout.JAVA_BYTE, 0, chunk, 0, bytes);
+			out.writeInt((int) (offset / 4));
+			out.writeInt(bytes / 4);
+			out.write(chunk, 0, bytes);
+		}
+		out.writeInt(-1);
+	}
+
+	/**
+	 * Flushes stores to the mapped file; a no-op for anonymous or privately mapped memory.
+	 */
+	public void force() {
+		if (mapMode == FileChannel.MapMode.READ_WRITE) {
+			segment.force();
+		}
+	}
+
+	public boolean isMapped() {
+		return mapMode != null;
+	}
+
+	@Override
+	public void close() {
+		arena.close();
+	}
+}
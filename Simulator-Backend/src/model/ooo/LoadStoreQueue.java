@@ -0,0 +1,110 @@
+package model.ooo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads and stores in program order. Addresses are computed as soon as the base register is
+ * ready. Stores write data memory only when they commit, and a load may run ahead of older
+ * stores once all of their addresses are known, taking its value from the nearest older store
+ * to the same word.
+ */
+public class LoadStoreQueue {
+
+    public static final class Entry {
+        public final long seq;
+        public final boolean load;
+        public final Operand base;
+        public final int offset;
+        public final Operand data;  // value stored, ready(0) for loads
+        public boolean addressKnown;
+        public int address;
+        public boolean issued;
+
+        public Entry(long seq, boolean load, Operand base, int offset, Operand data) {
+            this.seq = seq;
+            this.load = load;
+            this.base = base;
+            this.offset = offset;
+            this.data = data;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final int capacity;
+
+    public LoadStoreQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void add(Entry entry) {
+        if (isFull()) {
+            throw new IllegalStateException("Load/store queue full");
+        }
+        entries.add(entry);
+    }
+
+    /** Oldest first. */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public void computeAddresses() {
+        for (Entry entry : entries) {
+            if (!entry.addressKnown && entry.base.isReady()) {
+                entry.address = entry.base.getValue() + entry.offset;
+                entry.addressKnown = true;
+            }
+        }
+    }
+
+    /**
+     * The nearest store older than load that blocks it or supplies its value: one whose address
+     * is still unknown, or one to the same word. Null when the load can read data memory.
+     */
+    public Entry olderStore(Entry load) {
+        for (int i = entries.indexOf(load) - 1; i >= 0; i--) {
+            Entry store = entries.get(i);
+            if (store.load) continue;
+            if (!store.addressKnown || sameWord(store.address, load.address)) {
+                return store;
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameWord(int a, int b) {
+        return a >= 0 && b >= 0 && a / 4 == b / 4;
+    }
+
+    public void broadcast(long producer, int result) {
+        for (Entry entry : entries) {
+            entry.base.capture(producer, result);
+            entry.data.capture(producer, result);
+        }
+    }
+
+    /** Removes the oldest entry, which must belong to the committing instruction. */
+    public Entry commit(long seq) {
+        if (entries.isEmpty() || entries.get(0).seq != seq) {
+            throw new IllegalStateException("Load/store queue out of order at " + seq);
+        }
+        return entries.remove(0);
+    }
+
+    public void squashAfter(long seq) {
+        entries.removeIf(e -> e.seq > seq);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return entries.size() >= capacity;
+    }
+}
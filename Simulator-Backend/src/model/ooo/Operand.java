@@ -0,0 +1,44 @@
+package model.ooo;
+
+/**
+ * Source operand of a waiting instruction: a value, or the sequence number of the in-flight
+ * instruction that will produce it.
+ */
+public final class Operand {
+
+    private long tag;
+    private int value;
+
+    private Operand(long tag, int value) {
+        this.tag = tag;
+        this.value = value;
+    }
+
+    public static Operand ready(int value) {
+        return new Operand(RenameTable.NONE, value);
+    }
+
+    public static Operand waiting(long tag) {
+        return new Operand(tag, 0);
+    }
+
+    public boolean isReady() {
+        return tag == RenameTable.NONE;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public long getTag() {
+        return tag;
+    }
+
+    /** Takes the result broadcast by the producer this operand waits for. */
+    public void capture(long producer, int result) {
+        if (tag == producer) {
+            tag = RenameTable.NONE;
+            value = result;
+        }
+    }
+}
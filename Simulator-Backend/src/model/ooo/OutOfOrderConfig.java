@@ -0,0 +1,63 @@
+package model.ooo;
+
+/**
+ * Widths, structure sizes and latencies of the out-of-order core. Setters reject values the core
+ * cannot run with.
+ */
+public class OutOfOrderConfig {
+
+    private int fetchWidth = 2;      // instructions fetched and dispatched per cycle
+    private int issueWidth = 2;      // ALU and branch operations started per cycle
+    private int commitWidth = 2;
+    private int robEntries = 32;
+    private int stationEntries = 16;
+    private int lsqEntries = 16;
+    private int aluLatency = 1;
+    private int loadLatency = 2;
+
+    public OutOfOrderConfig() {
+    }
+
+    public OutOfOrderConfig(OutOfOrderConfig other) {
+        this.fetchWidth = other.fetchWidth;
+        this.issueWidth = other.issueWidth;
+        this.commitWidth = other.commitWidth;
+        this.robEntries = other.robEntries;
+        this.stationEntries = other.stationEntries;
+        this.lsqEntries = other.lsqEntries;
+        this.aluLatency = other.aluLatency;
+        this.loadLatency = other.loadLatency;
+    }
+
+    public int getFetchWidth() { return fetchWidth; }
+    public int getIssueWidth() { return issueWidth; }
+    public int getCommitWidth() { return commitWidth; }
+    public int getRobEntries() { return robEntries; }
+    public int getStationEntries() { return stationEntries; }
+    public int getLsqEntries() { return lsqEntries; }
+    public int getAluLatency() { return aluLatency; }
+    public int getLoadLatency() { return loadLatency; }
+
+    public void setFetchWidth(int fetchWidth) { this.fetchWidth = check("fetchWidth", fetchWidth, 1, 8); }
+    public void setIssueWidth(int issueWidth) { this.issueWidth = check("issueWidth", issueWidth, 1, 8); }
+    public void setCommitWidth(int commitWidth) { this.commitWidth = check("commitWidth", commitWidth, 1, 8); }
+    public void setRobEntries(int robEntries) { this.robEntries = check("robEntries", robEntries, 2, 512); }
+    public void setStationEntries(int stationEntries) { this.stationEntries = check("stationEntries", stationEntries, 1, 256); }
+    public void setLsqEntries(int lsqEntries) { this.lsqEntries = check("lsqEntries", lsqEntries, 1, 256); }
+    public void setAluLatency(int aluLatency) { this.aluLatency = check("aluLatency", aluLatency, 1, 64); }
+    public void setLoadLatency(int loadLatency) { this.loadLatency = check("loadLatency", loadLatency, 1, 256); }
+
+    private static int check(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ": " + value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "fetch " + fetchWidth + ", issue " + issueWidth + ", commit " + commitWidth
+                + ", ROB " + robEntries + ", RS " + stationEntries + ", LSQ " + lsqEntries
+                + ", ALU " + aluLatency + "c, load " + loadLatency + "c";
+    }
+}
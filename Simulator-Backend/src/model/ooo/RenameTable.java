@@ -0,0 +1,48 @@
+package model.ooo;
+
+import java.util.Arrays;
+
+/**
+ * Register alias table: the youngest in-flight producer of each architectural register, or NONE
+ * when the register file holds the current value.
+ */
+public final class RenameTable {
+
+    public static final long NONE = -1;
+
+    private final long[] producers = new long[32];
+
+    public RenameTable() {
+        reset();
+    }
+
+    public long get(int reg) {
+        return reg == 0 ? NONE : producers[reg];
+    }
+
+    public void set(int reg, long seq) {
+        if (reg != 0) {
+            producers[reg] = seq;
+        }
+    }
+
+    /** Clears the mapping when seq, committing, is still the youngest producer of reg. */
+    public void release(int reg, long seq) {
+        if (producers[reg] == seq) {
+            producers[reg] = NONE;
+        }
+    }
+
+    /** Registers waiting on an in-flight producer. */
+    public int size() {
+        int count = 0;
+        for (int i = 1; i < producers.length; i++) {
+            if (producers[i] != NONE) count++;
+        }
+        return count;
+    }
+
+    public void reset() {
+        Arrays.fill(producers, NONE);
+    }
+}
@@ -0,0 +1,107 @@
+package model.ooo;
+
+import model.instruction.Instruction;
+
+/**
+ * Circular buffer of in-flight instructions in program order. Instructions complete out of
+ * order but leave from the head, so the register file and data memory only ever see results
+ * in program order. Sequence numbers are consecutive from head to tail.
+ */
+public class ReorderBuffer {
+
+    public static final class Entry {
+        public final long seq;
+        public final Instruction instruction;
+        public final int pc;
+        public final int destReg;       // 0 when nothing is written back
+        public final int predictedPc;   // where fetch went next
+        public int value;
+        public boolean done;
+        public boolean branchTaken;
+        public int nextPc;              // resolved successor of a branch
+        public RuntimeException fault;  // raised at commit, so wrong-path faults are dropped
+
+        Entry(long seq, Instruction instruction, int pc, int destReg, int predictedPc) {
+            this.seq = seq;
+            this.instruction = instruction;
+            this.pc = pc;
+            this.destReg = destReg;
+            this.predictedPc = predictedPc;
+        }
+
+        public boolean isMispredicted() {
+            return done && nextPc != predictedPc;
+        }
+    }
+
+    private final Entry[] entries;
+    private int head;
+    private int count;
+    private long nextSeq;
+
+    public ReorderBuffer(int capacity) {
+        this.entries = new Entry[capacity];
+    }
+
+    public Entry allocate(Instruction instruction, int pc, int destReg, int predictedPc) {
+        if (isFull()) {
+            throw new IllegalStateException("Reorder buffer full");
+        }
+        Entry entry = new Entry(nextSeq++, instruction, pc, destReg, predictedPc);
+        entries[(head + count) % entries.length] = entry;
+        count++;
+        return entry;
+    }
+
+    /** The in-flight entry with the given sequence number, or null once it has committed or been squashed. */
+    public Entry get(long seq) {
+        if (count == 0) return null;
+        long offset = seq - entries[head].seq;
+        if (offset < 0 || offset >= count) return null;
+        return entries[(int) ((head + offset) % entries.length)];
+    }
+
+    /** Entry i places from the head, oldest first. */
+    public Entry at(int i) {
+        return entries[(head + i) % entries.length];
+    }
+
+    public Entry head() {
+        return count == 0 ? null : entries[head];
+    }
+
+    public Entry pop() {
+        Entry entry = entries[head];
+        entries[head] = null;
+        head = (head + 1) % entries.length;
+        count--;
+        return entry;
+    }
+
+    /** Drops every entry younger than seq. */
+    public void squashAfter(long seq) {
+        while (count > 0) {
+            int tail = (head + count - 1) % entries.length;
+            if (entries[tail].seq <= seq) break;
+            entries[tail] = null;
+            count--;
+        }
+        nextSeq = seq + 1;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFull() {
+        return count == entries.length;
+    }
+}
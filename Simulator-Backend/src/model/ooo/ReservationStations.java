@@ -0,0 +1,86 @@
+package model.ooo;
+
+import model.instruction.Instruction;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Shared pool of reservation stations for ALU operations and branches. Each station holds its
+ * operands until both are ready; the pool keeps stations oldest first so selection favours the
+ * oldest ready instruction.
+ */
+public class ReservationStations {
+
+    public static final class Station {
+        public final long seq;
+        public final Instruction instruction;
+        public final int aluOp;
+        public final Operand a;
+        public final Operand b;
+
+        public Station(long seq, Instruction instruction, int aluOp, Operand a, Operand b) {
+            this.seq = seq;
+            this.instruction = instruction;
+            this.aluOp = aluOp;
+            this.a = a;
+            this.b = b;
+        }
+
+        public boolean isReady() {
+            return a.isReady() && b.isReady();
+        }
+    }
+
+    private final List<Station> stations = new ArrayList<>();
+    private final int capacity;
+
+    public ReservationStations(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void add(Station station) {
+        if (isFull()) {
+            throw new IllegalStateException("Reservation stations full");
+        }
+        stations.add(station);
+    }
+
+    /** Removes and returns up to max ready stations, oldest first. */
+    public List<Station> select(int max) {
+        List<Station> selected = new ArrayList<>();
+        Iterator<Station> it = stations.iterator();
+        while (it.hasNext() && selected.size() < max) {
+            Station station = it.next();
+            if (station.isReady()) {
+                selected.add(station);
+                it.remove();
+            }
+        }
+        return selected;
+    }
+
+    public void broadcast(long producer, int result) {
+        for (Station station : stations) {
+            station.a.capture(producer, result);
+            station.b.capture(producer, result);
+        }
+    }
+
+    public void squashAfter(long seq) {
+        stations.removeIf(s -> s.seq > seq);
+    }
+
+    public int size() {
+        return stations.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return stations.size() >= capacity;
+    }
+}
@@ -10,6 +10,7 @@ public class EX_MEM_Register {
     private int branchTarget;
     private boolean branchTaken;
     private int destReg;
+    private int pcPlus4;
     private boolean regWrite;
     private boolean memToReg;
     private boolean branch;
@@ -26,6 +27,7 @@ public class EX_MEM_Register {
     public void setBranchTarget(int value) { this.branchTarget = value; }
     public void setBranchTaken(boolean value) { this.branchTaken = value; }
     public void setDestReg(int value) { this.destReg = value; }
+    public void setPcPlus4(int value) { this.pcPlus4 = value; }
     public void setRegWrite(boolean value) { this.regWrite = value; }
     public void setMemToReg(boolean value) { this.memToReg = value; }
     public void setBranch(boolean value) { this.branch = value; }
@@ -41,6 +43,7 @@ public class EX_MEM_Register {
     public int getBranchTarget() { return branchTarget; }
     public boolean isBranchTaken() { return branchTaken; }
     public int getDestReg() { return destReg; }
+    public int getPcPlus4() { return pcPlus4; }
     public boolean isRegWrite() { return regWrite; }
     public boolean isMemToReg() { return memToReg; }
     public boolean isBranch() { return branch; }
@@ -51,4 +54,24 @@ public class EX_MEM_Register {
     public int getForwardB() { return forwardB; }
 
     public int getRtValue() { return writeData; }
+
+    public EX_MEM_Register copy() {
+        EX_MEM_Register c = new EX_MEM_Register();
+        c.aluResult = aluResult;
+        c.zeroFlag = zeroFlag;
+        c.writeData = writeData;
+        c.branchTarget = branchTarget;
+        c.branchTaken = branchTaken;
+        c.destReg = destReg;
+        c.pcPlus4 = pcPlus4;
+        c.regWrite = regWrite;
+        c.memToReg = memToReg;
+        c.branch = branch;
+        c.memRead = memRead;
+        c.memWrite = memWrite;
+        c.forwardA = forwardA;
+        c.forwardB = forwardB;
+        c.instruction = instruction == null ? null : instruction.copy();
+        return c;
+    }
 }
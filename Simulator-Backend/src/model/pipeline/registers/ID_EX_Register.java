@@ -57,4 +57,25 @@ public class ID_EX_Register {
     public boolean isAluSrc() { return aluSrc; }
     public int getAluOp() { return aluOp; }
     public Instruction getInstruction() { return instruction; }
+
+    public ID_EX_Register copy() {
+        ID_EX_Register c = new ID_EX_Register();
+        c.readData1 = readData1;
+        c.readData2 = readData2;
+        c.signExtendedImm = signExtendedImm;
+        c.pcPlus4 = pcPlus4;
+        c.rs = rs;
+        c.rt = rt;
+        c.rd = rd;
+        c.regWrite = regWrite;
+        c.memToReg = memToReg;
+        c.branch = branch;
+        c.memRead = memRead;
+        c.memWrite = memWrite;
+        c.regDst = regDst;
+        c.aluSrc = aluSrc;
+        c.aluOp = aluOp;
+        c.instruction = instruction == null ? null : instruction.copy();
+        return c;
+    }
 }
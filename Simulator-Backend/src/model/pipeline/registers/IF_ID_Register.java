@@ -15,4 +15,10 @@ public class IF_ID_Register {
     public Instruction getInstruction() { return instruction; }
 
     public int getPC() { return pc; }
+
+    public IF_ID_Register copy() {
+        IF_ID_Register c = new IF_ID_Register();
+        c.set(instruction == null ? null : instruction.copy(), pc);
+        return c;
+    }
 }
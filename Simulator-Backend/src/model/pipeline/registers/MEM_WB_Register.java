@@ -7,6 +7,7 @@ public class MEM_WB_Register {
     private int aluResult;
     private int memData;
     private int destReg;
+    private int pcPlus4;
     private boolean regWrite;
     private boolean memToReg;
     private Instruction instruction;
@@ -14,6 +15,7 @@ public class MEM_WB_Register {
     public void setAluResult(int value) { this.aluResult = value; }
     public void setMemData(int value) { this.memData = value; }
     public void setDestReg(int value) { this.destReg = value; }
+    public void setPcPlus4(int value) { this.pcPlus4 = value; }
     public void setRegWrite(boolean value) { this.regWrite = value; }
     public void setMemToReg(boolean value) { this.memToReg = value; }
     public void setInstruction(Instruction instr) { this.instruction = instr; }
@@ -21,6 +23,7 @@ public class MEM_WB_Register {
     public int getAluResult() { return aluResult; }
     public int getMemData() { return memData; }
     public int getDestReg() { return destReg; }
+    public int getPcPlus4() { return pcPlus4; }
     public boolean isRegWrite() { return regWrite; }
     public boolean isMemToReg() { return memToReg; }
     public Instruction getInstruction() { return instruction; }
@@ -28,4 +31,16 @@ public class MEM_WB_Register {
     public int getWriteData() {
         return memToReg ? memData : aluResult;
     }
-}
\ No newline at end of file
+
+    public MEM_WB_Register copy() {
+        MEM_WB_Register c = new MEM_WB_Register();
+        c.aluResult = aluResult;
+        c.memData = memData;
+        c.destReg = destReg;
+        c.pcPlus4 = pcPlus4;
+        c.regWrite = regWrite;
+        c.memToReg = memToReg;
+        c.instruction = instruction == null ? null : instruction.copy();
+        return c;
+    }
+}
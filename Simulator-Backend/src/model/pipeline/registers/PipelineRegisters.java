@@ -5,4 +5,38 @@ public class PipelineRegisters {
     public ID_EX_Register ID_EX = new ID_EX_Register();
     public EX_MEM_Register EX_MEM = new EX_MEM_Register();
     public MEM_WB_Register MEM_WB = new MEM_WB_Register();
-}
\ No newline at end of file
+
+    // Latches behind the extra stages of a split fetch or memory access, oldest first:
+    // fetchBuffer[0] moves into IF_ID next, memoryBuffer[0] into MEM_WB. Empty for five stages.
+    public IF_ID_Register[] fetchBuffer = new IF_ID_Register[0];
+    public MEM_WB_Register[] memoryBuffer = new MEM_WB_Register[0];
+
+    /** Resizes the extra latch arrays for the given stage counts; the new latches are empty. */
+    public void setDepth(int fetchStages, int memoryStages) {
+        fetchBuffer = new IF_ID_Register[fetchStages - 1];
+        for (int i = 0; i < fetchBuffer.length; i++) {
+            fetchBuffer[i] = new IF_ID_Register();
+        }
+        memoryBuffer = new MEM_WB_Register[memoryStages - 1];
+        for (int i = 0; i < memoryBuffer.length; i++) {
+            memoryBuffer[i] = new MEM_WB_Register();
+        }
+    }
+
+    public PipelineRegisters copy() {
+        PipelineRegisters c = new PipelineRegisters();
+        c.IF_ID = IF_ID.copy();
+        c.ID_EX = ID_EX.copy();
+        c.EX_MEM = EX_MEM.copy();
+        c.MEM_WB = MEM_WB.copy();
+        c.fetchBuffer = new IF_ID_Register[fetchBuffer.length];
+        for (int i = 0; i < fetchBuffer.length; i++) {
+            c.fetchBuffer[i] = fetchBuffer[i].copy();
+        }
+        c.memoryBuffer = new MEM_WB_Register[memoryBuffer.length];
+        for (int i = 0; i < memoryBuffer.length; i++) {
+            c.memoryBuffer[i] = memoryBuffer[i].copy();
+        }
+        return c;
+    }
+}
@@ -6,14 +6,21 @@ import model.instruction.ITypeInstruction;
 import model.instruction.JTypeInstruction;
 import model.instruction.RTypeInstruction;
 import model.cpu.CPUState;
+import model.pipeline.registers.MEM_WB_Register;
 import model.pipeline.registers.PipelineRegisters;
 
 public class DecodeStage implements PipelineStage {
 
     private final ControlUnit controlUnit = new ControlUnit();
 
+    private boolean earlyBranches = false;
+    private boolean branchResolved;
+    private boolean branchTaken;
+    private int branchTarget;
+
     @Override
     public void process(CPUState cpuState, PipelineRegisters regs) {
+        branchResolved = false;
         Instruction instr = regs.IF_ID.getInstruction();
         if (instr == null) {
             clearID_EX(regs);
@@ -37,11 +44,16 @@ public class DecodeStage implements PipelineStage {
             signExtendedImm = iInstr.getImmediate();
         }
 
+        int pcPlus4 = regs.IF_ID.getPC(); // read before a jump clears IF_ID
         int readData1 = cpuState.registerFile.get(rs);
         int readData2 = cpuState.registerFile.get(rt);
 
         controlUnit.generateSignals(instr.getOpcode());
 
+        if (earlyBranches && controlUnit.isBranch()) {
+            resolveBranch(regs, instr.getOpcode(), rs, rt, readData1, readData2, signExtendedImm);
+        }
+
         if (controlUnit.isJump() && instr instanceof JTypeInstruction) {
             JTypeInstruction jInstr = (JTypeInstruction) instr;
             int pcUpper = cpuState.pc.get() & 0xF0000000;
@@ -60,7 +72,7 @@ public class DecodeStage implements PipelineStage {
         regs.ID_EX.setReadData1(readData1);
         regs.ID_EX.setReadData2(readData2);
         regs.ID_EX.setSignExtendedImm(signExtendedImm);
-        regs.ID_EX.setPcPlus4(regs.IF_ID.getPC());
+        regs.ID_EX.setPcPlus4(pcPlus4);
         regs.ID_EX.setRs(rs);
         regs.ID_EX.setRt(rt);
         regs.ID_EX.setRd(rd);
@@ -76,6 +88,51 @@ public class DecodeStage implements PipelineStage {
         regs.ID_EX.setInstruction(instr.copy());
     }
 
+    /**
+     * Compares the branch operands in ID. The register file already holds what WB wrote this cycle;
+     * results past EX are forwarded from the memory-side latches, nearest first. The hazard unit
+     * stalls the branch for anything newer.
+     */
+    private void resolveBranch(PipelineRegisters regs, int opcode, int rs, int rt, int value1, int value2, int imm) {
+        boolean found1 = false;
+        boolean found2 = false;
+        for (int i = regs.memoryBuffer.length; i >= 0; i--) {
+            MEM_WB_Register latch = i > 0 ? regs.memoryBuffer[i - 1] : regs.MEM_WB;
+            if (latch.getInstruction() == null || !latch.isRegWrite() || latch.getDestReg() == 0) {
+                continue;
+            }
+            if (!found1 && latch.getDestReg() == rs) {
+                value1 = latch.getWriteData();
+                found1 = true;
+            }
+            if (!found2 && latch.getDestReg() == rt) {
+                value2 = latch.getWriteData();
+                found2 = true;
+            }
+        }
+        branchResolved = true;
+        branchTaken = opcode == 0x04 ? value1 == value2 : value1 != value2;
+        branchTarget = regs.IF_ID.getPC() + (imm << 2);
+    }
+
+    /** Resolves beq and bne in this stage instead of EX. */
+    public void setEarlyBranches(boolean earlyBranches) {
+        this.earlyBranches = earlyBranches;
+    }
+
+    /** True when the last process call resolved a branch. */
+    public boolean isBranchResolved() {
+        return branchResolved;
+    }
+
+    public boolean isBranchTaken() {
+        return branchTaken;
+    }
+
+    public int getBranchTarget() {
+        return branchTarget;
+    }
+
     private void clearID_EX(PipelineRegisters regs) {
         regs.ID_EX.setReadData1(0);
         regs.ID_EX.setReadData2(0);
@@ -43,7 +43,7 @@ public class ExecuteStage implements PipelineStage {
         } else if (forwarding.forwardA == 2) {
             aluInputA = regs.EX_MEM.getAluResult();
         } else if (forwarding.forwardA == 1) {
-            aluInputA = regs.MEM_WB.getWriteData();
+            aluInputA = forwarding.sourceA.getWriteData();
         } else {
             aluInputA = readData1;
         }
@@ -55,44 +55,15 @@ public class ExecuteStage implements PipelineStage {
         } else if (forwarding.forwardB == 2) {
             aluInputB = regs.EX_MEM.getAluResult();
         } else if (forwarding.forwardB == 1) {
-            aluInputB = regs.MEM_WB.getWriteData();
+            aluInputB = forwarding.sourceB.getWriteData();
         } else {
             aluInputB = readData2;
         }
 
         // ALU operation
-        int aluResult = 0;
-        boolean zeroFlag = false;
         int aluOp = regs.ID_EX.getAluOp();
-
-        if (aluOp == 0) {
-            aluResult = aluInputA + aluInputB;
-        } else if (aluOp == 1) {
-            aluResult = aluInputA - aluInputB;
-            zeroFlag = (aluResult == 0);
-        } else if (aluOp == 2 && instr instanceof RTypeInstruction) {
-            RTypeInstruction rInstr = (RTypeInstruction) instr;
-            int func = rInstr.getFunc();
-            switch (func) {
-                case 0x00: aluResult = aluInputB << aluInputA; break; //sll
-                case 0x02: aluResult = aluInputB >>> aluInputA; break; //srl
-                case 0x20: aluResult = aluInputA + aluInputB; break; //add
-                case 0x22: aluResult = aluInputA - aluInputB; break; //sub
-                case 0x24: aluResult = aluInputA & aluInputB; break; //and
-                case 0x25: aluResult = aluInputA | aluInputB; break; //or
-                case 0x26: aluResult = aluInputA ^ aluInputB; break; //xor
-                case 0x27: aluResult = ~(aluInputA | aluInputB); break; //nor
-                case 0x2A: aluResult = (aluInputA < aluInputB) ? 1 : 0; break; //slt
-                default: throw new UnsupportedOperationException(
-                        "Unsupported R-type function: 0x" + Integer.toHexString(func));
-            }
-        } else if (aluOp == 3) {
-            aluResult = aluInputA | aluInputB;
-        } else if (aluOp == 4) {
-            aluResult = aluInputA & aluInputB;
-        } else if (aluOp == 5) {
-            aluResult = (aluInputA < aluInputB) ? 1 : 0;
-        }
+        int aluResult = alu(instr, aluOp, aluInputA, aluInputB);
+        boolean zeroFlag = aluOp == 1 && aluResult == 0;
 
         int destReg = regs.ID_EX.isRegDst() ? regs.ID_EX.getRd() : regs.ID_EX.getRt();
         // branch
@@ -111,16 +82,12 @@ public class ExecuteStage implements PipelineStage {
             }
         }
 
-        if (branchTaken) {
-            cpuState.setPC(branchTarget);
-        }
-
         // store - write data
         int writeDataForStore;
         if (forwarding.forwardB == 2) {
             writeDataForStore = regs.EX_MEM.getAluResult();
         } else if (forwarding.forwardB == 1) {
-            writeDataForStore = regs.MEM_WB.getWriteData();
+            writeDataForStore = forwarding.sourceB.getWriteData();
         } else {
             writeDataForStore = readData2;
         }
@@ -131,6 +98,7 @@ public class ExecuteStage implements PipelineStage {
         regs.EX_MEM.setBranchTarget(branchTarget);
         regs.EX_MEM.setBranchTaken(branchTaken);
         regs.EX_MEM.setDestReg(destReg);
+        regs.EX_MEM.setPcPlus4(regs.ID_EX.getPcPlus4());
         regs.EX_MEM.setRegWrite(regs.ID_EX.isRegWrite());
         regs.EX_MEM.setMemToReg(regs.ID_EX.isMemToReg());
         regs.EX_MEM.setBranch(regs.ID_EX.isBranch());
@@ -141,6 +109,36 @@ public class ExecuteStage implements PipelineStage {
         regs.EX_MEM.setForwardB(forwarding.forwardB);
     }
 
+    /**
+     * Result of the ALU for the given control aluOp. For sll and srl inputA is the shift amount.
+     */
+    public static int alu(Instruction instr, int aluOp, int inputA, int inputB) {
+        switch (aluOp) {
+            case 0: return inputA + inputB;
+            case 1: return inputA - inputB;
+            case 3: return inputA | inputB;
+            case 4: return inputA & inputB;
+            case 5: return (inputA < inputB) ? 1 : 0;
+            case 2:
+                if (!(instr instanceof RTypeInstruction)) return 0;
+                int func = ((RTypeInstruction) instr).getFunc();
+                switch (func) {
+                    case 0x00: return inputB << inputA; //sll
+                    case 0x02: return inputB >>> inputA; //srl
+                    case 0x20: return inputA + inputB; //add
+                    case 0x22: return inputA - inputB; //sub
+                    case 0x24: return inputA & inputB; //and
+                    case 0x25: return inputA | inputB; //or
+                    case 0x26: return inputA ^ inputB; //xor
+                    case 0x27: return ~(inputA | inputB); //nor
+                    case 0x2A: return (inputA < inputB) ? 1 : 0; //slt
+                    default: throw new UnsupportedOperationException(
+                            "Unsupported R-type function: 0x" + Integer.toHexString(func));
+                }
+            default: return 0;
+        }
+    }
+
     private void clearEX_MEM(PipelineRegisters regs) {
         regs.EX_MEM.setAluResult(0);
         regs.EX_MEM.setZeroFlag(false);
@@ -148,6 +146,7 @@ public class ExecuteStage implements PipelineStage {
         regs.EX_MEM.setBranchTarget(0);
         regs.EX_MEM.setBranchTaken(false);
         regs.EX_MEM.setDestReg(0);
+        regs.EX_MEM.setPcPlus4(0);
         regs.EX_MEM.setRegWrite(false);
         regs.EX_MEM.setMemToReg(false);
         regs.EX_MEM.setBranch(false);
@@ -1,17 +1,37 @@
 package model.pipeline.stages;
 
+import model.control.prediction.BranchPredictor;
+import model.control.prediction.BranchTargetBuffer;
 import model.cpu.CPUState;
 import model.instruction.Instruction;
 import model.pipeline.registers.PipelineRegisters;
 
 public class FetchStage implements PipelineStage {
 
+    private BranchPredictor predictor;
+    private BranchTargetBuffer btb;
+
     @Override
     public void process(CPUState cpuState, PipelineRegisters regs) {
 
-        Instruction instr = cpuState.instructionMemory.fetch(cpuState.pc.get());
-        int pcPlus4 = cpuState.pc.get() + 4;
+        int pc = cpuState.pc.get();
+        Instruction instr = cpuState.instructionMemory.fetch(pc);
+        int pcPlus4 = pc + 4;
         regs.IF_ID.set(instr == null ? null : instr.copy(), pcPlus4);
-        cpuState.pc.increment();
+
+        int target = instr != null && btb != null ? btb.lookup(pc) : BranchTargetBuffer.MISS;
+        if (target != BranchTargetBuffer.MISS && predictor.predict(pc, target)) {
+            cpuState.pc.set(target);
+        } else {
+            cpuState.pc.increment();
+        }
+    }
+
+    /**
+     * Predicts branches the target buffer knows about, or always falls through when either is null.
+     */
+    public void setBranchPrediction(BranchPredictor predictor, BranchTargetBuffer btb) {
+        this.predictor = predictor;
+        this.btb = predictor != null ? btb : null;
     }
 }
@@ -39,6 +39,7 @@ public class MemoryStage implements PipelineStage {
         memWb.setAluResult(aluResult);
         memWb.setMemData(memData);
         memWb.setDestReg(destReg);
+        memWb.setPcPlus4(exMem.getPcPlus4());
         memWb.setRegWrite(exMem.isRegWrite());
         memWb.setMemToReg(exMem.isMemToReg());
     }
@@ -47,6 +48,7 @@ public class MemoryStage implements PipelineStage {
         regs.MEM_WB.setAluResult(0);
         regs.MEM_WB.setMemData(0);
         regs.MEM_WB.setDestReg(0);
+        regs.MEM_WB.setPcPlus4(0);
         regs.MEM_WB.setRegWrite(false);
         regs.MEM_WB.setMemToReg(false);
         regs.MEM_WB.setInstruction(null);
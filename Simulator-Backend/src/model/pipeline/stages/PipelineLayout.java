@@ -0,0 +1,83 @@
+package model.pipeline.stages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How many cycles fetch and memory access take. The classic pipeline has one of each; splitting
+ * them gives deeper variants such as IF1 IF2 ID EX MEM1 MEM2 WB, or the 8-stage R4000 with two
+ * fetch and three memory stages. Fetch, decode, execute and memory access still happen once, in
+ * the first stage of each group; the later stages only carry their latch one step further.
+ */
+public final class PipelineLayout {
+
+    public static final int MAX_STAGES_PER_GROUP = 3;
+
+    public static final PipelineLayout CLASSIC = new PipelineLayout(1, 1);
+
+    private final int fetchStages;
+    private final int memoryStages;
+
+    private PipelineLayout(int fetchStages, int memoryStages) {
+        this.fetchStages = fetchStages;
+        this.memoryStages = memoryStages;
+    }
+
+    public static PipelineLayout of(int fetchStages, int memoryStages) {
+        check(fetchStages, "fetch");
+        check(memoryStages, "memory");
+        return fetchStages == 1 && memoryStages == 1 ? CLASSIC : new PipelineLayout(fetchStages, memoryStages);
+    }
+
+    private static void check(int stages, String what) {
+        if (stages < 1 || stages > MAX_STAGES_PER_GROUP) {
+            throw new IllegalArgumentException("Number of " + what + " stages must be between 1 and "
+                    + MAX_STAGES_PER_GROUP + ": " + stages);
+        }
+    }
+
+    public int getFetchStages() { return fetchStages; }
+    public int getMemoryStages() { return memoryStages; }
+
+    public int getDepth() {
+        return fetchStages + memoryStages + 3;
+    }
+
+    /** Stage names from fetch to write-back, numbered within a split group. */
+    public List<String> getStageNames() {
+        List<String> names = new ArrayList<>(getDepth());
+        addGroup(names, "IF", fetchStages);
+        names.add("ID");
+        names.add("EX");
+        addGroup(names, "MEM", memoryStages);
+        names.add("WB");
+        return names;
+    }
+
+    private static void addGroup(List<String> names, String name, int stages) {
+        if (stages == 1) {
+            names.add(name);
+            return;
+        }
+        for (int i = 1; i <= stages; i++) {
+            names.add(name + i);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PipelineLayout)) return false;
+        PipelineLayout other = (PipelineLayout) o;
+        return fetchStages == other.fetchStages && memoryStages == other.memoryStages;
+    }
+
+    @Override
+    public int hashCode() {
+        return fetchStages * 31 + memoryStages;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", getStageNames());
+    }
+}
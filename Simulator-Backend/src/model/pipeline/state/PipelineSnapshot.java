@@ -2,18 +2,41 @@ package model.pipeline.state;
 
 public class PipelineSnapshot {
 
+    private static final StageInfo[] NONE = new StageInfo[0];
+
     private final StageInfo ifStage;
     private final StageInfo idStage;
     private final StageInfo exStage;
     private final StageInfo memStage;
     private final StageInfo wbStage;
+    private final PipelineSnapshot secondSlot; // younger instruction of each stage when dual-issuing, else null
+    private final StageInfo[] splitFetch;      // IF1 .. IFn-1 of a split fetch group; ifStage is IFn
+    private final StageInfo[] splitMemory;     // MEM1 .. MEMn-1 of a split memory group; memStage is MEMn
 
     public PipelineSnapshot(StageInfo ifStage, StageInfo idStage, StageInfo exStage, StageInfo memStage, StageInfo wbStage) {
+        this(ifStage, idStage, exStage, memStage, wbStage, null);
+    }
+
+    public PipelineSnapshot(StageInfo ifStage, StageInfo idStage, StageInfo exStage, StageInfo memStage, StageInfo wbStage,
+                            PipelineSnapshot secondSlot) {
+        this(ifStage, idStage, exStage, memStage, wbStage, secondSlot, NONE, NONE);
+    }
+
+    public PipelineSnapshot(StageInfo ifStage, StageInfo idStage, StageInfo exStage, StageInfo memStage, StageInfo wbStage,
+                            StageInfo[] splitFetch, StageInfo[] splitMemory) {
+        this(ifStage, idStage, exStage, memStage, wbStage, null, splitFetch, splitMemory);
+    }
+
+    private PipelineSnapshot(StageInfo ifStage, StageInfo idStage, StageInfo exStage, StageInfo memStage, StageInfo wbStage,
+                             PipelineSnapshot secondSlot, StageInfo[] splitFetch, StageInfo[] splitMemory) {
         this.ifStage = ifStage;
         this.idStage = idStage;
         this.exStage = exStage;
         this.memStage = memStage;
         this.wbStage = wbStage;
+        this.secondSlot = secondSlot;
+        this.splitFetch = splitFetch;
+        this.splitMemory = splitMemory;
     }
 
     public StageInfo getIfStage() { return ifStage; }
@@ -21,6 +44,13 @@ public class PipelineSnapshot {
     public StageInfo getExStage() { return exStage; }
     public StageInfo getMemStage() { return memStage; }
     public StageInfo getWbStage() { return wbStage; }
+    public PipelineSnapshot getSecondSlot() { return secondSlot; }
+
+    /** The fetch stages ahead of getIfStage in a split layout, from IF1; empty in the classic layout. */
+    public StageInfo[] getSplitFetchStages() { return splitFetch.clone(); }
+
+    /** The memory stages ahead of getMemStage in a split layout, from MEM1; empty in the classic layout. */
+    public StageInfo[] getSplitMemoryStages() { return splitMemory.clone(); }
 
     @Override
     public String toString() {
@@ -28,7 +58,8 @@ public class PipelineSnapshot {
                 ", ID="  + idStage +
                 ", EX="  + exStage +
                 ", MEM=" + memStage +
-                ", WB="  + wbStage;
+                ", WB="  + wbStage +
+                (secondSlot != null ? " | " + secondSlot : "");
     }
 }
 
@@ -2,6 +2,10 @@ package simulator;
 
 import java.util.*;
 
+/**
+ * Register names and the opcode table of the supported instruction set. StreamingAssembler and
+ * IncrementalAssembler do the assembling.
+ */
 public class Assembler {
 
     private static final Map<String, Integer> REGISTER_MAP = new HashMap<>();
@@ -67,164 +71,7 @@ public class Assembler {
         OPCODE_MAP.put("jal", new OpcodeInfo(InstructionType.J, 0x03, 0));
     }
 
-    public static AssemblyResult assemble(String[] assemblyLines, int startAddress) {
-
-        if (assemblyLines == null) {
-            throw new IllegalArgumentException("No assembly instructions provided");
-        }
-
-        List<Integer> machineCode = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
-        Map<String, Integer> labels = new HashMap<>();
-
-        int currentAddress = startAddress;
-        List<String> cleanedLines = new ArrayList<>();
-
-        for (int i = 0; i < assemblyLines.length; i++) {
-            String line = assemblyLines[i].trim();
-
-            int commentIdx = line.indexOf('#');
-            if (commentIdx >= 0) {
-                line = line.substring(0, commentIdx).trim();
-            }
-
-            if (line.isEmpty()) continue;
-
-            // label
-            if (line.contains(":")) {
-                String[] parts = line.split(":", 2);
-                String label = parts[0].trim().toLowerCase();
-                labels.put(label, currentAddress);
-                line = parts.length > 1 ? parts[1].trim() : "";
-                if (line.isEmpty()) continue;
-            }
-
-            cleanedLines.add(line);
-            currentAddress += 4;
-        }
-
-        currentAddress = startAddress;
-        for (int i = 0; i < cleanedLines.size(); i++) {
-            try {
-                int instr = assembleLine(cleanedLines.get(i), currentAddress, labels);
-                machineCode.add(instr);
-                currentAddress += 4;
-            } catch (Exception e) {
-                errors.add("Line " + (i + 1) + ": " + e.getMessage());
-            }
-        }
-
-        return new AssemblyResult(machineCode, errors);
-    }
-
-    private static int assembleLine(String line, int address, Map<String, Integer> labels) {
-
-        String[] tokens = line.split("[,\\s()]+");
-        List<String> parts = new ArrayList<>();
-        for (String token : tokens) {
-            if (!token.isEmpty()) parts.add(token.toLowerCase());
-        }
-
-        if (parts.isEmpty()) {
-            throw new IllegalArgumentException("Empty instruction");
-        }
-
-        String op = parts.get(0);
-        OpcodeInfo info = OPCODE_MAP.get(op);
-
-        if (info == null) {
-            throw new IllegalArgumentException("Unknown instruction: " + op);
-        }
-
-        switch (info.type) {
-            case R:
-                return assembleRType(op, parts, info);
-            case I:
-                return assembleIType(op, parts, info, address, labels);
-            case J:
-                return assembleJType(op, parts, info, labels);
-            default:
-                throw new IllegalArgumentException("Unknown instruction type");
-        }
-    }
-
-    private static int assembleRType(String op, List<String> parts, OpcodeInfo info) {
-        if (op.equals("sll") || op.equals("srl")) {
-            // sll $rd, $rt, shamt
-            if (parts.size() != 4) {
-                throw new IllegalArgumentException("Invalid format for " + op);
-            }
-            int rd = parseRegister(parts.get(1));
-            int rt = parseRegister(parts.get(2));
-            int shamt = parseImmediate(parts.get(3)) & 0x1F;
-            return (info.opcode << 26) | (rt << 16) | (rd << 11) | (shamt << 6) | info.funct;
-        } else {
-            // op $rd, $rs, $rt
-            if (parts.size() != 4) {
-                throw new IllegalArgumentException("Invalid format for " + op);
-            }
-            int rd = parseRegister(parts.get(1));
-            int rs = parseRegister(parts.get(2));
-            int rt = parseRegister(parts.get(3));
-            return (info.opcode << 26) | (rs << 21) | (rt << 16) | (rd << 11) | info.funct;
-        }
-    }
-
-    private static int assembleIType(String op, List<String> parts, OpcodeInfo info,
-                                     int address, Map<String, Integer> labels) {
-        if (op.equals("lw") || op.equals("sw")) {
-            if (parts.size() != 4) {
-                throw new IllegalArgumentException("Invalid format for " + op);
-            }
-            int rt = parseRegister(parts.get(1));
-            int offset = parseImmediate(parts.get(2)) & 0xFFFF;
-            int rs = parseRegister(parts.get(3));
-            return (info.opcode << 26) | (rs << 21) | (rt << 16) | offset;
-        } else if (op.equals("beq") || op.equals("bne")) {
-            if (parts.size() != 4) {
-                throw new IllegalArgumentException("Invalid format for " + op);
-            }
-            int rs = parseRegister(parts.get(1));
-            int rt = parseRegister(parts.get(2));
-            int offset;
-
-            if (labels.containsKey(parts.get(3))) {
-                int targetAddress = labels.get(parts.get(3));
-                offset = ((targetAddress - (address + 4)) / 4) & 0xFFFF;
-            } else {
-                offset = parseImmediate(parts.get(3)) & 0xFFFF;
-            }
-
-            return (info.opcode << 26) | (rs << 21) | (rt << 16) | offset;
-        } else {
-            if (parts.size() != 4) {
-                throw new IllegalArgumentException("Invalid format for " + op);
-            }
-            int rt = parseRegister(parts.get(1));
-            int rs = parseRegister(parts.get(2));
-            int imm = parseImmediate(parts.get(3)) & 0xFFFF;
-            return (info.opcode << 26) | (rs << 21) | (rt << 16) | imm;
-        }
-    }
-
-    private static int assembleJType(String op, List<String> parts, OpcodeInfo info,
-                                     Map<String, Integer> labels) {
-        if (parts.size() != 2) {
-            throw new IllegalArgumentException("Invalid format for " + op);
-        }
-
-        int address;
-        if (labels.containsKey(parts.get(1))) {
-            address = labels.get(parts.get(1)) / 4;
-        } else {
-            address = parseImmediate(parts.get(1));
-        }
-
-        address &= 0x3FFFFFF;
-        return (info.opcode << 26) | address;
-    }
-
-    private static int parseRegister(String reg) {
+    static int parseRegister(String reg) {
         reg = reg.toLowerCase().trim();
         if (!REGISTER_MAP.containsKey(reg)) {
             throw new IllegalArgumentException("Invalid register: " + reg);
@@ -232,17 +79,17 @@ public class Assembler {
         return REGISTER_MAP.get(reg);
     }
 
-    private static int parseImmediate(String imm) {
-        imm = imm.trim();
-        try {
-            if (imm.startsWith("0x") || imm.startsWith("0X")) {
-                return (int) Long.parseLong(imm.substring(2), 16);
-            } else {
-                return Integer.parseInt(imm);
+    /**
+     * Returns the mnemonic for an opcode and, for R-type instructions, funct field, or null if unknown.
+     */
+    public static String mnemonic(int opcode, int funct) {
+        for (Map.Entry<String, OpcodeInfo> entry : OPCODE_MAP.entrySet()) {
+            OpcodeInfo info = entry.getValue();
+            if (info.opcode == opcode && (info.type != InstructionType.R || info.funct == funct)) {
+                return entry.getKey();
             }
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid immediate value: " + imm);
         }
+        return null;
     }
 
     private enum InstructionType { R, I, J }
@@ -258,14 +105,4 @@ public class Assembler {
             this.funct = funct;
         }
     }
-
-    public static class AssemblyResult {
-        public final List<Integer> machineCode;
-        public final List<String> errors;
-
-        public AssemblyResult(List<Integer> machineCode, List<String> errors) {
-            this.machineCode = machineCode;
-            this.errors = errors;
-        }
-    }
-}
\ No newline at end of file
+}
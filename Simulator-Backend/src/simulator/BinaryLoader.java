@@ -0,0 +1,191 @@
+package simulator;
+
+import model.cpu.CPUState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads machine code from raw big-endian images and MIPS32 ELF executables.
+ */
+public class BinaryLoader {
+
+	private static final int ELFCLASS32 = 1;
+	private static final int ELFDATA2LSB = 1;
+	private static final int ELFDATA2MSB = 2;
+	private static final int EM_MIPS = 8;
+	private static final int PT_LOAD = 1;
+	private static final int PF_X = 0x1;
+
+	public static ProgramLoader.ProgramLoadResult loadFile(CPUState state, Path file, int startAddress) throws IOException {
+		ByteBuffer image = readFile(file);
+		return isElf(image) ? loadElf(state, image) : loadRawImage(state, image, startAddress);
+	}
+
+	public static ProgramLoader.ProgramLoadResult loadRawImage(CPUState state, ByteBuffer image, int startAddress) {
+		if (image.remaining() < 4)
+			throw new IllegalArgumentException("Binary image is empty");
+
+		List<String> warnings = new ArrayList<>();
+		if ((image.remaining() & 0x3) != 0)
+			warnings.add("Ignoring " + (image.remaining() & 0x3) + " trailing bytes after the last full word");
+
+		int[] words = new int[image.remaining() / 4];
+		image.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(words);
+
+		ProgramLoader.ProgramLoadResult result = ProgramLoader.loadFromIntArray(state, words, startAddress);
+		warnings.addAll(result.warnings);
+		return new ProgramLoader.ProgramLoadResult(result.loadedCount, result.startAddress, result.endAddress, warnings);
+	}
+
+	/**
+	 * Loads the executable PT_LOAD segment into instruction memory, the other PT_LOAD segments into
+	 * data memory, and sets the PC to the entry point. Data memory is cleared before the data segments
+	 * are copied, so memsz past filesz reads as zero.
+	 *
+	 * A text segment that does not fit instruction memory at its address, such as the usual 0x400000,
+	 * is moved to address 0 together with the entry point and the j and jal targets inside it. Branches
+	 * are PC-relative and need no change; addresses of code built in registers are not relocated.
+	 */
+	public static ProgramLoader.ProgramLoadResult loadElf(CPUState state, ByteBuffer file) {
+		ByteBuffer elf = file.slice();
+		if (elf.remaining() < 52 || !isElf(elf))
+			throw new IllegalArgumentException("Not an ELF file");
+		if (elf.get(4) != ELFCLASS32)
+			throw new IllegalArgumentException("Only 32-bit ELF files are supported");
+
+		int data = elf.get(5);
+		if (data == ELFDATA2MSB) {
+			elf.order(ByteOrder.BIG_ENDIAN);
+		} else if (data == ELFDATA2LSB) {
+			elf.order(ByteOrder.LITTLE_ENDIAN);
+		} else {
+			throw new IllegalArgumentException("Unknown ELF data encoding: " + data);
+		}
+
+		if (elf.getShort(18) != EM_MIPS)
+			throw new IllegalArgumentException("ELF file is not a MIPS executable");
+
+		int entry = elf.getInt(24);
+		int phoff = elf.getInt(28);
+		int phentsize = elf.getShort(42) & 0xFFFF;
+		int phnum = elf.getShort(44) & 0xFFFF;
+
+		if (phnum == 0 || phoff < 0 || (long) phoff + (long) phentsize * phnum > elf.limit())
+			throw new IllegalArgumentException("ELF program header table is missing or truncated");
+		if (phentsize < 32)
+			throw new IllegalArgumentException("ELF program header entries are too small: " + phentsize + " bytes");
+
+		List<String> warnings = new ArrayList<>();
+		int[] text = null;
+		int textAddress = 0;
+		List<IntBuffer> dataSegments = new ArrayList<>();
+		List<Integer> dataAddresses = new ArrayList<>();
+
+		for (int i = 0; i < phnum; i++) {
+			int ph = phoff + i * phentsize;
+			if (elf.getInt(ph) != PT_LOAD) continue;
+
+			int offset = elf.getInt(ph + 4);
+			int vaddr = elf.getInt(ph + 8);
+			int filesz = elf.getInt(ph + 16);
+			int flags = elf.getInt(ph + 24);
+
+			if (offset < 0 || filesz < 0 || (long) offset + filesz > elf.limit())
+				throw new IllegalArgumentException("ELF segment " + i + " lies outside the file");
+
+			IntBuffer words = elf.slice(offset, filesz & ~0x3).order(elf.order()).asIntBuffer();
+
+			if ((flags & PF_X) != 0) {
+				if (text != null) {
+					warnings.add("Ignoring additional executable segment at 0x" + Integer.toHexString(vaddr));
+					continue;
+				}
+				text = new int[words.remaining()];
+				words.get(text);
+				textAddress = vaddr;
+			} else {
+				dataSegments.add(words);
+				dataAddresses.add(vaddr);
+			}
+		}
+
+		if (text == null || text.length == 0)
+			throw new IllegalArgumentException("ELF file has no executable segment");
+
+		int textBase = textAddress;
+		if (textAddress < 0 || (long) textAddress + text.length * 4L > state.instructionMemory.sizeBytes()) {
+			relocateJumps(text, textAddress);
+			textBase = 0;
+			warnings.add("Moved text segment from 0x" + Integer.toHexString(textAddress) + " to 0x0");
+		}
+
+		ProgramLoader.ProgramLoadResult result = ProgramLoader.loadFromIntArray(state, text, textBase);
+		warnings.addAll(result.warnings);
+
+		state.dataMemory.clear();
+		for (int i = 0; i < dataSegments.size(); i++) {
+			loadDataSegment(state, dataSegments.get(i), dataAddresses.get(i), warnings);
+		}
+		state.pc.set(entry - textAddress + textBase);
+		return new ProgramLoader.ProgramLoadResult(result.loadedCount, result.startAddress, result.endAddress, warnings);
+	}
+
+	public static boolean isElf(ByteBuffer image) {
+		int p = image.position();
+		return image.remaining() >= 4 && image.get(p) == 0x7F
+				&& image.get(p + 1) == 'E' && image.get(p + 2) == 'L' && image.get(p + 3) == 'F';
+	}
+
+	// Rewrites the j and jal targets that fall inside the segment loaded at address for a load at 0
+	private static void relocateJumps(int[] text, int address) {
+		long end = (address & 0xFFFFFFFFL) + text.length * 4L;
+		for (int i = 0; i < text.length; i++) {
+			int opcode = text[i] >>> 26;
+			if (opcode != 0x02 && opcode != 0x03) continue;
+
+			int pc = address + i * 4;
+			long target = (((pc + 4) & 0xF0000000) | ((text[i] & 0x03FFFFFF) << 2)) & 0xFFFFFFFFL;
+			if (target >= (address & 0xFFFFFFFFL) && target < end) {
+				text[i] = (text[i] & 0xFC000000) | (int) ((target - (address & 0xFFFFFFFFL)) >>> 2);
+			}
+		}
+	}
+
+	private static void loadDataSegment(CPUState state, IntBuffer words, int vaddr, List<String> warnings) {
+		if (words.remaining() == 0) return;
+
+		if (vaddr < 0 || (vaddr & 0x3) != 0 || vaddr >= state.dataMemory.sizeBytes()) {
+			warnings.add("Skipping data segment at 0x" + Integer.toHexString(vaddr) + " outside data memory");
+			return;
+		}
+		if ((long) vaddr + words.remaining() * 4L > state.dataMemory.sizeBytes())
+			warnings.add("Truncating data segment at 0x" + Integer.toHexString(vaddr) + " to data memory size");
+
+		// DataMemory images are big-endian; a bulk put converts little-endian segments in one pass
+		ByteBuffer image = ByteBuffer.allocate(words.remaining() * 4).order(ByteOrder.BIG_ENDIAN);
+		image.asIntBuffer().put(words);
+		state.dataMemory.loadImage(image, vaddr);
+	}
+
+	private static ByteBuffer readFile(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Binary file is too large: " + size + " bytes");
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) break;
+			}
+			return buffer.flip();
+		}
+	}
+}
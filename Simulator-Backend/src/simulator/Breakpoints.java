@@ -0,0 +1,223 @@
+package simulator;
+
+import model.cpu.CPUState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PC breakpoints and data watchpoints kept as bitsets indexed by word address, so each check is
+ * one array lookup. The controller skips all checks while nothing is set. An optional compiled
+ * Condition per address is evaluated only when that address matches.
+ */
+public class Breakpoints {
+
+    public enum Kind { BREAKPOINT, WATCH_READ, WATCH_WRITE }
+
+    public static class Hit {
+        public final Kind kind;
+        public final int address;
+
+        public Hit(Kind kind, int address) {
+            this.kind = kind;
+            this.address = address;
+        }
+    }
+
+    private long[] pcBits = new long[0];
+    private long[] readBits = new long[0];
+    private long[] writeBits = new long[0];
+    private final Map<Integer, Condition> pcConditions = new HashMap<>();
+    private final Map<Integer, Condition> watchConditions = new HashMap<>();
+    private final Condition.Probe probe;
+    private int count;
+    private Hit hit;
+
+    Breakpoints(CPUState state) {
+        this.probe = new Condition.Probe(state);
+    }
+
+    public void addBreakpoint(int address) {
+        addBreakpoint(address, null);
+    }
+
+    /**
+     * Breaks at address only when condition holds, evaluated against the state at the start of the cycle.
+     */
+    public void addBreakpoint(int address, Condition condition) {
+        pcBits = set(pcBits, address);
+        putCondition(pcConditions, address, condition);
+    }
+
+    public void removeBreakpoint(int address) {
+        clearBit(pcBits, address);
+        pcConditions.remove(address >>> 2);
+    }
+
+    public boolean hasBreakpoint(int address) {
+        return get(pcBits, address);
+    }
+
+    /**
+     * Watches the word at address for loads, stores, or both.
+     */
+    public void addWatchpoint(int address, boolean onRead, boolean onWrite) {
+        addWatchpoint(address, onRead, onWrite, null);
+    }
+
+    /**
+     * Watches the word at address, stopping only when condition holds for the access.
+     */
+    public void addWatchpoint(int address, boolean onRead, boolean onWrite, Condition condition) {
+        if (onRead) readBits = set(readBits, address);
+        if (onWrite) writeBits = set(writeBits, address);
+        if (onRead || onWrite) putCondition(watchConditions, address, condition);
+    }
+
+    public void removeWatchpoint(int address) {
+        clearBit(readBits, address);
+        clearBit(writeBits, address);
+        watchConditions.remove(address >>> 2);
+    }
+
+    /** The condition guarding the breakpoint at address, or null if it is unconditional. */
+    public Condition getBreakpointCondition(int address) {
+        return pcConditions.get(address >>> 2);
+    }
+
+    /** The condition guarding the watchpoint at address, or null if it is unconditional. */
+    public Condition getWatchpointCondition(int address) {
+        return watchConditions.get(address >>> 2);
+    }
+
+    public boolean isWatchedRead(int address) {
+        return get(readBits, address);
+    }
+
+    public boolean isWatchedWrite(int address) {
+        return get(writeBits, address);
+    }
+
+    public List<Integer> getBreakpoints() {
+        return addresses(pcBits);
+    }
+
+    public List<Integer> getReadWatchpoints() {
+        return addresses(readBits);
+    }
+
+    public List<Integer> getWriteWatchpoints() {
+        return addresses(writeBits);
+    }
+
+    public void clear() {
+        pcBits = new long[0];
+        readBits = new long[0];
+        writeBits = new long[0];
+        pcConditions.clear();
+        watchConditions.clear();
+        count = 0;
+        hit = null;
+    }
+
+    public boolean isArmed() {
+        return count > 0;
+    }
+
+    /** The first breakpoint or watchpoint hit in the last cycle, or null. */
+    public Hit getHit() {
+        return hit;
+    }
+
+    /** Sets the cycle number conditions see as {@code cycle}; the clock calls this before each cycle. */
+    void setCycle(int cycle) {
+        probe.cycle = cycle;
+    }
+
+    void beginCycle() {
+        hit = null;
+    }
+
+    /** Checks the instruction at pc as it retires, so wrong-path fetches never hit. */
+    void checkRetirement(int pc) {
+        if (hit == null && get(pcBits, pc) && holds(pcConditions.get(pc >>> 2), pc, 0)) {
+            hit = new Hit(Kind.BREAKPOINT, pc);
+        }
+    }
+
+    /**
+     * Checks the access EX/MEM is about to make; storeData is the word a store writes.
+     */
+    void checkMemory(int address, boolean read, boolean write, int storeData) {
+        if (hit != null) return;
+        if (read && get(readBits, address)) {
+            Condition condition = watchConditions.get(address >>> 2);
+            if (condition == null || holds(condition, address, probe.state.dataMemory.loadWord(address & ~0x3))) {
+                hit = new Hit(Kind.WATCH_READ, address);
+            }
+        } else if (write && get(writeBits, address) && holds(watchConditions.get(address >>> 2), address, storeData)) {
+            hit = new Hit(Kind.WATCH_WRITE, address);
+        }
+    }
+
+    private boolean holds(Condition condition, int address, int value) {
+        if (condition == null) return true;
+        probe.address = address;
+        probe.value = value;
+        return condition.test(probe);
+    }
+
+    private static void putCondition(Map<Integer, Condition> conditions, int address, Condition condition) {
+        if (condition == null) {
+            conditions.remove(address >>> 2);
+        } else {
+            conditions.put(address >>> 2, condition);
+        }
+    }
+
+    private long[] set(long[] bits, int address) {
+        int word = address >>> 2;
+        int index = word >>> 6;
+        if (index >= bits.length) {
+            long[] grown = new long[Math.max(index + 1, bits.length * 2)];
+            System.arraycopy(bits, 0, grown, 0, bits.length);
+            bits = grown;
+        }
+        long mask = 1L << word;
+        if ((bits[index] & mask) == 0) {
+            bits[index] |= mask;
+            count++;
+        }
+        return bits;
+    }
+
+    private void clearBit(long[] bits, int address) {
+        int word = address >>> 2;
+        int index = word >>> 6;
+        long mask = 1L << word;
+        if (index < bits.length && (bits[index] & mask) != 0) {
+            bits[index] &= ~mask;
+            count--;
+        }
+    }
+
+    private static boolean get(long[] bits, int address) {
+        int index = address >>> 8;
+        return index < bits.length && (bits[index] & (1L << (address >>> 2))) != 0;
+    }
+
+    private static List<Integer> addresses(long[] bits) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                result.add(((i << 6) + bit) << 2);
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+}
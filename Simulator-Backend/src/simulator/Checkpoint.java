@@ -0,0 +1,278 @@
+package simulator;
+
+import model.control.StallUnit;
+import model.control.prediction.BranchPredictor;
+import model.control.prediction.BranchTargetBuffer;
+import model.cpu.CPUState;
+import model.instruction.Instruction;
+import model.pipeline.registers.PipelineRegisters;
+import model.pipeline.stages.PipelineLayout;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageInfo;
+import model.pipeline.state.StageState;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Binary checkpoint of a whole simulation: CPU state, pipeline latches with their in-flight
+ * instructions, stall unit and clock cycle, plus the cache contents, branch predictor tables and
+ * branch resolution mode that decide its timing. Instructions are stored as their 32-bit encoding
+ * and decoded again on restore; data memory is stored sparsely. Statistics are not stored and
+ * start from zero after a restore.
+ * <p>
+ * The pipeline history grows by one snapshot per cycle, so it is only stored on request; without
+ * it the restored history starts empty at the checkpoint's cycle.
+ */
+public final class Checkpoint {
+
+    private static final int MAGIC = 0x4D495053; // "MIPS"
+    private static final int VERSION = 5; // 2 adds the fetch and memory stage counts, 3 caches and prediction,
+                                          // 4 retiring PCs, 5 split stages in the history
+    private static final StageState[] STAGE_STATES = StageState.values();
+
+    private Checkpoint() {}
+
+    public static byte[] save(PipelineController controller, Clock clock) {
+        return save(controller, clock, false);
+    }
+
+    public static byte[] save(PipelineController controller, Clock clock, boolean withHistory) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            save(controller, clock, bytes, withHistory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void save(PipelineController controller, Clock clock, OutputStream stream) throws IOException {
+        save(controller, clock, stream, false);
+    }
+
+    public static void save(PipelineController controller, Clock clock, OutputStream stream,
+                            boolean withHistory) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        CPUState state = controller.getCpuState();
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(clock.getCycle());
+
+        for (int i = 0; i < 32; i++) {
+            out.writeInt(state.registerFile.get(i));
+        }
+        out.writeInt(state.pc.get());
+
+        int start = state.instructionMemory.getImageStart();
+        int words = state.instructionMemory.getImageWords();
+        out.writeInt(start);
+        out.writeInt(words);
+        for (int i = 0; i < words; i++) {
+            writeInstruction(out, state.instructionMemory.fetch(start + i * 4));
+        }
+        state.dataMemory.writeTo(out);
+
+        out.writeInt(controller.getLayout().getFetchStages());
+        out.writeInt(controller.getLayout().getMemoryStages());
+        writeLatches(out, controller.getPipelineRegisters());
+
+        StallUnit.StallControl stall = controller.getStallUnit().getStallControl();
+        out.writeBoolean(stall.stall);
+        out.writeBoolean(stall.pcWrite);
+        out.writeBoolean(stall.ifidWrite);
+        out.writeBoolean(stall.idExClear);
+
+        writeInstruction(out, controller.getLastWbInstruction());
+        writeTiming(out, controller);
+
+        List<PipelineSnapshot> history = withHistory ? controller.getHistory() : List.of();
+        out.writeInt(history.size());
+        for (PipelineSnapshot snapshot : history) {
+            writeStage(out, snapshot.getIfStage());
+            writeStage(out, snapshot.getIdStage());
+            writeStage(out, snapshot.getExStage());
+            writeStage(out, snapshot.getMemStage());
+            writeStage(out, snapshot.getWbStage());
+            writeStages(out, snapshot.getSplitFetchStages());
+            writeStages(out, snapshot.getSplitMemoryStages());
+        }
+        out.flush();
+    }
+
+    public static void restore(PipelineController controller, Clock clock, byte[] checkpoint) {
+        try {
+            restore(controller, clock, new ByteArrayInputStream(checkpoint));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated checkpoint", e);
+        }
+    }
+
+    /**
+     * Replaces the state of controller and clock with a checkpoint written by save. A checkpoint
+     * that fails to read part-way leaves the simulation inconsistent; reset before reusing it.
+     */
+    public static void restore(PipelineController controller, Clock clock, InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        CPUState state = controller.getCpuState();
+
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a simulator checkpoint");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported checkpoint version: " + version);
+        }
+        int cycle = in.readInt();
+
+        int[] registers = new int[32];
+        for (int i = 0; i < 32; i++) {
+            registers[i] = in.readInt();
+        }
+        int pc = in.readInt();
+
+        int start = in.readInt();
+        int words = in.readInt();
+        if (start < 0 || (start & 0x3) != 0 || words < 0 || (long) start + words * 4L > state.instructionMemory.sizeBytes()) {
+            throw new IllegalArgumentException("Checkpoint program does not fit in instruction memory");
+        }
+        Instruction[] image = new Instruction[words];
+        for (int i = 0; i < words; i++) {
+            image[i] = readInstruction(in);
+        }
+
+        for (int i = 0; i < 32; i++) {
+            state.registerFile.set(i, registers[i]);
+        }
+        state.pc.set(pc);
+        if (words == 0) {
+            state.instructionMemory.clear();
+        } else {
+            state.instructionMemory.loadImage(image, start);
+        }
+        state.dataMemory.readFrom(in);
+
+        controller.applyLayout(PipelineLayout.of(in.readInt(), in.readInt()));
+        readLatches(in, controller.getPipelineRegisters());
+
+        controller.getStallUnit().setStallControl(new StallUnit.StallControl(
+                in.readBoolean(), in.readBoolean(), in.readBoolean(), in.readBoolean()));
+
+        Instruction lastWb = readInstruction(in);
+        readTiming(in, controller);
+
+        int snapshots = in.readInt();
+        if (snapshots < 0) {
+            throw new IllegalArgumentException("Corrupt checkpoint history");
+        }
+        controller.clearHistory();
+        List<PipelineSnapshot> history = controller.getHistory();
+        for (int i = 0; i < snapshots; i++) {
+            history.add(new PipelineSnapshot(readStage(in), readStage(in), readStage(in), readStage(in), readStage(in),
+                    readStages(in), readStages(in)));
+        }
+        controller.setLastWbInstruction(lastWb);
+        clock.setCycle(cycle);
+    }
+
+    private static void writeTiming(DataOutputStream out, PipelineController controller) throws IOException {
+        out.writeBoolean(controller.isEarlyBranchResolution());
+        out.writeInt(controller.getFetchWait());
+        out.writeInt(controller.getFetchFilledPc());
+        out.writeInt(controller.getMemWait());
+        out.writeBoolean(controller.isMemCharged());
+        controller.getCaches().writeTo(out);
+
+        BranchPredictor predictor = controller.getBranchPredictor();
+        out.writeBoolean(predictor != null);
+        if (predictor != null) {
+            out.writeUTF(predictor.getName());
+            out.writeInt(predictor.getEntries());
+            predictor.writeTo(out);
+            BranchTargetBuffer btb = controller.getBranchTargetBuffer();
+            out.writeInt(btb.size());
+            btb.writeTo(out);
+        }
+    }
+
+    private static void readTiming(DataInputStream in, PipelineController controller) throws IOException {
+        controller.applyEarlyBranchResolution(in.readBoolean());
+        controller.setCacheTimers(in.readInt(), in.readInt(), in.readInt(), in.readBoolean());
+        controller.getCaches().readFrom(in);
+
+        if (in.readBoolean()) {
+            BranchPredictor predictor = BranchPredictor.create(in.readUTF(), in.readInt());
+            predictor.readFrom(in);
+            BranchTargetBuffer btb = new BranchTargetBuffer(in.readInt());
+            btb.readFrom(in);
+            controller.setBranchPrediction(predictor, btb);
+        } else {
+            controller.setBranchPrediction(null, null);
+        }
+    }
+
+    private static void writeLatches(DataOutputStream out, PipelineRegisters regs) throws IOException {
+        int[] latches = new int[LatchState.ints(regs)];
+        LatchState.encode(regs, latches, 0);
+        for (int value : latches) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void readLatches(DataInputStream in, PipelineRegisters regs) throws IOException {
+        int[] latches = new int[LatchState.ints(regs)];
+        for (int i = 0; i < latches.length; i++) {
+            latches[i] = in.readInt();
+        }
+        LatchState.decode(latches, 0, regs);
+    }
+
+    private static void writeStage(DataOutputStream out, StageInfo info) throws IOException {
+        if (info == null) {
+            out.writeByte(-1);
+            return;
+        }
+        out.writeByte(info.getState().ordinal());
+        writeInstruction(out, info.getInstruction());
+    }
+
+    private static void writeStages(DataOutputStream out, StageInfo[] stages) throws IOException {
+        out.writeByte(stages.length);
+        for (StageInfo stage : stages) {
+            writeStage(out, stage);
+        }
+    }
+
+    private static StageInfo[] readStages(DataInputStream in) throws IOException {
+        int count = in.readByte();
+        if (count < 0 || count >= PipelineLayout.MAX_STAGES_PER_GROUP) {
+            throw new IllegalArgumentException("Corrupt checkpoint history");
+        }
+        StageInfo[] stages = new StageInfo[count];
+        for (int i = 0; i < count; i++) {
+            stages[i] = readStage(in);
+        }
+        return stages;
+    }
+
+    private static StageInfo readStage(DataInputStream in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal == -1) return null;
+        if (ordinal < 0 || ordinal >= STAGE_STATES.length) {
+            throw new IllegalArgumentException("Corrupt checkpoint history");
+        }
+        return new StageInfo(STAGE_STATES[ordinal], readInstruction(in));
+    }
+
+    private static void writeInstruction(DataOutputStream out, Instruction instruction) throws IOException {
+        out.writeBoolean(instruction != null);
+        if (instruction != null) {
+            out.writeInt(instruction.getBinary());
+        }
+    }
+
+    private static Instruction readInstruction(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LatchState.decodeInstruction(in.readInt()) : null;
+    }
+}
@@ -4,6 +4,7 @@ public class Clock {
 
     private int cycle = 0;
     private final PipelineController pipelineController;
+    private Timeline timeline;
 
     public Clock(PipelineController pipelineController) {
         this.pipelineController = pipelineController;
@@ -11,15 +12,73 @@ public class Clock {
 
     public void tick() {
         cycle++;
+        pipelineController.getBreakpoints().setCycle(cycle);
         pipelineController.runCycle();
+        if (timeline != null) {
+            timeline.onCycle(cycle, pipelineController);
+        }
         System.out.println("Cycle " + cycle + " completed.");
     }
 
     public int getCycle() { return cycle; }
 
-    public void run(int n) {
+    void setCycle(int cycle) { this.cycle = cycle; }
+
+    /**
+     * Steps back up to n cycles; returns how many were undone.
+     */
+    public int rewind(int n) {
+        int undone = pipelineController.stepBack(n);
+        cycle -= undone;
+        if (timeline != null) {
+            timeline.truncate(cycle);
+        }
+        return undone;
+    }
+
+    /**
+     * Runs up to n cycles, stopping after a cycle that hits a breakpoint or watchpoint.
+     * Returns the number of cycles run.
+     */
+    public int run(int n) {
+        Breakpoints breakpoints = pipelineController.getBreakpoints();
         for (int i = 0; i < n; i++) {
             tick();
+            if (breakpoints.getHit() != null) {
+                return i + 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Keeps keyframes of the run from this cycle on so past cycles can be queried with stateAt.
+     */
+    public void setTimeline(Timeline timeline) {
+        this.timeline = timeline;
+        resetTimeline();
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Forgets past keyframes, for when the state changed outside the clock (load, reset, restore).
+     */
+    public void resetTimeline() {
+        if (timeline != null) {
+            timeline.reset(cycle, pipelineController);
+        }
+    }
+
+    /**
+     * Returns a detached controller holding the state after the given past cycle.
+     */
+    public PipelineController stateAt(int pastCycle) {
+        if (timeline == null) {
+            throw new IllegalStateException("No timeline is kept for this clock");
         }
+        return timeline.stateAt(pastCycle, pipelineController, cycle);
     }
 }
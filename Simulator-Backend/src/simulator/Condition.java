@@ -0,0 +1,354 @@
+package simulator;
+
+import model.cpu.CPUState;
+import model.memory.DataMemory;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+/**
+ * Breakpoint condition such as {@code $t0 == 100 && cycle > 50} or {@code value > 5}, parsed once
+ * and compiled into a tree of functions; constant subexpressions are folded at compile time.
+ * <p>
+ * Operands are integer literals, registers ($t0, $8), {@code pc}, {@code cycle}, {@code addr} and
+ * {@code value} (the watched address and the word stored to or loaded from it), and
+ * {@code mem[expr]}. Operators follow C precedence: {@code ! ~ -}, {@code * / %}, {@code + -},
+ * {@code << >>}, comparisons, {@code & ^ |}, {@code && ||}. A comparison yields 1 or 0, and the
+ * condition holds when the whole expression is non-zero.
+ */
+public final class Condition {
+
+    /** Values visible to a condition; refreshed by Breakpoints before each evaluation. */
+    static final class Probe {
+        final CPUState state;
+        int cycle;
+        int address;
+        int value;
+
+        Probe(CPUState state) {
+            this.state = state;
+        }
+    }
+
+    private final String source;
+    private final ToIntFunction<Probe> expression;
+
+    private Condition(String source, ToIntFunction<Probe> expression) {
+        this.source = source;
+        this.expression = expression;
+    }
+
+    public static Condition compile(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Empty condition");
+        }
+        Parser parser = new Parser(source);
+        ToIntFunction<Probe> expression = parser.parseOr();
+        parser.skipSpaces();
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        return new Condition(source.trim(), expression);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    boolean test(Probe probe) {
+        return expression.applyAsInt(probe) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static final class Constant implements ToIntFunction<Probe> {
+        final int value;
+
+        Constant(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int applyAsInt(Probe probe) {
+            return value;
+        }
+    }
+
+    private static final class Parser {
+        private final String src;
+        private int pos;
+
+        Parser(String src) {
+            this.src = src;
+        }
+
+        ToIntFunction<Probe> parseOr() {
+            ToIntFunction<Probe> left = parseAnd();
+            while (accept("||")) {
+                ToIntFunction<Probe> l = left, r = parseAnd();
+                left = fold(l, r, p -> l.applyAsInt(p) != 0 || r.applyAsInt(p) != 0 ? 1 : 0);
+            }
+            return left;
+        }
+
+        private ToIntFunction<Probe> parseAnd() {
+            ToIntFunction<Probe> left = parseBitOr();
+            while (accept("&&")) {
+                ToIntFunction<Probe> l = left, r = parseBitOr();
+                left = fold(l, r, p -> l.applyAsInt(p) != 0 && r.applyAsInt(p) != 0 ? 1 : 0);
+            }
+            return left;
+        }
+
+        private ToIntFunction<Probe> parseBitOr() {
+            ToIntFunction<Probe> left = parseBitXor();
+            while (peek('|') && !peek("||")) {
+                pos++;
+                left = binary(left, parseBitXor(), (a, b) -> a | b);
+            }
+            return left;
+        }
+
+        private ToIntFunction<Probe> parseBitXor() {
+            ToIntFunction<Probe> left = parseBitAnd();
+            while (accept("^")) {
+                left = binary(left, parseBitAnd(), (a, b) -> a ^ b);
+            }
+            return left;
+        }
+
+        private ToIntFunction<Probe> parseBitAnd() {
+            ToIntFunction<Probe> left = parseEquality();
+            while (peek('&') && !peek("&&")) {
+                pos++;
+                left = binary(left, parseEquality(), (a, b) -> a & b);
+            }
+            return left;
+        }
+
+        private ToIntFunction<Probe> parseEquality() {
+            ToIntFunction<Probe> left = parseRelational();
+            while (true) {
+                if (accept("==")) {
+                    left = binary(left, parseRelational(), (a, b) -> a == b ? 1 : 0);
+                } else if (accept("!=")) {
+                    left = binary(left, parseRelational(), (a, b) -> a != b ? 1 : 0);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ToIntFunction<Probe> parseRelational() {
+            ToIntFunction<Probe> left = parseShift();
+            while (true) {
+                if (accept("<=")) {
+                    left = binary(left, parseShift(), (a, b) -> a <= b ? 1 : 0);
+                } else if (accept(">=")) {
+                    left = binary(left, parseShift(), (a, b) -> a >= b ? 1 : 0);
+                } else if (peek('<') && !peek("<<")) {
+                    pos++;
+                    left = binary(left, parseShift(), (a, b) -> a < b ? 1 : 0);
+                } else if (peek('>') && !peek(">>")) {
+                    pos++;
+                    left = binary(left, parseShift(), (a, b) -> a > b ? 1 : 0);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ToIntFunction<Probe> parseShift() {
+            ToIntFunction<Probe> left = parseAdditive();
+            while (true) {
+                if (accept("<<")) {
+                    left = binary(left, parseAdditive(), (a, b) -> a << b);
+                } else if (accept(">>")) {
+                    left = binary(left, parseAdditive(), (a, b) -> a >> b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ToIntFunction<Probe> parseAdditive() {
+            ToIntFunction<Probe> left = parseMultiplicative();
+            while (true) {
+                if (accept("+")) {
+                    left = binary(left, parseMultiplicative(), Integer::sum);
+                } else if (accept("-")) {
+                    left = binary(left, parseMultiplicative(), (a, b) -> a - b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ToIntFunction<Probe> parseMultiplicative() {
+            ToIntFunction<Probe> left = parseUnary();
+            while (true) {
+                if (accept("*")) {
+                    left = binary(left, parseUnary(), (a, b) -> a * b);
+                } else if (accept("/")) {
+                    left = binary(left, parseUnary(), (a, b) -> b == 0 ? 0 : a / b);
+                } else if (accept("%")) {
+                    left = binary(left, parseUnary(), (a, b) -> b == 0 ? 0 : a % b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private ToIntFunction<Probe> parseUnary() {
+            if (accept("-")) return unary(parseUnary(), a -> -a);
+            if (accept("~")) return unary(parseUnary(), a -> ~a);
+            if (peek('!') && !peek("!=")) {
+                pos++;
+                return unary(parseUnary(), a -> a == 0 ? 1 : 0);
+            }
+            return parsePrimary();
+        }
+
+        private ToIntFunction<Probe> parsePrimary() {
+            skipSpaces();
+            if (pos >= src.length()) {
+                throw error("Unexpected end of condition");
+            }
+            char c = src.charAt(pos);
+
+            if (accept("(")) {
+                ToIntFunction<Probe> inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            if (Character.isDigit(c)) {
+                return new Constant(parseNumber());
+            }
+            if (c == '$') {
+                int start = pos++;
+                while (pos < src.length() && Character.isLetterOrDigit(src.charAt(pos))) pos++;
+                String name = src.substring(start, pos);
+                int reg;
+                try {
+                    reg = Assembler.parseRegister(name);
+                } catch (IllegalArgumentException e) {
+                    throw error("Unknown register " + name);
+                }
+                if (reg == 0) return new Constant(0);
+                return p -> p.state.registerFile.get(reg);
+            }
+            if (Character.isLetter(c)) {
+                int start = pos;
+                while (pos < src.length() && Character.isLetterOrDigit(src.charAt(pos))) pos++;
+                String name = src.substring(start, pos).toLowerCase();
+                switch (name) {
+                    case "pc":
+                        return p -> p.state.pc.get();
+                    case "cycle":
+                        return p -> p.cycle;
+                    case "addr":
+                        return p -> p.address;
+                    case "value":
+                        return p -> p.value;
+                    case "mem": {
+                        expect("[");
+                        ToIntFunction<Probe> address = parseOr();
+                        expect("]");
+                        return p -> loadWord(p.state.dataMemory, address.applyAsInt(p));
+                    }
+                    default:
+                        pos = start;
+                        throw error("Unknown name " + name);
+                }
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private int parseNumber() {
+            int start = pos;
+            int radix = 10;
+            if (src.startsWith("0x", pos) || src.startsWith("0X", pos)) {
+                radix = 16;
+                pos += 2;
+                start = pos;
+            }
+            while (pos < src.length() && Character.digit(src.charAt(pos), radix) >= 0) pos++;
+            if (pos == start) {
+                throw error("Expected a number");
+            }
+            try {
+                return (int) Long.parseLong(src.substring(start, pos), radix);
+            } catch (NumberFormatException e) {
+                throw error("Number out of range");
+            }
+        }
+
+        private static ToIntFunction<Probe> binary(ToIntFunction<Probe> left, ToIntFunction<Probe> right, IntBinaryOperator op) {
+            if (left instanceof Constant && right instanceof Constant) {
+                return new Constant(op.applyAsInt(((Constant) left).value, ((Constant) right).value));
+            }
+            if (right instanceof Constant) {
+                int b = ((Constant) right).value;
+                return p -> op.applyAsInt(left.applyAsInt(p), b);
+            }
+            return p -> op.applyAsInt(left.applyAsInt(p), right.applyAsInt(p));
+        }
+
+        private static ToIntFunction<Probe> fold(ToIntFunction<Probe> left, ToIntFunction<Probe> right, ToIntFunction<Probe> node) {
+            if (left instanceof Constant && right instanceof Constant) {
+                return new Constant(node.applyAsInt(null));
+            }
+            return node;
+        }
+
+        private static ToIntFunction<Probe> unary(ToIntFunction<Probe> operand, IntUnaryOperator op) {
+            if (operand instanceof Constant) {
+                return new Constant(op.applyAsInt(((Constant) operand).value));
+            }
+            return p -> op.applyAsInt(operand.applyAsInt(p));
+        }
+
+        private static int loadWord(DataMemory memory, int address) {
+            if (address < 0 || (address & 0x3) != 0 || address >= memory.sizeBytes()) {
+                return 0;
+            }
+            return memory.loadWord(address);
+        }
+
+        void skipSpaces() {
+            while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+        }
+
+        private boolean peek(char c) {
+            skipSpaces();
+            return pos < src.length() && src.charAt(pos) == c;
+        }
+
+        private boolean peek(String token) {
+            skipSpaces();
+            return src.startsWith(token, pos);
+        }
+
+        private boolean accept(String token) {
+            if (peek(token)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("Expected '" + token + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in condition: " + src);
+        }
+    }
+}
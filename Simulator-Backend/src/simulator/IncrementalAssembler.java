@@ -0,0 +1,301 @@
+package simulator;
+
+import java.util.*;
+
+/**
+ * Assembler that keeps the parsed form of every source line and the label table between calls.
+ * Replacing a line re-encodes that line and the branches and jumps referring to labels it added or
+ * removed, so the cost of an edit does not depend on program size. Edits that add or remove an
+ * instruction shift every later address and fall back to a full relayout.
+ *
+ * Lines are encoded by StreamingAssembler, so both accept the same source and report the same errors
+ * in the same order.
+ */
+public class IncrementalAssembler {
+
+    private final List<Line> lines = new ArrayList<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final Map<String, Set<Integer>> references = new HashMap<>(); // label -> slots naming it
+    private final TreeMap<Integer, String> errors = new TreeMap<>();      // line index -> encoding error
+    private final TreeMap<Integer, String> labelErrors = new TreeMap<>(); // line index -> duplicate label
+    private final TreeMap<Integer, String> unresolved = new TreeMap<>();  // line index -> unknown label, reported last
+    private final StreamingAssembler encoder = StreamingAssembler.lineEncoder(labels);
+
+    private int startAddress;
+    private int[] words = new int[0];
+    private int[] slotLines = new int[0]; // slot -> line index
+    private int wordCount;
+
+    public Result assemble(String[] source, int startAddress) {
+        if (source == null) {
+            throw new IllegalArgumentException("No assembly instructions provided");
+        }
+
+        List<Line> parsed = new ArrayList<>(source.length);
+        for (String text : source) {
+            parsed.add(Line.parse(text));
+        }
+        layout(parsed, startAddress);
+        return new Result(getMachineCode(), getErrors());
+    }
+
+    /**
+     * Replaces line lineIndex (0-based) of the current program with text.
+     */
+    public Edit edit(int lineIndex, String text) {
+        checkLine(lineIndex);
+        return replace(lineIndex, Line.parse(text));
+    }
+
+    /**
+     * Like edit, but rejects an edit that leaves assembly errors: the line is put back and the
+     * program, its machine code and its errors are as they were before the call.
+     */
+    public Edit editOrReject(int lineIndex, String text) {
+        checkLine(lineIndex);
+        Line old = lines.get(lineIndex);
+        Edit edit = replace(lineIndex, Line.parse(text));
+        if (!edit.errors.isEmpty()) {
+            replace(lineIndex, old);
+            throw new IllegalArgumentException("Assembly errors: " + String.join("; ", edit.errors));
+        }
+        return edit;
+    }
+
+    private void checkLine(int lineIndex) {
+        if (lineIndex < 0 || lineIndex >= lines.size()) {
+            throw new IllegalArgumentException("Line out of range: " + (lineIndex + 1));
+        }
+    }
+
+    private Edit replace(int lineIndex, Line line) {
+        Line old = lines.get(lineIndex);
+
+        boolean labelChanged = !Objects.equals(old.label, line.label);
+        boolean relayout = (old.body == null) != (line.body == null)
+                || (labelChanged && (!labelErrors.isEmpty() || (line.label != null && labels.containsKey(line.label))));
+
+        if (relayout) {
+            List<Line> parsed = new ArrayList<>(lines);
+            parsed.set(lineIndex, line);
+            layout(parsed, startAddress);
+            return new Edit(true, null, null, getErrors());
+        }
+
+        line.slot = old.slot;
+        line.anchor = old.anchor;
+        lines.set(lineIndex, line);
+
+        Set<Integer> dirty = new TreeSet<>();
+        if (line.slot >= 0) {
+            unreference(old.target, line.slot);
+            reference(line.target, line.slot);
+            dirty.add(line.slot);
+        }
+
+        if (labelChanged) {
+            if (old.label != null) {
+                labels.remove(old.label);
+                dirty.addAll(references.getOrDefault(old.label, Collections.emptySet()));
+            }
+            if (line.label != null) {
+                labels.put(line.label, addressOf(line.anchor));
+                dirty.addAll(references.getOrDefault(line.label, Collections.emptySet()));
+            }
+        }
+
+        int[] slots = new int[dirty.size()];
+        int[] patched = new int[dirty.size()];
+        int i = 0;
+        for (int slot : dirty) {
+            encode(slot);
+            slots[i] = slot;
+            patched[i++] = words[slot];
+        }
+        return new Edit(false, slots, patched, getErrors());
+    }
+
+    public int getStartAddress() {
+        return startAddress;
+    }
+
+    public int[] getMachineCode() {
+        return Arrays.copyOf(words, wordCount);
+    }
+
+    /** 1-based source line that produced the word at address, or -1 if no word is there. */
+    public int getSourceLine(int address) {
+        int slot = (address - startAddress) >> 2;
+        if (address < startAddress || slot >= wordCount) return -1;
+        return slotLines[slot] + 1;
+    }
+
+    public List<String> getErrors() {
+        List<String> all = new ArrayList<>();
+        if (labelErrors.isEmpty()) {
+            all.addAll(errors.values());
+        } else {
+            TreeMap<Integer, List<String>> byLine = new TreeMap<>();
+            labelErrors.forEach((line, msg) -> byLine.computeIfAbsent(line, k -> new ArrayList<>()).add(msg));
+            errors.forEach((line, msg) -> byLine.computeIfAbsent(line, k -> new ArrayList<>()).add(msg));
+            byLine.values().forEach(all::addAll);
+        }
+        all.addAll(unresolved.values());
+        return all;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public void clear() {
+        lines.clear();
+        labels.clear();
+        references.clear();
+        errors.clear();
+        labelErrors.clear();
+        unresolved.clear();
+        wordCount = 0;
+    }
+
+    private void layout(List<Line> parsed, int start) {
+        clear();
+        startAddress = start;
+        lines.addAll(parsed);
+
+        // Labels bind to the next instruction at or after their line
+        int slot = 0;
+        for (Line line : lines) {
+            line.anchor = slot;
+            line.slot = line.body != null ? slot++ : -1;
+        }
+        wordCount = slot;
+        words = new int[slot];
+        slotLines = new int[slot];
+
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            if (line.label != null) {
+                if (labels.putIfAbsent(line.label, addressOf(line.anchor)) != null) {
+                    labelErrors.put(i, "Line " + (i + 1) + ": Duplicate label: " + line.label);
+                }
+            }
+            if (line.slot >= 0) {
+                slotLines[line.slot] = i;
+                reference(line.target, line.slot);
+            }
+        }
+
+        for (int s = 0; s < wordCount; s++) {
+            encode(s);
+        }
+    }
+
+    private void encode(int slot) {
+        int lineIndex = slotLines[slot];
+        Line line = lines.get(lineIndex);
+        try {
+            words[slot] = encoder.encodeLine(line.body, lineIndex + 1, addressOf(slot));
+            errors.remove(lineIndex);
+        } catch (IllegalArgumentException e) {
+            words[slot] = 0;
+            errors.put(lineIndex, "Line " + (lineIndex + 1) + ": " + e.getMessage());
+        }
+        String missing = encoder.takeUnresolved();
+        if (missing != null) {
+            unresolved.put(lineIndex, missing);
+        } else {
+            unresolved.remove(lineIndex);
+        }
+    }
+
+    private int addressOf(int slot) {
+        return startAddress + slot * 4;
+    }
+
+    private void reference(String label, int slot) {
+        if (label != null) {
+            references.computeIfAbsent(label, k -> new HashSet<>()).add(slot);
+        }
+    }
+
+    private void unreference(String label, int slot) {
+        if (label == null) return;
+        Set<Integer> slots = references.get(label);
+        if (slots != null) {
+            slots.remove(slot);
+            if (slots.isEmpty()) references.remove(label);
+        }
+    }
+
+    private static final class Line {
+        final String label;  // label defined on this line, lowercased
+        final String body;   // instruction text without label and comment, or null
+        final String target; // label operand of a branch or jump
+        int slot = -1;       // instruction index, or -1 when the line has no instruction
+        int anchor;          // instruction index a label on this line refers to
+
+        private Line(String label, String body, String target) {
+            this.label = label;
+            this.body = body;
+            this.target = target;
+        }
+
+        static Line parse(String text) {
+            String line = text == null ? "" : text.trim();
+
+            int commentIdx = line.indexOf('#');
+            if (commentIdx >= 0) {
+                line = line.substring(0, commentIdx).trim();
+            }
+
+            String label = null;
+            if (line.contains(":")) {
+                String[] parts = line.split(":", 2);
+                label = parts[0].trim().toLowerCase();
+                line = parts[1].trim();
+            }
+
+            if (line.isEmpty()) {
+                return new Line(label, null, null);
+            }
+
+            String[] tokens = line.toLowerCase().split("[,\\s()]+");
+            String target = null;
+            if ((tokens[0].equals("beq") || tokens[0].equals("bne")) && tokens.length == 4) {
+                target = tokens[3];
+            } else if ((tokens[0].equals("j") || tokens[0].equals("jal")) && tokens.length == 2) {
+                target = tokens[1];
+            }
+            return new Line(label, line, target);
+        }
+    }
+
+    public static class Result {
+        public final int[] machineCode;
+        public final List<String> errors;
+
+        public Result(int[] machineCode, List<String> errors) {
+            this.machineCode = machineCode;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * Outcome of an edit: the instruction slots to patch with their new words, or relayout when
+     * the whole program has to be reloaded.
+     */
+    public static class Edit {
+        public final boolean relayout;
+        public final int[] slots;
+        public final int[] words;
+        public final List<String> errors;
+
+        public Edit(boolean relayout, int[] slots, int[] words, List<String> errors) {
+            this.relayout = relayout;
+            this.slots = slots;
+            this.words = words;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package simulator;
+
+import model.instruction.Instruction;
+import model.pipeline.registers.*;
+
+/**
+ * Fixed-size int encoding of the four pipeline latches, used by checkpoints and the undo log.
+ * Instructions are stored as their 32-bit encoding and decoded again when the latches are rebuilt.
+ * The latches of split fetch and memory stages follow the four, FETCH_INTS and MEMORY_INTS each.
+ */
+final class LatchState {
+
+    static final int INTS = 25;
+    static final int FETCH_INTS = 3;
+    static final int MEMORY_INTS = 6;
+
+    // Word 0 holds instruction presence bits and the boolean control signals
+    private static final int IF_PRESENT = 1;
+    private static final int ID_PRESENT = 1 << 1;
+    private static final int EX_PRESENT = 1 << 2;
+    private static final int MEM_PRESENT = 1 << 3;
+    private static final int ID_FLAGS = 8;
+    private static final int EX_FLAGS = 16;
+    private static final int MEM_FLAGS = 24;
+
+    private LatchState() {}
+
+    /** Ints needed to encode regs, including the latches of any extra stages. */
+    static int ints(PipelineRegisters regs) {
+        return INTS + regs.fetchBuffer.length * FETCH_INTS + regs.memoryBuffer.length * MEMORY_INTS;
+    }
+
+    static void encode(PipelineRegisters regs, int[] dst, int off) {
+        int flags = 0;
+
+        IF_ID_Register ifId = regs.IF_ID;
+        flags |= present(ifId.getInstruction(), IF_PRESENT);
+        dst[off + 1] = binary(ifId.getInstruction());
+        dst[off + 2] = ifId.getPC();
+
+        ID_EX_Register idEx = regs.ID_EX;
+        flags |= present(idEx.getInstruction(), ID_PRESENT);
+        flags |= bits(idEx.isRegWrite(), idEx.isMemToReg(), idEx.isBranch(), idEx.isMemRead(),
+                idEx.isMemWrite(), idEx.isRegDst(), idEx.isAluSrc()) << ID_FLAGS;
+        dst[off + 3] = binary(idEx.getInstruction());
+        dst[off + 4] = idEx.getReadData1();
+        dst[off + 5] = idEx.getReadData2();
+        dst[off + 6] = idEx.getSignExtendedImm();
+        dst[off + 7] = idEx.getPcPlus4();
+        dst[off + 8] = idEx.getRs();
+        dst[off + 9] = idEx.getRt();
+        dst[off + 10] = idEx.getRd();
+        dst[off + 11] = idEx.getAluOp();
+
+        EX_MEM_Register exMem = regs.EX_MEM;
+        flags |= present(exMem.getInstruction(), EX_PRESENT);
+        flags |= bits(exMem.isZeroFlag(), exMem.isBranchTaken(), exMem.isRegWrite(), exMem.isMemToReg(),
+                exMem.isBranch(), exMem.isMemRead(), exMem.isMemWrite()) << EX_FLAGS;
+        dst[off + 12] = binary(exMem.getInstruction());
+        dst[off + 13] = exMem.getAluResult();
+        dst[off + 14] = exMem.getWriteData();
+        dst[off + 15] = exMem.getBranchTarget();
+        dst[off + 16] = exMem.getDestReg();
+        dst[off + 17] = exMem.getForwardA();
+        dst[off + 18] = exMem.getForwardB();
+        dst[off + 23] = exMem.getPcPlus4();
+
+        MEM_WB_Register memWb = regs.MEM_WB;
+        flags |= present(memWb.getInstruction(), MEM_PRESENT);
+        flags |= bits(memWb.isRegWrite(), memWb.isMemToReg()) << MEM_FLAGS;
+        dst[off + 19] = binary(memWb.getInstruction());
+        dst[off + 20] = memWb.getAluResult();
+        dst[off + 21] = memWb.getMemData();
+        dst[off + 22] = memWb.getDestReg();
+        dst[off + 24] = memWb.getPcPlus4();
+
+        dst[off] = flags;
+
+        int at = off + INTS;
+        for (IF_ID_Register latch : regs.fetchBuffer) {
+            dst[at] = present(latch.getInstruction(), 1);
+            dst[at + 1] = binary(latch.getInstruction());
+            dst[at + 2] = latch.getPC();
+            at += FETCH_INTS;
+        }
+        for (MEM_WB_Register latch : regs.memoryBuffer) {
+            dst[at] = present(latch.getInstruction(), 1) | bits(latch.isRegWrite(), latch.isMemToReg()) << 1;
+            dst[at + 1] = binary(latch.getInstruction());
+            dst[at + 2] = latch.getAluResult();
+            dst[at + 3] = latch.getMemData();
+            dst[at + 4] = latch.getDestReg();
+            dst[at + 5] = latch.getPcPlus4();
+            at += MEMORY_INTS;
+        }
+    }
+
+    /**
+     * Replaces the latches in regs with fresh registers rebuilt from an encoding. The extra latch
+     * arrays of regs must already have the sizes the encoding was made with.
+     */
+    static void decode(int[] src, int off, PipelineRegisters regs) {
+        int flags = src[off];
+
+        IF_ID_Register ifId = new IF_ID_Register();
+        ifId.set(instruction(flags, IF_PRESENT, src[off + 1]), src[off + 2]);
+
+        ID_EX_Register idEx = new ID_EX_Register();
+        idEx.setInstruction(instruction(flags, ID_PRESENT, src[off + 3]));
+        idEx.setReadData1(src[off + 4]);
+        idEx.setReadData2(src[off + 5]);
+        idEx.setSignExtendedImm(src[off + 6]);
+        idEx.setPcPlus4(src[off + 7]);
+        idEx.setRs(src[off + 8]);
+        idEx.setRt(src[off + 9]);
+        idEx.setRd(src[off + 10]);
+        idEx.setAluOp(src[off + 11]);
+        int f = flags >>> ID_FLAGS;
+        idEx.setRegWrite(bit(f, 0));
+        idEx.setMemToReg(bit(f, 1));
+        idEx.setBranch(bit(f, 2));
+        idEx.setMemRead(bit(f, 3));
+        idEx.setMemWrite(bit(f, 4));
+        idEx.setRegDst(bit(f, 5));
+        idEx.setAluSrc(bit(f, 6));
+
+        EX_MEM_Register exMem = new EX_MEM_Register();
+        exMem.setInstruction(instruction(flags, EX_PRESENT, src[off + 12]));
+        exMem.setAluResult(src[off + 13]);
+        exMem.setWriteData(src[off + 14]);
+        exMem.setBranchTarget(src[off + 15]);
+        exMem.setDestReg(src[off + 16]);
+        exMem.setForwardA(src[off + 17]);
+        exMem.setForwardB(src[off + 18]);
+        exMem.setPcPlus4(src[off + 23]);
+        f = flags >>> EX_FLAGS;
+        exMem.setZeroFlag(bit(f, 0));
+        exMem.setBranchTaken(bit(f, 1));
+        exMem.setRegWrite(bit(f, 2));
+        exMem.setMemToReg(bit(f, 3));
+        exMem.setBranch(bit(f, 4));
+        exMem.setMemRead(bit(f, 5));
+        exMem.setMemWrite(bit(f, 6));
+
+        MEM_WB_Register memWb = new MEM_WB_Register();
+        memWb.setInstruction(instruction(flags, MEM_PRESENT, src[off + 19]));
+        memWb.setAluResult(src[off + 20]);
+        memWb.setMemData(src[off + 21]);
+        memWb.setDestReg(src[off + 22]);
+        memWb.setPcPlus4(src[off + 24]);
+        f = flags >>> MEM_FLAGS;
+        memWb.setRegWrite(bit(f, 0));
+        memWb.setMemToReg(bit(f, 1));
+
+        regs.IF_ID = ifId;
+        regs.ID_EX = idEx;
+        regs.EX_MEM = exMem;
+        regs.MEM_WB = memWb;
+
+        int at = off + INTS;
+        for (int i = 0; i < regs.fetchBuffer.length; i++) {
+            IF_ID_Register latch = new IF_ID_Register();
+            latch.set(instruction(src[at], 1, src[at + 1]), src[at + 2]);
+            regs.fetchBuffer[i] = latch;
+            at += FETCH_INTS;
+        }
+        for (int i = 0; i < regs.memoryBuffer.length; i++) {
+            MEM_WB_Register latch = new MEM_WB_Register();
+            latch.setInstruction(instruction(src[at], 1, src[at + 1]));
+            latch.setAluResult(src[at + 2]);
+            latch.setMemData(src[at + 3]);
+            latch.setDestReg(src[at + 4]);
+            latch.setPcPlus4(src[at + 5]);
+            latch.setRegWrite(bit(src[at], 1));
+            latch.setMemToReg(bit(src[at], 2));
+            regs.memoryBuffer[i] = latch;
+            at += MEMORY_INTS;
+        }
+    }
+
+    static Instruction decodeInstruction(int binary) {
+        Instruction instruction = ProgramLoader.parseInstruction(binary);
+        instruction.decodeFields();
+        return instruction;
+    }
+
+    private static Instruction instruction(int flags, int presentBit, int binary) {
+        return (flags & presentBit) != 0 ? decodeInstruction(binary) : null;
+    }
+
+    private static int present(Instruction instruction, int bit) {
+        return instruction != null ? bit : 0;
+    }
+
+    private static int binary(Instruction instruction) {
+        return instruction != null ? instruction.getBinary() : 0;
+    }
+
+    static int bits(boolean... values) {
+        int f = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) f |= 1 << i;
+        }
+        return f;
+    }
+
+    static boolean bit(int flags, int index) {
+        return (flags & (1 << index)) != 0;
+    }
+}
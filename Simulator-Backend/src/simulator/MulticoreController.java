@@ -0,0 +1,114 @@
+package simulator;
+
+import model.cpu.CPUState;
+import model.memory.Cache;
+import model.memory.CoherenceBus;
+import model.memory.DataMemory;
+import model.memory.InstructionMemory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several cores, each a PipelineController with its own registers, PC and L1 data cache, running
+ * one program out of a shared instruction memory against a shared data memory. The L1s are kept
+ * coherent by a CoherenceBus.
+ *
+ * Every cycle each core that is not idle runs one cycle. The core that goes first, and so wins
+ * the bus when several miss in the same cycle, rotates round robin. Stores reach the shared data
+ * memory in MEM as on a single core, so cores see each other's writes from the next cycle on.
+ * Step-back is off on every core, since one core cannot rewind the memory the others share.
+ */
+public class MulticoreController {
+
+    public static final int MAX_CORES = 16;
+
+    private final List<PipelineController> cores = new ArrayList<>();
+    private final CoherenceBus bus = new CoherenceBus();
+    private final InstructionMemory instructionMemory;
+    private final DataMemory dataMemory;
+    private int firstCore;
+    private long cycles;
+
+    /**
+     * Creates count cores, each with a cold copy of l1 as its data cache, all starting at PC 0.
+     */
+    public MulticoreController(InstructionMemory instructionMemory, DataMemory dataMemory, int count, Cache l1) {
+        if (count < 1 || count > MAX_CORES) {
+            throw new IllegalArgumentException("Core count must be between 1 and " + MAX_CORES + ": " + count);
+        }
+        this.instructionMemory = instructionMemory;
+        this.dataMemory = dataMemory;
+        for (int i = 0; i < count; i++) {
+            PipelineController core = new PipelineController(new CPUState(instructionMemory, dataMemory));
+            core.setUndoDepth(0);
+            Cache cache = l1.copy();
+            cache.invalidate();
+            cache.resetStats();
+            core.getCaches().setDataCache(cache);
+            bus.connect(core.getCaches());
+            cores.add(core);
+        }
+    }
+
+    public void runCycle() {
+        cycles++;
+        bus.tick();
+        for (int i = 0; i < cores.size(); i++) {
+            PipelineController core = cores.get((firstCore + i) % cores.size());
+            if (!core.isIdle()) {
+                core.runCycle();
+            }
+        }
+        firstCore = (firstCore + 1) % cores.size();
+    }
+
+    /** True once every core has run off the end of the program. */
+    public boolean isIdle() {
+        for (PipelineController core : cores) {
+            if (!core.isIdle()) return false;
+        }
+        return true;
+    }
+
+    public void setPc(int core, int pc) {
+        if (pc < 0 || pc >= instructionMemory.sizeBytes() || (pc & 3) != 0) {
+            throw new IllegalArgumentException("Invalid start PC for core " + core + ": " + pc);
+        }
+        getCore(core).getCpuState().pc.set(pc);
+    }
+
+    /** Writes each core's index into register reg, so one program can split work between cores. */
+    public void presetCoreId(int reg) {
+        if (reg < 1 || reg > 31) {
+            throw new IllegalArgumentException("Core id register must be between 1 and 31: " + reg);
+        }
+        for (int i = 0; i < cores.size(); i++) {
+            cores.get(i).getCpuState().registerFile.set(reg, i);
+        }
+    }
+
+    public PipelineController getCore(int core) {
+        if (core < 0 || core >= cores.size()) {
+            throw new IllegalArgumentException("No core " + core);
+        }
+        return cores.get(core);
+    }
+
+    public int getCoreCount() {
+        return cores.size();
+    }
+
+    public CoherenceBus getBus() {
+        return bus;
+    }
+
+    public DataMemory getDataMemory() {
+        return dataMemory;
+    }
+
+    /** Cycles run, until the last core finished. */
+    public long getCycles() {
+        return cycles;
+    }
+}
@@ -0,0 +1,411 @@
+package simulator;
+
+import model.control.ControlUnit;
+import model.control.prediction.BranchPredictor;
+import model.control.prediction.BranchTargetBuffer;
+import model.cpu.CPUState;
+import model.instruction.ITypeInstruction;
+import model.instruction.Instruction;
+import model.instruction.JTypeInstruction;
+import model.instruction.RTypeInstruction;
+import model.ooo.LoadStoreQueue;
+import model.ooo.Operand;
+import model.ooo.OutOfOrderConfig;
+import model.ooo.RenameTable;
+import model.ooo.ReorderBuffer;
+import model.ooo.ReservationStations;
+import model.pipeline.stages.ExecuteStage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Out-of-order core with Tomasulo scheduling over the same instruction memory, data memory and
+ * register file as PipelineController. Each cycle, in reverse order so nothing passes through
+ * two steps at once:
+ *
+ *   commit   - up to commitWidth finished instructions leave the reorder buffer head, writing the
+ *              register file and, for stores, data memory
+ *   complete - operations whose latency has run out broadcast their result to the waiting
+ *              stations and queue entries; a mispredicted branch squashes everything younger
+ *   issue    - up to issueWidth ready stations start on the ALU, and one load accesses memory
+ *   dispatch - up to fetchWidth instructions are renamed into the reorder buffer, stations and
+ *              load/store queue, stalling when one is full
+ *   fetch    - up to fetchWidth instructions, following jumps and predicted-taken branches
+ *
+ * Branches are predicted not taken unless a predictor is set, and resolve when they execute.
+ * Architectural state after the last commit matches PipelineController on the same program.
+ */
+public class OutOfOrderController {
+
+    /** Structures whose occupancy is sampled at the end of every cycle. */
+    public enum Structure { FETCH_QUEUE, ROB, STATIONS, LSQ, RENAME }
+
+    private static final class Fetched {
+        final Instruction instruction;
+        final int pc;
+        final int predictedPc;
+
+        Fetched(Instruction instruction, int pc, int predictedPc) {
+            this.instruction = instruction;
+            this.pc = pc;
+            this.predictedPc = predictedPc;
+        }
+    }
+
+    private static final class Executing {
+        final long seq;
+        final int value;
+        final RuntimeException fault;
+        int remaining;
+
+        Executing(long seq, int value, RuntimeException fault, int latency) {
+            this.seq = seq;
+            this.value = value;
+            this.fault = fault;
+            this.remaining = latency;
+        }
+    }
+
+    private final CPUState cpuState;
+    private final OutOfOrderConfig config;
+    private final PerformanceCounters counters = new PerformanceCounters();
+    private final ControlUnit controlUnit = new ControlUnit();
+
+    private final ArrayDeque<Fetched> fetchQueue = new ArrayDeque<>();
+    private final int fetchQueueEntries;
+    private final ReorderBuffer rob;
+    private final ReservationStations stations;
+    private final LoadStoreQueue lsq;
+    private final RenameTable renameTable = new RenameTable();
+    private final List<Executing> executing = new ArrayList<>();
+
+    private BranchPredictor predictor;
+    private BranchTargetBuffer btb;
+
+    private final long[] occupancy = new long[Structure.values().length];
+    private final int[] peakOccupancy = new int[Structure.values().length];
+    private final long[] fullStalls = new long[Structure.values().length];
+
+    public OutOfOrderController(CPUState state) {
+        this(state, new OutOfOrderConfig());
+    }
+
+    public OutOfOrderController(CPUState state, OutOfOrderConfig config) {
+        this.cpuState = state;
+        this.config = new OutOfOrderConfig(config);
+        this.fetchQueueEntries = 2 * config.getFetchWidth();
+        this.rob = new ReorderBuffer(config.getRobEntries());
+        this.stations = new ReservationStations(config.getStationEntries());
+        this.lsq = new LoadStoreQueue(config.getLsqEntries());
+    }
+
+    public void runCycle() {
+        counters.cycles++;
+        commit();
+        complete();
+        issue();
+        dispatch();
+        fetch();
+        sampleOccupancy();
+    }
+
+    private void commit() {
+        for (int i = 0; i < config.getCommitWidth(); i++) {
+            ReorderBuffer.Entry head = rob.head();
+            if (head == null || !head.done) return;
+            if (head.fault != null) {
+                throw head.fault;
+            }
+            rob.pop();
+
+            controlUnit.generateSignals(head.instruction.getOpcode());
+            if (controlUnit.isMemRead() || controlUnit.isMemWrite()) {
+                LoadStoreQueue.Entry entry = lsq.commit(head.seq);
+                if (!entry.load) {
+                    cpuState.dataMemory.storeWord(entry.address, entry.data.getValue());
+                }
+            }
+            if (head.destReg != 0) {
+                cpuState.registerFile.set(head.destReg, head.value);
+                renameTable.release(head.destReg, head.seq);
+            }
+            if (controlUnit.isBranch()) {
+                counters.branches++;
+                if (head.isMispredicted()) {
+                    counters.mispredictions++;
+                    counters.branchFlushes++;
+                }
+                if (predictor != null) {
+                    predictor.update(head.pc, head.branchTaken);
+                    if (head.branchTaken) btb.update(head.pc, head.nextPc);
+                }
+            }
+            countRetirement(head.instruction);
+        }
+    }
+
+    private void complete() {
+        List<Executing> finished = new ArrayList<>();
+        Iterator<Executing> it = executing.iterator();
+        while (it.hasNext()) {
+            Executing op = it.next();
+            if (--op.remaining == 0) {
+                finished.add(op);
+                it.remove();
+            }
+        }
+        // Oldest first, so a squash drops any younger results due this cycle
+        finished.sort((x, y) -> Long.compare(x.seq, y.seq));
+        for (Executing op : finished) {
+            ReorderBuffer.Entry entry = rob.get(op.seq);
+            if (entry == null) continue;
+            entry.done = true;
+            entry.fault = op.fault;
+            controlUnit.generateSignals(entry.instruction.getOpcode());
+            if (controlUnit.isBranch()) {
+                resolveBranch(entry, op.value);
+                if (entry.isMispredicted()) {
+                    squashAfter(entry.seq, entry.nextPc);
+                }
+            } else {
+                entry.value = op.value;
+                stations.broadcast(op.seq, op.value);
+                lsq.broadcast(op.seq, op.value);
+            }
+        }
+    }
+
+    // The ALU subtracts the branch operands; zero means equal
+    private void resolveBranch(ReorderBuffer.Entry entry, int difference) {
+        ITypeInstruction branch = (ITypeInstruction) entry.instruction;
+        boolean taken = branch.getOpcode() == 0x04 ? difference == 0 : difference != 0;
+        entry.branchTaken = taken;
+        entry.nextPc = taken ? entry.pc + 4 + (branch.getImmediate() << 2) : entry.pc + 4;
+    }
+
+    private void squashAfter(long seq, int pc) {
+        rob.squashAfter(seq);
+        stations.squashAfter(seq);
+        lsq.squashAfter(seq);
+        executing.removeIf(op -> op.seq > seq);
+        fetchQueue.clear();
+
+        // Map each register back to its youngest surviving producer
+        renameTable.reset();
+        for (int i = 0; i < rob.size(); i++) {
+            ReorderBuffer.Entry entry = rob.at(i);
+            renameTable.set(entry.destReg, entry.seq);
+        }
+        cpuState.pc.set(pc);
+    }
+
+    private void issue() {
+        for (ReservationStations.Station station : stations.select(config.getIssueWidth())) {
+            int value = 0;
+            RuntimeException fault = null;
+            try {
+                value = ExecuteStage.alu(station.instruction, station.aluOp, station.a.getValue(), station.b.getValue());
+            } catch (RuntimeException e) {
+                fault = e;
+            }
+            executing.add(new Executing(station.seq, value, fault, config.getAluLatency()));
+        }
+
+        lsq.computeAddresses();
+        for (LoadStoreQueue.Entry entry : lsq.entries()) {
+            if (entry.load) {
+                if (entry.issued || !entry.addressKnown) continue;
+                LoadStoreQueue.Entry store = lsq.olderStore(entry);
+                if (store != null && (!store.addressKnown || !store.data.isReady())) continue;
+                // A store past the end of data memory is dropped, so the load reads memory too
+                int value = store != null && store.address < cpuState.dataMemory.sizeBytes()
+                        ? store.data.getValue()
+                        : cpuState.dataMemory.loadWord(entry.address);
+                entry.issued = true;
+                executing.add(new Executing(entry.seq, value, null, config.getLoadLatency()));
+                break; // one memory port
+            }
+        }
+        // A store is finished once its address and data are known; memory is written at commit
+        for (LoadStoreQueue.Entry entry : lsq.entries()) {
+            if (!entry.load && !entry.issued && entry.addressKnown && entry.data.isReady()) {
+                entry.issued = true;
+                rob.get(entry.seq).done = true;
+            }
+        }
+    }
+
+    private void dispatch() {
+        for (int i = 0; i < config.getFetchWidth() && !fetchQueue.isEmpty(); i++) {
+            Fetched next = fetchQueue.peek();
+            Instruction instr = next.instruction;
+            controlUnit.generateSignals(instr.getOpcode());
+            boolean memory = controlUnit.isMemRead() || controlUnit.isMemWrite();
+
+            if (rob.isFull()) {
+                fullStalls[Structure.ROB.ordinal()]++;
+                return;
+            }
+            if (memory ? lsq.isFull() : (stations.isFull() && !controlUnit.isJump())) {
+                fullStalls[(memory ? Structure.LSQ : Structure.STATIONS).ordinal()]++;
+                return;
+            }
+            fetchQueue.poll();
+            rename(next, instr);
+        }
+    }
+
+    private void rename(Fetched fetched, Instruction instr) {
+        int rs = 0, rt = 0, rd = 0, imm = 0, shamt = 0;
+        boolean shift = false;
+        if (instr instanceof RTypeInstruction) {
+            RTypeInstruction r = (RTypeInstruction) instr;
+            rs = r.getRs();
+            rt = r.getRt();
+            rd = r.getRd();
+            shift = r.getFunc() == 0x00 || r.getFunc() == 0x02; // sll, srl
+            shamt = r.getShamt();
+        } else if (instr instanceof ITypeInstruction) {
+            ITypeInstruction it = (ITypeInstruction) instr;
+            rs = it.getRs();
+            rt = it.getRt();
+            imm = it.getImmediate();
+        }
+
+        int dest = 0;
+        if (instr.getOpcode() == 0x03) {
+            dest = 31; // jal
+        } else if (controlUnit.isRegWrite()) {
+            dest = controlUnit.isRegDst() ? rd : rt;
+        }
+
+        // Sources are read before dest is renamed, so an instruction can overwrite its own source
+        Operand a = shift ? Operand.ready(shamt) : source(rs);
+        Operand b = controlUnit.isAluSrc() ? Operand.ready(imm) : source(rt);
+        Operand data = controlUnit.isMemWrite() ? source(rt) : Operand.ready(0);
+
+        ReorderBuffer.Entry entry = rob.allocate(instr, fetched.pc, dest, fetched.predictedPc);
+        renameTable.set(dest, entry.seq);
+
+        if (controlUnit.isJump()) {
+            // Fetch has already followed the jump; jal's link value is known now
+            entry.value = fetched.pc + 4;
+            entry.nextPc = fetched.predictedPc;
+            entry.done = true;
+        } else if (controlUnit.isMemRead() || controlUnit.isMemWrite()) {
+            lsq.add(new LoadStoreQueue.Entry(entry.seq, controlUnit.isMemRead(), a, imm, data));
+        } else {
+            stations.add(new ReservationStations.Station(entry.seq, instr, controlUnit.getAluOp(), a, b));
+        }
+    }
+
+    private Operand source(int reg) {
+        long producer = renameTable.get(reg);
+        if (producer == RenameTable.NONE) {
+            return Operand.ready(cpuState.registerFile.get(reg));
+        }
+        ReorderBuffer.Entry entry = rob.get(producer);
+        return entry.done ? Operand.ready(entry.value) : Operand.waiting(producer);
+    }
+
+    private void fetch() {
+        for (int i = 0; i < config.getFetchWidth() && fetchQueue.size() < fetchQueueEntries; i++) {
+            int pc = cpuState.pc.get();
+            Instruction fetched = cpuState.instructionMemory.fetch(pc);
+            if (fetched == null) return;
+            Instruction instr = fetched.copy();
+            instr.decodeFields();
+
+            int next = pc + 4;
+            if (instr instanceof JTypeInstruction) {
+                next = (((JTypeInstruction) instr).getAddress() << 2) | (next & 0xF0000000);
+            } else if (btb != null) {
+                int target = btb.lookup(pc);
+                if (target != BranchTargetBuffer.MISS && predictor.predict(pc, target)) {
+                    next = target;
+                }
+            }
+            fetchQueue.add(new Fetched(instr, pc, next));
+            cpuState.pc.set(next);
+            if (next != pc + 4) return; // a taken jump or branch ends the fetch group
+        }
+    }
+
+    private void sampleOccupancy() {
+        record(Structure.FETCH_QUEUE, fetchQueue.size());
+        record(Structure.ROB, rob.size());
+        record(Structure.STATIONS, stations.size());
+        record(Structure.LSQ, lsq.size());
+        record(Structure.RENAME, renameTable.size());
+    }
+
+    private void record(Structure structure, int size) {
+        occupancy[structure.ordinal()] += size;
+        peakOccupancy[structure.ordinal()] = Math.max(peakOccupancy[structure.ordinal()], size);
+    }
+
+    private void countRetirement(Instruction instruction) {
+        counters.retired++;
+        int opcode = instruction.getOpcode() & 0x3F;
+        counters.opcodeMix[opcode]++;
+        if (opcode == 0) {
+            counters.functMix[instruction.getBinary() & 0x3F]++;
+        }
+    }
+
+    /**
+     * True once the program has run off its end: nothing is in flight and there is nothing to fetch.
+     */
+    public boolean isIdle() {
+        return rob.isEmpty() && fetchQueue.isEmpty() && cpuState.instructionMemory.fetch(cpuState.pc.get()) == null;
+    }
+
+    /** Predicts branches at fetch, as PipelineController does; null for both to predict not taken. */
+    public void setBranchPrediction(BranchPredictor predictor, BranchTargetBuffer btb) {
+        if ((predictor == null) != (btb == null)) {
+            throw new IllegalArgumentException("A branch predictor needs a branch target buffer");
+        }
+        this.predictor = predictor;
+        this.btb = btb;
+    }
+
+    /** Mean entries in use per cycle. */
+    public double getAverageOccupancy(Structure structure) {
+        return counters.cycles == 0 ? 0 : (double) occupancy[structure.ordinal()] / counters.cycles;
+    }
+
+    public int getPeakOccupancy(Structure structure) {
+        return peakOccupancy[structure.ordinal()];
+    }
+
+    /** Entries available, or 31 architectural registers for RENAME. */
+    public int getCapacity(Structure structure) {
+        switch (structure) {
+            case FETCH_QUEUE: return fetchQueueEntries;
+            case ROB: return rob.capacity();
+            case STATIONS: return stations.capacity();
+            case LSQ: return lsq.capacity();
+            default: return 31;
+        }
+    }
+
+    /** Cycles dispatch stopped because the structure was full. */
+    public long getFullStalls(Structure structure) {
+        return fullStalls[structure.ordinal()];
+    }
+
+    public OutOfOrderConfig getConfig() {
+        return new OutOfOrderConfig(config);
+    }
+
+    public PerformanceCounters getCounters() {
+        return counters;
+    }
+
+    public CPUState getCpuState() {
+        return cpuState;
+    }
+}
@@ -0,0 +1,180 @@
+package simulator;
+
+import java.util.Arrays;
+
+/**
+ * Event counters updated by PipelineController, SuperscalarController or OutOfOrderController on
+ * every cycle. Counts cover the cycles run since the last reset; rewinding with stepBack restores
+ * them to the target cycle.
+ */
+public class PerformanceCounters {
+
+    long cycles;
+    long retired;
+    long loadUseStalls;
+    long branchStalls;   // cycles a branch resolved in ID waited for an operand
+    long branchFlushes;
+    long branches;       // conditional branches resolved
+    long mispredictions; // resolved branches whose successor fetch got wrong
+    long jumpBubbles;
+    long instructionCacheStalls; // cycles fetch waited for an instruction cache fill
+    long dataCacheStalls;        // cycles the pipeline was frozen on a data cache miss
+    long forwardAExMem;
+    long forwardAMemWb;
+    long forwardBExMem;
+    long forwardBMemWb;
+    final long[] opcodeMix = new long[64];
+    final long[] functMix = new long[64]; // R-type instructions by funct field
+
+    public long getCycles() { return cycles; }
+    public long getRetired() { return retired; }
+    public long getLoadUseStalls() { return loadUseStalls; }
+    public long getBranchStalls() { return branchStalls; }
+    public long getBranchFlushes() { return branchFlushes; }
+    public long getBranches() { return branches; }
+    public long getMispredictions() { return mispredictions; }
+    public long getJumpBubbles() { return jumpBubbles; }
+    public long getInstructionCacheStalls() { return instructionCacheStalls; }
+    public long getDataCacheStalls() { return dataCacheStalls; }
+    public long getForwardAExMem() { return forwardAExMem; }
+    public long getForwardAMemWb() { return forwardAMemWb; }
+    public long getForwardBExMem() { return forwardBExMem; }
+    public long getForwardBMemWb() { return forwardBMemWb; }
+
+    /** Cycles per retired instruction, or 0 before anything retires. */
+    public double getCpi() {
+        return retired == 0 ? 0 : (double) cycles / retired;
+    }
+
+    /** Retired instructions per cycle, or 0 before the first cycle. */
+    public double getIpc() {
+        return cycles == 0 ? 0 : (double) retired / cycles;
+    }
+
+    /** Fraction of resolved branches predicted correctly, or 0 before the first branch. */
+    public double getBranchAccuracy() {
+        return branches == 0 ? 0 : 1 - (double) mispredictions / branches;
+    }
+
+    /** Mispredictions per thousand retired instructions. */
+    public double getMpki() {
+        return retired == 0 ? 0 : mispredictions * 1000.0 / retired;
+    }
+
+    /** Retired instructions with the given opcode; R-type instructions are all opcode 0. */
+    public long getOpcodeCount(int opcode) {
+        return opcodeMix[opcode & 0x3F];
+    }
+
+    /** Retired R-type instructions with the given funct field. */
+    public long getFunctCount(int funct) {
+        return functMix[funct & 0x3F];
+    }
+
+    public void reset() {
+        cycles = 0;
+        retired = 0;
+        loadUseStalls = 0;
+        branchStalls = 0;
+        branchFlushes = 0;
+        branches = 0;
+        mispredictions = 0;
+        jumpBubbles = 0;
+        instructionCacheStalls = 0;
+        dataCacheStalls = 0;
+        forwardAExMem = 0;
+        forwardAMemWb = 0;
+        forwardBExMem = 0;
+        forwardBMemWb = 0;
+        Arrays.fill(opcodeMix, 0);
+        Arrays.fill(functMix, 0);
+    }
+
+    // The scalar counters in a fixed order, for undo records that note what one cycle added to each
+    static final int SCALARS = 14;
+    private static final int RETIRED = 1;
+
+    void saveScalars(long[] into) {
+        for (int i = 0; i < SCALARS; i++) {
+            into[i] = scalar(i);
+        }
+    }
+
+    /** Packs what each scalar gained since saveScalars into two bits; a cycle adds at most one. */
+    int scalarDeltas(long[] saved) {
+        int deltas = 0;
+        for (int i = 0; i < SCALARS; i++) {
+            deltas |= (int) Math.min(scalar(i) - saved[i], 3) << (2 * i);
+        }
+        return deltas;
+    }
+
+    /** Takes back the deltas of one cycle; retiredBinary is the instruction it retired, if any. */
+    void undo(int deltas, int retiredBinary) {
+        for (int i = 0; i < SCALARS; i++) {
+            add(i, -((deltas >>> (2 * i)) & 3));
+        }
+        if (((deltas >>> (2 * RETIRED)) & 3) != 0) {
+            int opcode = (retiredBinary >>> 26) & 0x3F;
+            opcodeMix[opcode]--;
+            if (opcode == 0) functMix[retiredBinary & 0x3F]--;
+        }
+    }
+
+    private long scalar(int i) {
+        switch (i) {
+            case 0: return cycles;
+            case RETIRED: return retired;
+            case 2: return loadUseStalls;
+            case 3: return branchStalls;
+            case 4: return branchFlushes;
+            case 5: return branches;
+            case 6: return mispredictions;
+            case 7: return jumpBubbles;
+            case 8: return instructionCacheStalls;
+            case 9: return dataCacheStalls;
+            case 10: return forwardAExMem;
+            case 11: return forwardAMemWb;
+            case 12: return forwardBExMem;
+            default: return forwardBMemWb;
+        }
+    }
+
+    private void add(int i, long delta) {
+        switch (i) {
+            case 0: cycles += delta; break;
+            case RETIRED: retired += delta; break;
+            case 2: loadUseStalls += delta; break;
+            case 3: branchStalls += delta; break;
+            case 4: branchFlushes += delta; break;
+            case 5: branches += delta; break;
+            case 6: mispredictions += delta; break;
+            case 7: jumpBubbles += delta; break;
+            case 8: instructionCacheStalls += delta; break;
+            case 9: dataCacheStalls += delta; break;
+            case 10: forwardAExMem += delta; break;
+            case 11: forwardAMemWb += delta; break;
+            case 12: forwardBExMem += delta; break;
+            default: forwardBMemWb += delta;
+        }
+    }
+
+    void copyFrom(PerformanceCounters other) {
+        cycles = other.cycles;
+        retired = other.retired;
+        loadUseStalls = other.loadUseStalls;
+        branchStalls = other.branchStalls;
+        branchFlushes = other.branchFlushes;
+        branches = other.branches;
+        mispredictions = other.mispredictions;
+        jumpBubbles = other.jumpBubbles;
+        instructionCacheStalls = other.instructionCacheStalls;
+        dataCacheStalls = other.dataCacheStalls;
+        forwardAExMem = other.forwardAExMem;
+        forwardAMemWb = other.forwardAMemWb;
+        forwardBExMem = other.forwardBExMem;
+        forwardBMemWb = other.forwardBMemWb;
+        System.arraycopy(other.opcodeMix, 0, opcodeMix, 0, opcodeMix.length);
+        System.arraycopy(other.functMix, 0, functMix, 0, functMix.length);
+    }
+}
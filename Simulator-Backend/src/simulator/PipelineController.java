@@ -1,21 +1,59 @@
 package simulator;
 
 import model.control.StallUnit;
+import model.control.prediction.BranchPredictor;
+import model.control.prediction.BranchTargetBuffer;
 import model.cpu.CPUState;
 import model.instruction.Instruction;
+import model.memory.CacheHierarchy;
+import model.pipeline.registers.EX_MEM_Register;
+import model.pipeline.registers.IF_ID_Register;
 import model.pipeline.registers.MEM_WB_Register;
 import model.pipeline.registers.PipelineRegisters;
 import model.pipeline.stages.*;
 import model.pipeline.state.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class PipelineController {
 
+    public static final int DEFAULT_UNDO_DEPTH = 4096;
+
+    // Undo record layout: what one cycle may overwrite, captured before the cycle runs
+    private static final int UNDO_PC = 0;
+    private static final int UNDO_FLAGS = 1;      // stall signals, WB instruction present, store pending
+    private static final int UNDO_LAST_WB = 2;
+    private static final int UNDO_WB_REG = 3;     // register written back, 0 for none
+    private static final int UNDO_WB_OLD = 4;
+    private static final int UNDO_RA_OLD = 5;     // $31, which a jal in decode may write
+    private static final int UNDO_STORE_ADDR = 6;
+    private static final int UNDO_STORE_OLD = 7;
+    private static final int UNDO_FETCH_WAIT = 8;
+    private static final int UNDO_MEM_WAIT = 9;
+    private static final int UNDO_FETCH_FILLED = 10;
+    private static final int UNDO_COUNTERS = 11;  // two bits per scalar counter, see PerformanceCounters
+    private static final int UNDO_RETIRED = 12;   // instruction retired, for the instruction mix
+    private static final int UNDO_EXECUTED = 13;  // profiler entries the cycle updated, -1 for none
+    private static final int UNDO_STALLED = 14;
+    private static final int UNDO_BRANCH = 15;
+    private static final int UNDO_FLUSHED = 16;
+    private static final int UNDO_LATCHES = 17;   // then the latches of any extra stages
+
+    // The undo log restores everything but the caches and predictor, whose updates it does not record.
+    // While there are any, they are copied every KEYFRAME_INTERVAL cycles; a rewind undoes back to the
+    // copy before its target and runs forward again from there, using the log's spare records.
+    private static final int KEYFRAME_INTERVAL = 64;
+
     private final CPUState cpuState;
-    private final PipelineRegisters pipelineRegisters = new PipelineRegisters();
+    private final PipelineRegisters pipelineRegisters;
     private final StallUnit stallUnit = new StallUnit();
+    private final Breakpoints breakpoints;
+    private final PerformanceCounters counters = new PerformanceCounters();
+    private final Profiler profiler = new Profiler();
 
     private final FetchStage fetch = new FetchStage();
     private final DecodeStage decode = new DecodeStage();
@@ -23,63 +61,379 @@ public class PipelineController {
     private final MemoryStage memory = new MemoryStage();
     private final WriteBackStage writeBack = new WriteBackStage();
 
+    private PipelineLayout layout = PipelineLayout.CLASSIC;
+    private MEM_WB_Register spareMEM_WB = new MEM_WB_Register(); // MEM writes here, keeping MEM_WB for EX
+
     private final List<PipelineSnapshot> history = new ArrayList<>();
     private boolean branchFlushedThisCycle = false;
+    private boolean fetchFlushedThisCycle = false; // a branch resolved in ID squashed this cycle's fetch
     private Instruction lastWbInstr = null;
+    private UndoLog undoLog;
+    private int undoDepth;
+    private long undoSerial;        // cycles recorded since the undo log was last emptied
+    private long undoFloor;         // oldest serial a rewind may return to
+    private int undoOffset = -1;    // record of the running cycle, -1 when not recording
+    private boolean replaying;      // running forward again after a rewind: breakpoints stay quiet
+    private final long[] countersBefore = new long[PerformanceCounters.SCALARS];
+    private final TreeMap<Long, Keyframe> keyframes = new TreeMap<>();
+
+    // Caches are timing only; a miss stalls fetch, or freezes the whole pipeline for a data access
+    private CacheHierarchy caches = new CacheHierarchy();
+    private int fetchWait;          // cycles until the pending instruction fill completes
+    private int fetchFilledPc = -1; // PC whose miss was already charged, fetched without another lookup
+    private int memWait;            // frozen cycles left for the data access in EX_MEM
+    private boolean memCharged;     // the access in EX_MEM already went through the data cache
+    private boolean fetchStalledThisCycle = false;
+
+    // Without a predictor fetch always falls through, so every taken branch is a misprediction
+    private BranchPredictor predictor;
+    private BranchTargetBuffer btb;
+    private boolean earlyBranches = false;
 
     public PipelineController(CPUState state) {
+        this(state, new PipelineRegisters(), DEFAULT_UNDO_DEPTH);
+    }
+
+    private PipelineController(CPUState state, PipelineRegisters registers, int undoDepth) {
         this.cpuState = state;
+        this.pipelineRegisters = registers;
+        this.breakpoints = new Breakpoints(state);
+        this.undoDepth = undoDepth;
+        this.undoLog = newUndoLog(undoDepth);
+    }
+
+    /**
+     * Forks the CPU state copy-on-write and copies the latches, so the fork continues from
+     * exactly this cycle. The fork starts with an empty history.
+     */
+    public PipelineController fork() {
+        return fork(DEFAULT_UNDO_DEPTH);
+    }
+
+    /** Same as fork, recording undoDepth cycles; 0 for a fork that is only run forward. */
+    public PipelineController fork(int undoDepth) {
+        PipelineController copy = new PipelineController(cpuState.fork(), pipelineRegisters.copy(), undoDepth);
+        copy.layout = layout;
+        copy.lastWbInstr = lastWbInstr;
+        copy.counters.copyFrom(counters);
+        copy.profiler.copyFrom(profiler);
+        copy.caches = caches.copy();
+        if (predictor != null) {
+            copy.setBranchPrediction(predictor.copy(), btb.copy());
+        }
+        copy.applyEarlyBranchResolution(earlyBranches);
+        copy.fetchWait = fetchWait;
+        copy.fetchFilledPc = fetchFilledPc;
+        copy.memWait = memWait;
+        copy.memCharged = memCharged;
+        return copy;
     }
 
     public void runCycle() {
+        undoOffset = recordUndo();
+        if (undoOffset >= 0) counters.saveScalars(countersBefore);
+        cycle();
+        if (undoOffset >= 0) {
+            undoLog.data()[undoOffset + UNDO_COUNTERS] = counters.scalarDeltas(countersBefore);
+            undoOffset = -1;
+        }
+    }
+
+    private void cycle() {
+        if (fetchWait > 0) fetchWait--;
+
+        if (!replaying) breakpoints.beginCycle();
+        boolean armed = !replaying && breakpoints.isArmed();
+        boolean frozen = memWait > 0;
+        if (frozen) {
+            memWait--;
+        } else {
+            frozen = dataCacheMiss();
+        }
+        if (frozen) {
+            counters.cycles++;
+            counters.dataCacheStalls++;
+            saveFrozenSnapshot();
+            return;
+        }
+
         stallUnit.detectStall(pipelineRegisters);
         StallUnit.StallControl stallControl = stallUnit.getStallControl();
 
-        MEM_WB_Register savedMEM_WB = saveMEM_WB(pipelineRegisters.MEM_WB);
+        EX_MEM_Register exMem = pipelineRegisters.EX_MEM;
+        if (armed && exMem.getInstruction() != null && !memCharged) {
+            breakpoints.checkMemory(exMem.getAluResult(), exMem.isMemRead(), exMem.isMemWrite(), exMem.getWriteData());
+        }
+        memCharged = false;
+
+        countRetirement(pipelineRegisters.MEM_WB.getInstruction());
+        if (armed && pipelineRegisters.MEM_WB.getInstruction() != null) {
+            breakpoints.checkRetirement(pipelineRegisters.MEM_WB.getPcPlus4() - 4);
+        }
+        counters.cycles++;
+        if (stallControl.stall) {
+            if (stallUnit.isBranchStall()) {
+                counters.branchStalls++;
+            } else {
+                counters.loadUseStalls++;
+            }
+            if (pipelineRegisters.IF_ID.getInstruction() != null && isProgramAddress(pipelineRegisters.IF_ID.getPC() - 4)) {
+                profileStall(pipelineRegisters.IF_ID.getPC() - 4);
+            }
+        }
 
         writeBack.process(cpuState, pipelineRegisters);
+
+        // MEM fills the spare latch: EX still forwards from the MEM_WB that WB has just consumed
+        MEM_WB_Register consumed = pipelineRegisters.MEM_WB;
+        pipelineRegisters.MEM_WB = spareMEM_WB;
         memory.process(cpuState, pipelineRegisters);
+        MEM_WB_Register produced = pipelineRegisters.MEM_WB;
+        pipelineRegisters.MEM_WB = consumed;
 
-        MEM_WB_Register newMEM_WB = pipelineRegisters.MEM_WB;
-        pipelineRegisters.MEM_WB = savedMEM_WB;
+        boolean executing = pipelineRegisters.ID_EX.getInstruction() != null;
+        int exPc = pipelineRegisters.ID_EX.getPcPlus4() - 4;
         execute.process(cpuState, pipelineRegisters);
-        pipelineRegisters.MEM_WB = newMEM_WB;
+        advanceMemoryLatches(produced);
+        countForwarding(pipelineRegisters.EX_MEM);
 
-        handleControlHazards();
+        int wrongPath = fetchedInstructions(true);
+        if (executing && !earlyBranches) {
+            resolveBranch(exPc);
+        }
+        if (branchFlushedThisCycle) {
+            counters.branchFlushes++;
+        }
+        if (executing && isProgramAddress(exPc)) {
+            profileExecution(exPc);
+            if (pipelineRegisters.EX_MEM.isBranch() && !earlyBranches) {
+                profileBranch(exPc, pipelineRegisters.EX_MEM.isBranchTaken(), branchFlushedThisCycle ? wrongPath : 0);
+            }
+        }
 
         if (stallControl.idExClear) {
             clearID_EX();
         } else {
             decode.process(cpuState, pipelineRegisters);
+            if (decode.isBranchResolved()) {
+                resolveBranchInDecode();
+            }
+            Instruction decoded = pipelineRegisters.ID_EX.getInstruction();
+            if (decoded != null && (decoded.getOpcode() == 0x02 || decoded.getOpcode() == 0x03)) {
+                counters.jumpBubbles++;
+                flushFetchBuffer();
+            }
         }
 
-        if (!branchFlushedThisCycle && stallControl.pcWrite) {
-            fetch.process(cpuState, pipelineRegisters);
+        if (!branchFlushedThisCycle && !fetchFlushedThisCycle && stallControl.pcWrite) {
+            if (instructionCacheMiss()) {
+                fetchStalledThisCycle = true;
+                counters.instructionCacheStalls++;
+                pipelineRegisters.IF_ID.set(null, 0);
+            } else {
+                fetch.process(cpuState, pipelineRegisters);
+            }
+            advanceFetchLatches();
         }
 
         saveSnapshot();
     }
 
-    private MEM_WB_Register saveMEM_WB(MEM_WB_Register original) {
-        MEM_WB_Register copy = new MEM_WB_Register();
-        copy.setAluResult(original.getAluResult());
-        copy.setMemData(original.getMemData());
-        copy.setDestReg(original.getDestReg());
-        copy.setRegWrite(original.isRegWrite());
-        copy.setMemToReg(original.isMemToReg());
-        copy.setInstruction(original.getInstruction() == null ? null : original.getInstruction().copy());
+    // Latches move one stage by rotating references, so extra stages cost no allocation per cycle
 
-        return copy;
+    private void advanceMemoryLatches(MEM_WB_Register produced) {
+        MEM_WB_Register[] buffer = pipelineRegisters.memoryBuffer;
+        spareMEM_WB = pipelineRegisters.MEM_WB;
+        if (buffer.length == 0) {
+            pipelineRegisters.MEM_WB = produced;
+            return;
+        }
+        pipelineRegisters.MEM_WB = buffer[0];
+        System.arraycopy(buffer, 1, buffer, 0, buffer.length - 1);
+        buffer[buffer.length - 1] = produced;
+    }
+
+    private void advanceFetchLatches() {
+        IF_ID_Register[] buffer = pipelineRegisters.fetchBuffer;
+        if (buffer.length == 0) return;
+        IF_ID_Register fetched = pipelineRegisters.IF_ID;
+        pipelineRegisters.IF_ID = buffer[0];
+        System.arraycopy(buffer, 1, buffer, 0, buffer.length - 1);
+        buffer[buffer.length - 1] = fetched;
     }
 
-    private void handleControlHazards() {
-        if (pipelineRegisters.EX_MEM.isBranch() && pipelineRegisters.EX_MEM.isBranchTaken()) {
+    private void flushFetchBuffer() {
+        for (IF_ID_Register latch : pipelineRegisters.fetchBuffer) {
+            latch.set(null, 0);
+        }
+    }
+
+    // Instructions held by the fetch-side latches, which a flush discards
+    private int fetchedInstructions(boolean includeIfId) {
+        int count = includeIfId && pipelineRegisters.IF_ID.getInstruction() != null ? 1 : 0;
+        for (IF_ID_Register latch : pipelineRegisters.fetchBuffer) {
+            if (latch.getInstruction() != null) count++;
+        }
+        return count;
+    }
+
+    // Address of the oldest instruction fetched behind ID, or the next fetch address when none is in flight
+    private int oldestFetchedPc(boolean includeIfId) {
+        if (includeIfId && pipelineRegisters.IF_ID.getPC() != 0) {
+            return pipelineRegisters.IF_ID.getPC() - 4;
+        }
+        for (IF_ID_Register latch : pipelineRegisters.fetchBuffer) {
+            if (latch.getPC() != 0) return latch.getPC() - 4;
+        }
+        return cpuState.pc.get();
+    }
+
+    /**
+     * Sends the load or store in EX_MEM through the data cache once. A miss freezes the pipeline
+     * for the miss penalty; the access then completes in the cycle after the last frozen one.
+     */
+    private boolean dataCacheMiss() {
+        EX_MEM_Register exMem = pipelineRegisters.EX_MEM;
+        if (caches.getDataCache() == null || memCharged || exMem.getInstruction() == null
+                || !(exMem.isMemRead() || exMem.isMemWrite())) {
+            return false;
+        }
+        if (!replaying && breakpoints.isArmed()) {
+            breakpoints.checkMemory(exMem.getAluResult(), exMem.isMemRead(), exMem.isMemWrite(), exMem.getWriteData());
+        }
+        memCharged = true;
+        int penalty = caches.access(exMem.getAluResult(), exMem.isMemWrite());
+        if (penalty == 0) return false;
+        memWait = penalty - 1;
+        return true;
+    }
+
+    /**
+     * Looks up the PC in the instruction cache, returning true while fetch has to wait for a fill.
+     * Fetches past the end of the program are not charged.
+     */
+    private boolean instructionCacheMiss() {
+        if (caches.getInstructionCache() == null) return false;
+        if (fetchWait > 0) return true;
+        int pc = cpuState.pc.get();
+        if (pc == fetchFilledPc) {
+            fetchFilledPc = -1;
+            return false;
+        }
+        if (cpuState.instructionMemory.fetch(pc) == null) return false;
+        int penalty = caches.fetch(pc);
+        if (penalty == 0) return false;
+        fetchWait = penalty;
+        fetchFilledPc = pc;
+        return true;
+    }
+
+    // Latches set up by hand may carry PCs outside instruction memory; keep them out of the profile
+    private boolean isProgramAddress(int pc) {
+        return pc >= 0 && pc < cpuState.instructionMemory.sizeBytes();
+    }
+
+    // Profiler updates go through these so the undo record can take them back
+
+    private void profileExecution(int pc) {
+        profiler.recordExecution(pc);
+        if (undoOffset >= 0) undoLog.data()[undoOffset + UNDO_EXECUTED] = pc;
+    }
+
+    private void profileStall(int pc) {
+        profiler.recordStall(pc);
+        if (undoOffset >= 0) undoLog.data()[undoOffset + UNDO_STALLED] = pc;
+    }
+
+    private void profileBranch(int pc, boolean taken, int flushed) {
+        profiler.recordBranch(pc, taken, flushed);
+        if (undoOffset >= 0) {
+            int[] rec = undoLog.data();
+            rec[undoOffset + UNDO_BRANCH] = pc;
+            rec[undoOffset + UNDO_FLUSHED] = flushed;
+            if (taken) rec[undoOffset + UNDO_FLAGS] |= 1 << 7;
+        }
+    }
+
+    private void countRetirement(Instruction instruction) {
+        if (instruction == null) return;
+        counters.retired++;
+        int opcode = instruction.getOpcode() & 0x3F;
+        counters.opcodeMix[opcode]++;
+        if (opcode == 0) {
+            counters.functMix[instruction.getBinary() & 0x3F]++;
+        }
+    }
+
+    private void countForwarding(EX_MEM_Register exMem) {
+        if (exMem.getInstruction() == null) return;
+        if (exMem.getForwardA() == 2) counters.forwardAExMem++;
+        else if (exMem.getForwardA() == 1) counters.forwardAMemWb++;
+        if (exMem.getForwardB() == 2) counters.forwardBExMem++;
+        else if (exMem.getForwardB() == 1) counters.forwardBMemWb++;
+    }
+
+    /**
+     * Checks the branch that just executed against the path fetch took after it: the oldest
+     * address fetched since, or the next fetch address when nothing was fetched (a fetch latch
+     * holds PC 0 after a flush or a fetch stall). On a misprediction the wrong-path instructions
+     * are flushed and fetch restarts at the right address next cycle.
+     */
+    private void resolveBranch(int branchPc) {
+        EX_MEM_Register exMem = pipelineRegisters.EX_MEM;
+        if (!exMem.isBranch()) return;
+
+        boolean taken = exMem.isBranchTaken();
+        int next = taken ? exMem.getBranchTarget() : branchPc + 4;
+        int fetched = oldestFetchedPc(true);
+
+        counters.branches++;
+        if (predictor != null) {
+            predictor.update(branchPc, taken);
+            if (taken) btb.update(branchPc, next);
+        }
+        if (fetched != next) {
+            counters.mispredictions++;
             branchFlushedThisCycle = true;
+            cpuState.pc.set(next);
             pipelineRegisters.IF_ID.set(null, 0);
+            flushFetchBuffer();
             clearID_EX();
         }
     }
 
+    /**
+     * Same check for a branch resolved in ID. Fetch has not run yet this cycle, so the PC holds the
+     * address fetch chose after the branch unless split fetch stages already hold it. On a
+     * misprediction this cycle's fetch is squashed too: one bubble per fetch stage, against one
+     * more when branches resolve in EX.
+     */
+    private void resolveBranchInDecode() {
+        int branchPc = pipelineRegisters.IF_ID.getPC() - 4;
+        boolean taken = decode.isBranchTaken();
+        int next = taken ? decode.getBranchTarget() : branchPc + 4;
+
+        counters.branches++;
+        if (predictor != null) {
+            predictor.update(branchPc, taken);
+            if (taken) btb.update(branchPc, next);
+        }
+        boolean mispredicted = oldestFetchedPc(false) != next;
+        int wrongPath = mispredicted ? 1 + fetchedInstructions(false) : 0; // this cycle's fetch and the split stages
+        if (mispredicted) {
+            counters.mispredictions++;
+            counters.branchFlushes++;
+            fetchFlushedThisCycle = true;
+            cpuState.pc.set(next);
+            flushFetchBuffer();
+        }
+        // The branch has moved on to ID_EX; it must not be decoded again
+        pipelineRegisters.IF_ID.set(null, 0);
+        if (isProgramAddress(branchPc)) {
+            profileBranch(branchPc, taken, wrongPath);
+        }
+    }
+
     private void clearID_EX() {
         pipelineRegisters.ID_EX.setReadData1(0);
         pipelineRegisters.ID_EX.setReadData2(0);
@@ -100,8 +454,24 @@ public class PipelineController {
     }
 
     public void clearPipeline() {
+        caches.invalidate();
+        if (predictor != null) {
+            predictor.reset();
+            btb.reset();
+        }
+        fetchWait = 0;
+        fetchFilledPc = -1;
+        memWait = 0;
+        memCharged = false;
+
         pipelineRegisters.IF_ID.set(null, 0);
+        flushFetchBuffer();
         clearID_EX();
+        for (MEM_WB_Register latch : pipelineRegisters.memoryBuffer) {
+            latch.setRegWrite(false);
+            latch.setMemToReg(false);
+            latch.setInstruction(null);
+        }
 
         pipelineRegisters.EX_MEM.setAluResult(0);
         pipelineRegisters.EX_MEM.setZeroFlag(false);
@@ -109,6 +479,7 @@ public class PipelineController {
         pipelineRegisters.EX_MEM.setBranchTarget(0);
         pipelineRegisters.EX_MEM.setBranchTaken(false);
         pipelineRegisters.EX_MEM.setDestReg(-1);
+        pipelineRegisters.EX_MEM.setPcPlus4(0);
         pipelineRegisters.EX_MEM.setRegWrite(false);
         pipelineRegisters.EX_MEM.setMemToReg(false);
         pipelineRegisters.EX_MEM.setBranch(false);
@@ -119,6 +490,7 @@ public class PipelineController {
         pipelineRegisters.MEM_WB.setAluResult(0);
         pipelineRegisters.MEM_WB.setMemData(0);
         pipelineRegisters.MEM_WB.setDestReg(-1);
+        pipelineRegisters.MEM_WB.setPcPlus4(0);
         pipelineRegisters.MEM_WB.setRegWrite(false);
         pipelineRegisters.MEM_WB.setMemToReg(false);
         pipelineRegisters.MEM_WB.setInstruction(null);
@@ -126,10 +498,201 @@ public class PipelineController {
 
     public void clearHistory() {
         history.clear();
+        discardUndo();
+        counters.reset();
+        profiler.reset();
+        caches.resetStats();
         branchFlushedThisCycle = false;
+        fetchFlushedThisCycle = false;
+        fetchStalledThisCycle = false;
         lastWbInstr = null;
     }
 
+    /**
+     * Rewinds up to cycles cycles using the undo log, in O(cycles). With caches or a predictor, their
+     * state is rebuilt by undoing at most KEYFRAME_INTERVAL more cycles back to a keyframe and running
+     * forward again. Returns the number rewound, which is smaller when the log holds fewer cycles.
+     */
+    public int stepBack(int cycles) {
+        int undone = 0;
+        while (undone < cycles && undoSerial > undoFloor && undoCycle()) {
+            undone++;
+        }
+        if (undone > 0) {
+            replayTiming();
+        }
+        return undone;
+    }
+
+    private void replayTiming() {
+        keyframes.tailMap(undoSerial, false).clear();
+        Map.Entry<Long, Keyframe> entry = keyframes.floorEntry(undoSerial);
+        if (entry == null) return;
+        long target = undoSerial;
+        while (undoSerial > entry.getKey()) {
+            undoCycle();
+        }
+        Keyframe keyframe = entry.getValue();
+        caches.copyFrom(keyframe.caches.copy());
+        predictor = keyframe.predictor != null ? keyframe.predictor.copy() : null;
+        btb = keyframe.btb != null ? keyframe.btb.copy() : null;
+        fetch.setBranchPrediction(predictor, btb);
+        replaying = true;
+        try {
+            while (undoSerial < target) {
+                runCycle();
+            }
+        } finally {
+            replaying = false;
+        }
+    }
+
+    /**
+     * True once the program has run off its end: every latch is empty and there is nothing to fetch.
+     */
+    public boolean isIdle() {
+        return isEmpty() && cpuState.instructionMemory.fetch(cpuState.pc.get()) == null;
+    }
+
+    private boolean isEmpty() {
+        if (pipelineRegisters.IF_ID.getInstruction() != null
+                || pipelineRegisters.ID_EX.getInstruction() != null
+                || pipelineRegisters.EX_MEM.getInstruction() != null
+                || pipelineRegisters.MEM_WB.getInstruction() != null) {
+            return false;
+        }
+        for (IF_ID_Register latch : pipelineRegisters.fetchBuffer) {
+            if (latch.getInstruction() != null) return false;
+        }
+        for (MEM_WB_Register latch : pipelineRegisters.memoryBuffer) {
+            if (latch.getInstruction() != null) return false;
+        }
+        return true;
+    }
+
+    public int getUndoDepth() {
+        return undoDepth;
+    }
+
+    public int getUndoAvailable() {
+        return (int) (undoSerial - undoFloor);
+    }
+
+    /**
+     * Sets how many cycles can be rewound; 0 disables recording. Discards the current undo log.
+     */
+    public void setUndoDepth(int cycles) {
+        undoLog = newUndoLog(cycles);
+        undoDepth = cycles;
+        discardUndo();
+    }
+
+    // A keyframe interval of spare records lets a rewind to the oldest cycle reach the keyframe before it
+    private UndoLog newUndoLog(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Undo depth must not be negative: " + depth);
+        }
+        return new UndoLog(depth == 0 ? 0 : depth + KEYFRAME_INTERVAL, UNDO_LATCHES + LatchState.ints(pipelineRegisters));
+    }
+
+    /**
+     * Forgets every recorded cycle, for when state the undo log cannot replay changes: the caches,
+     * predictor or branch resolution are reconfigured, or statistics are reset.
+     */
+    public void discardUndo() {
+        undoLog.clear();
+        keyframes.clear();
+        undoSerial = 0;
+        undoFloor = 0;
+    }
+
+    private int recordUndo() {
+        int off = undoLog.push();
+        if (off < 0) return -1;
+        int[] rec = undoLog.data();
+
+        if (undoSerial % KEYFRAME_INTERVAL == 0 && hasTimingState()) {
+            keyframes.put(undoSerial, new Keyframe(caches.copy(),
+                    predictor != null ? predictor.copy() : null, btb != null ? btb.copy() : null));
+        }
+        undoSerial++;
+        undoFloor = Math.max(undoFloor, undoSerial - undoDepth);
+        Long oldest = keyframes.floorKey(undoFloor);
+        if (oldest != null) {
+            keyframes.headMap(oldest, false).clear();
+        }
+
+        MEM_WB_Register memWb = pipelineRegisters.MEM_WB;
+        int wbReg = memWb.isRegWrite() && memWb.getInstruction() != null ? memWb.getDestReg() : 0;
+        if (wbReg < 0 || wbReg > 31) wbReg = 0;
+
+        EX_MEM_Register exMem = pipelineRegisters.EX_MEM;
+        boolean store = exMem.isMemWrite() && exMem.getInstruction() != null;
+
+        StallUnit.StallControl stall = stallUnit.getStallControl();
+        rec[off + UNDO_PC] = cpuState.pc.get();
+        rec[off + UNDO_FLAGS] = LatchState.bits(stall.stall, stall.pcWrite, stall.ifidWrite, stall.idExClear,
+                lastWbInstr != null, store, memCharged);
+        rec[off + UNDO_LAST_WB] = lastWbInstr != null ? lastWbInstr.getBinary() : 0;
+        rec[off + UNDO_WB_REG] = wbReg;
+        rec[off + UNDO_WB_OLD] = cpuState.registerFile.get(wbReg);
+        rec[off + UNDO_RA_OLD] = cpuState.registerFile.get(31);
+        rec[off + UNDO_STORE_ADDR] = store ? exMem.getAluResult() : 0;
+        rec[off + UNDO_STORE_OLD] = store ? cpuState.dataMemory.loadWord(exMem.getAluResult()) : 0;
+        rec[off + UNDO_FETCH_WAIT] = fetchWait;
+        rec[off + UNDO_MEM_WAIT] = memWait;
+        rec[off + UNDO_FETCH_FILLED] = fetchFilledPc;
+        rec[off + UNDO_COUNTERS] = 0;
+        rec[off + UNDO_RETIRED] = memWb.getInstruction() != null ? memWb.getInstruction().getBinary() : 0;
+        rec[off + UNDO_EXECUTED] = -1;
+        rec[off + UNDO_STALLED] = -1;
+        rec[off + UNDO_BRANCH] = -1;
+        rec[off + UNDO_FLUSHED] = 0;
+        LatchState.encode(pipelineRegisters, rec, off + UNDO_LATCHES);
+        return off;
+    }
+
+    private boolean hasTimingState() {
+        return predictor != null || caches.getInstructionCache() != null || caches.getDataCache() != null
+                || caches.getL2() != null;
+    }
+
+    private boolean undoCycle() {
+        int off = undoLog.pop();
+        if (off < 0) return false;
+        undoSerial--;
+        int[] rec = undoLog.data();
+        int flags = rec[off + UNDO_FLAGS];
+
+        if (LatchState.bit(flags, 5)) {
+            cpuState.dataMemory.storeWord(rec[off + UNDO_STORE_ADDR], rec[off + UNDO_STORE_OLD]);
+        }
+        cpuState.registerFile.set(31, rec[off + UNDO_RA_OLD]);
+        cpuState.registerFile.set(rec[off + UNDO_WB_REG], rec[off + UNDO_WB_OLD]);
+        cpuState.pc.set(rec[off + UNDO_PC]);
+
+        LatchState.decode(rec, off + UNDO_LATCHES, pipelineRegisters);
+        stallUnit.setStallControl(new StallUnit.StallControl(LatchState.bit(flags, 0), LatchState.bit(flags, 1),
+                LatchState.bit(flags, 2), LatchState.bit(flags, 3)));
+        lastWbInstr = LatchState.bit(flags, 4) ? LatchState.decodeInstruction(rec[off + UNDO_LAST_WB]) : null;
+        memCharged = LatchState.bit(flags, 6);
+        fetchWait = rec[off + UNDO_FETCH_WAIT];
+        memWait = rec[off + UNDO_MEM_WAIT];
+        fetchFilledPc = rec[off + UNDO_FETCH_FILLED];
+
+        counters.undo(rec[off + UNDO_COUNTERS], rec[off + UNDO_RETIRED]);
+        if (rec[off + UNDO_EXECUTED] >= 0) profiler.undoExecution(rec[off + UNDO_EXECUTED]);
+        if (rec[off + UNDO_STALLED] >= 0) profiler.undoStall(rec[off + UNDO_STALLED]);
+        if (rec[off + UNDO_BRANCH] >= 0) {
+            profiler.undoBranch(rec[off + UNDO_BRANCH], LatchState.bit(flags, 7), rec[off + UNDO_FLUSHED]);
+        }
+
+        if (!history.isEmpty()) {
+            history.remove(history.size() - 1);
+        }
+        return true;
+    }
+
     private void saveSnapshot() {
 
         StallUnit.StallControl stall = stallUnit.getStallControl();
@@ -140,9 +703,9 @@ public class PipelineController {
         StageInfo memInfo;
         StageInfo wbInfo;
 
-        if (branchFlushedThisCycle) {
+        if (branchFlushedThisCycle || fetchFlushedThisCycle) {
             ifInfo = new StageInfo(StageState.FLUSH, null);
-        } else if (!stall.pcWrite) {
+        } else if (!stall.pcWrite || fetchStalledThisCycle) {
             ifInfo = new StageInfo(StageState.STALL, null);
         } else if (pipelineRegisters.IF_ID.getInstruction() == null) {
             ifInfo = new StageInfo(StageState.EMPTY, null);
@@ -186,18 +749,194 @@ public class PipelineController {
             lastWbInstr = null;
         }
 
-        PipelineSnapshot snapshot = new PipelineSnapshot(ifInfo, idInfo, exInfo, memInfo, wbInfo);
+        PipelineSnapshot snapshot;
+        if (layout == PipelineLayout.CLASSIC) {
+            snapshot = new PipelineSnapshot(ifInfo, idInfo, exInfo, memInfo, wbInfo);
+        } else {
+            // The newest latch of a split group is at the end of its buffer and belongs to its first stage
+            IF_ID_Register[] fetchBuffer = pipelineRegisters.fetchBuffer;
+            StageInfo[] splitFetch = new StageInfo[fetchBuffer.length];
+            for (int i = 0; i < splitFetch.length; i++) {
+                splitFetch[i] = branchFlushedThisCycle || fetchFlushedThisCycle
+                        ? new StageInfo(StageState.FLUSH, null)
+                        : occupied(fetchBuffer[fetchBuffer.length - 1 - i].getInstruction());
+            }
+            MEM_WB_Register[] memoryBuffer = pipelineRegisters.memoryBuffer;
+            StageInfo[] splitMemory = new StageInfo[memoryBuffer.length];
+            for (int i = 0; i < splitMemory.length; i++) {
+                splitMemory[i] = occupied(memoryBuffer[memoryBuffer.length - 1 - i].getInstruction());
+            }
+            snapshot = new PipelineSnapshot(ifInfo, idInfo, exInfo, memInfo, wbInfo, splitFetch, splitMemory);
+        }
 
         history.add(snapshot);
         branchFlushedThisCycle = false;
+        fetchFlushedThisCycle = false;
+        fetchStalledThisCycle = false;
+    }
+
+    private static StageInfo occupied(Instruction instruction) {
+        return instruction == null
+                ? new StageInfo(StageState.EMPTY, null)
+                : new StageInfo(StageState.INSTR, instruction);
+    }
+
+    // While a data miss freezes the pipeline nothing moves and nothing is written back
+    private void saveFrozenSnapshot() {
+        StageInfo stalled = new StageInfo(StageState.STALL, null);
+        StageInfo empty = new StageInfo(StageState.EMPTY, null);
+        if (layout == PipelineLayout.CLASSIC) {
+            history.add(new PipelineSnapshot(stalled, stalled, stalled, stalled, empty));
+            return;
+        }
+        StageInfo[] fetch = new StageInfo[pipelineRegisters.fetchBuffer.length];
+        StageInfo[] memory = new StageInfo[pipelineRegisters.memoryBuffer.length];
+        Arrays.fill(fetch, stalled);
+        Arrays.fill(memory, stalled);
+        history.add(new PipelineSnapshot(stalled, stalled, stalled, stalled, empty, fetch, memory));
+    }
+
+    StallUnit getStallUnit() {
+        return stallUnit;
+    }
+
+    Instruction getLastWbInstruction() {
+        return lastWbInstr;
+    }
+
+    void setLastWbInstruction(Instruction instruction) {
+        lastWbInstr = instruction;
+    }
+
+    int getFetchWait() { return fetchWait; }
+    int getFetchFilledPc() { return fetchFilledPc; }
+    int getMemWait() { return memWait; }
+    boolean isMemCharged() { return memCharged; }
+
+    void setCacheTimers(int fetchWait, int fetchFilledPc, int memWait, boolean memCharged) {
+        if (fetchWait < 0 || memWait < 0) {
+            throw new IllegalArgumentException("Cache stall timers must not be negative");
+        }
+        this.fetchWait = fetchWait;
+        this.fetchFilledPc = fetchFilledPc;
+        this.memWait = memWait;
+        this.memCharged = memCharged;
     }
 
     public PipelineRegisters getPipelineRegisters() {
         return pipelineRegisters;
     }
 
+    public PerformanceCounters getCounters() {
+        return counters;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * The caches in front of instruction and data memory. Configure them in place; the pipeline
+     * sees changes from the next access on. Call discardUndo afterwards, since a rewind would
+     * otherwise replay the old configuration.
+     */
+    public CacheHierarchy getCaches() {
+        return caches;
+    }
+
+    public BranchPredictor getBranchPredictor() {
+        return predictor;
+    }
+
+    public BranchTargetBuffer getBranchTargetBuffer() {
+        return btb;
+    }
+
+    /**
+     * Predicts branches at fetch with the given direction predictor and target buffer; null for
+     * both restores the default of always falling through. Mispredictions are recovered in EX.
+     */
+    public void setBranchPrediction(BranchPredictor predictor, BranchTargetBuffer btb) {
+        if ((predictor == null) != (btb == null)) {
+            throw new IllegalArgumentException("A branch predictor needs a branch target buffer");
+        }
+        this.predictor = predictor;
+        this.btb = btb;
+        fetch.setBranchPrediction(predictor, btb);
+        discardUndo();
+    }
+
+    public PipelineLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Splits fetch and memory access over more stages. Each extra fetch stage adds a bubble to
+     * every misprediction and jump, and each extra memory stage a load-use stall. The pipeline
+     * must be empty, as after a reset; the undo log is discarded.
+     */
+    public void setLayout(PipelineLayout layout) {
+        if (!isEmpty()) {
+            throw new IllegalArgumentException("Reset the pipeline before changing its stages");
+        }
+        applyLayout(layout);
+    }
+
+    // Used by checkpoints, which overwrite the latches right after
+    void applyLayout(PipelineLayout layout) {
+        if (layout.equals(this.layout)) return;
+        this.layout = layout;
+        pipelineRegisters.setDepth(layout.getFetchStages(), layout.getMemoryStages());
+        setUndoDepth(undoDepth);
+    }
+
+    public boolean isEarlyBranchResolution() {
+        return earlyBranches;
+    }
+
+    /**
+     * Resolves beq and bne in ID instead of EX. A branch then waits one cycle for an operand an ALU
+     * instruction is still computing and two for a load, and a misprediction costs one bubble.
+     */
+    public void setEarlyBranchResolution(boolean early) {
+        if (early != earlyBranches && pipelineRegisters.ID_EX.getInstruction() != null
+                && pipelineRegisters.ID_EX.isBranch()) {
+            throw new IllegalArgumentException("Cannot move branch resolution while a branch is between ID and EX");
+        }
+        applyEarlyBranchResolution(early);
+    }
+
+    // Used by forks and checkpoints, whose latches may hold a branch between ID and EX
+    void applyEarlyBranchResolution(boolean early) {
+        if (early != earlyBranches) {
+            discardUndo();
+        }
+        this.earlyBranches = early;
+        stallUnit.setEarlyBranches(early);
+        decode.setEarlyBranches(early);
+    }
+
+    public Breakpoints getBreakpoints() {
+        return breakpoints;
+    }
+
+    public CPUState getCpuState() {
+        return cpuState;
+    }
+
     public List<PipelineSnapshot> getHistory() {
         return history;
     }
 
+    private static final class Keyframe {
+        final CacheHierarchy caches;
+        final BranchPredictor predictor;
+        final BranchTargetBuffer btb;
+
+        Keyframe(CacheHierarchy caches, BranchPredictor predictor, BranchTargetBuffer btb) {
+            this.caches = caches;
+            this.predictor = predictor;
+            this.btb = btb;
+        }
+    }
 }
\ No newline at end of file
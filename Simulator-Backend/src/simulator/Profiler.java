@@ -0,0 +1,129 @@
+package simulator;
+
+import java.util.Arrays;
+
+/**
+ * Per-instruction profile kept in long arrays indexed by word address, grown on demand. Records
+ * how often each instruction executed, the cycles it sat stalled in ID, the instructions its
+ * mispredicted branches flushed, and its branch outcomes.
+ */
+public class Profiler {
+
+    private static final int INDEX_BITS = 30;
+    private static final long MAX_KEY = (1L << (63 - INDEX_BITS)) - 1;
+
+    private long[] executions = new long[0];
+    private long[] stallCycles = new long[0];
+    private long[] flushes = new long[0];
+    private long[] taken = new long[0];
+    private long[] notTaken = new long[0];
+
+    void recordExecution(int pc) {
+        int slot = slot(pc); // may grow the arrays, so index them only afterwards
+        executions[slot]++;
+    }
+
+    void recordStall(int pc) {
+        int slot = slot(pc);
+        stallCycles[slot]++;
+    }
+
+    void recordBranch(int pc, boolean branchTaken, int flushed) {
+        int slot = slot(pc);
+        if (branchTaken) {
+            taken[slot]++;
+        } else {
+            notTaken[slot]++;
+        }
+        flushes[slot] += flushed;
+    }
+
+    // Take back one record call, for rewinding; a reset since then leaves nothing to take back
+    void undoExecution(int pc) {
+        undo(executions, pc, 1);
+    }
+
+    void undoStall(int pc) {
+        undo(stallCycles, pc, 1);
+    }
+
+    void undoBranch(int pc, boolean branchTaken, int flushed) {
+        undo(branchTaken ? taken : notTaken, pc, 1);
+        undo(flushes, pc, flushed);
+    }
+
+    private static void undo(long[] counts, int pc, int amount) {
+        int word = pc >>> 2;
+        if (word < counts.length && counts[word] >= amount) counts[word] -= amount;
+    }
+
+    public long getExecutions(int address) { return get(executions, address); }
+    public long getStallCycles(int address) { return get(stallCycles, address); }
+    public long getFlushes(int address) { return get(flushes, address); }
+    public long getTaken(int address) { return get(taken, address); }
+    public long getNotTaken(int address) { return get(notTaken, address); }
+
+    /** Cycles attributed to the instruction at address: one per execution, stall cycle and flushed slot. */
+    public long getCost(int address) {
+        return getExecutions(address) + getStallCycles(address) + getFlushes(address);
+    }
+
+    /**
+     * Returns the addresses of the n costliest instructions, costliest first. Cost and word index are
+     * packed into one long per instruction so the ranking is a single primitive sort.
+     */
+    public int[] top(int n) {
+        long[] keys = new long[executions.length];
+        int count = 0;
+        for (int word = 0; word < executions.length; word++) {
+            long cost = executions[word] + stallCycles[word] + flushes[word];
+            if (cost > 0) {
+                // Within equal cost, lower addresses come first
+                keys[count++] = (Math.min(cost, MAX_KEY) << INDEX_BITS) | (~word & ((1L << INDEX_BITS) - 1));
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        int size = Math.min(Math.max(n, 0), count);
+        int[] addresses = new int[size];
+        for (int i = 0; i < size; i++) {
+            int word = (int) ~keys[count - 1 - i] & ((1 << INDEX_BITS) - 1);
+            addresses[i] = word << 2;
+        }
+        return addresses;
+    }
+
+    public void reset() {
+        executions = new long[0];
+        stallCycles = new long[0];
+        flushes = new long[0];
+        taken = new long[0];
+        notTaken = new long[0];
+    }
+
+    void copyFrom(Profiler other) {
+        executions = other.executions.clone();
+        stallCycles = other.stallCycles.clone();
+        flushes = other.flushes.clone();
+        taken = other.taken.clone();
+        notTaken = other.notTaken.clone();
+    }
+
+    private int slot(int pc) {
+        int word = pc >>> 2;
+        if (word >= executions.length) {
+            int length = Math.max(word + 1, Math.max(64, executions.length * 2));
+            executions = Arrays.copyOf(executions, length);
+            stallCycles = Arrays.copyOf(stallCycles, length);
+            flushes = Arrays.copyOf(flushes, length);
+            taken = Arrays.copyOf(taken, length);
+            notTaken = Arrays.copyOf(notTaken, length);
+        }
+        return word;
+    }
+
+    private static long get(long[] counts, int address) {
+        int word = address >>> 2;
+        return word < counts.length ? counts[word] : 0;
+    }
+}
@@ -0,0 +1,132 @@
+package simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of assembled program images, keyed by a SHA-256 digest of the normalized
+ * source and the start address. Sources that differ only in line endings or trailing whitespace
+ * share one image.
+ */
+public class ProgramCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final ProgramCache SHARED = new ProgramCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+    private final LinkedHashMap<Key, ProgramImage> images;
+    private long hits;
+    private long misses;
+
+    public ProgramCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+
+        this.capacity = capacity;
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ProgramImage> eldest) {
+                return size() > ProgramCache.this.capacity;
+            }
+        };
+    }
+
+    /** Cache shared by every server instance in this JVM. */
+    public static ProgramCache shared() {
+        return SHARED;
+    }
+
+    public ProgramImage getOrAssemble(String source, int startAddress) {
+        String normalized = normalize(source);
+        Key key = new Key(digest(normalized), startAddress);
+
+        synchronized (this) {
+            ProgramImage image = images.get(key);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
+        }
+
+        // Assemble outside the lock; a concurrent miss on the same key keeps the first image stored
+        ProgramImage image = ProgramImage.assemble(normalized, startAddress);
+
+        synchronized (this) {
+            ProgramImage existing = images.putIfAbsent(key, image);
+            return existing != null ? existing : image;
+        }
+    }
+
+    public synchronized int size() { return images.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public int getCapacity() { return capacity; }
+
+    public synchronized void clear() {
+        images.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Converts CRLF and CR line endings to LF and drops trailing whitespace on every line,
+     * leaving line numbers unchanged.
+     */
+    static String normalize(String source) {
+        StringBuilder sb = new StringBuilder(source.length());
+        int lineStart = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\r' || c == '\n') {
+                appendTrimmed(sb, source, lineStart, i);
+                sb.append('\n');
+                if (c == '\r' && i + 1 < source.length() && source.charAt(i + 1) == '\n') i++;
+                lineStart = i + 1;
+            }
+        }
+        appendTrimmed(sb, source, lineStart, source.length());
+        return sb.toString();
+    }
+
+    private static void appendTrimmed(StringBuilder sb, String source, int start, int end) {
+        while (end > start && source.charAt(end - 1) <= ' ') end--;
+        sb.append(source, start, end);
+    }
+
+    private static byte[] digest(String normalized) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Key {
+        private final byte[] digest;
+        private final int startAddress;
+        private final int hash;
+
+        Key(byte[] digest, int startAddress) {
+            this.digest = digest;
+            this.startAddress = startAddress;
+            this.hash = 31 * Arrays.hashCode(digest) + startAddress;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other)) return false;
+            return startAddress == other.startAddress && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package simulator;
+
+import model.instruction.Instruction;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Assembled and predecoded program placed at a fixed start address. Images are immutable,
+ * so one image can be installed into any number of instruction memories at the same time.
+ */
+public final class ProgramImage {
+
+    private final int startAddress;
+    private final int[] machineCode;
+    private final int[] sourceLines;
+    private final Instruction[] instructions;
+
+    private ProgramImage(int startAddress, int[] machineCode, int[] sourceLines) {
+        this.startAddress = startAddress;
+        this.machineCode = machineCode;
+        this.sourceLines = sourceLines;
+        this.instructions = new Instruction[machineCode.length];
+        for (int i = 0; i < machineCode.length; i++) {
+            Instruction instr = ProgramLoader.parseInstruction(machineCode[i]);
+            instr.decodeFields();
+            instructions[i] = instr;
+        }
+    }
+
+    public static ProgramImage assemble(Reader source, int startAddress) throws IOException {
+        return of(StreamingAssembler.assemble(source, startAddress), startAddress);
+    }
+
+    /** Assembles a source held in memory; large sources are encoded in parallel. */
+    public static ProgramImage assemble(String source, int startAddress) {
+        return of(StreamingAssembler.assemble(source, startAddress), startAddress);
+    }
+
+    private static ProgramImage of(StreamingAssembler.Result result, int startAddress) {
+        if (!result.errors.isEmpty())
+            throw new IllegalArgumentException("Assembly errors: " + String.join("; ", result.errors));
+        if (result.machineCode.length == 0)
+            throw new IllegalArgumentException("No assembly instructions to load");
+
+        return new ProgramImage(startAddress, result.machineCode, result.sourceLines);
+    }
+
+    public int getStartAddress() { return startAddress; }
+    public int size() { return machineCode.length; }
+    public int getWord(int index) { return machineCode[index]; }
+    public int getSourceLine(int index) { return sourceLines[index]; }
+
+    /** Source line that produced the word at address, or -1 if the image does not cover it. */
+    public int getSourceLineAt(int address) {
+        int index = (address - startAddress) >> 2;
+        if (address < startAddress || index >= sourceLines.length) return -1;
+        return sourceLines[index];
+    }
+
+    public int[] getMachineCode() {
+        return machineCode.clone();
+    }
+
+    // Shared with InstructionMemory.loadImage, which copies it before writing
+    Instruction[] instructions() {
+        return instructions;
+    }
+}
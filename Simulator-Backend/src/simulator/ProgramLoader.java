@@ -5,7 +5,11 @@ import model.instruction.Instruction;
 import model.instruction.ITypeInstruction;
 import model.instruction.JTypeInstruction;
 import model.instruction.RTypeInstruction;
+import model.memory.DataMemory;
+import model.memory.InstructionMemory;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,24 +20,90 @@ public class ProgramLoader {
 	public static final int INSTRUCTION_MEMORY_BYTES = INSTRUCTION_MEMORY_WORDS * 4;
 
 	public static ProgramLoadResult loadFromAssembly(CPUState state, String[] assemblyLines, int startAddress) {
-		validateStartAddress(startAddress);
-
 		if (assemblyLines == null || assemblyLines.length == 0)
 			throw new IllegalArgumentException("No assembly instructions to load");
 
-		Assembler.AssemblyResult asmResult = Assembler.assemble(assemblyLines, startAddress);
+		validateStartAddress(state, startAddress);
+		return loadImage(state, ProgramImage.assemble(String.join("\n", assemblyLines), startAddress));
+	}
+
+	public static ProgramLoadResult loadFromAssembly(CPUState state, Reader source, int startAddress) throws IOException {
+		validateStartAddress(state, startAddress);
+
+		return loadImage(state, ProgramImage.assemble(source, startAddress));
+	}
+
+	public static ProgramLoadResult loadFromAssembly(CPUState state, String source, int startAddress, ProgramCache cache) {
+		validateStartAddress(state, startAddress);
+		return loadImage(state, cache.getOrAssemble(source, startAddress));
+	}
+
+	/**
+	 * Installs a predecoded image by reference. Images larger than the remaining instruction memory
+	 * fall back to a clipped copy, with warnings for the skipped words.
+	 */
+	public static ProgramLoadResult loadImage(CPUState state, ProgramImage image) {
+		int startAddress = image.getStartAddress();
+		validateStartAddress(state, startAddress);
+
+		int capacity = (state.instructionMemory.sizeBytes() - startAddress) / 4;
+		if (image.size() > capacity)
+			return loadFromIntArray(state, image.getMachineCode(), startAddress);
+
+		state.instructionMemory.loadImage(image.instructions(), startAddress);
+		state.pc.set(startAddress);
+
+		int endAddress = startAddress + (image.size() - 1) * 4;
+		return new ProgramLoadResult(image.size(), startAddress, endAddress, new ArrayList<>());
+	}
+
+	/**
+	 * Assembles lines with assembler, keeping its per-line state for later edits.
+	 */
+	public static ProgramLoadResult loadIncremental(CPUState state, IncrementalAssembler assembler, String[] lines, int startAddress) {
+		validateStartAddress(state, startAddress);
+
+		IncrementalAssembler.Result asmResult = assembler.assemble(lines, startAddress);
 
 		if (!asmResult.errors.isEmpty()) {
+			assembler.clear();
 			throw new IllegalArgumentException("Assembly errors: " + String.join("; ", asmResult.errors));
 		}
 
-		int[] words = asmResult.machineCode.stream().mapToInt(Integer::intValue).toArray();
+		if (asmResult.machineCode.length == 0) {
+			assembler.clear();
+			throw new IllegalArgumentException("No assembly instructions to load");
+		}
 
-		return loadFromIntArray(state, words, startAddress);
+		return loadFromIntArray(state, asmResult.machineCode, startAddress);
+	}
+
+	/**
+	 * Writes the instructions changed by an edit in place. A relayout reloads the whole program.
+	 * The PC and any instructions already in the pipeline are left alone.
+	 */
+	public static void applyEdit(CPUState state, IncrementalAssembler assembler, IncrementalAssembler.Edit edit) {
+		int startAddress = assembler.getStartAddress();
+
+		if (edit.relayout) {
+			int pc = state.pc.get();
+			int[] words = assembler.getMachineCode();
+			if (words.length == 0) {
+				state.instructionMemory.clear();
+			} else {
+				loadFromIntArray(state, words, startAddress);
+			}
+			state.pc.set(pc);
+			return;
+		}
+
+		for (int i = 0; i < edit.slots.length; i++) {
+			state.instructionMemory.setInstruction(startAddress + edit.slots[i] * 4, parseInstruction(edit.words[i]));
+		}
 	}
 
 	public static ProgramLoadResult loadFromHexStrings(CPUState state, String[] hexLines, int startAddress) {
-		validateStartAddress(startAddress);
+		validateStartAddress(state, startAddress);
 
 		if (hexLines == null || hexLines.length == 0)
 			throw new IllegalArgumentException("No hex instructions to load");
@@ -55,28 +125,24 @@ public class ProgramLoader {
 	}
 
 	public static ProgramLoadResult loadFromIntArray(CPUState state, int[] words, int startAddress) {
-		validateStartAddress(startAddress);
+		validateStartAddress(state, startAddress);
 
 		if (words == null || words.length == 0)
 			throw new IllegalArgumentException("No instructions to load");
 
-		clearInstructionMemory(state);
-
 		List<String> warnings = new ArrayList<>();
-		int loaded = 0;
-
-		for (int i = 0; i < words.length; i++) {
-			int address = startAddress + (i * 4);
+		int capacity = (state.instructionMemory.sizeBytes() - startAddress) / 4;
+		int loaded = Math.min(words.length, capacity);
 
-			if (address < 0 || address >= INSTRUCTION_MEMORY_BYTES) {
-				warnings.add("Skipping out-of-bounds instruction at address " + address);
-				continue;
-			}
+		for (int i = loaded; i < words.length; i++) {
+			warnings.add("Skipping out-of-bounds instruction at address " + (startAddress + (i * 4)));
+		}
 
-			Instruction instr = parseInstruction(words[i]);
-			state.instructionMemory.setInstruction(address, instr);
-			loaded++;
+		Instruction[] image = new Instruction[loaded];
+		for (int i = 0; i < loaded; i++) {
+			image[i] = parseInstruction(words[i]);
 		}
+		state.instructionMemory.loadImage(image, startAddress);
 
 		state.pc.set(startAddress);
 
@@ -92,26 +158,42 @@ public class ProgramLoader {
 		}
 
 		if (clearDataMem) {
-			for (int addr = 0; addr < state.dataMemory.sizeBytes(); addr += 4) {
-				state.dataMemory.storeWord(addr, 0);
-			}
+			state.dataMemory.clear();
 		}
 
 		clearInstructionMemory(state);
 		state.pc.set(pcStart);
 	}
 
-	private static void clearInstructionMemory(CPUState state) {
-		for (int addr = 0; addr < INSTRUCTION_MEMORY_BYTES; addr += 4) {
-			state.instructionMemory.setInstruction(addr, null);
+	/**
+	 * Replaces the instruction and data memories with empty ones of the given sizes in words.
+	 * A memory that already has its size is kept as it is. Returns whether either memory was replaced.
+	 */
+	public static boolean resizeMemory(CPUState state, int instructionWords, int dataWords) {
+		if (instructionWords <= 0 || dataWords <= 0)
+			throw new IllegalArgumentException("Memory sizes must be positive");
+
+		boolean resized = false;
+		if (instructionWords * 4L != state.instructionMemory.sizeBytes()) {
+			state.instructionMemory = new InstructionMemory(instructionWords);
+			resized = true;
 		}
+		if (dataWords * 4L != state.dataMemory.sizeBytes()) {
+			state.dataMemory = new DataMemory(dataWords);
+			resized = true;
+		}
+		return resized;
+	}
+
+	private static void clearInstructionMemory(CPUState state) {
+		state.instructionMemory.clear();
 	}
 
-	private static void validateStartAddress(int startAddress) {
+	private static void validateStartAddress(CPUState state, int startAddress) {
 		if ((startAddress & 0x3) != 0)
 			throw new IllegalArgumentException("Start address must be word-aligned (multiple of 4)");
 
-		if (startAddress < 0 || startAddress >= INSTRUCTION_MEMORY_BYTES)
+		if (startAddress < 0 || startAddress >= state.instructionMemory.sizeBytes())
 			throw new IllegalArgumentException("Start address out of instruction memory bounds");
 	}
 
@@ -129,7 +211,7 @@ public class ProgramLoader {
 		return (int) Long.parseLong(s, 16);
 	}
 
-	private static Instruction parseInstruction(int binaryWord) {
+	static Instruction parseInstruction(int binaryWord) {
 		int opcode = (binaryWord >>> 26) & 0x3F;
 
 		if (opcode == 0x00)
@@ -0,0 +1,724 @@
+package simulator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Single-pass assembler reading from a Reader. Lines are tokenized in place in a reusable char buffer,
+ * machine code goes into a growable int[], and references to labels that are not defined yet are
+ * recorded in a fixup table and patched once the whole source has been read.
+ *
+ * Register names follow {@link Assembler}. A line that fails to assemble keeps its slot as a
+ * zero word, so the addresses of the labels after it stay correct; errors name the source line.
+ *
+ * A large source held in memory is assembled in two passes instead: the first collects the labels
+ * and where each instruction is, the second encodes chunks of instructions on the common ForkJoin
+ * pool. Every label is known by then, so there are no fixups, and the result is the same.
+ */
+public class StreamingAssembler {
+
+    private static final int PARALLEL_THRESHOLD = 32768; // source lines
+    private static final int CHUNK_SIZE = 8192;          // instructions encoded per task
+
+    private static final int FMT_R = 0;      // op $rd, $rs, $rt
+    private static final int FMT_SHIFT = 1;  // op $rd, $rt, shamt
+    private static final int FMT_MEM = 2;    // op $rt, offset($rs)
+    private static final int FMT_BRANCH = 3; // op $rs, $rt, label|offset
+    private static final int FMT_IMM = 4;    // op $rt, $rs, imm
+    private static final int FMT_JUMP = 5;   // op label|address
+
+    private static final String[] MNEMONICS = {
+            "add", "sub", "and", "or", "xor", "nor", "slt", "sll", "srl",
+            "addi", "andi", "ori", "slti", "lw", "sw", "beq", "bne", "j", "jal"
+    };
+    private static final int[] FORMATS = {
+            FMT_R, FMT_R, FMT_R, FMT_R, FMT_R, FMT_R, FMT_R, FMT_SHIFT, FMT_SHIFT,
+            FMT_IMM, FMT_IMM, FMT_IMM, FMT_IMM, FMT_MEM, FMT_MEM, FMT_BRANCH, FMT_BRANCH, FMT_JUMP, FMT_JUMP
+    };
+    private static final int[] OPCODES = {
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+            0x08, 0x0C, 0x0D, 0x0A, 0x23, 0x2B, 0x04, 0x05, 0x02, 0x03
+    };
+    private static final int[] FUNCTS = {
+            0x20, 0x22, 0x24, 0x25, 0x26, 0x27, 0x2A, 0x00, 0x02,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // mnemonics packed into one int (at most four lowercase chars), sorted for binary search
+    private static final int[] MNEMONIC_KEYS = new int[MNEMONICS.length];
+    private static final int[] MNEMONIC_INDEX = new int[MNEMONICS.length];
+
+    static {
+        long[] sorted = new long[MNEMONICS.length];
+        for (int i = 0; i < MNEMONICS.length; i++) {
+            char[] chars = MNEMONICS[i].toCharArray();
+            sorted[i] = ((long) packMnemonic(chars, 0, chars.length) << 32) | i;
+        }
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            MNEMONIC_KEYS[i] = (int) (sorted[i] >>> 32);
+            MNEMONIC_INDEX[i] = (int) sorted[i];
+        }
+    }
+
+    private final int startAddress;
+
+    private int[] words = new int[1024];
+    private int[] sourceLines = new int[1024];
+    private int count;
+
+    private char[] line = new char[256];
+    private int lineLength;
+    private int lineNumber;
+
+    private final int[] tokenStart = new int[4];
+    private final int[] tokenEnd = new int[4];
+    private int tokenCount;
+
+    private int instructionStart; // instruction text left by scanLine
+    private int instructionEnd;
+
+    private final LabelTable labels;
+    private Map<String, Integer> labelMap; // labels of a single-line encoder, lowercased
+    private boolean labelsComplete; // encoding after the first pass: unknown labels are errors, not fixups
+    private int[] fixupWord = new int[64];
+    private int[] fixupLabel = new int[64];
+    private int fixupCount;
+
+    private final List<String> errors = new ArrayList<>();
+    private int[] errorLines = new int[0]; // source line of each error, kept by the two-pass path
+    private final List<String> unresolved = new ArrayList<>();
+
+    private StreamingAssembler(int startAddress) {
+        this(startAddress, new LabelTable());
+    }
+
+    private StreamingAssembler(int startAddress, LabelTable labels) {
+        this.startAddress = startAddress;
+        this.labels = labels;
+    }
+
+    public static Result assemble(Reader source, int startAddress) throws IOException {
+        if (source == null) {
+            throw new IllegalArgumentException("No assembly source provided");
+        }
+        return new StreamingAssembler(startAddress).run(source);
+    }
+
+    /**
+     * Assembles a source held in memory, in parallel from PARALLEL_THRESHOLD lines on.
+     */
+    public static Result assemble(String source, int startAddress) {
+        if (source == null) {
+            throw new IllegalArgumentException("No assembly source provided");
+        }
+        return assemble(source, startAddress, countLines(source) >= PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Assembles a source held in memory, encoding on the common ForkJoin pool when parallel is set.
+     * Output, including the order of errors, is identical either way.
+     */
+    public static Result assemble(String source, int startAddress, boolean parallel) {
+        if (source == null) {
+            throw new IllegalArgumentException("No assembly source provided");
+        }
+        if (parallel) {
+            return new StreamingAssembler(startAddress).runParallel(source.toCharArray());
+        }
+        try {
+            return assemble(new StringReader(source), startAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an encoder for single lines against a label table the caller keeps complete, so
+     * IncrementalAssembler shares this grammar and its error messages.
+     */
+    static StreamingAssembler lineEncoder(Map<String, Integer> labels) {
+        StreamingAssembler encoder = new StreamingAssembler(0);
+        encoder.labelMap = labels;
+        encoder.labelsComplete = true;
+        return encoder;
+    }
+
+    /**
+     * Encodes one instruction, without label or comment, as source line lineNumber at address.
+     * Throws IllegalArgumentException on a malformed line; an unknown label leaves its field zero
+     * and is reported by takeUnresolved instead, as assemble reports it after every other error.
+     */
+    int encodeLine(String text, int lineNumber, int address) {
+        unresolved.clear();
+        line = text.toCharArray();
+        this.lineNumber = lineNumber;
+        tokenize(0, line.length);
+        return encode(address);
+    }
+
+    /** The unknown-label error of the last encodeLine, or null. */
+    String takeUnresolved() {
+        return unresolved.isEmpty() ? null : unresolved.get(0);
+    }
+
+    private static int countLines(String source) {
+        int lines = 1;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') lines++;
+        }
+        return lines;
+    }
+
+    private Result run(Reader source) throws IOException {
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = source.read(buffer)) >= 0) {
+            for (int i = 0; i < n; i++) {
+                char c = buffer[i];
+                if (c == '\n') {
+                    processLine();
+                    lineLength = 0;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = c;
+                }
+            }
+        }
+        if (lineLength > 0) {
+            processLine();
+        }
+        applyFixups();
+        return new Result(Arrays.copyOf(words, count), Arrays.copyOf(sourceLines, count), errors);
+    }
+
+    private void processLine() {
+        lineNumber++;
+        if (!scanLine(0, lineLength)) return;
+
+        tokenize(instructionStart, instructionEnd);
+        growWords();
+        sourceLines[count] = lineNumber;
+        try {
+            words[count] = encode(startAddress + count * 4);
+        } catch (IllegalArgumentException e) {
+            words[count] = 0;
+            errors.add("Line " + lineNumber + ": " + e.getMessage());
+        }
+        count++;
+    }
+
+    // Drops the comment and defines a leading label; returns whether an instruction is left,
+    // in instructionStart..instructionEnd
+    private boolean scanLine(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == '#') {
+                end = i;
+                break;
+            }
+        }
+
+        start = skipBlank(start, end);
+        end = trimEnd(start, end);
+        if (start >= end) return false;
+
+        for (int i = start; i < end; i++) {
+            if (line[i] == ':') {
+                defineLabel(start, trimEnd(start, i));
+                start = skipBlank(i + 1, end);
+                if (start >= end) return false;
+                break;
+            }
+        }
+        instructionStart = start;
+        instructionEnd = end;
+        return true;
+    }
+
+    private void growWords() {
+        if (count == words.length) {
+            words = Arrays.copyOf(words, count * 2);
+            sourceLines = Arrays.copyOf(sourceLines, count * 2);
+        }
+    }
+
+    private Result runParallel(char[] text) {
+        line = text;
+        int[] spanStart = new int[words.length];
+        int[] spanEnd = new int[words.length];
+        int[] labelErrorLines = new int[0];
+
+        int lineStart = 0;
+        for (int i = 0; i <= text.length; i++) {
+            if (i < text.length && text[i] != '\n') continue;
+            if (i == text.length && i == lineStart) break; // the source ended with a newline
+            lineNumber++;
+            int labelErrors = errors.size();
+            if (scanLine(lineStart, i)) {
+                growWords();
+                if (spanStart.length < words.length) {
+                    spanStart = Arrays.copyOf(spanStart, words.length);
+                    spanEnd = Arrays.copyOf(spanEnd, words.length);
+                }
+                spanStart[count] = instructionStart;
+                spanEnd[count] = instructionEnd;
+                sourceLines[count] = lineNumber;
+                count++;
+            }
+            if (errors.size() > labelErrors) {
+                labelErrorLines = Arrays.copyOf(labelErrorLines, errors.size());
+                labelErrorLines[labelErrors] = lineNumber;
+            }
+            lineStart = i + 1;
+        }
+
+        int[] starts = spanStart;
+        int[] ends = spanEnd;
+        StreamingAssembler[] chunks = new StreamingAssembler[(count + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        IntStream.range(0, chunks.length).parallel().forEach(c ->
+                chunks[c] = encodeChunk(c * CHUNK_SIZE, Math.min(count, (c + 1) * CHUNK_SIZE), starts, ends));
+
+        // Label errors go in line order among the encoding errors; unknown labels come last, as fixups do
+        List<String> merged = new ArrayList<>();
+        int next = 0;
+        for (StreamingAssembler chunk : chunks) {
+            for (int k = 0; k < chunk.errors.size(); k++) {
+                while (next < errors.size() && labelErrorLines[next] <= chunk.errorLines[k]) {
+                    merged.add(errors.get(next++));
+                }
+                merged.add(chunk.errors.get(k));
+            }
+        }
+        merged.addAll(errors.subList(next, errors.size()));
+        for (StreamingAssembler chunk : chunks) {
+            merged.addAll(chunk.unresolved);
+        }
+        return new Result(Arrays.copyOf(words, count), Arrays.copyOf(sourceLines, count), merged);
+    }
+
+    // Encodes instructions first..last-1 into words with a worker of its own; the label table is only read
+    private StreamingAssembler encodeChunk(int first, int last, int[] starts, int[] ends) {
+        StreamingAssembler worker = new StreamingAssembler(startAddress, labels);
+        worker.line = line;
+        worker.labelsComplete = true;
+        worker.errorLines = new int[last - first];
+        for (int i = first; i < last; i++) {
+            worker.lineNumber = sourceLines[i];
+            worker.tokenize(starts[i], ends[i]);
+            try {
+                words[i] = worker.encode(startAddress + i * 4);
+            } catch (IllegalArgumentException e) {
+                words[i] = 0;
+                worker.errorLines[worker.errors.size()] = worker.lineNumber;
+                worker.errors.add("Line " + worker.lineNumber + ": " + e.getMessage());
+            }
+        }
+        return worker;
+    }
+
+    private void tokenize(int start, int end) {
+        tokenCount = 0;
+        int i = start;
+        while (i < end) {
+            while (i < end && isSeparator(line[i])) i++;
+            if (i >= end) break;
+            int tokenBegin = i;
+            while (i < end && !isSeparator(line[i])) i++;
+            if (tokenCount < tokenStart.length) {
+                tokenStart[tokenCount] = tokenBegin;
+                tokenEnd[tokenCount] = i;
+            }
+            tokenCount++;
+        }
+    }
+
+    private int encode(int address) {
+        if (tokenCount == 0) {
+            throw new IllegalArgumentException("Empty instruction");
+        }
+        int m = lookupMnemonic(tokenStart[0], tokenEnd[0]);
+        if (m < 0) {
+            throw new IllegalArgumentException("Unknown instruction: " + token(0));
+        }
+
+        int format = FORMATS[m];
+        int opcode = OPCODES[m];
+        int expectedTokens = format == FMT_JUMP ? 2 : 4;
+        if (tokenCount != expectedTokens) {
+            throw new IllegalArgumentException("Invalid format for " + MNEMONICS[m]);
+        }
+
+        switch (format) {
+            case FMT_R: {
+                int rd = parseRegister(1);
+                int rs = parseRegister(2);
+                int rt = parseRegister(3);
+                return (opcode << 26) | (rs << 21) | (rt << 16) | (rd << 11) | FUNCTS[m];
+            }
+            case FMT_SHIFT: {
+                int rd = parseRegister(1);
+                int rt = parseRegister(2);
+                int shamt = parseImmediate(3) & 0x1F;
+                return (opcode << 26) | (rt << 16) | (rd << 11) | (shamt << 6) | FUNCTS[m];
+            }
+            case FMT_MEM: {
+                int rt = parseRegister(1);
+                int offset = parseImmediate(2) & 0xFFFF;
+                int rs = parseRegister(3);
+                return (opcode << 26) | (rs << 21) | (rt << 16) | offset;
+            }
+            case FMT_BRANCH: {
+                int rs = parseRegister(1);
+                int rt = parseRegister(2);
+                int word = (opcode << 26) | (rs << 21) | (rt << 16);
+                if (isNumeric(3)) {
+                    return word | (parseImmediate(3) & 0xFFFF);
+                }
+                long target = labelAddress(3);
+                return target < 0 ? word : word | branchOffset((int) target, address);
+            }
+            case FMT_IMM: {
+                int rt = parseRegister(1);
+                int rs = parseRegister(2);
+                int imm = parseImmediate(3) & 0xFFFF;
+                return (opcode << 26) | (rs << 21) | (rt << 16) | imm;
+            }
+            default: {
+                int word = opcode << 26;
+                if (isNumeric(1)) {
+                    return word | (parseImmediate(1) & 0x3FFFFFF);
+                }
+                long target = labelAddress(1);
+                return target < 0 ? word : word | (((int) target / 4) & 0x3FFFFFF);
+            }
+        }
+    }
+
+    // Address of the label named by token t, or -1 when the word has to wait: for a fixup while the
+    // source is still being read, for good once every label is known
+    private long labelAddress(int t) {
+        if (labelMap != null) {
+            String name = labelName(t);
+            Integer address = labelMap.get(name);
+            if (address != null) return address & 0xFFFFFFFFL;
+            unresolved.add("Line " + lineNumber + ": Invalid immediate value: " + name);
+            return -1;
+        }
+        int label = labels.find(line, tokenStart[t], tokenEnd[t], !labelsComplete);
+        if (label >= 0 && labels.isDefined(label)) {
+            return labels.address(label) & 0xFFFFFFFFL;
+        }
+        if (labelsComplete) {
+            unresolved.add("Line " + lineNumber + ": Invalid immediate value: " + labelName(t));
+        } else {
+            addFixup(label);
+        }
+        return -1;
+    }
+
+    private String labelName(int t) {
+        char[] name = new char[tokenEnd[t] - tokenStart[t]];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = lower(line[tokenStart[t] + i]);
+        }
+        return new String(name);
+    }
+
+    private void defineLabel(int start, int end) {
+        int label = labels.find(line, start, end, true);
+        if (labels.isDefined(label)) {
+            errors.add("Line " + lineNumber + ": Duplicate label: " + labels.name(label));
+            return;
+        }
+        labels.define(label, startAddress + count * 4);
+    }
+
+    private void addFixup(int label) {
+        if (fixupCount == fixupWord.length) {
+            fixupWord = Arrays.copyOf(fixupWord, fixupCount * 2);
+            fixupLabel = Arrays.copyOf(fixupLabel, fixupCount * 2);
+        }
+        fixupWord[fixupCount] = count;
+        fixupLabel[fixupCount] = label;
+        fixupCount++;
+    }
+
+    private void applyFixups() {
+        for (int i = 0; i < fixupCount; i++) {
+            int index = fixupWord[i];
+            int label = fixupLabel[i];
+            if (!labels.isDefined(label)) {
+                errors.add("Line " + sourceLines[index] + ": Invalid immediate value: " + labels.name(label));
+                continue;
+            }
+            int target = labels.address(label);
+            int opcode = words[index] >>> 26;
+            if (opcode == 0x02 || opcode == 0x03) {
+                words[index] |= (target / 4) & 0x3FFFFFF;
+            } else {
+                words[index] |= branchOffset(target, startAddress + index * 4);
+            }
+        }
+    }
+
+    private static int branchOffset(int target, int address) {
+        return ((target - (address + 4)) / 4) & 0xFFFF;
+    }
+
+    private int parseRegister(int t) {
+        int start = tokenStart[t];
+        int end = tokenEnd[t];
+        int length = end - start;
+        int reg = -1;
+
+        if (length >= 2 && line[start] == '$') {
+            char c1 = lower(line[start + 1]);
+            if (c1 >= '0' && c1 <= '9') {
+                reg = parseRegisterNumber(start + 1, end);
+            } else if (length == 3) {
+                reg = namedRegister(c1, lower(line[start + 2]));
+            } else if (length == 5 && c1 == 'z' && lower(line[start + 2]) == 'e'
+                    && lower(line[start + 3]) == 'r' && lower(line[start + 4]) == 'o') {
+                reg = 0;
+            }
+        }
+
+        if (reg < 0) {
+            throw new IllegalArgumentException("Invalid register: " + token(t));
+        }
+        return reg;
+    }
+
+    private int parseRegisterNumber(int start, int end) {
+        if (end - start > 2 || (end - start == 2 && line[start] == '0')) return -1;
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value <= 31 ? value : -1;
+    }
+
+    private static int namedRegister(char c1, char c2) {
+        int digit = c2 - '0';
+        switch (c1) {
+            case 'a': return c2 == 't' ? 1 : (digit >= 0 && digit <= 3 ? 4 + digit : -1);
+            case 'v': return digit >= 0 && digit <= 1 ? 2 + digit : -1;
+            case 't': return digit >= 0 && digit <= 7 ? 8 + digit : (digit == 8 || digit == 9 ? 16 + digit : -1);
+            case 's': return c2 == 'p' ? 29 : (digit >= 0 && digit <= 7 ? 16 + digit : -1);
+            case 'k': return digit >= 0 && digit <= 1 ? 26 + digit : -1;
+            case 'g': return c2 == 'p' ? 28 : -1;
+            case 'f': return c2 == 'p' ? 30 : -1;
+            case 'r': return c2 == 'a' ? 31 : -1;
+            default: return -1;
+        }
+    }
+
+    private int parseImmediate(int t) {
+        int start = tokenStart[t];
+        int end = tokenEnd[t];
+
+        if (end - start > 2 && line[start] == '0' && lower(line[start + 1]) == 'x') {
+            // same range as Long.parseLong(hex, 16) truncated to int
+            if (end - start - 2 > 16 || (end - start - 2 == 16 && hexDigit(line[start + 2]) > 7)) {
+                throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+            }
+            long value = 0;
+            for (int i = start + 2; i < end; i++) {
+                int d = hexDigit(line[i]);
+                if (d < 0) throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+                value = (value << 4) | d;
+            }
+            return (int) value;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        if (i >= end) throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+
+        long value = 0;
+        for (; i < end; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9') throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+            value = value * 10 + (c - '0');
+            if (value > 1L + Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid immediate value: " + token(t));
+        return (int) value;
+    }
+
+    private boolean isNumeric(int t) {
+        char c = line[tokenStart[t]];
+        return (c >= '0' && c <= '9') || c == '-' || c == '+';
+    }
+
+    private int lookupMnemonic(int start, int end) {
+        if (end - start > 4) return -1;
+        int i = Arrays.binarySearch(MNEMONIC_KEYS, packMnemonic(line, start, end));
+        return i >= 0 ? MNEMONIC_INDEX[i] : -1;
+    }
+
+    private static int packMnemonic(char[] chars, int start, int end) {
+        int key = 0;
+        for (int i = start; i < end; i++) {
+            if (chars[i] > 0x7F) return -1;
+            key = (key << 8) | lower(chars[i]);
+        }
+        return key;
+    }
+
+    private String token(int t) {
+        return new String(line, tokenStart[t], tokenEnd[t] - tokenStart[t]).toLowerCase();
+    }
+
+    private int skipBlank(int i, int end) {
+        while (i < end && line[i] <= ' ') i++;
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && line[end - 1] <= ' ') end--;
+        return end;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c <= ' ' || c == ',' || c == '(' || c == ')';
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        c = lower(c);
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Open-addressing table of label names stored in one char pool, compared case-insensitively.
+     */
+    private static class LabelTable {
+        private char[] pool = new char[1024];
+        private int poolSize;
+
+        private int[] nameStart = new int[64];
+        private int[] nameLength = new int[64];
+        private int[] addresses = new int[64];
+        private boolean[] defined = new boolean[64];
+        private int size;
+
+        private int[] slots = newSlots(128);
+
+        int find(char[] chars, int start, int end, boolean create) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + lower(chars[i]);
+            }
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] >= 0) {
+                int label = slots[slot];
+                if (matches(label, chars, start, end)) return label;
+                slot = (slot + 1) & mask;
+            }
+            if (!create) return -1;
+
+            int label = add(chars, start, end);
+            slots[slot] = label;
+            if (size * 2 > slots.length) rehash();
+            return label;
+        }
+
+        boolean isDefined(int label) { return defined[label]; }
+        int address(int label) { return addresses[label]; }
+        String name(int label) { return new String(pool, nameStart[label], nameLength[label]); }
+
+        void define(int label, int address) {
+            addresses[label] = address;
+            defined[label] = true;
+        }
+
+        private boolean matches(int label, char[] chars, int start, int end) {
+            if (nameLength[label] != end - start) return false;
+            int p = nameStart[label];
+            for (int i = start; i < end; i++) {
+                if (pool[p++] != lower(chars[i])) return false;
+            }
+            return true;
+        }
+
+        private int add(char[] chars, int start, int end) {
+            int length = end - start;
+            if (poolSize + length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+            if (size == nameStart.length) {
+                nameStart = Arrays.copyOf(nameStart, size * 2);
+                nameLength = Arrays.copyOf(nameLength, size * 2);
+                addresses = Arrays.copyOf(addresses, size * 2);
+                defined = Arrays.copyOf(defined, size * 2);
+            }
+            for (int i = start; i < end; i++) {
+                pool[poolSize + i - start] = lower(chars[i]);
+            }
+            nameStart[size] = poolSize;
+            nameLength[size] = length;
+            poolSize += length;
+            return size++;
+        }
+
+        private void rehash() {
+            int[] grown = newSlots(slots.length * 2);
+            int mask = grown.length - 1;
+            for (int label = 0; label < size; label++) {
+                int hash = 0;
+                for (int i = 0; i < nameLength[label]; i++) {
+                    hash = 31 * hash + pool[nameStart[label] + i];
+                }
+                int slot = mix(hash) & mask;
+                while (grown[slot] >= 0) slot = (slot + 1) & mask;
+                grown[slot] = label;
+            }
+            slots = grown;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int[] newSlots(int capacity) {
+            int[] s = new int[capacity];
+            Arrays.fill(s, -1);
+            return s;
+        }
+    }
+
+    public static class Result {
+        public final int[] machineCode;
+        public final int[] sourceLines;
+        public final List<String> errors;
+
+        public Result(int[] machineCode, int[] sourceLines, List<String> errors) {
+            this.machineCode = machineCode;
+            this.sourceLines = sourceLines;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package simulator;
+
+import model.control.ControlUnit;
+import model.cpu.CPUState;
+import model.instruction.ITypeInstruction;
+import model.instruction.Instruction;
+import model.instruction.RTypeInstruction;
+import model.pipeline.registers.EX_MEM_Register;
+import model.pipeline.registers.IF_ID_Register;
+import model.pipeline.registers.MEM_WB_Register;
+import model.pipeline.registers.PipelineRegisters;
+import model.pipeline.stages.*;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageInfo;
+import model.pipeline.state.StageState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-order two-wide variant of PipelineController. Fetch keeps two IF/ID slots filled, and each
+ * cycle decode issues the older instruction, plus the younger one when the pair does not
+ * conflict: the younger must not read the older one's result, the pair may hold one memory
+ * access and one branch or jump, and a branch or jump in the older slot issues alone so a taken
+ * branch never leaves a wrong-path partner behind it.
+ *
+ * Each slot has its own latches and runs through the same stage classes as the scalar pipeline.
+ * The forwarding network is widened to all four EX/MEM and MEM/WB latches, nearest and youngest
+ * first; operands are forwarded into ID/EX before ExecuteStage runs. Branches resolve in EX and
+ * are predicted not taken. Caches, branch prediction, breakpoints and step-back are scalar only.
+ */
+public class SuperscalarController {
+
+    public static final int WIDTH = 2;
+
+    private final CPUState cpuState;
+    private final PipelineRegisters[] slots = {new PipelineRegisters(), new PipelineRegisters()};
+    private final PerformanceCounters counters = new PerformanceCounters();
+    private final ControlUnit controlUnit = new ControlUnit();
+
+    private final FetchStage fetch = new FetchStage();
+    private final DecodeStage decode = new DecodeStage();
+    private final ExecuteStage execute = new ExecuteStage();
+    private final MemoryStage memory = new MemoryStage();
+    private final WriteBackStage writeBack = new WriteBackStage();
+
+    // Stages see one slot at a time through this view; its empty MEM/WB stops ExecuteStage forwarding again
+    private final PipelineRegisters view = new PipelineRegisters();
+    private final IF_ID_Register emptyIfId = new IF_ID_Register();
+    private final MEM_WB_Register emptyMemWb = new MEM_WB_Register();
+    private final MEM_WB_Register[] consumed = new MEM_WB_Register[WIDTH];
+    private final MEM_WB_Register[] spare = {new MEM_WB_Register(), new MEM_WB_Register()};
+
+    private final List<PipelineSnapshot> history = new ArrayList<>();
+    private final Instruction[] lastWbInstr = new Instruction[WIDTH];
+    private final boolean[] fetchedThisCycle = new boolean[WIDTH];
+    private final boolean[] heldThisCycle = new boolean[WIDTH];
+    private boolean branchFlushedThisCycle;
+    private long dualIssueCycles;
+
+    public SuperscalarController(CPUState state) {
+        this.cpuState = state;
+    }
+
+    public void runCycle() {
+        counters.cycles++;
+        for (PipelineRegisters slot : slots) {
+            countRetirement(slot.MEM_WB.getInstruction());
+        }
+
+        // Older slot first, so the younger write wins when both name the same register
+        for (PipelineRegisters slot : slots) {
+            writeBack.process(cpuState, slot);
+        }
+
+        for (int i = 0; i < WIDTH; i++) {
+            consumed[i] = slots[i].MEM_WB;
+            slots[i].MEM_WB = spare[i];
+            memory.process(cpuState, slots[i]);
+            slots[i].MEM_WB = consumed[i];
+        }
+
+        // Both slots read the old EX/MEM latches, so forward for both before either executes
+        for (PipelineRegisters slot : slots) {
+            forwardOperands(slot);
+        }
+        for (PipelineRegisters slot : slots) {
+            slot.EX_MEM.setRegWrite(false);
+            view.ID_EX = slot.ID_EX;
+            view.EX_MEM = slot.EX_MEM;
+            view.MEM_WB = emptyMemWb;
+            execute.process(cpuState, view);
+        }
+        for (int i = 0; i < WIDTH; i++) {
+            MEM_WB_Register produced = spare[i];
+            spare[i] = slots[i].MEM_WB;
+            slots[i].MEM_WB = produced;
+        }
+
+        for (PipelineRegisters slot : slots) {
+            resolveBranch(slot.EX_MEM);
+        }
+
+        issue();
+
+        if (!branchFlushedThisCycle) {
+            for (int i = 0; i < WIDTH; i++) {
+                fetchedThisCycle[i] = slots[i].IF_ID.getInstruction() == null;
+                if (fetchedThisCycle[i]) {
+                    fetch.process(cpuState, slots[i]);
+                }
+            }
+        }
+
+        saveSnapshot();
+    }
+
+    private void forwardOperands(PipelineRegisters slot) {
+        if (slot.ID_EX.getInstruction() == null) return;
+        slot.ID_EX.setReadData1(forward(slot.ID_EX.getRs(), slot.ID_EX.getReadData1()));
+        slot.ID_EX.setReadData2(forward(slot.ID_EX.getRt(), slot.ID_EX.getReadData2()));
+    }
+
+    // EX/MEM of the previous group, then the MEM/WB latches WB has just consumed; younger slot first.
+    // Issue stalls instructions that need a load still in EX/MEM.
+    private int forward(int reg, int value) {
+        if (reg == 0) return value;
+        for (int i = WIDTH - 1; i >= 0; i--) {
+            EX_MEM_Register exMem = slots[i].EX_MEM;
+            if (exMem.getInstruction() != null && exMem.isRegWrite() && exMem.getDestReg() == reg) {
+                return exMem.getAluResult();
+            }
+        }
+        for (int i = WIDTH - 1; i >= 0; i--) {
+            MEM_WB_Register memWb = consumed[i];
+            if (memWb.getInstruction() != null && memWb.isRegWrite() && memWb.getDestReg() == reg) {
+                return memWb.getWriteData();
+            }
+        }
+        return value;
+    }
+
+    private void resolveBranch(EX_MEM_Register exMem) {
+        if (exMem.getInstruction() == null || !exMem.isBranch()) return;
+        counters.branches++;
+        if (exMem.isBranchTaken()) {
+            counters.mispredictions++;
+            counters.branchFlushes++;
+            branchFlushedThisCycle = true;
+            cpuState.pc.set(exMem.getBranchTarget());
+            for (PipelineRegisters slot : slots) {
+                slot.IF_ID.set(null, 0);
+            }
+        }
+    }
+
+    /**
+     * Decodes as many of the two IF/ID slots as may issue together. An instruction left behind
+     * moves into the older slot, and fetch refills the free ones.
+     */
+    private void issue() {
+        if (slots[0].IF_ID.getInstruction() == null) {
+            swapFetchSlots();
+        }
+        int width = issueWidth();
+        if (width == 2) dualIssueCycles++;
+
+        for (int i = 0; i < WIDTH; i++) {
+            heldThisCycle[i] = i >= width && slots[i].IF_ID.getInstruction() != null;
+            if (i < width) {
+                decode.process(cpuState, slots[i]);
+            } else {
+                view.IF_ID = emptyIfId;
+                view.ID_EX = slots[i].ID_EX;
+                decode.process(cpuState, view);
+            }
+        }
+        if (width == 0) return;
+
+        Instruction older = slots[0].ID_EX.getInstruction();
+        if (width == 1 && !isJump(older)) {
+            swapFetchSlots();
+        }
+        // Anything still in the younger slot after a jump is on the wrong path
+        slots[1].IF_ID.set(null, 0);
+        if (width == 2 || isJump(older)) {
+            slots[0].IF_ID.set(null, 0);
+        }
+    }
+
+    private void swapFetchSlots() {
+        IF_ID_Register older = slots[0].IF_ID;
+        slots[0].IF_ID = slots[1].IF_ID;
+        slots[1].IF_ID = older;
+    }
+
+    private int issueWidth() {
+        Instruction older = slots[0].IF_ID.getInstruction();
+        Instruction younger = slots[1].IF_ID.getInstruction();
+        if (older == null) return 0;
+        if (needsLoad(older)) {
+            counters.loadUseStalls++;
+            return 0;
+        }
+        if (younger == null) return 1;
+
+        controlUnit.generateSignals(older.getOpcode());
+        boolean olderControl = controlUnit.isBranch() || controlUnit.isJump();
+        boolean olderMemory = controlUnit.isMemRead() || controlUnit.isMemWrite();
+        int olderDest = destination(older);
+
+        controlUnit.generateSignals(younger.getOpcode());
+        boolean youngerMemory = controlUnit.isMemRead() || controlUnit.isMemWrite();
+
+        if (olderControl || (olderMemory && youngerMemory)) return 1;
+        if (olderDest != 0 && reads(younger, olderDest)) return 1;
+        if (needsLoad(younger)) return 1;
+        return 2;
+    }
+
+    // A load that has just executed only reaches MEM/WB after the next cycle's EX
+    private boolean needsLoad(Instruction instr) {
+        for (PipelineRegisters slot : slots) {
+            EX_MEM_Register exMem = slot.EX_MEM;
+            if (exMem.getInstruction() != null && exMem.isMemRead() && exMem.getDestReg() != 0
+                    && reads(instr, exMem.getDestReg())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Source registers as ExecuteStage uses them: rs, and rt unless rt is the destination
+    private boolean reads(Instruction instr, int reg) {
+        instr.decodeFields();
+        controlUnit.generateSignals(instr.getOpcode());
+        if (instr instanceof RTypeInstruction) {
+            RTypeInstruction r = (RTypeInstruction) instr;
+            return r.getRs() == reg || r.getRt() == reg;
+        }
+        if (instr instanceof ITypeInstruction) {
+            ITypeInstruction i = (ITypeInstruction) instr;
+            return i.getRs() == reg || (!controlUnit.isRegWrite() && i.getRt() == reg);
+        }
+        return false;
+    }
+
+    private int destination(Instruction instr) {
+        instr.decodeFields();
+        controlUnit.generateSignals(instr.getOpcode());
+        if (instr.getOpcode() == 0x03) return 31; // jal
+        if (!controlUnit.isRegWrite()) return 0;
+        if (instr instanceof RTypeInstruction) return ((RTypeInstruction) instr).getRd();
+        if (instr instanceof ITypeInstruction) return ((ITypeInstruction) instr).getRt();
+        return 0;
+    }
+
+    private static boolean isJump(Instruction instr) {
+        return instr != null && (instr.getOpcode() == 0x02 || instr.getOpcode() == 0x03);
+    }
+
+    private void countRetirement(Instruction instruction) {
+        if (instruction == null) return;
+        counters.retired++;
+        int opcode = instruction.getOpcode() & 0x3F;
+        counters.opcodeMix[opcode]++;
+        if (opcode == 0) {
+            counters.functMix[instruction.getBinary() & 0x3F]++;
+        }
+    }
+
+    private void saveSnapshot() {
+        PipelineSnapshot second = snapshot(1, null);
+        history.add(snapshot(0, second));
+        branchFlushedThisCycle = false;
+    }
+
+    private PipelineSnapshot snapshot(int i, PipelineSnapshot second) {
+        PipelineRegisters slot = slots[i];
+
+        StageInfo ifInfo;
+        if (branchFlushedThisCycle) {
+            ifInfo = new StageInfo(StageState.FLUSH, null);
+        } else if (slot.IF_ID.getInstruction() == null) {
+            ifInfo = new StageInfo(StageState.EMPTY, null);
+        } else if (!fetchedThisCycle[i]) {
+            ifInfo = new StageInfo(StageState.STALL, null);
+        } else {
+            ifInfo = new StageInfo(StageState.INSTR, slot.IF_ID.getInstruction());
+        }
+
+        StageInfo idInfo;
+        if (branchFlushedThisCycle) {
+            idInfo = new StageInfo(StageState.FLUSH, null);
+        } else if (slot.ID_EX.getInstruction() != null) {
+            idInfo = new StageInfo(StageState.INSTR, slot.ID_EX.getInstruction());
+        } else if (heldThisCycle[i]) {
+            idInfo = new StageInfo(StageState.STALL, null);
+        } else {
+            idInfo = new StageInfo(StageState.EMPTY, null);
+        }
+
+        StageInfo exInfo = info(slot.EX_MEM.getInstruction());
+        StageInfo memInfo = info(slot.MEM_WB.getInstruction());
+        StageInfo wbInfo = info(lastWbInstr[i]);
+        lastWbInstr[i] = slot.MEM_WB.getInstruction();
+
+        fetchedThisCycle[i] = false;
+        heldThisCycle[i] = false;
+        return new PipelineSnapshot(ifInfo, idInfo, exInfo, memInfo, wbInfo, second);
+    }
+
+    private static StageInfo info(Instruction instruction) {
+        return instruction == null
+                ? new StageInfo(StageState.EMPTY, null)
+                : new StageInfo(StageState.INSTR, instruction);
+    }
+
+    /**
+     * True once the program has run off its end: every latch of both slots is empty and there is nothing to fetch.
+     */
+    public boolean isIdle() {
+        for (PipelineRegisters slot : slots) {
+            if (slot.IF_ID.getInstruction() != null || slot.ID_EX.getInstruction() != null
+                    || slot.EX_MEM.getInstruction() != null || slot.MEM_WB.getInstruction() != null) {
+                return false;
+            }
+        }
+        return cpuState.instructionMemory.fetch(cpuState.pc.get()) == null;
+    }
+
+    /** Latches of slot 0, the older instruction of each stage, or slot 1, the younger. */
+    public PipelineRegisters getSlot(int slot) {
+        return slots[slot];
+    }
+
+    public PerformanceCounters getCounters() {
+        return counters;
+    }
+
+    /** Cycles in which both slots issued. */
+    public long getDualIssueCycles() {
+        return dualIssueCycles;
+    }
+
+    public CPUState getCpuState() {
+        return cpuState;
+    }
+
+    /** One snapshot per cycle for the older slot, with the younger slot in getSecondSlot. */
+    public List<PipelineSnapshot> getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,114 @@
+package simulator;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keyframes of a run taken every interval cycles, so the state at any past cycle can be rebuilt
+ * by forking the nearest earlier keyframe and replaying at most interval cycles. Keyframes are
+ * copy-on-write forks and only hold the memory pages written since they were taken. When more
+ * than maxKeyframes accumulate, the interval doubles and every other keyframe is dropped.
+ *
+ * These are the only forks kept of a run: PipelineController rewinds from its undo log and keeps
+ * just copies of the caches and predictor.
+ */
+public class Timeline {
+
+    public static final int DEFAULT_INTERVAL = 64;
+    public static final int DEFAULT_MAX_KEYFRAMES = 256;
+
+    private final int maxKeyframes;
+    private final TreeMap<Integer, Keyframe> keyframes = new TreeMap<>();
+    private int interval;
+
+    public Timeline() {
+        this(DEFAULT_INTERVAL, DEFAULT_MAX_KEYFRAMES);
+    }
+
+    public Timeline(int interval, int maxKeyframes) {
+        if (interval <= 0 || maxKeyframes < 2) {
+            throw new IllegalArgumentException("Invalid timeline interval " + interval + " or keyframe limit " + maxKeyframes);
+        }
+        this.interval = interval;
+        this.maxKeyframes = maxKeyframes;
+    }
+
+    /**
+     * Called after every cycle; takes a keyframe when the cycle is a multiple of the interval.
+     */
+    void onCycle(int cycle, PipelineController controller) {
+        if (cycle % interval == 0) {
+            record(cycle, controller);
+        }
+    }
+
+    /**
+     * Drops every keyframe and anchors the timeline at the current state.
+     */
+    public void reset(int cycle, PipelineController controller) {
+        keyframes.clear();
+        record(cycle, controller);
+    }
+
+    /**
+     * Drops keyframes after cycle, used when the run is rewound.
+     */
+    void truncate(int cycle) {
+        keyframes.tailMap(cycle, false).clear();
+    }
+
+    /**
+     * Returns a detached controller holding the exact state after cycle, including the pipeline
+     * history up to it. The live run is not affected.
+     */
+    public PipelineController stateAt(int cycle, PipelineController live, int liveCycle) {
+        if (cycle > liveCycle) {
+            throw new IllegalArgumentException("Cycle " + cycle + " has not been simulated yet");
+        }
+        Map.Entry<Integer, Keyframe> entry = keyframes.floorEntry(cycle);
+        if (entry == null) {
+            throw new IllegalArgumentException("Cycle " + cycle + " is before the earliest kept state");
+        }
+
+        Keyframe keyframe = entry.getValue();
+        PipelineController replay = keyframe.controller.fork(0);
+        for (int c = entry.getKey(); c < cycle; c++) {
+            replay.runCycle();
+        }
+        replay.getHistory().addAll(0, live.getHistory().subList(0, Math.min(keyframe.historySize, live.getHistory().size())));
+        return replay;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    public int getEarliestCycle() {
+        return keyframes.isEmpty() ? -1 : keyframes.firstKey();
+    }
+
+    private void record(int cycle, PipelineController controller) {
+        PipelineController fork = controller.fork(0);
+        keyframes.put(cycle, new Keyframe(fork, controller.getHistory().size()));
+
+        if (keyframes.size() > maxKeyframes) {
+            interval *= 2;
+            int first = keyframes.firstKey();
+            keyframes.keySet().removeIf(c -> c != first && c % interval != 0);
+        }
+    }
+
+    private static final class Keyframe {
+        final PipelineController controller;
+        final int historySize;
+
+        Keyframe(PipelineController controller, int historySize) {
+            this.controller = controller;
+            this.historySize = historySize;
+        }
+    }
+}
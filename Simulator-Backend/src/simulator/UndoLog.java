@@ -0,0 +1,57 @@
+package simulator;
+
+/**
+ * Ring buffer of fixed-size int records, one per simulated cycle. When full, pushing a record
+ * overwrites the oldest, so memory stays bounded by the configured depth.
+ */
+final class UndoLog {
+
+    private final int recordInts;
+    private final int depth;
+    private final int[] data;
+    private int head; // record slot written by the next push
+    private int size;
+
+    UndoLog(int depth, int recordInts) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Undo depth must not be negative: " + depth);
+        }
+        this.depth = depth;
+        this.recordInts = recordInts;
+        this.data = new int[depth * recordInts];
+    }
+
+    int[] data() {
+        return data;
+    }
+
+    /** Claims the next record and returns its offset in data(), or -1 when the depth is zero. */
+    int push() {
+        if (depth == 0) return -1;
+        int offset = head * recordInts;
+        head = (head + 1) % depth;
+        if (size < depth) size++;
+        return offset;
+    }
+
+    /** Removes the newest record and returns its offset in data(), or -1 when empty. */
+    int pop() {
+        if (size == 0) return -1;
+        head = (head - 1 + depth) % depth;
+        size--;
+        return head * recordInts;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,324 @@
+package simulator;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Standard loop-heavy workloads written in the supported ISA. Each program builds its own input
+ * (pseudo-random words from a xorshift generator) so it can be loaded anywhere, runs to the end of
+ * its code, and leaves a result in $v0. Every workload records the digest and cycle count of a run
+ * at its default size, for regression checks.
+ */
+public enum Workload {
+
+    MATMUL("matmul", 8, 16, 0x6EB7F2428B051067L, 35482),
+    BUBBLE_SORT("bubblesort", 64, 1000, 0x8AD3566904F36029L, 23400),
+    FIBONACCI("fibonacci", 40, 1024, 0xC87054104CF96B28L, 332),
+    MEMCPY("memcpy", 256, 512, 0x545BBAD55D9D1462L, 4882),
+    PREFIX_SUM("prefixsum", 512, 1024, 0x5ECC812D5390D07BL, 10250),
+    LINKED_LIST("linkedlist", 128, 256, 0xCCA27D9D3351B634L, 3090);
+
+    private static final int SEED = 12345;
+    private static final int SEED_B = 23456;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final String name;
+    private final int defaultSize;
+    private final int maxSize;
+    private final long expectedDigest;
+    private final int expectedCycles;
+
+    Workload(String name, int defaultSize, int maxSize, long expectedDigest, int expectedCycles) {
+        this.name = name;
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+        this.expectedDigest = expectedDigest;
+        this.expectedCycles = expectedCycles;
+    }
+
+    public String getName() { return name; }
+    public int getDefaultSize() { return defaultSize; }
+    /** Largest size whose data fits the default 4KB data memory. */
+    public int getMaxSize() { return maxSize; }
+    /** Digest of registers and data memory after a run at the default size. */
+    public long getExpectedDigest() { return expectedDigest; }
+    /** Cycles until the pipeline drains, at the default size. */
+    public int getExpectedCycles() { return expectedCycles; }
+
+    public static Workload byName(String name) {
+        for (Workload workload : values()) {
+            if (workload.name.equalsIgnoreCase(name)) return workload;
+        }
+        throw new IllegalArgumentException("Unknown workload: " + name);
+    }
+
+    public String[] source() {
+        return source(defaultSize);
+    }
+
+    public String[] source(int size) {
+        if (size < 1 || size > maxSize || (this == LINKED_LIST && Integer.bitCount(size) != 1)) {
+            throw new IllegalArgumentException("Invalid size " + size + " for workload " + name);
+        }
+        List<String> lines = new ArrayList<>();
+        switch (this) {
+            case MATMUL: matmul(lines, size); break;
+            case BUBBLE_SORT: bubbleSort(lines, size); break;
+            case FIBONACCI: fibonacci(lines, size); break;
+            case MEMCPY: memcpy(lines, size); break;
+            case PREFIX_SUM: prefixSum(lines, size); break;
+            case LINKED_LIST: linkedList(lines, size); break;
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    public Result run() {
+        return run(defaultSize);
+    }
+
+    /**
+     * Runs the workload on a fresh CPU until the pipeline drains.
+     */
+    public Result run(int size) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, source(size), 0);
+        PipelineController controller = new PipelineController(cpuState);
+        controller.setUndoDepth(0);
+
+        int cycles = 0;
+        int limit = 1 << 26;
+        while (!controller.isIdle()) {
+            if (++cycles > limit) {
+                throw new IllegalStateException(name + " did not finish within " + limit + " cycles");
+            }
+            controller.runCycle();
+            controller.getHistory().clear();
+        }
+        return new Result(cpuState, cycles);
+    }
+
+    /**
+     * FNV-1a digest of the 32 registers and every non-zero data memory word with its address.
+     */
+    public static long digest(CPUState state) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < 32; i++) {
+            hash = mix(hash, state.registerFile.get(i));
+        }
+        for (int address = 0; address < state.dataMemory.sizeBytes(); address += 4) {
+            int word = state.dataMemory.loadWord(address);
+            if (word != 0) {
+                hash = mix(mix(hash, address), word);
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash = (hash ^ ((value >>> (i * 8)) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static final class Result {
+        public final CPUState state;
+        public final int cycles;
+        public final long digest;
+
+        Result(CPUState state, int cycles) {
+            this.state = state;
+            this.cycles = cycles;
+            this.digest = digest(state);
+        }
+
+        /** The value each workload leaves in $v0. */
+        public int getResult() {
+            return state.registerFile.get(2);
+        }
+    }
+
+    // $t0 = xorshift32($t0), using $t9 as scratch
+    private static void xorshift(List<String> out) {
+        out.add("sll $t9, $t0, 13");
+        out.add("xor $t0, $t0, $t9");
+        out.add("srl $t9, $t0, 17");
+        out.add("xor $t0, $t0, $t9");
+        out.add("sll $t9, $t0, 5");
+        out.add("xor $t0, $t0, $t9");
+    }
+
+    // Fills n words from base with xorshift values from seed, masked with mask when it is not -1
+    private static void fillRandom(List<String> out, String label, int base, int n, int mask, int seed) {
+        out.add("addi $t0, $zero, " + seed);
+        out.add("addi $t1, $zero, " + n);
+        out.add("addi $t2, $zero, " + base);
+        out.add(label + ": beq $t1, $zero, " + label + "_done");
+        xorshift(out);
+        if (mask == -1) {
+            out.add("sw $t0, 0($t2)");
+        } else {
+            out.add("andi $t3, $t0, " + mask);
+            out.add("sw $t3, 0($t2)");
+        }
+        out.add("addi $t2, $t2, 4");
+        out.add("addi $t1, $t1, -1");
+        out.add("j " + label);
+        out.add(label + "_done: add $t0, $zero, $zero");
+    }
+
+    // C = A * B for n x n matrices of bytes; multiplication is shift-and-add
+    private static void matmul(List<String> out, int n) {
+        int row = n * 4;
+        int a = 0;
+        int b = n * row;
+        int c = 2 * n * row;
+        fillRandom(out, "fill_a", a, n * n, 0xFF, SEED);
+        fillRandom(out, "fill_b", b, n * n, 0xFF, SEED_B);
+        out.add("addi $s7, $zero, " + n);
+        out.add("addi $s1, $zero, 0");              // i
+        out.add("addi $s4, $zero, " + a);           // row of A
+        out.add("addi $s6, $zero, " + c);           // next element of C
+        out.add("mm_i: beq $s1, $s7, mm_done");
+        out.add("addi $s2, $zero, 0");              // j
+        out.add("addi $s5, $zero, " + b);           // column of B
+        out.add("mm_j: beq $s2, $s7, mm_i_next");
+        out.add("add $t0, $zero, $zero");           // sum
+        out.add("add $t1, $zero, $zero");           // k
+        out.add("add $t2, $zero, $s4");
+        out.add("add $t3, $zero, $s5");
+        out.add("mm_k: beq $t1, $s7, mm_k_done");
+        out.add("lw $a0, 0($t2)");
+        out.add("lw $a1, 0($t3)");
+        out.add("add $v1, $zero, $zero");
+        out.add("mul: beq $a1, $zero, mul_done");
+        out.add("andi $t9, $a1, 1");
+        out.add("beq $t9, $zero, mul_skip");
+        out.add("add $v1, $v1, $a0");
+        out.add("mul_skip: sll $a0, $a0, 1");
+        out.add("srl $a1, $a1, 1");
+        out.add("j mul");
+        out.add("mul_done: add $t0, $t0, $v1");
+        out.add("addi $t2, $t2, 4");
+        out.add("addi $t3, $t3, " + row);
+        out.add("addi $t1, $t1, 1");
+        out.add("j mm_k");
+        out.add("mm_k_done: sw $t0, 0($s6)");
+        out.add("addi $s6, $s6, 4");
+        out.add("addi $s5, $s5, 4");
+        out.add("addi $s2, $s2, 1");
+        out.add("j mm_j");
+        out.add("mm_i_next: addi $s1, $s1, 1");
+        out.add("addi $s4, $s4, " + row);
+        out.add("j mm_i");
+        out.add("mm_done: lw $v0, " + c + "($zero)");
+    }
+
+    // Ascending signed sort of n words at address 0
+    private static void bubbleSort(List<String> out, int n) {
+        fillRandom(out, "fill", 0, n, -1, SEED);
+        out.add("addi $s1, $zero, " + (n - 1));     // pass length
+        out.add("outer: beq $s1, $zero, sorted");
+        out.add("add $t2, $zero, $zero");
+        out.add("add $t1, $zero, $s1");
+        out.add("inner: beq $t1, $zero, inner_done");
+        out.add("lw $t3, 0($t2)");
+        out.add("lw $t4, 4($t2)");
+        out.add("slt $t5, $t4, $t3");
+        out.add("beq $t5, $zero, no_swap");
+        out.add("sw $t4, 0($t2)");
+        out.add("sw $t3, 4($t2)");
+        out.add("no_swap: addi $t2, $t2, 4");
+        out.add("addi $t1, $t1, -1");
+        out.add("j inner");
+        out.add("inner_done: addi $s1, $s1, -1");
+        out.add("j outer");
+        out.add("sorted: lw $v0, 0($zero)");
+    }
+
+    // Stores fib(0) .. fib(n-1) from address 0; $v0 = fib(n)
+    private static void fibonacci(List<String> out, int n) {
+        out.add("addi $t0, $zero, 0");
+        out.add("addi $t1, $zero, 1");
+        out.add("addi $t2, $zero, " + n);
+        out.add("addi $t3, $zero, 0");
+        out.add("fib: beq $t2, $zero, fib_done");
+        out.add("sw $t0, 0($t3)");
+        out.add("add $t4, $t0, $t1");
+        out.add("add $t0, $zero, $t1");
+        out.add("add $t1, $zero, $t4");
+        out.add("addi $t3, $t3, 4");
+        out.add("addi $t2, $t2, -1");
+        out.add("j fib");
+        out.add("fib_done: add $v0, $zero, $t0");
+    }
+
+    // Copies n words from address 0 to address 4n; $v0 = last word copied
+    private static void memcpy(List<String> out, int n) {
+        fillRandom(out, "fill", 0, n, -1, SEED);
+        out.add("addi $t1, $zero, " + n);
+        out.add("addi $t2, $zero, 0");
+        out.add("addi $t4, $zero, " + n * 4);
+        out.add("copy: beq $t1, $zero, copy_done");
+        out.add("lw $t5, 0($t2)");
+        out.add("sw $t5, 0($t4)");
+        out.add("addi $t2, $t2, 4");
+        out.add("addi $t4, $t4, 4");
+        out.add("addi $t1, $t1, -1");
+        out.add("j copy");
+        out.add("copy_done: add $v0, $zero, $t5");
+    }
+
+    // In-place inclusive prefix sum of n words at address 0; $v0 = total
+    private static void prefixSum(List<String> out, int n) {
+        fillRandom(out, "fill", 0, n, 0xFFFF, SEED);
+        out.add("addi $t1, $zero, " + (n - 1));
+        out.add("addi $t2, $zero, 0");
+        out.add("lw $t6, 0($t2)");
+        out.add("scan: beq $t1, $zero, scan_done");
+        out.add("lw $t5, 4($t2)");
+        out.add("add $t6, $t6, $t5");
+        out.add("sw $t6, 4($t2)");
+        out.add("addi $t2, $t2, 4");
+        out.add("addi $t1, $t1, -1");
+        out.add("j scan");
+        out.add("scan_done: add $v0, $zero, $t6");
+    }
+
+    // Builds a list of n two-word nodes (value, next) from address 8, linked in a scattered order,
+    // then walks it: $v0 = sum of values (also stored at address 0), $v1 = node count
+    private static void linkedList(List<String> out, int n) {
+        int base = 8;
+        int stride = (n / 2 - 1) | 1;
+        out.add("addi $t0, $zero, " + SEED);
+        out.add("addi $t1, $zero, " + n);
+        out.add("addi $t2, $zero, 0");              // node index
+        out.add("build: beq $t1, $zero, built");
+        xorshift(out);
+        out.add("sll $t3, $t2, 3");
+        out.add("addi $t3, $t3, " + base);
+        out.add("sw $t0, 0($t3)");
+        out.add("addi $t2, $t2, " + stride);
+        out.add("andi $t2, $t2, " + (n - 1));
+        out.add("sll $t4, $t2, 3");
+        out.add("addi $t4, $t4, " + base);
+        out.add("sw $t4, 4($t3)");
+        out.add("addi $t1, $t1, -1");
+        out.add("j build");
+        out.add("built: sw $zero, 4($t3)");
+        out.add("addi $t5, $zero, " + base);
+        out.add("add $v0, $zero, $zero");
+        out.add("add $v1, $zero, $zero");
+        out.add("walk: beq $t5, $zero, walk_done");
+        out.add("lw $t6, 0($t5)");
+        out.add("add $v0, $v0, $t6");
+        out.add("addi $v1, $v1, 1");
+        out.add("lw $t5, 4($t5)");
+        out.add("j walk");
+        out.add("walk_done: sw $v0, 0($zero)");
+    }
+}
@@ -5,6 +5,9 @@ import model.cpu.CPUState;
 import model.memory.InstructionMemory;
 import simulator.Clock;
 import simulator.PipelineController;
+import simulator.ProgramCache;
+import simulator.ProgramLoader;
+import simulator.Timeline;
 import simulator.api.handlers.*;
 
 import java.io.IOException;
@@ -19,17 +22,35 @@ public class ApiServer {
 	private final ServerContext context;
 
 	public ApiServer(int port) throws IOException {
-		CPUState cpuState = new CPUState(new InstructionMemory());
+		this(port, ProgramLoader.INSTRUCTION_MEMORY_WORDS);
+	}
+
+	public ApiServer(int port, int instructionMemoryWords) throws IOException {
+		CPUState cpuState = new CPUState(new InstructionMemory(instructionMemoryWords));
 		PipelineController controller = new PipelineController(cpuState);
 		Clock clock = new Clock(controller);
-		this.context = new ServerContext(cpuState, controller, clock);
+		clock.setTimeline(new Timeline());
+		this.context = new ServerContext(cpuState, controller, clock, ProgramCache.shared());
 
 		this.server = HttpServer.create(new InetSocketAddress(port), 0);
 
 		server.createContext("/api/load", new LoadHandler(context));
+		server.createContext("/api/load/binary", new LoadBinaryHandler(context));
+		server.createContext("/api/load/edit", new EditHandler(context));
 		server.createContext("/api/step", new StepHandler(context));
 		server.createContext("/api/state", new StateHandler(context));
 		server.createContext("/api/reset", new ResetHandler(context));
+		server.createContext("/api/checkpoint", new CheckpointHandler(context));
+		server.createContext("/api/restore", new RestoreHandler(context));
+		server.createContext("/api/breakpoints", new BreakpointHandler(context));
+		server.createContext("/api/stats", new StatsHandler(context));
+		server.createContext("/api/profile", new ProfileHandler(context));
+		server.createContext("/api/cache", new CacheHandler(context));
+		server.createContext("/api/predictor", new PredictorHandler(context));
+		server.createContext("/api/pipeline", new PipelineConfigHandler(context));
+		server.createContext("/api/superscalar", new SuperscalarHandler(context));
+		server.createContext("/api/ooo", new OutOfOrderHandler(context));
+		server.createContext("/api/multicore", new MulticoreHandler(context));
 		server.createContext("/api/health", new HealthHandler());
 
 		server.setExecutor(null);
@@ -48,15 +69,29 @@ public class ApiServer {
 	public static void main(String[] args) {
 		try {
 			int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
-			ApiServer server = new ApiServer(port);
+			int instructionWords = args.length > 1 ? Integer.parseInt(args[1]) : ProgramLoader.INSTRUCTION_MEMORY_WORDS;
+			ApiServer server = new ApiServer(port, instructionWords);
 			server.start();
 
 			System.out.println("Server running at http://localhost:" + port);
 			System.out.println("Endpoints:");
-			System.out.println("  POST /api/load?start=0");
+			System.out.println("  POST /api/load?start=0&incremental=0");
+			System.out.println("  POST /api/load/binary?format=raw|elf&start=0");
+			System.out.println("  POST /api/load/edit?line=1");
 			System.out.println("  POST /api/step?cycles=1");
-			System.out.println("  GET  /api/state");
+			System.out.println("  GET  /api/state?cycle=N");
 			System.out.println("  POST /api/reset?clearRegs=1&clearMem=1&pc=0");
+			System.out.println("  GET  /api/checkpoint, POST /api/checkpoint?name=warm");
+			System.out.println("  POST /api/restore?name=warm");
+			System.out.println("  GET  /api/breakpoints, POST /api/breakpoints?pc=8|watch=16&mode=rw&remove=0|clear=1");
+			System.out.println("  GET  /api/stats, POST /api/stats (reset)");
+			System.out.println("  GET  /api/profile?top=20, POST /api/profile (reset)");
+			System.out.println("  GET  /api/cache, POST /api/cache?cache=l1i|l1d|l2&size=4096&line=16&ways=2|memoryLatency=40&bandwidth=8|reset=1");
+			System.out.println("  GET  /api/predictor, POST /api/predictor?type=gshare&entries=1024&btb=256|type=none");
+			System.out.println("  GET  /api/pipeline, POST /api/pipeline?branchResolution=ex|id&fetchStages=1&memoryStages=1");
+			System.out.println("  POST /api/superscalar?maxCycles=1000000");
+			System.out.println("  POST /api/ooo?fetchWidth=2&issueWidth=2&commitWidth=2&robEntries=32&stationEntries=16&lsqEntries=16&aluLatency=1&loadLatency=2");
+			System.out.println("  POST /api/multicore?cores=2&idReg=4&pcs=0,0&size=256&line=16&ways=1&busLatency=2&memoryLatency=20");
 			System.out.println("  GET  /api/health");
 			System.out.println("\nPress Ctrl+C to stop");
 
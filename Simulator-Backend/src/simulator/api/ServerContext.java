@@ -2,16 +2,35 @@ package simulator.api;
 
 import model.cpu.CPUState;
 import simulator.Clock;
+import simulator.IncrementalAssembler;
 import simulator.PipelineController;
+import simulator.ProgramCache;
+import simulator.ProgramImage;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class ServerContext {
+    public static final int MAX_CHECKPOINTS = 16;
+
     public final CPUState cpuState;
     public final PipelineController controller;
     public final Clock clock;
+    public final ProgramCache programCache;
+    public final IncrementalAssembler incrementalAssembler = new IncrementalAssembler();
+    public final Map<String, byte[]> checkpoints = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MAX_CHECKPOINTS; // the least recently saved or restored goes first
+        }
+    });
+    public volatile ProgramImage program; // last image loaded from assembly, for mapping addresses to source lines
 
-    public ServerContext(CPUState cpuState, PipelineController controller, Clock clock) {
+    public ServerContext(CPUState cpuState, PipelineController controller, Clock clock, ProgramCache programCache) {
         this.cpuState = cpuState;
         this.controller = controller;
         this.clock = clock;
+        this.programCache = programCache;
     }
 }
\ No newline at end of file
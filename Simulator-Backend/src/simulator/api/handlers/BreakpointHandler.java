@@ -0,0 +1,128 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import simulator.Breakpoints;
+import simulator.Condition;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+/**
+ * GET /api/breakpoints -> list breakpoints and watchpoints
+ * POST /api/breakpoints?pc=8 or ?watch=16&mode=r|w|rw -> add; with &remove=1 -> remove; ?clear=1 -> remove all
+ * An optional condition such as "$t0 == 100" or "value > 5" is taken from the request body
+ */
+public class BreakpointHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public BreakpointHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        Breakpoints breakpoints = context.controller.getBreakpoints();
+        try {
+            if ("POST".equalsIgnoreCase(method)) {
+                Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+                boolean remove = "1".equals(params.get("remove"));
+                String body = HttpUtils.readBody(exchange).trim();
+
+                if ("1".equals(params.get("clear"))) {
+                    breakpoints.clear();
+                } else if (params.containsKey("pc")) {
+                    int pc = parseAddress(params.get("pc"), context.cpuState.instructionMemory.sizeBytes());
+                    if (remove) {
+                        breakpoints.removeBreakpoint(pc);
+                    } else {
+                        breakpoints.addBreakpoint(pc, compile(body));
+                    }
+                } else if (params.containsKey("watch")) {
+                    int address = parseAddress(params.get("watch"), context.cpuState.dataMemory.sizeBytes());
+                    String mode = params.getOrDefault("mode", "rw");
+                    if (remove) {
+                        breakpoints.removeWatchpoint(address);
+                    } else if (mode.equals("r") || mode.equals("w") || mode.equals("rw")) {
+                        breakpoints.addWatchpoint(address, mode.contains("r"), mode.contains("w"), compile(body));
+                    } else {
+                        throw new IllegalArgumentException("Invalid watch mode: " + mode);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Expected pc, watch or clear");
+                }
+            }
+
+            List<Integer> pcs = breakpoints.getBreakpoints();
+            List<Integer> watched = new ArrayList<>(breakpoints.getReadWatchpoints());
+            watched.addAll(breakpoints.getWriteWatchpoints());
+            String json = String.format(
+                    "{\"breakpoints\":%s,\"watchRead\":%s,\"watchWrite\":%s,\"pcConditions\":%s,\"watchConditions\":%s}",
+                    toJson(pcs),
+                    toJson(breakpoints.getReadWatchpoints()),
+                    toJson(breakpoints.getWriteWatchpoints()),
+                    conditionsJson(pcs, breakpoints::getBreakpointCondition),
+                    conditionsJson(watched, breakpoints::getWatchpointCondition)
+            );
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    // Only adding reads the condition: a stale body must not fail a remove or clear
+    private static Condition compile(String body) {
+        return body.isEmpty() ? null : Condition.compile(body);
+    }
+
+    private static int parseAddress(String value, int limit) {
+        int address;
+        try {
+            address = Integer.decode(value.trim());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid address: " + value);
+        }
+        if (address < 0 || (address & 0x3) != 0 || address >= limit) {
+            throw new IllegalArgumentException("Address must be word-aligned and below " + limit + ": " + value);
+        }
+        return address;
+    }
+
+    private static String conditionsJson(List<Integer> addresses, IntFunction<Condition> lookup) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int address : new TreeSet<>(addresses)) {
+            Condition condition = lookup.apply(address);
+            if (condition == null) continue;
+            if (sb.length() > 1) sb.append(',');
+            sb.append('"').append(address).append("\":\"").append(HttpUtils.jsonEscape(condition.getSource())).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String toJson(List<Integer> addresses) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < addresses.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(addresses.get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
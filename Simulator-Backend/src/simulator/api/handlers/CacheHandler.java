@@ -0,0 +1,148 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.memory.Cache;
+import model.memory.CacheHierarchy;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * GET /api/cache -> configuration and per-level statistics of the L1 caches, the L2 and main memory
+ * POST /api/cache?cache=l1i|l1d|l2&size=4096&line=16&ways=2&replacement=lru|fifo|random&write=back|through&allocate=1
+ *      -> install a cold cache; with &disable=1 -> remove it
+ * POST /api/cache?l2Latency=8&memoryLatency=40&bandwidth=8&inclusion=inclusive|exclusive -> set timing and policy
+ * POST /api/cache?reset=1 -> reset the statistics
+ */
+public class CacheHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public CacheHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        CacheHierarchy caches = context.controller.getCaches();
+        try {
+            if ("POST".equalsIgnoreCase(method)) {
+                configure(caches, HttpUtils.parseQueryParams(exchange.getRequestURI()));
+                context.controller.discardUndo();
+            }
+            HttpUtils.sendJson(exchange, 200, toJson(caches));
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private static void configure(CacheHierarchy caches, Map<String, String> params) {
+        if ("1".equals(params.get("reset"))) {
+            caches.resetStats();
+            return;
+        }
+
+        String name = params.get("cache");
+        if (name != null) {
+            Cache cache = "1".equals(params.get("disable")) ? null : parseCache(params);
+            switch (name) {
+                case "l1i": caches.setInstructionCache(cache); break;
+                case "l1d": caches.setDataCache(cache); break;
+                case "l2": caches.setL2(cache); break;
+                default: throw new IllegalArgumentException("Unknown cache: " + name);
+            }
+            return;
+        }
+
+        boolean changed = false;
+        if (params.containsKey("l2Latency")) {
+            caches.setL2Latency(HttpUtils.parseInt(params, "l2Latency", 0));
+            changed = true;
+        }
+        if (params.containsKey("memoryLatency")) {
+            caches.setMemoryLatency(HttpUtils.parseInt(params, "memoryLatency", 0));
+            changed = true;
+        }
+        if (params.containsKey("bandwidth")) {
+            caches.setMemoryBandwidth(HttpUtils.parseInt(params, "bandwidth", 0));
+            changed = true;
+        }
+        if (params.containsKey("inclusion")) {
+            caches.setInclusion(parseEnum(CacheHierarchy.Inclusion.class, params.get("inclusion"), "inclusion policy"));
+            changed = true;
+        }
+        if (!changed) {
+            throw new IllegalArgumentException("Expected cache, l2Latency, memoryLatency, bandwidth, inclusion or reset");
+        }
+    }
+
+    private static Cache parseCache(Map<String, String> params) {
+        Cache cache = new Cache(
+                HttpUtils.parseInt(params, "size", 4096),
+                HttpUtils.parseInt(params, "line", 16),
+                HttpUtils.parseInt(params, "ways", 2));
+        cache.setReplacement(parseEnum(Cache.Replacement.class, params.getOrDefault("replacement", "lru"),
+                "replacement policy"));
+
+        String write = params.getOrDefault("write", "back");
+        if (!write.equals("back") && !write.equals("through")) {
+            throw new IllegalArgumentException("Invalid write policy: " + write);
+        }
+        cache.setWriteBack(write.equals("back"));
+        cache.setWriteAllocate(!"0".equals(params.get("allocate")));
+        return cache;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String what) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + value);
+        }
+    }
+
+    static String toJson(CacheHierarchy caches) {
+        return "{\"l1i\":" + toJson(caches.getInstructionCache())
+                + ",\"l1d\":" + toJson(caches.getDataCache())
+                + ",\"l2\":" + toJson(caches.getL2())
+                + ",\"inclusion\":\"" + caches.getInclusion().name().toLowerCase(Locale.ROOT) + '"'
+                + ",\"l2Latency\":" + caches.getL2Latency()
+                + ",\"memory\":{\"latency\":" + caches.getMemoryLatency()
+                + ",\"bandwidth\":" + caches.getMemoryBandwidth()
+                + ",\"reads\":" + caches.getMemoryReads()
+                + ",\"writes\":" + caches.getMemoryWrites() + "}}";
+    }
+
+    static String toJson(Cache cache) {
+        if (cache == null) return "null";
+        return "{\"size\":" + cache.getSizeBytes()
+                + ",\"line\":" + cache.getLineBytes()
+                + ",\"ways\":" + cache.getWays()
+                + ",\"sets\":" + cache.getSets()
+                + ",\"replacement\":\"" + cache.getReplacement().name().toLowerCase(Locale.ROOT) + '"'
+                + ",\"write\":\"" + (cache.isWriteBack() ? "back" : "through") + '"'
+                + ",\"allocate\":" + cache.isWriteAllocate()
+                + ",\"readHits\":" + cache.getStat(Cache.READ_HITS)
+                + ",\"readMisses\":" + cache.getStat(Cache.READ_MISSES)
+                + ",\"writeHits\":" + cache.getStat(Cache.WRITE_HITS)
+                + ",\"writeMisses\":" + cache.getStat(Cache.WRITE_MISSES)
+                + ",\"evictions\":" + cache.getEvictions()
+                + ",\"writebacks\":" + cache.getWritebacks()
+                + ",\"missRate\":" + String.format(Locale.ROOT, "%.4f", cache.getMissRate()) + "}";
+    }
+}
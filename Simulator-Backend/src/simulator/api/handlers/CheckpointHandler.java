@@ -0,0 +1,63 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import simulator.Checkpoint;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * GET /api/checkpoint -> download a binary checkpoint of the simulation
+ * POST /api/checkpoint?name=warm -> keep a checkpoint on the server under name; the server keeps the
+ * last ServerContext.MAX_CHECKPOINTS names used
+ * Either takes &history=1 to include the pipeline history, one snapshot per elapsed cycle
+ */
+public class CheckpointHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public CheckpointHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            boolean history = "1".equals(params.get("history"));
+            byte[] checkpoint = Checkpoint.save(context.controller, context.clock, history);
+
+            if ("GET".equalsIgnoreCase(method)) {
+                HttpUtils.sendBytes(exchange, 200, checkpoint);
+                return;
+            }
+
+            String name = params.get("name");
+            if (name == null || name.isBlank()) {
+                HttpUtils.sendError(exchange, 400, "Missing checkpoint name");
+                return;
+            }
+            context.checkpoints.put(name, checkpoint);
+
+            String json = String.format(
+                    "{\"name\":\"%s\",\"cycle\":%d,\"bytes\":%d}",
+                    HttpUtils.jsonEscape(name), context.clock.getCycle(), checkpoint.length
+            );
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import simulator.IncrementalAssembler;
+import simulator.ProgramLoader;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /api/load/edit?line=N -> replace source line N (1-based) of a program loaded with incremental=1.
+ * An edit that does not assemble is rejected with 400 and changes nothing.
+ */
+public class EditHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public EditHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        if (context.incrementalAssembler.isEmpty()) {
+            HttpUtils.sendError(exchange, 409, "No program loaded with incremental=1");
+            return;
+        }
+
+        try {
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            int line = HttpUtils.parseIntOrDefault(params.get("line"), 0);
+            String text = HttpUtils.readBody(exchange);
+
+            IncrementalAssembler.Edit edit = context.incrementalAssembler.editOrReject(line - 1, text);
+            ProgramLoader.applyEdit(context.cpuState, context.incrementalAssembler, edit);
+            context.clock.resetTimeline();
+
+            StringBuilder json = new StringBuilder();
+            json.append("{\"relayout\":").append(edit.relayout);
+            json.append(",\"patched\":").append(edit.relayout ? 0 : edit.slots.length);
+            json.append("}");
+            HttpUtils.sendJson(exchange, 200, json.toString());
+
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.cpu.CPUState;
+import simulator.BinaryLoader;
+import simulator.ProgramLoader;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * POST /api/load/binary?format=raw|elf&start=0 -> load a raw big-endian image or a MIPS32 ELF executable
+ * Optional instructionWords= and dataWords= resize the memories first, e.g. to fit an ELF data segment
+ */
+public class LoadBinaryHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public LoadBinaryHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.toLowerCase().startsWith("application/octet-stream")) {
+            HttpUtils.sendError(exchange, 415, "Expected Content-Type application/octet-stream");
+            return;
+        }
+
+        try {
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            int startAddress = HttpUtils.parseIntOrDefault(params.get("start"), 0);
+            String format = params.get("format");
+            if (format != null && !"elf".equalsIgnoreCase(format) && !"raw".equalsIgnoreCase(format)) {
+                throw new IllegalArgumentException("Unknown format: " + format);
+            }
+
+            int instructionWords = HttpUtils.parseInt(params, "instructionWords",
+                    context.cpuState.instructionMemory.sizeBytes() / 4);
+            int dataWords = HttpUtils.parseInt(params, "dataWords", context.cpuState.dataMemory.sizeBytes() / 4);
+
+            ByteBuffer body = HttpUtils.readBodyBuffer(exchange);
+            boolean elf = format == null ? BinaryLoader.isElf(body) : "elf".equalsIgnoreCase(format);
+
+            // Load into a fork so a malformed image leaves the session as it was
+            CPUState staged = context.cpuState.fork();
+            boolean resized = ProgramLoader.resizeMemory(staged, instructionWords, dataWords);
+            ProgramLoader.ProgramLoadResult result = elf
+                    ? BinaryLoader.loadElf(staged, body)
+                    : BinaryLoader.loadRawImage(staged, body, startAddress);
+
+            context.cpuState.instructionMemory = staged.instructionMemory;
+            context.cpuState.dataMemory = staged.dataMemory;
+            context.cpuState.pc.set(staged.pc.get());
+            if (resized) {
+                context.controller.discardUndo(); // undo records address the old memories
+            }
+            context.incrementalAssembler.clear();
+            context.program = null;
+            context.clock.resetTimeline();
+
+            String json = String.format(
+                    "{\"loaded\":%d,\"start\":%d,\"end\":%d,\"pc\":%d,\"warnings\":%s}",
+                    result.loadedCount, result.startAddress, result.endAddress, context.cpuState.pc.get(),
+                    LoadHandler.warningsJson(result.warnings)
+            );
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        }
+    }
+}
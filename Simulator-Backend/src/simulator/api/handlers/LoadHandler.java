@@ -2,15 +2,18 @@ package simulator.api.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import simulator.ProgramImage;
 import simulator.ProgramLoader;
 import simulator.api.ServerContext;
 import simulator.api.utils.HttpUtils;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
- * POST /api/load?start=0 -> load assembly instructions into memory
+ * POST /api/load?start=0&incremental=0 -> load assembly instructions into memory;
+ * incremental=1 keeps per-line state for POST /api/load/edit
  */
 public class LoadHandler implements HttpHandler {
 
@@ -33,18 +36,26 @@ public class LoadHandler implements HttpHandler {
             Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
             int startAddress = HttpUtils.parseIntOrDefault(params.get("start"), 0);
 
-            String body = HttpUtils.readBody(exchange);
-            String[] lines = body.lines()
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .toArray(String[]::new);
+            boolean incremental = HttpUtils.parseBoolean(params.get("incremental"));
 
-            ProgramLoader.ProgramLoadResult result =
-                    ProgramLoader.loadFromAssembly(context.cpuState, lines, startAddress);
+            String source = HttpUtils.readBody(exchange);
+            context.incrementalAssembler.clear();
+
+            ProgramLoader.ProgramLoadResult result;
+            if (incremental) {
+                context.program = null;
+                result = ProgramLoader.loadIncremental(context.cpuState, context.incrementalAssembler,
+                        source.split("\\r?\\n", -1), startAddress);
+            } else {
+                ProgramImage image = context.programCache.getOrAssemble(source, startAddress);
+                result = ProgramLoader.loadImage(context.cpuState, image);
+                context.program = image;
+            }
+            context.clock.resetTimeline();
 
             String json = String.format(
-                    "{\"loaded\":%d,\"start\":%d,\"end\":%d}",
-                    result.loadedCount, result.startAddress, result.endAddress
+                    "{\"loaded\":%d,\"start\":%d,\"end\":%d,\"warnings\":%s}",
+                    result.loadedCount, result.startAddress, result.endAddress, warningsJson(result.warnings)
             );
             HttpUtils.sendJson(exchange, 200, json);
 
@@ -52,4 +63,13 @@ public class LoadHandler implements HttpHandler {
             HttpUtils.sendError(exchange, 400, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    static String warningsJson(List<String> warnings) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < warnings.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append('"').append(HttpUtils.jsonEscape(warnings.get(i))).append('"');
+        }
+        return sb.append(']').toString();
+    }
+}
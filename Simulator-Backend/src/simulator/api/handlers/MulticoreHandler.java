@@ -0,0 +1,136 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.cpu.CPUState;
+import model.memory.Cache;
+import model.memory.CoherenceBus;
+import model.memory.DataMemory;
+import model.memory.InstructionMemory;
+import simulator.MulticoreController;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.ProgramImage;
+import simulator.ProgramLoader;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /api/multicore?cores=4&idReg=4&pcs=0,0,0,0&size=256&line=16&ways=1&busLatency=2&memoryLatency=20
+ *      &transferLatency=4&maxCycles=1000000 -> runs the last assembled program on several coherent cores
+ *      over a copy of the current data memory, and reports per-core and bus statistics.
+ *      idReg=0 leaves the core id out of the registers. The interactive session is untouched.
+ */
+public class MulticoreHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public MulticoreHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            ProgramImage program = context.program;
+            if (program == null) {
+                throw new IllegalArgumentException("No assembled program loaded");
+            }
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            int count = HttpUtils.parseInt(params, "cores", 2);
+            int idReg = HttpUtils.parseInt(params, "idReg", 4);
+            int maxCycles = HttpUtils.parseInt(params, "maxCycles", 1_000_000);
+            if (maxCycles <= 0) {
+                throw new IllegalArgumentException("maxCycles must be positive");
+            }
+            Cache l1 = new Cache(HttpUtils.parseInt(params, "size", 256), HttpUtils.parseInt(params, "line", 16), HttpUtils.parseInt(params, "ways", 1));
+
+            InstructionMemory instructionMemory = new InstructionMemory();
+            DataMemory dataMemory = context.cpuState.dataMemory.fork();
+            ProgramLoader.loadImage(new CPUState(instructionMemory, dataMemory), program);
+
+            MulticoreController multicore = new MulticoreController(instructionMemory, dataMemory, count, l1);
+            CoherenceBus bus = multicore.getBus();
+            bus.setBusLatency(HttpUtils.parseInt(params, "busLatency", bus.getBusLatency()));
+            bus.setMemoryLatency(HttpUtils.parseInt(params, "memoryLatency", bus.getMemoryLatency()));
+            bus.setTransferLatency(HttpUtils.parseInt(params, "transferLatency", bus.getTransferLatency()));
+            if (idReg != 0) {
+                multicore.presetCoreId(idReg);
+            }
+            String pcs = params.get("pcs");
+            if (pcs != null) {
+                String[] values = pcs.split(",");
+                if (values.length != count) {
+                    throw new IllegalArgumentException("Expected " + count + " start PCs: " + pcs);
+                }
+                for (int i = 0; i < count; i++) {
+                    multicore.setPc(i, HttpUtils.parseInt("pcs", values[i].trim()));
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    multicore.setPc(i, program.getStartAddress());
+                }
+            }
+
+            for (int i = 0; i < maxCycles && !multicore.isIdle(); i++) {
+                multicore.runCycle();
+                for (int core = 0; core < count; core++) {
+                    multicore.getCore(core).getHistory().clear();
+                }
+            }
+            HttpUtils.sendJson(exchange, 200, toJson(multicore));
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private static String toJson(MulticoreController multicore) {
+        CoherenceBus bus = multicore.getBus();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"cycles\":").append(multicore.getCycles());
+        sb.append(",\"finished\":").append(multicore.isIdle());
+        sb.append(",\"cores\":[");
+        for (int i = 0; i < multicore.getCoreCount(); i++) {
+            PipelineController core = multicore.getCore(i);
+            PerformanceCounters counters = core.getCounters();
+            Cache l1 = core.getCaches().getDataCache();
+            if (i > 0) sb.append(',');
+            sb.append("{\"core\":").append(i);
+            sb.append(",\"pc\":").append(core.getCpuState().pc.get());
+            sb.append(",\"cycles\":").append(counters.getCycles());
+            sb.append(",\"retired\":").append(counters.getRetired());
+            sb.append(",\"ipc\":").append(counters.getIpc());
+            sb.append(",\"dataCacheStalls\":").append(counters.getDataCacheStalls());
+            sb.append(",\"hits\":").append(l1.getHits());
+            sb.append(",\"misses\":").append(l1.getMisses());
+            sb.append(",\"invalidations\":").append(bus.getInvalidations(i));
+            sb.append(",\"flushes\":").append(bus.getFlushes(i)).append('}');
+        }
+        sb.append("],\"bus\":{");
+        sb.append("\"transactions\":").append(bus.getTransactions());
+        sb.append(",\"busRd\":").append(bus.getStat(CoherenceBus.BUS_READS));
+        sb.append(",\"busRdX\":").append(bus.getStat(CoherenceBus.BUS_READ_EXCLUSIVES));
+        sb.append(",\"busUpgr\":").append(bus.getStat(CoherenceBus.BUS_UPGRADES));
+        sb.append(",\"flushes\":").append(bus.getStat(CoherenceBus.FLUSHES));
+        sb.append(",\"writebacks\":").append(bus.getStat(CoherenceBus.WRITEBACKS));
+        sb.append(",\"memoryReads\":").append(bus.getStat(CoherenceBus.MEMORY_READS));
+        sb.append(",\"busyCycles\":").append(bus.getBusyCycles());
+        sb.append(",\"waitCycles\":").append(bus.getWaitCycles());
+        sb.append(",\"utilization\":").append(bus.getUtilization());
+        sb.append("}}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.cpu.CPUState;
+import model.ooo.OutOfOrderConfig;
+import simulator.OutOfOrderController;
+import simulator.OutOfOrderController.Structure;
+import simulator.PipelineController;
+import simulator.ProgramImage;
+import simulator.Workload;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /api/ooo?fetchWidth=2&issueWidth=2&commitWidth=2&robEntries=32&stationEntries=16&lsqEntries=16
+ *      &aluLatency=1&loadLatency=2&maxCycles=1000000 -> runs the last assembled program on fresh in-order
+ *      and out-of-order cores and reports cycles, IPC, structure occupancy and whether the final state matches.
+ *      Omitted parameters keep their defaults. The interactive session is untouched.
+ */
+public class OutOfOrderHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public OutOfOrderHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            ProgramImage program = context.program;
+            if (program == null) {
+                throw new IllegalArgumentException("No assembled program loaded");
+            }
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            OutOfOrderConfig config = parseConfig(params);
+            int maxCycles = HttpUtils.parseInt(params, "maxCycles", 1_000_000);
+            if (maxCycles <= 0) {
+                throw new IllegalArgumentException("maxCycles must be positive");
+            }
+
+            CPUState inOrderState = SuperscalarHandler.fresh(program);
+            PipelineController inOrder = new PipelineController(inOrderState);
+            inOrder.setUndoDepth(0);
+            for (int i = 0; i < maxCycles && !inOrder.isIdle(); i++) {
+                inOrder.runCycle();
+                inOrder.getHistory().clear();
+            }
+
+            CPUState oooState = SuperscalarHandler.fresh(program);
+            OutOfOrderController ooo = new OutOfOrderController(oooState, config);
+            for (int i = 0; i < maxCycles && !ooo.isIdle(); i++) {
+                ooo.runCycle();
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"config\":\"").append(config).append('"');
+            sb.append(",\"inOrder\":").append(SuperscalarHandler.toJson(inOrder.getCounters(), inOrder.isIdle()));
+            sb.append(",\"outOfOrder\":").append(SuperscalarHandler.toJson(ooo.getCounters(), ooo.isIdle()));
+            sb.append(",\"structures\":{");
+            for (Structure structure : Structure.values()) {
+                if (structure.ordinal() > 0) sb.append(',');
+                sb.append('"').append(structure.name().toLowerCase()).append("\":{");
+                sb.append("\"capacity\":").append(ooo.getCapacity(structure));
+                sb.append(",\"average\":").append(ooo.getAverageOccupancy(structure));
+                sb.append(",\"peak\":").append(ooo.getPeakOccupancy(structure));
+                sb.append(",\"fullStalls\":").append(ooo.getFullStalls(structure)).append('}');
+            }
+            sb.append('}');
+            sb.append(",\"speedup\":").append(ooo.getCounters().getCycles() == 0 ? 0.0
+                    : (double) inOrder.getCounters().getCycles() / ooo.getCounters().getCycles());
+            sb.append(",\"stateMatches\":").append(Workload.digest(inOrderState) == Workload.digest(oooState));
+            sb.append('}');
+            HttpUtils.sendJson(exchange, 200, sb.toString());
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private static OutOfOrderConfig parseConfig(Map<String, String> params) {
+        OutOfOrderConfig config = new OutOfOrderConfig();
+        config.setFetchWidth(HttpUtils.parseInt(params, "fetchWidth", config.getFetchWidth()));
+        config.setIssueWidth(HttpUtils.parseInt(params, "issueWidth", config.getIssueWidth()));
+        config.setCommitWidth(HttpUtils.parseInt(params, "commitWidth", config.getCommitWidth()));
+        config.setRobEntries(HttpUtils.parseInt(params, "robEntries", config.getRobEntries()));
+        config.setStationEntries(HttpUtils.parseInt(params, "stationEntries", config.getStationEntries()));
+        config.setLsqEntries(HttpUtils.parseInt(params, "lsqEntries", config.getLsqEntries()));
+        config.setAluLatency(HttpUtils.parseInt(params, "aluLatency", config.getAluLatency()));
+        config.setLoadLatency(HttpUtils.parseInt(params, "loadLatency", config.getLoadLatency()));
+        return config;
+    }
+}
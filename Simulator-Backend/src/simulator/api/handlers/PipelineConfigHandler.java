@@ -0,0 +1,80 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.pipeline.stages.PipelineLayout;
+import simulator.PipelineController;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * GET /api/pipeline -> pipeline options in use
+ * POST /api/pipeline?branchResolution=ex|id -> resolve beq and bne in EX, or in ID with one bubble less per misprediction
+ * POST /api/pipeline?fetchStages=2&memoryStages=3 -> split fetch and memory access over 1 to 3 stages each;
+ *      the pipeline must be empty, as after POST /api/reset
+ */
+public class PipelineConfigHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public PipelineConfigHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        PipelineController controller = context.controller;
+        try {
+            if ("POST".equalsIgnoreCase(method)) {
+                configure(controller, HttpUtils.parseQueryParams(exchange.getRequestURI()));
+            }
+            HttpUtils.sendJson(exchange, 200, toJson(controller));
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private static void configure(PipelineController controller, Map<String, String> params) {
+        String resolution = params.get("branchResolution");
+        boolean depth = params.containsKey("fetchStages") || params.containsKey("memoryStages");
+        if (resolution == null && !depth) {
+            throw new IllegalArgumentException("Expected branchResolution, fetchStages or memoryStages");
+        }
+        if (resolution != null && !resolution.equals("ex") && !resolution.equals("id")) {
+            throw new IllegalArgumentException("Invalid branchResolution: " + resolution);
+        }
+
+        if (depth) {
+            PipelineLayout layout = controller.getLayout();
+            controller.setLayout(PipelineLayout.of(
+                    HttpUtils.parseInt(params, "fetchStages", layout.getFetchStages()),
+                    HttpUtils.parseInt(params, "memoryStages", layout.getMemoryStages())));
+        }
+        if (resolution != null) {
+            controller.setEarlyBranchResolution(resolution.equals("id"));
+        }
+    }
+
+    static String toJson(PipelineController controller) {
+        PipelineLayout layout = controller.getLayout();
+        return "{\"branchResolution\":\"" + (controller.isEarlyBranchResolution() ? "id" : "ex") + '"'
+                + ",\"fetchStages\":" + layout.getFetchStages()
+                + ",\"memoryStages\":" + layout.getMemoryStages()
+                + ",\"depth\":" + layout.getDepth()
+                + ",\"stages\":\"" + layout + "\"}";
+    }
+}
@@ -0,0 +1,71 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.control.prediction.BranchPredictor;
+import model.control.prediction.BranchTargetBuffer;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * GET /api/predictor -> branch predictor in use with branch count, mispredictions, accuracy and MPKI
+ * POST /api/predictor?type=not-taken|taken|btfn|1bit|2bit|gshare|tournament&entries=1024&btb=256 -> install a cold
+ *      predictor and target buffer; ?type=none -> always fall through
+ */
+public class PredictorHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public PredictorHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        PipelineController controller = context.controller;
+        try {
+            if ("POST".equalsIgnoreCase(method)) {
+                Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+                String type = params.get("type");
+                if (type == null) {
+                    throw new IllegalArgumentException("Expected type");
+                }
+                if (type.equals("none")) {
+                    controller.setBranchPrediction(null, null);
+                } else {
+                    BranchPredictor predictor = BranchPredictor.create(type, HttpUtils.parseInt(params, "entries", 1024));
+                    controller.setBranchPrediction(predictor, new BranchTargetBuffer(HttpUtils.parseInt(params, "btb", 256)));
+                }
+            }
+
+            BranchPredictor predictor = controller.getBranchPredictor();
+            PerformanceCounters counters = controller.getCounters();
+            String json = "{\"type\":\"" + (predictor != null ? predictor.getName() : "none") + '"'
+                    + ",\"btbEntries\":" + (predictor != null ? controller.getBranchTargetBuffer().size() : 0)
+                    + ",\"branches\":" + counters.getBranches()
+                    + ",\"mispredictions\":" + counters.getMispredictions()
+                    + ",\"accuracy\":" + String.format(Locale.ROOT, "%.4f", counters.getBranchAccuracy())
+                    + ",\"mpki\":" + String.format(Locale.ROOT, "%.4f", counters.getMpki()) + "}";
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+}
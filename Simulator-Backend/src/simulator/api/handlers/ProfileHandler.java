@@ -0,0 +1,88 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.instruction.Instruction;
+import simulator.ProgramImage;
+import simulator.Profiler;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+import simulator.api.utils.StateSerializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * GET /api/profile?top=20 -> the N instructions costing the most cycles, with disassembly and source line
+ * POST /api/profile -> reset the profile
+ */
+public class ProfileHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public ProfileHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            Profiler profiler = context.controller.getProfiler();
+            if ("POST".equalsIgnoreCase(method)) {
+                profiler.reset();
+                context.controller.discardUndo();
+            }
+
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            int top = HttpUtils.parseIntOrDefault(params.get("top"), 20);
+            ProgramImage program = context.program;
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"cycles\":").append(context.controller.getCounters().getCycles());
+            sb.append(",\"entries\":[");
+            int[] addresses = profiler.top(top);
+            for (int i = 0; i < addresses.length; i++) {
+                int address = addresses[i];
+                if (i > 0) sb.append(',');
+                sb.append("{\"address\":").append(address);
+                sb.append(",\"cost\":").append(profiler.getCost(address));
+                sb.append(",\"executions\":").append(profiler.getExecutions(address));
+                sb.append(",\"stallCycles\":").append(profiler.getStallCycles(address));
+                sb.append(",\"flushes\":").append(profiler.getFlushes(address));
+                sb.append(",\"taken\":").append(profiler.getTaken(address));
+                sb.append(",\"notTaken\":").append(profiler.getNotTaken(address));
+
+                Instruction instr = context.cpuState.instructionMemory.fetch(address);
+                String assembly = instr != null ? StateSerializer.instructionToAssembly(instr.copy()) : null;
+                if (assembly != null) {
+                    sb.append(",\"assembly\":\"").append(HttpUtils.jsonEscape(assembly)).append('"');
+                }
+                int line = sourceLine(program, address);
+                if (line > 0) {
+                    sb.append(",\"line\":").append(line);
+                }
+                sb.append('}');
+            }
+            sb.append("]}");
+            HttpUtils.sendJson(exchange, 200, sb.toString());
+
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private int sourceLine(ProgramImage program, int address) {
+        if (program != null) {
+            return program.getSourceLineAt(address);
+        }
+        return context.incrementalAssembler.isEmpty() ? -1 : context.incrementalAssembler.getSourceLine(address);
+    }
+}
@@ -36,8 +36,11 @@ public class ResetHandler implements HttpHandler {
             int pc = HttpUtils.parseIntOrDefault(params.get("pc"), 0);
 
             ProgramLoader.resetState(context.cpuState, clearRegs, clearMem, pc);
+            context.incrementalAssembler.clear();
+            context.program = null;
             context.controller.clearPipeline();
             context.controller.clearHistory();
+            context.clock.resetTimeline();
 
             HttpUtils.sendJson(exchange, 200, "{\"ok\":true}");
 
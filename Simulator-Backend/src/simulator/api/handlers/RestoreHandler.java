@@ -0,0 +1,64 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import simulator.Checkpoint;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /api/restore?name=warm -> restore a checkpoint kept on the server, or the checkpoint in the body
+ */
+public class RestoreHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public RestoreHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            String name = params.get("name");
+
+            byte[] checkpoint;
+            if (name != null) {
+                checkpoint = context.checkpoints.get(name);
+                if (checkpoint == null) {
+                    HttpUtils.sendError(exchange, 404, "No checkpoint named " + name);
+                    return;
+                }
+            } else {
+                checkpoint = exchange.getRequestBody().readAllBytes();
+            }
+
+            Checkpoint.restore(context.controller, context.clock, checkpoint);
+            context.incrementalAssembler.clear();
+            context.program = null;
+            context.clock.resetTimeline();
+
+            String json = String.format(
+                    "{\"cycle\":%d,\"pc\":%d}",
+                    context.clock.getCycle(), context.cpuState.pc.get()
+            );
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+}
@@ -2,14 +2,18 @@ package simulator.api.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import simulator.PipelineController;
 import simulator.api.ServerContext;
 import simulator.api.utils.HttpUtils;
 import simulator.api.utils.StateSerializer;
 
 import java.io.IOException;
+import java.util.Map;
 
 /**
- * GET /api/state -> get current CPU and pipeline state as JSON
+ * GET /api/state?cycle=N -> get CPU and pipeline state as JSON, currently or after past cycle N
+ * Each pipelineHistory entry has IF ID EX MEM WB; a split layout also lists its stages by name,
+ * e.g. IF1 IF2 and MEM1 MEM2 MEM3, with IF and MEM repeating the last stage of their group
  */
 public class StateHandler implements HttpHandler {
 
@@ -29,9 +33,19 @@ public class StateHandler implements HttpHandler {
         }
 
         try {
-            String json = StateSerializer.serialize(context.cpuState, context.controller);
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            String json;
+            if (params.containsKey("cycle")) {
+                int cycle = Integer.parseInt(params.get("cycle"));
+                PipelineController past = context.clock.stateAt(cycle);
+                json = StateSerializer.serialize(past.getCpuState(), past);
+            } else {
+                json = StateSerializer.serialize(context.cpuState, context.controller);
+            }
             HttpUtils.sendJson(exchange, 200, json);
 
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
         } catch (Exception e) {
             HttpUtils.sendError(exchange, 500, e.getMessage());
         }
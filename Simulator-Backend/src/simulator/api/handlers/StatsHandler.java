@@ -0,0 +1,94 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import simulator.Assembler;
+import simulator.PerformanceCounters;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * GET /api/stats -> performance counters (cycles, CPI, stalls, cache stalls, flushes, forwarding, instruction mix)
+ * POST /api/stats -> reset the counters
+ */
+public class StatsHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public StatsHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            PerformanceCounters counters = context.controller.getCounters();
+            if ("POST".equalsIgnoreCase(method)) {
+                counters.reset();
+                context.controller.discardUndo();
+            }
+            HttpUtils.sendJson(exchange, 200, toJson(counters));
+
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    static String toJson(PerformanceCounters counters) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"cycles\":").append(counters.getCycles());
+        sb.append(",\"retired\":").append(counters.getRetired());
+        sb.append(",\"cpi\":").append(String.format(Locale.ROOT, "%.4f", counters.getCpi()));
+        sb.append(",\"ipc\":").append(String.format(Locale.ROOT, "%.4f", counters.getIpc()));
+        sb.append(",\"loadUseStalls\":").append(counters.getLoadUseStalls());
+        sb.append(",\"branchStalls\":").append(counters.getBranchStalls());
+        sb.append(",\"branchFlushes\":").append(counters.getBranchFlushes());
+        sb.append(",\"jumpBubbles\":").append(counters.getJumpBubbles());
+        sb.append(",\"branches\":").append(counters.getBranches());
+        sb.append(",\"mispredictions\":").append(counters.getMispredictions());
+        sb.append(",\"branchAccuracy\":").append(String.format(Locale.ROOT, "%.4f", counters.getBranchAccuracy()));
+        sb.append(",\"mpki\":").append(String.format(Locale.ROOT, "%.4f", counters.getMpki()));
+        sb.append(",\"instructionCacheStalls\":").append(counters.getInstructionCacheStalls());
+        sb.append(",\"dataCacheStalls\":").append(counters.getDataCacheStalls());
+        sb.append(",\"forwardA\":{\"exMem\":").append(counters.getForwardAExMem())
+                .append(",\"memWb\":").append(counters.getForwardAMemWb()).append('}');
+        sb.append(",\"forwardB\":{\"exMem\":").append(counters.getForwardBExMem())
+                .append(",\"memWb\":").append(counters.getForwardBMemWb()).append('}');
+
+        sb.append(",\"mix\":{");
+        boolean first = true;
+        for (int op = 0; op < 64; op++) {
+            if (op == 0) {
+                for (int funct = 0; funct < 64; funct++) {
+                    first = appendMix(sb, first, op, funct, counters.getFunctCount(funct));
+                }
+            } else {
+                first = appendMix(sb, first, op, 0, counters.getOpcodeCount(op));
+            }
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    private static boolean appendMix(StringBuilder sb, boolean first, int opcode, int funct, long count) {
+        if (count == 0) return first;
+        String name = Assembler.mnemonic(opcode, funct);
+        if (name == null) {
+            name = opcode == 0 ? "funct_0x" + Integer.toHexString(funct) : "op_0x" + Integer.toHexString(opcode);
+        }
+        if (!first) sb.append(',');
+        sb.append('"').append(name).append("\":").append(count);
+        return false;
+    }
+}
@@ -2,6 +2,7 @@ package simulator.api.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import simulator.Breakpoints;
 import simulator.api.ServerContext;
 import simulator.api.utils.HttpUtils;
 
@@ -9,7 +10,8 @@ import java.io.IOException;
 import java.util.Map;
 
 /**
- * POST /api/step?cycles=1 -> advances the simulation by N clock cycles
+ * POST /api/step?cycles=1 -> advances the simulation by N clock cycles; a negative N rewinds up to N cycles;
+ * a run stops early after a cycle that hits a breakpoint or watchpoint
  */
 public class StepHandler implements HttpHandler {
 
@@ -30,11 +32,20 @@ public class StepHandler implements HttpHandler {
 
         try {
             Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
-            int cycles = Math.max(1, HttpUtils.parseIntOrDefault(params.get("cycles"), 1));
-
-            context.clock.run(cycles);
-
-            String json = String.format("{\"cycles\":%d}", cycles);
+            int cycles = HttpUtils.parseIntOrDefault(params.get("cycles"), 1);
+
+            Breakpoints.Hit hit = null;
+            if (cycles < 0) {
+                cycles = -context.clock.rewind(-cycles);
+            } else {
+                cycles = context.clock.run(Math.max(1, cycles));
+                hit = context.controller.getBreakpoints().getHit();
+            }
+
+            String json = hit == null
+                    ? String.format("{\"cycles\":%d}", cycles)
+                    : String.format("{\"cycles\":%d,\"stopped\":{\"kind\":\"%s\",\"address\":%d}}",
+                            cycles, hit.kind, hit.address);
             HttpUtils.sendJson(exchange, 200, json);
 
         } catch (Exception e) {
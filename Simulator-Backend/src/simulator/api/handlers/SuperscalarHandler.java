@@ -0,0 +1,94 @@
+package simulator.api.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.ProgramImage;
+import simulator.ProgramLoader;
+import simulator.SuperscalarController;
+import simulator.Workload;
+import simulator.api.ServerContext;
+import simulator.api.utils.HttpUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * POST /api/superscalar?maxCycles=1000000 -> runs the last assembled program on fresh scalar and
+ * dual-issue pipelines and compares cycles, IPC and final state. The interactive session is untouched.
+ */
+public class SuperscalarHandler implements HttpHandler {
+
+    private final ServerContext context;
+
+    public SuperscalarHandler(ServerContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (HttpUtils.handleCors(exchange)) return;
+
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            HttpUtils.sendError(exchange, 405, "Method not allowed");
+            return;
+        }
+
+        try {
+            ProgramImage program = context.program;
+            if (program == null) {
+                throw new IllegalArgumentException("No assembled program loaded");
+            }
+            Map<String, String> params = HttpUtils.parseQueryParams(exchange.getRequestURI());
+            int maxCycles = HttpUtils.parseInt(params, "maxCycles", 1_000_000);
+            if (maxCycles <= 0) {
+                throw new IllegalArgumentException("maxCycles must be positive");
+            }
+
+            CPUState scalarState = fresh(program);
+            PipelineController scalar = new PipelineController(scalarState);
+            scalar.setUndoDepth(0);
+            for (int i = 0; i < maxCycles && !scalar.isIdle(); i++) {
+                scalar.runCycle();
+                scalar.getHistory().clear();
+            }
+
+            CPUState dualState = fresh(program);
+            SuperscalarController dual = new SuperscalarController(dualState);
+            for (int i = 0; i < maxCycles && !dual.isIdle(); i++) {
+                dual.runCycle();
+                dual.getHistory().clear();
+            }
+
+            PerformanceCounters s = scalar.getCounters();
+            PerformanceCounters d = dual.getCounters();
+            String json = "{\"scalar\":" + toJson(s, scalar.isIdle())
+                    + ",\"dual\":" + toJson(d, dual.isIdle())
+                    + ",\"dualIssueCycles\":" + dual.getDualIssueCycles()
+                    + ",\"speedup\":" + (d.getCycles() == 0 ? 0.0 : (double) s.getCycles() / d.getCycles())
+                    + ",\"stateMatches\":" + (Workload.digest(scalarState) == Workload.digest(dualState)) + "}";
+            HttpUtils.sendJson(exchange, 200, json);
+
+        } catch (IllegalArgumentException e) {
+            HttpUtils.sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            HttpUtils.sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    static CPUState fresh(ProgramImage program) {
+        CPUState state = new CPUState(new InstructionMemory());
+        ProgramLoader.loadImage(state, program);
+        return state;
+    }
+
+    static String toJson(PerformanceCounters counters, boolean finished) {
+        return "{\"cycles\":" + counters.getCycles()
+                + ",\"retired\":" + counters.getRetired()
+                + ",\"ipc\":" + counters.getIpc()
+                + ",\"finished\":" + finished + "}";
+    }
+}
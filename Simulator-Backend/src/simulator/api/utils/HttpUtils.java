@@ -7,6 +7,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
@@ -50,6 +53,24 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * Reads the request body into a buffer sized from Content-Length when the client sends one.
+     */
+    public static ByteBuffer readBodyBuffer(HttpExchange exchange) throws IOException {
+        long length = parseLongOrDefault(exchange.getRequestHeaders().getFirst("Content-Length"), -1);
+        try (InputStream is = exchange.getRequestBody()) {
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                return ByteBuffer.wrap(is.readAllBytes());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            ReadableByteChannel channel = Channels.newChannel(is);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) break;
+            }
+            return buffer.flip();
+        }
+    }
+
     public static void sendText(HttpExchange exchange, int statusCode, String body) throws IOException {
         byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
@@ -68,6 +89,14 @@ public class HttpUtils {
         }
     }
 
+    public static void sendBytes(HttpExchange exchange, int statusCode, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
     public static void sendError(HttpExchange exchange, int statusCode, String errorMessage) throws IOException {
         String json = "{\"error\":\"" + jsonEscape(errorMessage) + "\"}";
         sendJson(exchange, statusCode, json);
@@ -84,6 +113,31 @@ public class HttpUtils {
         }
     }
 
+    /** Reads an int parameter, or defaultValue when absent; a malformed value is an IllegalArgumentException. */
+    public static int parseInt(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        return value == null ? defaultValue : parseInt(name, value);
+    }
+
+    public static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static long parseLongOrDefault(String value, long defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     public static boolean parseBoolean(String value) {
         return value != null &&
                 ("1".equals(value) || "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value));
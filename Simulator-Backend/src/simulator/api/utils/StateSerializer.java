@@ -123,6 +123,8 @@ public class StateSerializer {
 			sb.append("\"EX\":").append(stageInfoToJson(snap.getExStage(), currentRegs.EX_MEM, "EX_MEM")).append(',');
 			sb.append("\"MEM\":").append(stageInfoToJson(snap.getMemStage(), currentRegs.MEM_WB, "MEM_WB")).append(',');
 			sb.append("\"WB\":").append(stageInfoToJson(snap.getWbStage(), null, "WB"));
+			appendSplitStages(sb, "IF", snap.getSplitFetchStages(), snap.getIfStage());
+			appendSplitStages(sb, "MEM", snap.getSplitMemoryStages(), snap.getMemStage());
 			sb.append('}');
 		}
 
@@ -130,6 +132,18 @@ public class StateSerializer {
 		return sb.toString();
 	}
 
+	/**
+	 * A split group also gets a key per stage as PipelineLayout names them, IF1 to IFn; the plain
+	 * IF or MEM key stays the last stage of its group.
+	 */
+	private static void appendSplitStages(StringBuilder sb, String group, StageInfo[] split, StageInfo last) {
+		if (split.length == 0) return;
+		for (int i = 0; i < split.length; i++) {
+			sb.append(",\"").append(group).append(i + 1).append("\":").append(stageInfoToJson(split[i], null, group));
+		}
+		sb.append(",\"").append(group).append(split.length + 1).append("\":").append(stageInfoToJson(last, null, group));
+	}
+
 	private static String stageInfoToJson(StageInfo info, Object register, String stageType) {
 		if (info == null) return "null";
 
@@ -218,7 +232,7 @@ public class StateSerializer {
 		return sb.toString();
 	}
 
-	private static String instructionToAssembly(Instruction instr) {
+	public static String instructionToAssembly(Instruction instr) {
 		if (instr == null) return null;
 
 		instr.decodeFields();
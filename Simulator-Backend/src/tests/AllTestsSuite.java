@@ -8,20 +8,38 @@ import org.junit.platform.suite.api.SuiteDisplayName;
 @SuiteDisplayName("MIPS Simulator Testing")
 @SelectClasses({
     AssemblerTest.class,
+    BinaryLoaderTest.class,
+    BranchPredictionTest.class,
+    BreakpointsTest.class,
+    CacheTest.class,
+    CheckpointTest.class,
     ClockTest.class,
     ControlUnitTest.class,
     CPUStateTest.class,
     DataMemoryTest.class,
+    EarlyBranchTest.class,
     ForwardingUnitTest.class,
     HazardDetectionUnitTest.class,
+    IncrementalAssemblerTest.class,
     InstructionMemoryTest.class,
     InstructionTest.class,
     MIPSTest.class,
+    MulticoreTest.class,
+    OutOfOrderTest.class,
+    PerformanceCountersTest.class,
     PipelineControllerTest.class,
+    PipelineDepthTest.class,
     PipelineStagesTest.class,
+    ProfilerTest.class,
+    ProgramCacheTest.class,
     ProgramCounterTest.class,
     RegisterFileTest.class,
-    StallUnitTest.class
+    SegmentDataMemoryTest.class,
+    StallUnitTest.class,
+    StreamingAssemblerTest.class,
+    SuperscalarTest.class,
+    TimelineTest.class,
+    WorkloadTest.class
 })
 public class AllTestsSuite {}
 
@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
-import simulator.Assembler;
+import simulator.StreamingAssembler;
 
 public class AssemblerTest {
 
@@ -25,19 +25,19 @@ public class AssemblerTest {
                 "srl $t1, $s2, 3"        // Shift right logical: $t1 = $s2 >>> 3
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(9, result.machineCode.size(), "Should assemble 9 instructions");
-        assertEquals(0x02324020, result.machineCode.get(0)); // add $t0, $s1, $s2
-        assertEquals(0x014B4822, result.machineCode.get(1)); // sub $t1, $t2, $t3
-        assertEquals(0x00851024, result.machineCode.get(2)); // and $v0, $a0, $a1
-        assertEquals(0x00C71825, result.machineCode.get(3)); // or $v1, $a2, $a3
-        assertEquals(0x02328026, result.machineCode.get(4)); // xor $s0, $s1, $s2
-        assertEquals(0x02959827, result.machineCode.get(5)); // nor $s3, $s4, $s5
-        assertEquals(0x01AE602A, result.machineCode.get(6)); // slt $t4, $t5, $t6
-        assertEquals(0x00114140, result.machineCode.get(7)); // sll $t0, $s1, 5
-        assertEquals(0x001248C2, result.machineCode.get(8)); // srl $t1, $s2, 3
+        assertEquals(9, result.machineCode.length, "Should assemble 9 instructions");
+        assertEquals(0x02324020, result.machineCode[0]); // add $t0, $s1, $s2
+        assertEquals(0x014B4822, result.machineCode[1]); // sub $t1, $t2, $t3
+        assertEquals(0x00851024, result.machineCode[2]); // and $v0, $a0, $a1
+        assertEquals(0x00C71825, result.machineCode[3]); // or $v1, $a2, $a3
+        assertEquals(0x02328026, result.machineCode[4]); // xor $s0, $s1, $s2
+        assertEquals(0x02959827, result.machineCode[5]); // nor $s3, $s4, $s5
+        assertEquals(0x01AE602A, result.machineCode[6]); // slt $t4, $t5, $t6
+        assertEquals(0x00114140, result.machineCode[7]); // sll $t0, $s1, 5
+        assertEquals(0x001248C2, result.machineCode[8]); // srl $t1, $s2, 3
     }
 
     @Test
@@ -51,20 +51,20 @@ public class AssemblerTest {
                 "slti $t5, $s6, 10"       // opcode=0x0A, rs=22, rt=13, imm=10
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(5, result.machineCode.size(), "Should assemble 5 instructions");
+        assertEquals(5, result.machineCode.length, "Should assemble 5 instructions");
         // addi $t0, $s1, 100: 0x08 | 17<<21 | 8<<16 | 100 = 0x22280064
-        assertEquals(0x22280064, result.machineCode.get(0));
+        assertEquals(0x22280064, result.machineCode[0]);
         // addi $t1, $s2, -50: 0x08 | 18<<21 | 9<<16 | 0xFFCE = 0x2249FFCE
-        assertEquals(0x2249FFCE, result.machineCode.get(1));
+        assertEquals(0x2249FFCE, result.machineCode[1]);
         // andi $t3, $s4, 0xFF: 0x0C | 20<<21 | 11<<16 | 0xFF = 0x328B00FF
-        assertEquals(0x328B00FF, result.machineCode.get(2));
+        assertEquals(0x328B00FF, result.machineCode[2]);
         // ori $t4, $s5, 0x55: 0x0D | 21<<21 | 12<<16 | 0x55 = 0x36AC0055
-        assertEquals(0x36AC0055, result.machineCode.get(3));
+        assertEquals(0x36AC0055, result.machineCode[3]);
         // slti $t5, $s6, 10: 0x0A | 22<<21 | 13<<16 | 10 = 0x2ACD000A
-        assertEquals(0x2ACD000A, result.machineCode.get(4));
+        assertEquals(0x2ACD000A, result.machineCode[4]);
     }
 
     @Test
@@ -77,14 +77,14 @@ public class AssemblerTest {
                 "sw $t3, 0xFF($s4)"       // opcode=0x2B, rs=20, rt=11, offset=0xFF
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(4, result.machineCode.size(), "Should assemble 4 instructions");
-        assertEquals(0x8E280064, result.machineCode.get(0)); // lw $t0, 100($s1)
-        assertEquals(0xAE49FFCE, result.machineCode.get(1)); // sw $t1, -50($s2)
-        assertEquals(0x8E6A007F, result.machineCode.get(2)); // lw $t2, 0x7F($s3)
-        assertEquals(0xAE8B00FF, result.machineCode.get(3)); // sw $t3, 0xFF($s4)
+        assertEquals(4, result.machineCode.length, "Should assemble 4 instructions");
+        assertEquals(0x8E280064, result.machineCode[0]); // lw $t0, 100($s1)
+        assertEquals(0xAE49FFCE, result.machineCode[1]); // sw $t1, -50($s2)
+        assertEquals(0x8E6A007F, result.machineCode[2]); // lw $t2, 0x7F($s3)
+        assertEquals(0xAE8B00FF, result.machineCode[3]); // sw $t3, 0xFF($s4)
     }
 
     @Test
@@ -103,20 +103,20 @@ public class AssemblerTest {
                 "sw $t1, 0($sp)"              // Address: 0x00400018
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(7, result.machineCode.size(), "Should assemble 7 instructions");
+        assertEquals(7, result.machineCode.length, "Should assemble 7 instructions");
 
         // beq $t0, $zero, end
         // Offset = (0x00400018 - (0x00400008 + 4)) / 4 = 0xC / 4 = 3
-        int beqInstruction = result.machineCode.get(2);
+        int beqInstruction = result.machineCode[2];
         int beqOffset = beqInstruction & 0xFFFF;
         assertEquals(3, beqOffset, "beq offset should be 3");
 
         // bne $t0, $zero, loop
         // Offset = (0x00400008 - (0x00400014 + 4)) / 4 = -0x10 / 4 = -4 = 0xFFFC
-        int bneInstruction = result.machineCode.get(5);
+        int bneInstruction = result.machineCode[5];
         int bneOffset = bneInstruction & 0xFFFF;
         assertEquals(0xFFFC, bneOffset, "bne offset should be 0xFFFC (-4)");
     }
@@ -135,17 +135,17 @@ public class AssemblerTest {
                 "end:"                        // Address: 0x00400014
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
 
         // j main: target = 0x00400008 / 4 = 0x100002
-        int jInstruction = result.machineCode.get(0);
+        int jInstruction = result.machineCode[0];
         assertEquals(0x02, (jInstruction >> 26) & 0x3F, "j opcode should be 0x02");
         assertEquals(0x100002, jInstruction & 0x3FFFFFF, "j target should be 0x100002");
 
         // jal subroutine: target = 0x00400010 / 4 = 0x100004
-        int jalInstruction = result.machineCode.get(2);
+        int jalInstruction = result.machineCode[2];
         assertEquals(0x03, (jalInstruction >> 26) & 0x3F, "jal opcode should be 0x03");
         assertEquals(0x100004, jalInstruction & 0x3FFFFFF, "jal target should be 0x100004");
     }
@@ -160,12 +160,12 @@ public class AssemblerTest {
                 "lw $24, 100($28)"       // $24 = $t8, $28 = $gp
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(4, result.machineCode.size(), "Should assemble 4 instructions");
-        assertEquals(0x02324020, result.machineCode.get(0));
-        assertEquals(0x02324020, result.machineCode.get(1));
+        assertEquals(4, result.machineCode.length, "Should assemble 4 instructions");
+        assertEquals(0x02324020, result.machineCode[0]);
+        assertEquals(0x02324020, result.machineCode[1]);
     }
 
     @Test
@@ -178,19 +178,19 @@ public class AssemblerTest {
                 "addi $t3, $zero, -1"      // Negative decimal
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(4, result.machineCode.size(), "Should assemble 4 instructions");
+        assertEquals(4, result.machineCode.length, "Should assemble 4 instructions");
 
         // addi $t0, $zero, 100: imm = 0x0064
-        assertEquals(0x20080064, result.machineCode.get(0));
+        assertEquals(0x20080064, result.machineCode[0]);
         // addi $t1, $zero, 0x64: imm = 0x0064 (same as 100)
-        assertEquals(0x20090064, result.machineCode.get(1));
+        assertEquals(0x20090064, result.machineCode[1]);
         // addi $t2, $zero, 0xFF: imm = 0x00FF
-        assertEquals(0x200A00FF, result.machineCode.get(2));
+        assertEquals(0x200A00FF, result.machineCode[2]);
         // addi $t3, $zero, -1: imm = 0xFFFF
-        assertEquals(0x200BFFFF, result.machineCode.get(3));
+        assertEquals(0x200BFFFF, result.machineCode[3]);
     }
 
     @Test
@@ -205,14 +205,14 @@ public class AssemblerTest {
                 "and $v0, $a0, $a1  "
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(3, result.machineCode.size(), "Should assemble 3 instructions (ignoring comments/empty lines)");
+        assertEquals(3, result.machineCode.length, "Should assemble 3 instructions (ignoring comments/empty lines)");
 
-        assertEquals(0x02324020, result.machineCode.get(0)); // add
-        assertEquals(0x014B4822, result.machineCode.get(1)); // sub
-        assertEquals(0x00851024, result.machineCode.get(2)); // and
+        assertEquals(0x02324020, result.machineCode[0]); // add
+        assertEquals(0x014B4822, result.machineCode[1]); // sub
+        assertEquals(0x00851024, result.machineCode[2]); // and
     }
 
     @Test
@@ -224,14 +224,14 @@ public class AssemblerTest {
                 "lW $T2, 100($S3)"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(3, result.machineCode.size(), "Should assemble 3 instructions");
+        assertEquals(3, result.machineCode.length, "Should assemble 3 instructions");
 
-        assertEquals(0x02324020, result.machineCode.get(0)); // ADD
-        assertEquals(0x20090064, result.machineCode.get(1)); // Addi
-        assertEquals(0x8E6A0064, result.machineCode.get(2)); // lW
+        assertEquals(0x02324020, result.machineCode[0]); // ADD
+        assertEquals(0x20090064, result.machineCode[1]); // Addi
+        assertEquals(0x8E6A0064, result.machineCode[2]); // lW
     }
 
     @Test
@@ -243,12 +243,14 @@ public class AssemblerTest {
                 "sub $t3, $t4, $t5"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertFalse(result.errors.isEmpty(), "Should have errors");
         assertTrue(result.errors.get(0).contains("Unknown instruction"),
                 "Error should mention unknown instruction");
-        assertEquals(2, result.machineCode.size(), "Should assemble valid instructions");
+        assertEquals(3, result.machineCode.length, "Failed line should keep its slot");
+        assertEquals(0, result.machineCode[1], "Failed line should assemble to a zero word");
+        assertEquals(0x018D5822, result.machineCode[2]); // sub $t3, $t4, $t5
     }
 
     @Test
@@ -260,7 +262,7 @@ public class AssemblerTest {
                 "addi $t3, $invalid, 100"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertFalse(result.errors.isEmpty(), "Should have errors");
         assertEquals(2, result.errors.size(), "Should have 2 errors");
@@ -278,7 +280,7 @@ public class AssemblerTest {
                 "j"                       // Missing address
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertFalse(result.errors.isEmpty(), "Should have errors");
         assertEquals(4, result.errors.size(), "Should have 4 errors");
@@ -293,7 +295,7 @@ public class AssemblerTest {
                 "addi $t2, $s3, 0xGGG"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertFalse(result.errors.isEmpty(), "Should have errors");
         assertEquals(3, result.errors.size(), "Should have 3 errors");
@@ -308,7 +310,7 @@ public class AssemblerTest {
                 "beq $t0, $t1, undefined_label"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
         assertFalse(result.errors.isEmpty(), "Should have error for non-existent label treated as immediate");
         assertTrue(result.errors.get(0).contains("Invalid immediate"),
                 "Error should indicate invalid immediate value");
@@ -318,10 +320,10 @@ public class AssemblerTest {
     @DisplayName("Test empty input")
     void testEmptyInput() {
         String[] empty = {};
-        Assembler.AssemblyResult result = Assembler.assemble(empty, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", empty), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Empty array should have no errors");
-        assertTrue(result.machineCode.isEmpty(), "Empty array should produce no code");
+        assertTrue(result.machineCode.length == 0, "Empty array should produce no code");
     }
 
     @Test
@@ -341,9 +343,9 @@ public class AssemblerTest {
                 "    sw $t1, 0($sp)"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
         assertTrue(result.errors.isEmpty(), "Should have no errors: " + result.errors);
-        assertEquals(7, result.machineCode.size(), "Should assemble 7 instructions");
+        assertEquals(7, result.machineCode.length, "Should assemble 7 instructions");
     }
 
     @Test
@@ -356,14 +358,14 @@ public class AssemblerTest {
                 "sw $t3, -50 ( $s4 )"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should handle parentheses variations: " + result.errors);
-        assertEquals(4, result.machineCode.size(), "Should assemble 4 instructions");
-        assertEquals(0x8E280064, result.machineCode.get(0)); // lw $t0, 100($s1)
-        assertEquals(0x8E490064, result.machineCode.get(1)); // lw $t1, 100($s2)
-        assertEquals(0x8E6A0064, result.machineCode.get(2)); // lw $t2, 100($s3)
-        assertEquals(0xAE8BFFCE, result.machineCode.get(3)); // sw $t3, -50($s4)
+        assertEquals(4, result.machineCode.length, "Should assemble 4 instructions");
+        assertEquals(0x8E280064, result.machineCode[0]); // lw $t0, 100($s1)
+        assertEquals(0x8E490064, result.machineCode[1]); // lw $t1, 100($s2)
+        assertEquals(0x8E6A0064, result.machineCode[2]); // lw $t2, 100($s3)
+        assertEquals(0xAE8BFFCE, result.machineCode[3]); // sw $t3, -50($s4)
     }
 
     @Test
@@ -376,11 +378,11 @@ public class AssemblerTest {
                 "addi $t1, $zero, 2"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should handle forward references: " + result.errors);
-        assertEquals(3, result.machineCode.size(), "Should assemble 3 instructions");
-        int jInstruction = result.machineCode.get(0);
+        assertEquals(3, result.machineCode.length, "Should assemble 3 instructions");
+        int jInstruction = result.machineCode[0];
         assertEquals(0x100002, jInstruction & 0x3FFFFFF, "Should correctly resolve forward reference");
     }
 
@@ -393,11 +395,11 @@ public class AssemblerTest {
                 "j start"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should handle backward references: " + result.errors);
-        assertEquals(2, result.machineCode.size(), "Should assemble 2 instructions");
-        int jInstruction = result.machineCode.get(1);
+        assertEquals(2, result.machineCode.length, "Should assemble 2 instructions");
+        int jInstruction = result.machineCode[1];
         assertEquals(0x100000, jInstruction & 0x3FFFFFF, "Should correctly resolve backward reference");
     }
 
@@ -415,10 +417,10 @@ public class AssemblerTest {
         sb.append("    addi $t0, $zero, 1\n");
 
         String[] assembly = sb.toString().split("\n");
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should handle large offsets: " + result.errors);
-        int beqInstruction = result.machineCode.get(0);
+        int beqInstruction = result.machineCode[0];
         int offset = beqInstruction & 0xFFFF;
         assertEquals(100, offset, "Branch offset should be 100");
     }
@@ -431,11 +433,11 @@ public class AssemblerTest {
                 "j start"
         };
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         assertTrue(result.errors.isEmpty(), "Should handle label on same line: " + result.errors);
-        assertEquals(2, result.machineCode.size(), "Should assemble 2 instructions");
-        int jInstruction = result.machineCode.get(1);
+        assertEquals(2, result.machineCode.length, "Should assemble 2 instructions");
+        int jInstruction = result.machineCode[1];
         assertEquals(0x100000, jInstruction & 0x3FFFFFF, "Should resolve label correctly");
     }
 
@@ -444,13 +446,13 @@ public class AssemblerTest {
     void debugITypeAssembler() {
         String[] assembly = {"addi $t0, $s1, 100"};
 
-        Assembler.AssemblyResult result = Assembler.assemble(assembly, START_ADDRESS);
+        StreamingAssembler.Result result = StreamingAssembler.assemble(String.join("\n", assembly), START_ADDRESS);
 
         System.out.println("Testing: addi $t0, $s1, 100");
         System.out.println("Errors: " + result.errors);
 
-        if (result.machineCode.size() > 0) {
-            int instr = result.machineCode.get(0);
+        if (result.machineCode.length > 0) {
+            int instr = result.machineCode[0];
             System.out.println("Generated: 0x" + Integer.toHexString(instr));
 
             int expected = (0x08 << 26) | (17 << 21) | (8 << 16) | 100;
@@ -0,0 +1,216 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulator.BinaryLoader;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryLoaderTest {
+
+    private CPUState cpuState;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        cpuState = new CPUState(new InstructionMemory());
+    }
+
+    @Test
+    void testLoadRawImage() {
+        ByteBuffer image = words(ByteOrder.BIG_ENDIAN,
+                0x2008000A,  // addi $t0, $zero, 10
+                0x20090005); // addi $t1, $zero, 5
+
+        ProgramLoader.ProgramLoadResult result = BinaryLoader.loadRawImage(cpuState, image, 8);
+
+        assertEquals(2, result.loadedCount);
+        assertEquals(8, result.startAddress);
+        assertEquals(12, result.endAddress);
+        assertEquals(0x2008000A, cpuState.instructionMemory.fetch(8).getBinary());
+        assertEquals(0x20090005, cpuState.instructionMemory.fetch(12).getBinary());
+        assertEquals(8, cpuState.pc.get());
+    }
+
+    @Test
+    void testRawImageWithTrailingBytesWarns() {
+        ByteBuffer image = ByteBuffer.wrap(new byte[]{0x20, 0x08, 0x00, 0x0A, 0x01});
+
+        ProgramLoader.ProgramLoadResult result = BinaryLoader.loadRawImage(cpuState, image, 0);
+
+        assertEquals(1, result.loadedCount);
+        assertEquals(1, result.warnings.size());
+    }
+
+    @Test
+    void testLoadBigEndianElf() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 4,
+                new int[]{0x8C080100, 0x21080001}, // lw $t0, 0x100($zero); addi $t0, $t0, 1
+                0x100, new int[]{41});
+
+        ProgramLoader.ProgramLoadResult result = BinaryLoader.loadElf(cpuState, elf);
+
+        assertEquals(2, result.loadedCount);
+        assertEquals(0x8C080100, cpuState.instructionMemory.fetch(0).getBinary());
+        assertEquals(41, cpuState.dataMemory.loadWord(0x100));
+        assertEquals(4, cpuState.pc.get(), "PC should be set to the ELF entry point");
+    }
+
+    @Test
+    void testLoadLittleEndianElf() {
+        ByteBuffer elf = buildElf(ByteOrder.LITTLE_ENDIAN, 0,
+                new int[]{0x2008000A}, 0x40, new int[]{0x12345678});
+
+        BinaryLoader.loadElf(cpuState, elf);
+
+        assertEquals(0x2008000A, cpuState.instructionMemory.fetch(0).getBinary());
+        assertEquals(0x12345678, cpuState.dataMemory.loadWord(0x40));
+    }
+
+    @Test
+    void testElfProgramRuns() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 0,
+                new int[]{0x8C080100, 0x21080001}, 0x100, new int[]{41});
+        BinaryLoader.loadElf(cpuState, elf);
+
+        PipelineController controller = new PipelineController(cpuState);
+        for (int i = 0; i < 8; i++) {
+            controller.runCycle();
+        }
+
+        assertEquals(42, cpuState.registerFile.get(8), "$t0 should be the loaded word plus one");
+    }
+
+    @Test
+    void testElfTextPastInstructionMemoryIsMovedToZero() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 0x400004, 0x400000,
+                new int[]{
+                        0x20090001,  // addi $t1, $zero, 1
+                        0x08100003,  // j 0x40000C
+                        0x20080063,  // addi $t0, $zero, 99 (skipped)
+                        0x21290001,  // addi $t1, $t1, 1
+                        0x0C000000}, // jal 0, outside the segment: left alone
+                0x100, new int[]{7});
+
+        ProgramLoader.ProgramLoadResult result = BinaryLoader.loadElf(cpuState, elf);
+
+        assertEquals(0, result.startAddress);
+        assertEquals(4, cpuState.pc.get(), "Entry point should move with the text");
+        assertEquals(0x08000003, cpuState.instructionMemory.fetch(4).getBinary(), "j should target the moved code");
+        assertEquals(0x0C000000, cpuState.instructionMemory.fetch(16).getBinary());
+        assertEquals(7, cpuState.dataMemory.loadWord(0x100));
+        assertEquals(1, result.warnings.size());
+
+        PipelineController controller = new PipelineController(cpuState);
+        for (int i = 0; i < 8; i++) {
+            controller.runCycle();
+        }
+        assertEquals(0, cpuState.registerFile.get(8), "The jump should skip the instruction after it");
+        assertEquals(1, cpuState.registerFile.get(9), "Execution should start at the entry point");
+    }
+
+    @Test
+    void testResizeMemoryFitsElfSegments() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 0x2000, 0x2000,
+                new int[]{0x2008000A}, 0x10000, new int[]{41});
+
+        assertTrue(ProgramLoader.resizeMemory(cpuState, 4096, 0x8000));
+        assertFalse(ProgramLoader.resizeMemory(cpuState, 4096, 0x8000));
+        ProgramLoader.ProgramLoadResult result = BinaryLoader.loadElf(cpuState, elf);
+
+        assertTrue(result.warnings.isEmpty(), "Warnings: " + result.warnings);
+        assertEquals(0x2008000A, cpuState.instructionMemory.fetch(0x2000).getBinary());
+        assertEquals(41, cpuState.dataMemory.loadWord(0x10000));
+        assertThrows(IllegalArgumentException.class, () -> ProgramLoader.resizeMemory(cpuState, 0, 1024));
+    }
+
+    @Test
+    void testRejectsNonMipsElf() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 0, new int[]{0}, 0, new int[0]);
+        elf.putShort(18, (short) 3); // EM_386
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryLoader.loadElf(cpuState, elf));
+    }
+
+    @Test
+    void testRejectsShortProgramHeaders() {
+        ByteBuffer elf = buildElf(ByteOrder.BIG_ENDIAN, 0, new int[]{0x2008000A}, 0, new int[0]);
+        elf.putShort(42, (short) 16);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BinaryLoader.loadElf(cpuState, elf));
+        assertTrue(e.getMessage().contains("too small"), e.getMessage());
+    }
+
+    @Test
+    void testLoadFileDetectsFormat() throws Exception {
+        Path raw = tempDir.resolve("prog.bin");
+        Files.write(raw, words(ByteOrder.BIG_ENDIAN, 0x2008000A).array());
+        Path elf = tempDir.resolve("prog.elf");
+        Files.write(elf, buildElf(ByteOrder.BIG_ENDIAN, 0, new int[]{0x20090005}, 0, new int[0]).array());
+
+        BinaryLoader.loadFile(cpuState, raw, 0);
+        assertEquals(0x2008000A, cpuState.instructionMemory.fetch(0).getBinary());
+
+        BinaryLoader.loadFile(cpuState, elf, 0);
+        assertEquals(0x20090005, cpuState.instructionMemory.fetch(0).getBinary());
+    }
+
+    private static ByteBuffer words(ByteOrder order, int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(order);
+        for (int v : values) buffer.putInt(v);
+        return buffer.flip();
+    }
+
+    private static ByteBuffer buildElf(ByteOrder order, int entry, int[] text, int dataAddress, int[] data) {
+        return buildElf(order, entry, 0, text, dataAddress, data);
+    }
+
+    private static ByteBuffer buildElf(ByteOrder order, int entry, int textAddress, int[] text,
+                                       int dataAddress, int[] data) {
+        int phoff = 52;
+        int textOffset = phoff + 2 * 32;
+        int dataOffset = textOffset + text.length * 4;
+        ByteBuffer elf = ByteBuffer.allocate(dataOffset + data.length * 4).order(order);
+
+        elf.put(new byte[]{0x7F, 'E', 'L', 'F', 1, (byte) (order == ByteOrder.BIG_ENDIAN ? 2 : 1), 1});
+        elf.putShort(16, (short) 2);   // ET_EXEC
+        elf.putShort(18, (short) 8);   // EM_MIPS
+        elf.putInt(20, 1);
+        elf.putInt(24, entry);
+        elf.putInt(28, phoff);
+        elf.putShort(40, (short) 52);
+        elf.putShort(42, (short) 32);
+        elf.putShort(44, (short) 2);
+
+        putProgramHeader(elf, phoff, textOffset, textAddress, text.length * 4, 0x5); // R+X
+        putProgramHeader(elf, phoff + 32, dataOffset, dataAddress, data.length * 4, 0x6); // R+W
+
+        elf.position(textOffset);
+        for (int w : text) elf.putInt(w);
+        for (int w : data) elf.putInt(w);
+        return elf.clear();
+    }
+
+    private static void putProgramHeader(ByteBuffer elf, int at, int offset, int vaddr, int size, int flags) {
+        elf.putInt(at, 1);             // PT_LOAD
+        elf.putInt(at + 4, offset);
+        elf.putInt(at + 8, vaddr);
+        elf.putInt(at + 12, vaddr);
+        elf.putInt(at + 16, size);
+        elf.putInt(at + 20, size);
+        elf.putInt(at + 24, flags);
+        elf.putInt(at + 28, 4);
+    }
+}
@@ -0,0 +1,149 @@
+package tests;
+
+import model.control.prediction.*;
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.Test;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+import static tests.TestPrograms.runToIdle;
+
+class BranchPredictionTest {
+
+    private static final String[] LOOP = {
+            "addi $t0, $zero, 20",
+            "loop: addi $t0, $t0, -1",
+            "bne $t0, $zero, loop",
+            "addi $t1, $zero, 7"
+    };
+
+    @Test
+    void testStaticPredictors() {
+        assertFalse(BranchPredictor.create("not-taken", 16).predict(8, 0));
+        assertTrue(BranchPredictor.create("taken", 16).predict(8, 64));
+
+        BranchPredictor btfn = BranchPredictor.create("btfn", 16);
+        assertTrue(btfn.predict(8, 4), "Backward");
+        assertFalse(btfn.predict(8, 12), "Forward");
+    }
+
+    @Test
+    void testCounterHysteresis() {
+        CounterPredictor oneBit = new CounterPredictor(1, 16);
+        CounterPredictor twoBit = new CounterPredictor(2, 16);
+        for (BranchPredictor p : new BranchPredictor[]{oneBit, twoBit}) {
+            p.update(8, true);
+            p.update(8, true);
+            p.update(8, false);
+        }
+        assertFalse(oneBit.predict(8, 0), "One-bit follows the last outcome");
+        assertTrue(twoBit.predict(8, 0), "Two-bit needs two mispredictions to flip");
+        assertFalse(twoBit.predict(12, 0), "Other entries untouched");
+    }
+
+    @Test
+    void testGshareLearnsAlternatingPattern() {
+        BranchPredictor bimodal = new CounterPredictor(2, 64);
+        BranchPredictor gshare = new GsharePredictor(64);
+        BranchPredictor tournament = new TournamentPredictor(64);
+        int[] wrong = new int[3];
+        BranchPredictor[] predictors = {bimodal, gshare, tournament};
+
+        for (int i = 0; i < 200; i++) {
+            boolean taken = (i & 1) == 0;
+            for (int p = 0; p < predictors.length; p++) {
+                if (i >= 100 && predictors[p].predict(40, 0) != taken) wrong[p]++;
+                predictors[p].update(40, taken);
+            }
+        }
+        assertTrue(wrong[0] >= 50, "Bimodal cannot follow T,N,T,N: " + wrong[0]);
+        assertEquals(0, wrong[1]);
+        assertEquals(0, wrong[2], "Tournament settles on gshare");
+    }
+
+    @Test
+    void testBranchTargetBuffer() {
+        BranchTargetBuffer btb = new BranchTargetBuffer(4);
+        assertEquals(BranchTargetBuffer.MISS, btb.lookup(8));
+        btb.update(8, 100);
+        assertEquals(100, btb.lookup(8));
+        assertEquals(BranchTargetBuffer.MISS, btb.lookup(24), "Same entry, different tag");
+        btb.update(24, 200);
+        assertEquals(BranchTargetBuffer.MISS, btb.lookup(8));
+
+        BranchTargetBuffer copy = btb.copy();
+        btb.reset();
+        assertEquals(200, copy.lookup(24));
+        assertThrows(IllegalArgumentException.class, () -> new BranchTargetBuffer(6));
+        assertThrows(IllegalArgumentException.class, () -> BranchPredictor.create("perceptron", 16));
+    }
+
+    @Test
+    void testPredictionCutsFlushes() {
+        PipelineController plain = controller(LOOP);
+        int plainCycles = runToIdle(plain);
+        PerformanceCounters base = plain.getCounters();
+        assertEquals(20, base.getBranches());
+        assertEquals(19, base.getMispredictions(), "Every taken branch mispredicted without a predictor");
+
+        PipelineController predicted = controller(LOOP);
+        predicted.setBranchPrediction(new CounterPredictor(2, 64), new BranchTargetBuffer(16));
+        int cycles = runToIdle(predicted);
+        PerformanceCounters counters = predicted.getCounters();
+
+        assertEquals(2, counters.getMispredictions(), "First taken branch misses the BTB, the exit mispredicts");
+        assertEquals(plainCycles - 2 * 17, cycles);
+        assertEquals(0.9, counters.getBranchAccuracy(), 1e-9);
+        assertEquals(2000.0 / 42, counters.getMpki(), 1e-9);
+        assertEquals(7, predicted.getCpuState().registerFile.get(9));
+    }
+
+    @Test
+    void testWorkloadsUnchangedByPrediction() {
+        for (String name : new String[]{"not-taken", "taken", "btfn", "1bit", "2bit", "gshare", "tournament"}) {
+            for (Workload workload : new Workload[]{Workload.BUBBLE_SORT, Workload.LINKED_LIST}) {
+                CPUState cpuState = new CPUState(new InstructionMemory());
+                ProgramLoader.loadFromAssembly(cpuState, workload.source(), 0);
+                PipelineController controller = new PipelineController(cpuState);
+                controller.setUndoDepth(0);
+                controller.setBranchPrediction(BranchPredictor.create(name, 256), new BranchTargetBuffer(64));
+
+                int cycles = runToIdle(controller);
+                assertEquals(workload.getExpectedDigest(), Workload.digest(cpuState), name + " " + workload.getName());
+                if (name.equals("2bit") || name.equals("gshare") || name.equals("tournament")) {
+                    assertTrue(cycles <= workload.getExpectedCycles(), name + " " + workload.getName());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testStepBackRestoresPredictorState() {
+        PipelineController straight = predictedSort();
+        for (int i = 0; i < 300; i++) straight.runCycle();
+        long mispredictionsAt300 = straight.getCounters().getMispredictions();
+        int cycles = 300 + runToIdle(straight);
+
+        PipelineController rewound = predictedSort();
+        for (int i = 0; i < 600; i++) rewound.runCycle();
+        assertEquals(300, rewound.stepBack(300));
+        assertEquals(mispredictionsAt300, rewound.getCounters().getMispredictions());
+        assertEquals(cycles, 300 + runToIdle(rewound));
+        assertEquals(straight.getCounters().getMispredictions(), rewound.getCounters().getMispredictions());
+        assertEquals(Workload.digest(straight.getCpuState()), Workload.digest(rewound.getCpuState()));
+
+        rewound.setBranchPrediction(null, null);
+        assertEquals(0, rewound.getUndoAvailable(), "A new predictor cannot replay the old one's cycles");
+    }
+
+    private static PipelineController predictedSort() {
+        PipelineController controller = controller(Workload.BUBBLE_SORT.source());
+        controller.setBranchPrediction(new TournamentPredictor(64), new BranchTargetBuffer(16));
+        return controller;
+    }
+}
@@ -0,0 +1,181 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import simulator.Breakpoints;
+import simulator.Clock;
+import simulator.Condition;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreakpointsTest {
+
+    private static final String[] PROGRAM = {
+            "addi $t0, $zero, 20",
+            "loop: sw $t0, 0($t1)",
+            "lw $t2, 0($t1)",
+            "add $t3, $t3, $t2",
+            "addi $t1, $t1, 4",
+            "addi $t0, $t0, -1",
+            "bne $t0, $zero, loop"
+    };
+
+    private CPUState cpuState;
+    private PipelineController controller;
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, PROGRAM, 0);
+        controller = new PipelineController(cpuState);
+        clock = new Clock(controller);
+    }
+
+    @Test
+    void testRunStopsWhenBreakpointRetires() {
+        controller.getBreakpoints().addBreakpoint(4);
+
+        // Fetched in cycle 2, written back in cycle 6
+        assertEquals(6, clock.run(100));
+        Breakpoints.Hit hit = controller.getBreakpoints().getHit();
+        assertEquals(Breakpoints.Kind.BREAKPOINT, hit.kind);
+        assertEquals(4, hit.address);
+
+        // The next run stops when the loop comes back around
+        int cycles = clock.run(100);
+        assertTrue(cycles > 1 && cycles < 100);
+        assertEquals(4, controller.getBreakpoints().getHit().address);
+    }
+
+    @Test
+    void testWrongPathFetchDoesNotHit() {
+        cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, new String[]{
+                "beq $zero, $zero, skip",
+                "addi $t0, $zero, 1",
+                "skip: addi $t1, $zero, 2"
+        }, 0);
+        controller = new PipelineController(cpuState);
+        clock = new Clock(controller);
+        controller.getBreakpoints().addBreakpoint(4);
+
+        // The instruction after the taken branch is fetched and squashed, never retired
+        assertEquals(20, clock.run(20));
+        assertNull(controller.getBreakpoints().getHit());
+        assertEquals(0, cpuState.registerFile.get(8));
+    }
+
+    @Test
+    void testWriteWatchpointStopsOnStore() {
+        controller.getBreakpoints().addWatchpoint(8, false, true);
+
+        assertTrue(clock.run(200) < 200);
+        Breakpoints.Hit hit = controller.getBreakpoints().getHit();
+        assertEquals(Breakpoints.Kind.WATCH_WRITE, hit.kind);
+        assertEquals(8, hit.address);
+        assertEquals(18, cpuState.dataMemory.loadWord(8));
+    }
+
+    @Test
+    void testReadWatchpointIgnoresStores() {
+        controller.getBreakpoints().addWatchpoint(8, true, false);
+
+        clock.run(200);
+        Breakpoints.Hit hit = controller.getBreakpoints().getHit();
+        assertEquals(Breakpoints.Kind.WATCH_READ, hit.kind);
+        assertEquals(8, hit.address);
+    }
+
+    @Test
+    void testUnarmedRunCompletes() {
+        Breakpoints breakpoints = controller.getBreakpoints();
+        breakpoints.addBreakpoint(4);
+        breakpoints.addWatchpoint(8, true, true);
+        breakpoints.removeBreakpoint(4);
+        breakpoints.removeWatchpoint(8);
+
+        assertFalse(breakpoints.isArmed());
+        assertEquals(100, clock.run(100));
+        assertNull(breakpoints.getHit());
+    }
+
+    @Test
+    void testListsAddresses() {
+        Breakpoints breakpoints = controller.getBreakpoints();
+        breakpoints.addBreakpoint(400);
+        breakpoints.addBreakpoint(4);
+        breakpoints.addBreakpoint(4);
+        breakpoints.addWatchpoint(16, false, true);
+
+        assertEquals(List.of(4, 400), breakpoints.getBreakpoints());
+        assertTrue(breakpoints.getReadWatchpoints().isEmpty());
+        assertEquals(List.of(16), breakpoints.getWriteWatchpoints());
+
+        breakpoints.clear();
+        assertFalse(breakpoints.isArmed());
+        assertTrue(breakpoints.getBreakpoints().isEmpty());
+    }
+
+    @Test
+    void testConditionalBreakpointWaitsForCondition() {
+        controller.getBreakpoints().addBreakpoint(4, Condition.compile("cycle >= 30 && $t0 < 20"));
+
+        int cycles = clock.run(200);
+        assertTrue(cycles >= 30 && cycles < 200);
+        assertEquals(4, controller.getBreakpoints().getHit().address);
+        assertEquals("cycle >= 30 && $t0 < 20", controller.getBreakpoints().getBreakpointCondition(4).getSource());
+    }
+
+    @Test
+    void testConditionalWatchpointSeesStoredValue() {
+        controller.getBreakpoints().addWatchpoint(20, false, true, Condition.compile("value == 15 && addr == 0x14"));
+        assertTrue(clock.run(300) < 300);
+        assertEquals(15, cpuState.dataMemory.loadWord(20));
+
+        setUp();
+        controller.getBreakpoints().addWatchpoint(20, false, true, Condition.compile("value == 99"));
+        assertEquals(300, clock.run(300));
+        assertEquals(15, cpuState.dataMemory.loadWord(20));
+    }
+
+    @Test
+    void testConditionOperators() {
+        cpuState.dataMemory.storeWord(0x40, 7);
+        String[] holds = {
+                "1 + 2 * 3 == 7",
+                "(8 >> 1) == 4 && 1 << 3 == 8",
+                "-1 < 0 && !0 && ~0 == -1",
+                "(6 & 3 | 8) == 10 && (5 ^ 1) == 4",
+                "7 / 2 == 3 && 7 % 2 == 1 && 1 / 0 == 0",
+                "0 || mem[0x40] == 7",
+                "$zero == 0 && $0 == 0 && addr == 0 && pc == 16 && cycle == 5",
+                "3 >= 3 && 3 <= 3 && 2 != 3 && 4 > 3"
+        };
+        for (String source : holds) {
+            setUp();
+            cpuState.dataMemory.storeWord(0x40, 7);
+            controller.getBreakpoints().addBreakpoint(0, Condition.compile(source));
+            assertEquals(5, clock.run(5), source);
+            assertNotNull(controller.getBreakpoints().getHit(), source);
+        }
+
+        setUp();
+        controller.getBreakpoints().addBreakpoint(0, Condition.compile("2 * 3 == 5 || mem[0x40] != 0"));
+        clock.run(5);
+        assertNull(controller.getBreakpoints().getHit());
+    }
+
+    @Test
+    void testConditionSyntaxErrors() {
+        for (String source : new String[]{"", "$t0 ==", "$foo == 1", "1 + * 2", "mem[4", "(1", "x > 1", "1 2", "1 = 1"}) {
+            assertThrows(IllegalArgumentException.class, () -> Condition.compile(source), source);
+        }
+    }
+}
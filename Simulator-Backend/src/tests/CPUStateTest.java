@@ -3,6 +3,7 @@ package tests;
 import model.cpu.CPUState;
 import model.cpu.RegisterFile;
 import model.cpu.ProgramCounter;
+import model.instruction.RTypeInstruction;
 import model.memory.DataMemory;
 import model.memory.InstructionMemory;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,4 +43,35 @@ class CPUStateTest {
         assertNotNull(cpuState.pc, "ProgramCounter should be initialized");
         assertEquals(0, cpuState.pc.get(), "ProgramCounter should start at 0");
     }
+
+    @Test
+    void testForkCopiesRegistersAndPC() {
+        cpuState.registerFile.set(8, 42);
+        cpuState.pc.set(16);
+
+        CPUState fork = cpuState.fork();
+        fork.registerFile.set(8, 7);
+        fork.pc.increment();
+
+        assertEquals(42, cpuState.registerFile.get(8), "Original registers should be unchanged");
+        assertEquals(7, fork.registerFile.get(8));
+        assertEquals(16, cpuState.pc.get());
+        assertEquals(20, fork.pc.get());
+    }
+
+    @Test
+    void testForkSharesMemoriesCopyOnWrite() {
+        RTypeInstruction add = new RTypeInstruction(0, 0x00422020);
+        instrMem.setInstruction(0, add);
+        cpuState.dataMemory.storeWord(0, 99);
+
+        CPUState fork = cpuState.fork();
+        fork.instructionMemory.setInstruction(0, null);
+        fork.dataMemory.storeWord(0, 100);
+
+        assertSame(add, cpuState.instructionMemory.fetch(0), "Original program image should be unchanged");
+        assertNull(fork.instructionMemory.fetch(0));
+        assertEquals(99, cpuState.dataMemory.loadWord(0));
+        assertEquals(100, fork.dataMemory.loadWord(0));
+    }
 }
@@ -0,0 +1,339 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.Cache;
+import model.memory.CacheHierarchy;
+import model.memory.InstructionMemory;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageState;
+import org.junit.jupiter.api.Test;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+import static tests.TestPrograms.runToIdle;
+
+class CacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        Cache cache = new Cache(256, 16, 2);
+
+        assertEquals(8, cache.getSets());
+        assertFalse(cache.access(0x40, false));
+        assertTrue(cache.access(0x44, false), "Same line");
+        assertTrue(cache.access(0x4C, true));
+        assertFalse(cache.access(0x50, false), "Next line");
+        assertEquals(1, cache.getStat(Cache.WRITE_HITS));
+        assertEquals(2, cache.getStat(Cache.READ_MISSES));
+        assertEquals(0.5, cache.getMissRate(), 1e-9);
+    }
+
+    @Test
+    void testLruAndFifoReplacement() {
+        // 0x000, 0x080 and 0x100 all map to set 0 of a 2-way cache with 8 sets
+        Cache lru = new Cache(256, 16, 2);
+        lru.access(0x000, false);
+        lru.access(0x080, false);
+        lru.access(0x000, false);
+        lru.access(0x100, false);
+        assertTrue(lru.contains(0x000));
+        assertFalse(lru.contains(0x080));
+
+        Cache fifo = new Cache(256, 16, 2);
+        fifo.setReplacement(Cache.Replacement.FIFO);
+        fifo.access(0x000, false);
+        fifo.access(0x080, false);
+        fifo.access(0x000, false);
+        fifo.access(0x100, false);
+        assertFalse(fifo.contains(0x000));
+        assertTrue(fifo.contains(0x080));
+        assertEquals(1, fifo.getEvictions());
+    }
+
+    @Test
+    void testWritePolicies() {
+        Cache writeBack = new Cache(64, 16, 1);
+        writeBack.access(0x00, true);
+        writeBack.access(0x04, true);
+        assertEquals(0, writeBack.getWritebacks());
+        writeBack.access(0x40, false);
+        assertEquals(1, writeBack.getWritebacks(), "Dirty line written back on eviction");
+
+        Cache writeThrough = new Cache(64, 16, 1);
+        writeThrough.setWriteBack(false);
+        writeThrough.access(0x00, true);
+        writeThrough.access(0x04, true);
+        writeThrough.access(0x40, false);
+        assertEquals(2, writeThrough.getWritebacks(), "Every write passed down, nothing dirty to evict");
+
+        Cache noAllocate = new Cache(64, 16, 1);
+        noAllocate.setWriteAllocate(false);
+        assertFalse(noAllocate.access(0x00, true));
+        assertFalse(noAllocate.contains(0x00));
+        assertEquals(1, noAllocate.getStat(Cache.WRITE_MISSES));
+    }
+
+    @Test
+    void testInvalidGeometry() {
+        assertThrows(IllegalArgumentException.class, () -> new Cache(256, 12, 2));
+        assertThrows(IllegalArgumentException.class, () -> new Cache(16, 16, 2));
+        assertThrows(IllegalArgumentException.class, () -> new Cache(384, 16, 2));
+        assertThrows(IllegalArgumentException.class, () -> new CacheHierarchy().setMemoryBandwidth(0));
+
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setDataCache(new Cache(256, 16, 2));
+        assertThrows(IllegalArgumentException.class, () -> caches.setL2(new Cache(1024, 32, 4)));
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        Cache cache = new Cache(256, 16, 2);
+        cache.access(0x00, false);
+        Cache copy = cache.copy();
+        copy.access(0x80, false);
+        assertTrue(copy.contains(0x80));
+        assertFalse(cache.contains(0x80));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testHierarchyLatencies() {
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setDataCache(new Cache(64, 16, 1));
+        caches.setL2(new Cache(256, 16, 2));
+        caches.setL2Latency(6);
+        caches.setMemoryLatency(30);
+        caches.setMemoryBandwidth(4);
+
+        assertEquals(6 + 30 + 4, caches.access(0x00, false), "Missed at both levels");
+        assertEquals(0, caches.access(0x04, false));
+        assertEquals(6 + 30 + 4, caches.access(0x40, false), "Evicts 0x00 from the direct-mapped L1");
+        assertEquals(6, caches.access(0x00, false), "Still in L2");
+        assertEquals(2, caches.getMemoryReads());
+        assertEquals(1, caches.getL2().getStat(Cache.READ_HITS));
+        assertEquals(2, caches.getDataCache().getEvictions());
+    }
+
+    @Test
+    void testInclusiveBackInvalidation() {
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setDataCache(new Cache(64, 16, 4));
+        caches.setL2(new Cache(64, 16, 2)); // two sets: 0x00, 0x20 and 0x40 share set 0
+
+        caches.access(0x00, true);
+        caches.access(0x20, false);
+        caches.access(0x40, false);
+        assertFalse(caches.getL2().contains(0x00));
+        assertFalse(caches.getDataCache().contains(0x00), "Dropped from L1 with the L2 line");
+        assertEquals(1, caches.getMemoryWrites(), "The dirty L1 copy went to memory");
+    }
+
+    @Test
+    void testExclusiveVictimsMoveToL2() {
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setInclusion(CacheHierarchy.Inclusion.EXCLUSIVE);
+        caches.setDataCache(new Cache(16, 16, 1));
+        caches.setL2(new Cache(256, 16, 2));
+        caches.setL2Latency(5);
+
+        caches.access(0x00, true);
+        assertFalse(caches.getL2().contains(0x00), "Filled into L1 only");
+        caches.access(0x10, false);
+        assertTrue(caches.getL2().contains(0x00), "L1 victim moved to L2");
+        assertEquals(5, caches.access(0x00, false));
+        assertFalse(caches.getL2().contains(0x00), "Handed back to L1");
+        assertTrue(caches.getL2().contains(0x10));
+
+        caches.access(0x10, false);
+        assertTrue(caches.getL2().contains(0x00));
+        assertEquals(0, caches.getMemoryWrites(), "The dirty line never left the hierarchy");
+        assertEquals(2, caches.getMemoryReads());
+    }
+
+    @Test
+    void testExclusiveLookupPrecedesVictimFill() {
+        // 0x00 and 0x20 share the only set of a direct-mapped L2 with two sets
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setInclusion(CacheHierarchy.Inclusion.EXCLUSIVE);
+        caches.setDataCache(new Cache(16, 16, 1));
+        caches.setL2(new Cache(32, 16, 1));
+        caches.setL2Latency(5);
+
+        caches.access(0x00, false);
+        caches.access(0x20, false);
+        assertEquals(5, caches.access(0x00, false), "Hit in L2 before the victim 0x20 takes its set");
+        assertTrue(caches.getL2().contains(0x20));
+        assertEquals(2, caches.getMemoryReads());
+    }
+
+    @Test
+    void testInstructionMissStallsFetch() {
+        PipelineController controller = controller("addi $t0, $zero, 1", "addi $t1, $zero, 2");
+        withL1(controller, 3).setInstructionCache(new Cache(256, 16, 1));
+
+        for (int i = 0; i < 3; i++) {
+            controller.runCycle();
+            assertEquals(StageState.STALL, last(controller).getIfStage().getState());
+        }
+        controller.runCycle();
+        assertEquals(StageState.INSTR, last(controller).getIfStage().getState());
+        controller.runCycle();
+        assertEquals(StageState.INSTR, last(controller).getIfStage().getState(), "Second word is in the same line");
+
+        runToIdle(controller);
+        assertEquals(2, controller.getCpuState().registerFile.get(9));
+        assertEquals(3, controller.getCounters().getInstructionCacheStalls());
+    }
+
+    @Test
+    void testDataMissFreezesPipeline() {
+        String[] program = {"addi $t0, $zero, 9", "sw $t0, 32($zero)", "lw $t1, 32($zero)", "add $t2, $t1, $t1"};
+        PipelineController plain = controller(program);
+        int plainCycles = runToIdle(plain);
+
+        PipelineController cached = controller(program);
+        Cache cache = new Cache(256, 16, 1);
+        withL1(cached, 5).setDataCache(cache);
+        int cycles = runToIdle(cached);
+
+        assertEquals(18, cached.getCpuState().registerFile.get(10));
+        assertEquals(plainCycles + 5, cycles, "Only the store misses; the load hits the allocated line");
+        assertEquals(5, cached.getCounters().getDataCacheStalls());
+        assertEquals(1, cache.getStat(Cache.WRITE_MISSES));
+        assertEquals(1, cache.getStat(Cache.READ_HITS));
+
+        long frozen = cached.getHistory().stream()
+                .filter(s -> s.getMemStage().getState() == StageState.STALL)
+                .count();
+        assertEquals(5, frozen);
+    }
+
+    @Test
+    void testStepBackRestoresStallTimers() {
+        PipelineController controller = controller("lw $t0, 0($zero)", "addi $t1, $zero, 4", "sw $t1, 64($zero)");
+        CacheHierarchy caches = withL1(controller, 4);
+        caches.setDataCache(new Cache(256, 16, 1));
+        caches.setInstructionCache(new Cache(256, 16, 1));
+
+        // The load misses in MEM at cycle 9; rewind into the middle of the frozen cycles that follow
+        for (int i = 0; i < 10; i++) controller.runCycle();
+        assertEquals(StageState.STALL, last(controller).getMemStage().getState());
+        PipelineController fork = controller.fork();
+        for (int i = 0; i < 2; i++) controller.runCycle();
+        controller.stepBack(2);
+
+        for (int i = 0; i < 40; i++) {
+            controller.runCycle();
+            fork.runCycle();
+            assertEquals(fork.getCpuState().pc.get(), controller.getCpuState().pc.get(), "cycle " + i);
+        }
+    }
+
+    @Test
+    void testWorkloadsUnchangedByCaches() {
+        for (Workload workload : new Workload[]{Workload.MATMUL, Workload.BUBBLE_SORT}) {
+            CPUState cpuState = new CPUState(new InstructionMemory());
+            ProgramLoader.loadFromAssembly(cpuState, workload.source(), 0);
+            PipelineController controller = new PipelineController(cpuState);
+            controller.setUndoDepth(0);
+            controller.getCaches().setInstructionCache(new Cache(256, 16, 2));
+            controller.getCaches().setDataCache(new Cache(512, 16, 2));
+            controller.getCaches().setL2(new Cache(1024, 16, 4));
+
+            int cycles = runToIdle(controller);
+            assertEquals(workload.getExpectedDigest(), Workload.digest(cpuState), workload.getName());
+            assertTrue(cycles > workload.getExpectedCycles());
+            assertEquals(cycles, controller.getCounters().getCycles());
+        }
+    }
+
+    @Test
+    void testStepBackRestoresCacheContents() {
+        PipelineController straight = sortWithSmallCaches();
+        int cycles = runToIdle(straight);
+
+        PipelineController rewound = sortWithSmallCaches();
+        for (int i = 0; i < 600; i++) rewound.runCycle();
+        assertEquals(300, rewound.stepBack(300));
+        assertEquals(300, rewound.getCounters().getCycles());
+        long missesAt300 = rewound.getCaches().getDataCache().getMisses();
+        int replayed = 300 + runToIdle(rewound);
+
+        assertEquals(cycles, replayed);
+        assertEquals(cycles, rewound.getCounters().getCycles());
+        assertEquals(Workload.digest(straight.getCpuState()), Workload.digest(rewound.getCpuState()));
+        assertEquals(straight.getCaches().getDataCache().getMisses(), rewound.getCaches().getDataCache().getMisses());
+        assertEquals(straight.getCaches().getInstructionCache().getMisses(),
+                rewound.getCaches().getInstructionCache().getMisses());
+        assertTrue(missesAt300 < straight.getCaches().getDataCache().getMisses());
+    }
+
+    @Test
+    void testStepBackRestoresL2AndMemoryTraffic() {
+        PipelineController straight = sortWithSmallCaches();
+        withExclusiveL2(straight);
+        int cycles = runToIdle(straight);
+
+        PipelineController rewound = sortWithSmallCaches();
+        withExclusiveL2(rewound);
+        for (int i = 0; i < 600; i++) rewound.runCycle();
+        long readsAt600 = rewound.getCaches().getMemoryReads();
+        rewound.stepBack(300);
+        assertTrue(rewound.getCaches().getMemoryReads() < readsAt600);
+        assertEquals(cycles, 300 + runToIdle(rewound));
+
+        CacheHierarchy expected = straight.getCaches();
+        CacheHierarchy actual = rewound.getCaches();
+        assertEquals(expected.getMemoryReads(), actual.getMemoryReads());
+        assertEquals(expected.getMemoryWrites(), actual.getMemoryWrites());
+        assertEquals(expected.getL2().getHits(), actual.getL2().getHits());
+        assertEquals(expected.getL2().getMisses(), actual.getL2().getMisses());
+    }
+
+    @Test
+    void testStepBackToOldestCycleRebuildsCaches() {
+        PipelineController straight = sortWithSmallCaches();
+        int cycles = runToIdle(straight);
+
+        PipelineController rewound = sortWithSmallCaches();
+        rewound.setUndoDepth(200);
+        for (int i = 0; i < 630; i++) rewound.runCycle();
+        assertEquals(200, rewound.getUndoAvailable());
+        assertEquals(200, rewound.stepBack(300), "The window start lies between keyframes");
+        assertEquals(0, rewound.getUndoAvailable());
+        assertEquals(cycles, 430 + runToIdle(rewound));
+
+        assertEquals(straight.getCaches().getDataCache().getMisses(), rewound.getCaches().getDataCache().getMisses());
+        assertEquals(straight.getCaches().getInstructionCache().getHits(),
+                rewound.getCaches().getInstructionCache().getHits());
+        assertEquals(straight.getCounters().getRetired(), rewound.getCounters().getRetired());
+        assertEquals(straight.getProfiler().getCost(8), rewound.getProfiler().getCost(8));
+    }
+
+    // Without an L2, a 16-byte line over a 16-byte bus costs the memory latency plus one cycle
+    private static CacheHierarchy withL1(PipelineController controller, int missPenalty) {
+        CacheHierarchy caches = controller.getCaches();
+        caches.setMemoryBandwidth(16);
+        caches.setMemoryLatency(missPenalty - 1);
+        return caches;
+    }
+
+    private static PipelineController sortWithSmallCaches() {
+        PipelineController controller = controller(Workload.BUBBLE_SORT.source());
+        controller.getCaches().setInstructionCache(new Cache(256, 16, 1));
+        controller.getCaches().setDataCache(new Cache(256, 16, 1));
+        return controller;
+    }
+
+    private static void withExclusiveL2(PipelineController controller) {
+        controller.getCaches().setInclusion(CacheHierarchy.Inclusion.EXCLUSIVE);
+        controller.getCaches().setL2(new Cache(512, 16, 2));
+    }
+
+    private static PipelineSnapshot last(PipelineController controller) {
+        return controller.getHistory().get(controller.getHistory().size() - 1);
+    }
+}
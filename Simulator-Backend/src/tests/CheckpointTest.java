@@ -0,0 +1,159 @@
+package tests;
+
+import model.control.prediction.BranchTargetBuffer;
+import model.control.prediction.GsharePredictor;
+import model.memory.Cache;
+import model.pipeline.stages.PipelineLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import simulator.Checkpoint;
+import simulator.Clock;
+import simulator.PipelineController;
+import simulator.Workload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+import static tests.TestPrograms.runToIdle;
+
+class CheckpointTest {
+
+    private static final String[] PROGRAM = {
+            "addi $t0, $zero, 5",
+            "addi $t1, $zero, 0",
+            "loop: sw $t0, 0($t1)",
+            "lw $t2, 0($t1)",
+            "add $t3, $t3, $t2",   // load-use stall
+            "addi $t1, $t1, 4",
+            "addi $t0, $t0, -1",
+            "bne $t0, $zero, loop",
+            "add $s0, $t3, $zero"
+    };
+
+    private PipelineController controller;
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        controller = controller(PROGRAM);
+        clock = new Clock(controller);
+    }
+
+    @Test
+    void testRestoredRunMatchesOriginal() {
+        clock.run(9); // stop with a load-use stall and stores in flight
+        byte[] checkpoint = Checkpoint.save(controller, clock);
+
+        clock.run(70);
+        byte[] expected = Checkpoint.save(controller, clock);
+
+        PipelineController restored = controller(PROGRAM);
+        Clock restoredClock = new Clock(restored);
+        Checkpoint.restore(restored, restoredClock, checkpoint);
+
+        assertEquals(9, restoredClock.getCycle());
+        assertTrue(restored.getHistory().isEmpty());
+
+        restoredClock.run(70);
+        assertArrayEquals(expected, Checkpoint.save(restored, restoredClock));
+        assertEquals(15, restored.getCpuState().registerFile.get(16), "$s0 should hold 5+4+3+2+1");
+    }
+
+    @Test
+    void testRestoresSplitStages() {
+        controller.setLayout(PipelineLayout.of(2, 3));
+        clock.run(12);
+        byte[] checkpoint = Checkpoint.save(controller, clock, true);
+        String mem2 = controller.getHistory().get(11).getSplitMemoryStages()[1].toString();
+        clock.run(80);
+
+        PipelineController restored = controller(PROGRAM);
+        Clock restoredClock = new Clock(restored);
+        Checkpoint.restore(restored, restoredClock, checkpoint);
+        assertEquals(PipelineLayout.of(2, 3), restored.getLayout());
+        assertEquals(mem2, restored.getHistory().get(11).getSplitMemoryStages()[1].toString());
+
+        restoredClock.run(80);
+        assertArrayEquals(Checkpoint.save(controller, clock), Checkpoint.save(restored, restoredClock));
+        assertEquals(15, restored.getCpuState().registerFile.get(16));
+    }
+
+    @Test
+    void testRestoreRewindsSameController() throws Exception {
+        clock.run(12);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Checkpoint.save(controller, clock, out, true);
+        int pc = controller.getCpuState().pc.get();
+        int t3 = controller.getCpuState().registerFile.get(11);
+
+        clock.run(30);
+        controller.getCpuState().dataMemory.storeWord(400, 1);
+
+        Checkpoint.restore(controller, clock, new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(12, clock.getCycle());
+        assertEquals(pc, controller.getCpuState().pc.get());
+        assertEquals(t3, controller.getCpuState().registerFile.get(11));
+        assertEquals(0, controller.getCpuState().dataMemory.loadWord(400));
+        assertEquals(12, controller.getHistory().size());
+    }
+
+    @Test
+    void testHistoryOnlyOnRequest() {
+        clock.run(40);
+        byte[] without = Checkpoint.save(controller, clock);
+        byte[] with = Checkpoint.save(controller, clock, true);
+        assertTrue(with.length > without.length);
+
+        PipelineController restored = controller(PROGRAM);
+        Clock restoredClock = new Clock(restored);
+        Checkpoint.restore(restored, restoredClock, with);
+        assertEquals(40, restored.getHistory().size());
+
+        Checkpoint.restore(restored, restoredClock, without);
+        assertEquals(40, restoredClock.getCycle());
+        assertTrue(restored.getHistory().isEmpty());
+    }
+
+    @Test
+    void testRestoresCachesAndPredictor() {
+        PipelineController original = sortWithTiming();
+        Clock originalClock = new Clock(original);
+        originalClock.run(2000);
+        byte[] checkpoint = Checkpoint.save(original, originalClock);
+
+        PipelineController restored = controller(PROGRAM);
+        Clock restoredClock = new Clock(restored);
+        Checkpoint.restore(restored, restoredClock, checkpoint);
+        assertTrue(restored.isEarlyBranchResolution());
+        assertEquals("gshare", restored.getBranchPredictor().getName());
+        assertEquals(256, restored.getCaches().getInstructionCache().getSizeBytes());
+        original.clearHistory();
+
+        int originalCycles = runToIdle(original);
+        assertEquals(originalCycles, runToIdle(restored));
+        assertEquals(Workload.digest(original.getCpuState()), Workload.digest(restored.getCpuState()));
+        assertEquals(original.getCounters().getMispredictions(), restored.getCounters().getMispredictions());
+        assertEquals(original.getCaches().getDataCache().getMisses(), restored.getCaches().getDataCache().getMisses());
+    }
+
+    @Test
+    void testRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Checkpoint.restore(controller, clock, new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+        assertThrows(IllegalArgumentException.class,
+                () -> Checkpoint.restore(controller, clock, new byte[]{0x4D, 0x49}));
+    }
+
+    // Cold 256-byte direct-mapped L1s and a predictor make the timing depend on more than the latches
+    private static PipelineController sortWithTiming() {
+        PipelineController controller = controller(Workload.BUBBLE_SORT.source());
+        controller.getCaches().setInstructionCache(new Cache(256, 16, 1));
+        controller.getCaches().setDataCache(new Cache(256, 16, 1));
+        controller.setBranchPrediction(new GsharePredictor(64), new BranchTargetBuffer(16));
+        controller.setEarlyBranchResolution(true);
+        return controller;
+    }
+}
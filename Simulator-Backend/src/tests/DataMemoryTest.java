@@ -72,4 +72,43 @@ class DataMemoryTest {
         assertEquals(0, memory.loadWord(100));
         assertEquals(0, memory.loadWord(4092));
     }
+
+    @Test
+    void testForkSeesValuesAtForkTime() {
+        memory.storeWord(0, 1);
+        memory.storeWord(4092, 2);
+
+        DataMemory fork = memory.fork();
+
+        assertEquals(1, fork.loadWord(0));
+        assertEquals(2, fork.loadWord(4092));
+        assertEquals(memory.sizeBytes(), fork.sizeBytes());
+    }
+
+    @Test
+    void testForkWritesAreIsolated() {
+        DataMemory large = new DataMemory(1 << 20);
+        large.storeWord(0, 10);
+        large.storeWord(3_000_000, 20);
+
+        DataMemory fork = large.fork();
+        fork.storeWord(0, 11);
+        large.storeWord(3_000_000, 21);
+
+        assertEquals(10, large.loadWord(0), "Parent must not see the fork's store");
+        assertEquals(11, fork.loadWord(0));
+        assertEquals(21, large.loadWord(3_000_000));
+        assertEquals(20, fork.loadWord(3_000_000), "Fork must not see the parent's store");
+    }
+
+    @Test
+    void testClearDoesNotAffectFork() {
+        memory.storeWord(8, 5);
+        DataMemory fork = memory.fork();
+
+        memory.clear();
+
+        assertEquals(0, memory.loadWord(8));
+        assertEquals(5, fork.loadWord(8));
+    }
 }
@@ -0,0 +1,125 @@
+package tests;
+
+import model.control.prediction.BranchTargetBuffer;
+import model.control.prediction.CounterPredictor;
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageState;
+import org.junit.jupiter.api.Test;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+import static tests.TestPrograms.runToIdle;
+
+class EarlyBranchTest {
+
+    private static final String[] LOOP = {
+            "addi $t0, $zero, 20",
+            "loop: addi $t0, $t0, -1",
+            "addi $t3, $zero, 0",
+            "bne $t0, $zero, loop",
+            "addi $t1, $zero, 7"
+    };
+
+    @Test
+    void testTakenBranchCostsOneBubble() {
+        PipelineController inEx = controller(LOOP);
+        int exCycles = runToIdle(inEx);
+
+        PipelineController inId = controller(LOOP);
+        inId.setEarlyBranchResolution(true);
+        int idCycles = runToIdle(inId);
+
+        PerformanceCounters counters = inId.getCounters();
+        assertEquals(20, counters.getBranches());
+        assertEquals(19, counters.getMispredictions());
+        assertEquals(0, counters.getBranchStalls(), "The filler hides the decrement from the branch");
+        assertEquals(exCycles - 19, idCycles);
+        assertTrue(counters.getCpi() < inEx.getCounters().getCpi());
+        assertEquals(7, inId.getCpuState().registerFile.get(9));
+    }
+
+    @Test
+    void testFlushShowsInFetchOnly() {
+        PipelineController controller = controller("beq $zero, $zero, skip", "addi $t0, $zero, 1",
+                "skip: addi $t1, $zero, 2");
+        controller.setEarlyBranchResolution(true);
+        controller.runCycle();
+        controller.runCycle();
+
+        PipelineSnapshot snapshot = controller.getHistory().get(1);
+        assertEquals(StageState.FLUSH, snapshot.getIfStage().getState());
+        assertEquals(StageState.INSTR, snapshot.getIdStage().getState());
+
+        runToIdle(controller);
+        assertEquals(0, controller.getCpuState().registerFile.get(8));
+        assertEquals(2, controller.getCpuState().registerFile.get(9));
+    }
+
+    @Test
+    void testBranchWaitsForOperands() {
+        PipelineController afterAlu = controller("addi $t0, $zero, 1", "beq $t0, $zero, end", "addi $t1, $zero, 3",
+                "end: addi $t3, $zero, 0");
+        afterAlu.setEarlyBranchResolution(true);
+        runToIdle(afterAlu);
+        assertEquals(1, afterAlu.getCounters().getBranchStalls());
+        assertEquals(0, afterAlu.getCounters().getLoadUseStalls());
+        assertEquals(3, afterAlu.getCpuState().registerFile.get(9));
+
+        PipelineController afterLoad = controller("addi $t0, $zero, 5", "sw $t0, 0($zero)", "lw $t2, 0($zero)",
+                "bne $t2, $t0, end", "addi $t1, $zero, 3", "end: addi $t3, $zero, 0");
+        afterLoad.setEarlyBranchResolution(true);
+        runToIdle(afterLoad);
+        assertEquals(2, afterLoad.getCounters().getBranchStalls());
+        assertEquals(3, afterLoad.getCpuState().registerFile.get(9), "Loaded value forwarded into ID");
+    }
+
+    @Test
+    void testPredictionAndModeSwitch() {
+        PipelineController controller = controller(LOOP);
+        controller.setEarlyBranchResolution(true);
+        controller.setBranchPrediction(new CounterPredictor(2, 64), new BranchTargetBuffer(16));
+        runToIdle(controller);
+        assertEquals(2, controller.getCounters().getMispredictions());
+        assertTrue(controller.fork().isEarlyBranchResolution());
+
+        PipelineController inFlight = controller("addi $t0, $zero, 1", "beq $t0, $zero, 0", "addi $t3, $zero, 0");
+        for (int i = 0; i < 3; i++) inFlight.runCycle();
+        assertThrows(IllegalArgumentException.class, () -> inFlight.setEarlyBranchResolution(true));
+        inFlight.runCycle();
+        inFlight.setEarlyBranchResolution(true);
+    }
+
+    @Test
+    void testForkAndStepBackWithBranchInFlight() {
+        PipelineController controller = controller(LOOP);
+        controller.setEarlyBranchResolution(true);
+        while (!controller.getPipelineRegisters().ID_EX.isBranch()) controller.runCycle();
+        assertTrue(controller.fork().isEarlyBranchResolution());
+
+        // Rewinding restores the latches with the branch between ID and EX
+        int cycles = runToIdle(controller);
+        assertEquals(cycles, controller.stepBack(cycles));
+        assertEquals(cycles, runToIdle(controller));
+        assertEquals(7, controller.getCpuState().registerFile.get(9));
+    }
+
+    @Test
+    void testWorkloadsUnchangedInId() {
+        for (Workload workload : Workload.values()) {
+            CPUState cpuState = new CPUState(new InstructionMemory());
+            ProgramLoader.loadFromAssembly(cpuState, workload.source(), 0);
+            PipelineController controller = new PipelineController(cpuState);
+            controller.setUndoDepth(0);
+            controller.setEarlyBranchResolution(true);
+
+            runToIdle(controller);
+            assertEquals(workload.getExpectedDigest(), Workload.digest(cpuState), workload.getName());
+        }
+    }
+}
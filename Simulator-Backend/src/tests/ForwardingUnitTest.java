@@ -49,6 +49,27 @@ class ForwardingUnitTest {
         assertEquals(1, result.forwardB, "Should forward B from MEM/WB");
     }
 
+    @Test
+    void testForwardFromNearestMemoryStage() {
+        regs.setDepth(1, 3);
+        regs.ID_EX.setRs(4);
+        regs.ID_EX.setRt(7);
+
+        // MEM/WB and both split memory latches write $4; the newest latch is the nearest
+        regs.MEM_WB.setRegWrite(true);
+        regs.MEM_WB.setDestReg(4);
+        regs.memoryBuffer[0].setRegWrite(true);
+        regs.memoryBuffer[0].setDestReg(7);
+        regs.memoryBuffer[1].setRegWrite(true);
+        regs.memoryBuffer[1].setDestReg(4);
+
+        ForwardingResult result = fu.determineForwarding(regs);
+        assertEquals(1, result.forwardA);
+        assertSame(regs.memoryBuffer[1], result.sourceA);
+        assertEquals(1, result.forwardB);
+        assertSame(regs.memoryBuffer[0], result.sourceB);
+    }
+
     @Test
     void testNoForwardingNeeded() {
         regs.ID_EX.setRs(1);
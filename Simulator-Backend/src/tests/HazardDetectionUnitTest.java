@@ -45,6 +45,35 @@ class HazardDetectionUnitTest {
         assertTrue(report.hasLoadUseHazard(), "Load-use hazard should be detected");
     }
 
+    @Test
+    void testBranchHazardsWhenResolvedInID() {
+        RTypeInstruction addInstr = new RTypeInstruction(0x00, 0x00224020); // add $t0, $at, $v0
+        addInstr.decodeFields();
+        regs.ID_EX.setInstruction(addInstr);
+        regs.ID_EX.setRegWrite(true);
+        regs.ID_EX.setRegDst(true);
+        regs.ID_EX.setRd(addInstr.getRd());
+
+        ITypeInstruction beqInstr = new ITypeInstruction(0x04, 0x11000003); // beq $t0, $zero, 3
+        regs.IF_ID.set(beqInstr, currentPC);
+
+        assertFalse(hdu.checkAllHazards(regs).hasBranchHazard(), "EX resolution forwards into EX");
+        hdu.setEarlyBranches(true);
+        assertTrue(hdu.checkAllHazards(regs).hasBranchHazard(), "ALU result not ready for ID");
+
+        ITypeInstruction lwInstr = new ITypeInstruction(0x23, 0x8C080000); // lw $t0, 0($zero)
+        lwInstr.decodeFields();
+        regs.ID_EX.setInstruction(null);
+        regs.EX_MEM.setInstruction(lwInstr);
+        regs.EX_MEM.setMemRead(true);
+        regs.EX_MEM.setRegWrite(true);
+        regs.EX_MEM.setDestReg(lwInstr.getRt());
+        assertTrue(hdu.checkAllHazards(regs).hasBranchHazard(), "Load still in MEM");
+
+        regs.EX_MEM.setMemRead(false);
+        assertFalse(hdu.checkAllHazards(regs).hasBranchHazard(), "ALU result in MEM is forwarded");
+    }
+
     @Test
     void testDataHazardForwardableFromEX() {
         RTypeInstruction addInstr = new RTypeInstruction(0x00, 0x00224020); // add $t0, $at, $v0
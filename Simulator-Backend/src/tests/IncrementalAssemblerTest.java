@@ -0,0 +1,180 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import simulator.IncrementalAssembler;
+import simulator.ProgramLoader;
+import simulator.StreamingAssembler;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalAssemblerTest {
+
+    private static final int START_ADDRESS = 0x00400000;
+
+    private static final String[] PROGRAM = {
+            "main: addi $t0, $zero, 3",
+            "loop:",
+            "    addi $t0, $t0, -1   # count down",
+            "    bne $t0, $zero, loop",
+            "    beq $t0, $zero, done",
+            "    add $t1, $t1, $t1",
+            "done: j main"
+    };
+
+    @Test
+    @DisplayName("Full assembly matches StreamingAssembler")
+    void testAssembleMatchesStreamingAssembler() {
+        IncrementalAssembler.Result result = new IncrementalAssembler().assemble(PROGRAM, START_ADDRESS);
+
+        assertTrue(result.errors.isEmpty(), "Errors: " + result.errors);
+        assertArrayEquals(StreamingAssembler.assemble(String.join("\n", PROGRAM), START_ADDRESS).machineCode,
+                result.machineCode);
+    }
+
+    @Test
+    @DisplayName("Reports the same errors as StreamingAssembler")
+    void testErrorsMatchStreamingAssembler() {
+        String[] source = {
+                "x: addi $t0, $zero, 1",
+                "    beq $t0, $zero, nowhere",
+                "x: add $t1, $t1, $t9",
+                "    addi $t0, $t0, 0x1FFFFFFFFFFFFFFFF",
+                "    bogus $t0"
+        };
+        IncrementalAssembler.Result result = new IncrementalAssembler().assemble(source, START_ADDRESS);
+        StreamingAssembler.Result expected = StreamingAssembler.assemble(String.join("\n", source), START_ADDRESS);
+
+        assertEquals(4, result.errors.size(), "Errors: " + result.errors);
+        assertEquals(expected.errors, result.errors);
+        assertArrayEquals(expected.machineCode, result.machineCode);
+    }
+
+    @Test
+    @DisplayName("Editing an operand patches only that slot")
+    void testEditPatchesOneSlot() {
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        assembler.assemble(PROGRAM, START_ADDRESS);
+
+        IncrementalAssembler.Edit edit = assembler.edit(5, "    add $t2, $t1, $t1");
+
+        assertFalse(edit.relayout);
+        assertArrayEquals(new int[]{4}, edit.slots);
+        assertEquals(0x01295020, edit.words[0]);
+        assertMatchesFullAssembly(assembler, with(PROGRAM, 5, "    add $t2, $t1, $t1"));
+    }
+
+    @Test
+    @DisplayName("Renaming a label re-encodes the branches that name it")
+    void testRenameLabel() {
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        assembler.assemble(PROGRAM, START_ADDRESS);
+
+        IncrementalAssembler.Edit edit = assembler.edit(1, "again:");
+
+        assertFalse(edit.relayout);
+        assertArrayEquals(new int[]{2}, edit.slots, "Only the bne naming loop is re-encoded");
+        assertEquals(1, edit.errors.size());
+        assertTrue(edit.errors.get(0).startsWith("Line 4: Invalid immediate value: loop"));
+
+        edit = assembler.edit(3, "    bne $t0, $zero, again");
+        assertTrue(edit.errors.isEmpty(), "Errors: " + edit.errors);
+        assertMatchesFullAssembly(assembler,
+                with(with(PROGRAM, 1, "again:"), 3, "    bne $t0, $zero, again"));
+    }
+
+    @Test
+    @DisplayName("Adding or removing an instruction relays out the program")
+    void testRelayout() {
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        assembler.assemble(PROGRAM, START_ADDRESS);
+
+        IncrementalAssembler.Edit edit = assembler.edit(1, "loop: sub $t1, $t1, $t1");
+
+        assertTrue(edit.relayout);
+        assertEquals(7, assembler.getMachineCode().length);
+        assertMatchesFullAssembly(assembler, with(PROGRAM, 1, "loop: sub $t1, $t1, $t1"));
+    }
+
+    @Test
+    @DisplayName("Random edits agree with assembling the edited source from scratch")
+    void testRandomEdits() {
+        String[] choices = {
+                "", "# comment", "x:", "loop:", "done:", "main:",
+                "add $t0, $t1, $t2", "beq $t0, $t1, x", "bne $t0, $t1, loop", "j done",
+                "jal x", "x: addi $t0, $t0, 1", "done: sw $t0, 4($sp)", "lw $t1, 0($sp)", "bogus"
+        };
+        String[] source = PROGRAM.clone();
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        assembler.assemble(source, START_ADDRESS);
+
+        Random random = new Random(42);
+        for (int step = 0; step < 500; step++) {
+            int line = random.nextInt(source.length);
+            String text = choices[random.nextInt(choices.length)];
+            source[line] = text;
+            assembler.edit(line, text);
+            assertMatchesFullAssembly(assembler, source);
+        }
+    }
+
+    @Test
+    @DisplayName("applyEdit patches instruction memory without moving the PC")
+    void testApplyEdit() {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        ProgramLoader.loadIncremental(cpuState, assembler, PROGRAM, 0);
+        cpuState.pc.set(8);
+
+        ProgramLoader.applyEdit(cpuState, assembler, assembler.edit(0, "main: addi $t0, $zero, 7"));
+
+        assertEquals(0x20080007, cpuState.instructionMemory.fetch(0).getBinary());
+        assertEquals(8, cpuState.pc.get());
+
+        ProgramLoader.applyEdit(cpuState, assembler, assembler.edit(1, "loop: add $t1, $t1, $t1"));
+
+        assertEquals(0x01294820, cpuState.instructionMemory.fetch(4).getBinary());
+        assertEquals(7, assembler.getMachineCode().length);
+        assertNotNull(cpuState.instructionMemory.fetch(24));
+        assertEquals(8, cpuState.pc.get());
+    }
+
+    @Test
+    @DisplayName("A rejected edit leaves the program as it was")
+    void testEditOrRejectRollsBack() {
+        IncrementalAssembler assembler = new IncrementalAssembler();
+        assembler.assemble(PROGRAM, START_ADDRESS);
+        int[] before = assembler.getMachineCode();
+
+        String[][] failing = {
+                {"2", "    bogus $t0"},       // patch in place
+                {"1", "loop: bogus $t0"},  // relayout
+                {"6", "main: j main"}      // duplicate label
+        };
+        for (String[] edit : failing) {
+            int line = Integer.parseInt(edit[0]);
+            assertThrows(IllegalArgumentException.class, () -> assembler.editOrReject(line, edit[1]));
+            assertArrayEquals(before, assembler.getMachineCode());
+            assertTrue(assembler.getErrors().isEmpty(), "Errors: " + assembler.getErrors());
+        }
+
+        assembler.editOrReject(0, "main: addi $t0, $zero, 7");
+        assertMatchesFullAssembly(assembler, with(PROGRAM, 0, "main: addi $t0, $zero, 7"));
+    }
+
+    private static void assertMatchesFullAssembly(IncrementalAssembler assembler, String[] source) {
+        StreamingAssembler.Result expected = StreamingAssembler.assemble(String.join("\n", source), START_ADDRESS);
+        assertArrayEquals(expected.machineCode, assembler.getMachineCode());
+        assertEquals(expected.errors, assembler.getErrors());
+    }
+
+    private static String[] with(String[] source, int line, String text) {
+        String[] copy = source.clone();
+        copy[line] = text;
+        return copy;
+    }
+}
@@ -101,4 +101,86 @@ class InstructionMemoryTest {
         assertEquals(arr[1], memory2.fetch(4));
         assertEquals(arr[2], memory2.fetch(8));
     }
+
+    @Test
+    void testConfigurableCapacity() {
+        InstructionMemory large = new InstructionMemory(4 * 1024 * 1024);
+        Instruction instr = new RTypeInstruction(0, 0x00A63820);
+
+        large.setInstruction(16_000_000, instr);
+
+        assertEquals(16 * 1024 * 1024, large.sizeBytes());
+        assertEquals(instr, large.fetch(16_000_000));
+        assertNull(large.fetch(0), "Unloaded words should read as empty");
+        assertNull(large.fetch(16 * 1024 * 1024), "Fetch past capacity should return null");
+    }
+
+    @Test
+    void testLoadImageReplacesProgram() {
+        Instruction old = new RTypeInstruction(0, 0x00A63820);
+        memory.setInstruction(0, old);
+
+        Instruction[] image = {
+                new ITypeInstruction(8, 0x20840004),
+                new JTypeInstruction(2, 0x0800000A)
+        };
+        memory.loadImage(image, 64);
+
+        assertNull(memory.fetch(0), "Previous program should be gone");
+        assertEquals(image[0], memory.fetch(64));
+        assertEquals(image[1], memory.fetch(68));
+        assertNull(memory.fetch(72));
+    }
+
+    @Test
+    void testLoadImageRejectsProgramPastCapacity() {
+        Instruction[] image = new Instruction[4];
+        assertThrows(IllegalArgumentException.class, () -> memory.loadImage(image, 4096 - 8));
+    }
+
+    @Test
+    void testWriteAfterLoadImageDoesNotTouchImage() {
+        Instruction[] image = { new ITypeInstruction(8, 0x20840004) };
+        memory.loadImage(image, 0);
+
+        memory.setInstruction(0, null);
+
+        assertNull(memory.fetch(0));
+        assertNotNull(image[0], "Adopted image must be copied before it is written");
+    }
+
+    @Test
+    void testPatchedImageStaysSharedWithForks() {
+        Instruction[] image = new Instruction[1000];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = new ITypeInstruction(8, 0x20840000 | i);
+        }
+        memory.loadImage(image, 0);
+        InstructionMemory fork = memory.fork();
+
+        Instruction patch = new RTypeInstruction(0, 0x00A63820);
+        memory.setInstruction(2000, patch);
+        fork.setInstruction(2004, null);
+
+        assertEquals(patch, memory.fetch(2000));
+        assertEquals(image[501], memory.fetch(2004), "Fork writes must not reach the parent");
+        assertEquals(image[500], fork.fetch(2000), "Parent writes must not reach the fork");
+        assertNull(fork.fetch(2004));
+        assertEquals(image[0], memory.fetch(0));
+        assertEquals(image[999], fork.fetch(3996));
+        assertNotSame(patch, image[500], "Shared image must stay untouched");
+
+        memory.setInstruction(4000, patch);
+        assertEquals(patch, memory.fetch(2000), "Patches survive leaving the image range");
+        assertEquals(patch, memory.fetch(4000));
+    }
+
+    @Test
+    void testClearEmptiesMemory() {
+        memory.setInstruction(40, new RTypeInstruction(0, 0x00A63820));
+        memory.clear();
+
+        assertNull(memory.fetch(40));
+        assertEquals(4096, memory.sizeBytes(), "Clearing should keep the capacity");
+    }
 }
@@ -0,0 +1,196 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.Cache;
+import model.memory.CacheHierarchy;
+import model.memory.CoherenceBus;
+import model.memory.CoherenceBus.State;
+import model.memory.DataMemory;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.Test;
+import simulator.MulticoreController;
+import simulator.ProgramLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MulticoreTest {
+
+    // Each core sums its quarter of a 32-word array and sets a flag; core 0 waits for the flags and adds up
+    private static final String[] PARALLEL_SUM = {
+            "sll $t0, $a0, 5",
+            "addi $t1, $t0, 32",
+            "addi $t2, $zero, 0",
+            "loop: lw $t3, 0($t0)",
+            "add $t2, $t2, $t3",
+            "addi $t0, $t0, 4",
+            "bne $t0, $t1, loop",
+            "sll $t4, $a0, 4",
+            "sw $t2, 512($t4)",
+            "addi $t5, $zero, 1",
+            "sw $t5, 768($t4)",
+            "bne $a0, $zero, end",
+            "addi $v0, $t2, 0",
+            "addi $t6, $zero, 16",
+            "addi $t7, $zero, 64",
+            "wait: lw $t5, 768($t6)",
+            "beq $t5, $zero, wait",
+            "lw $t3, 512($t6)",
+            "add $v0, $v0, $t3",
+            "addi $t6, $t6, 16",
+            "bne $t6, $t7, wait",
+            "end: addi $t9, $zero, 1"
+    };
+
+    @Test
+    void testMesiTransitions() {
+        CoherenceBus bus = new CoherenceBus();
+        CacheHierarchy a = hierarchy();
+        CacheHierarchy b = hierarchy();
+        bus.connect(a);
+        bus.connect(b);
+        bus.tick();
+
+        assertEquals(22, a.access(64, false), "Bus plus memory");
+        assertEquals(State.EXCLUSIVE, bus.getState(0, 64));
+        assertEquals(0, a.access(68, true), "Silent upgrade");
+        assertEquals(State.MODIFIED, bus.getState(0, 64));
+
+        assertEquals(6, b.access(72, false) - 22, "Waits for the bus, then takes the flushed line");
+        assertEquals(State.SHARED, bus.getState(0, 64));
+        assertEquals(State.SHARED, bus.getState(1, 64));
+        assertEquals(1, bus.getFlushes(0));
+
+        for (int i = 0; i < 100; i++) bus.tick();
+        assertEquals(2, b.access(64, true), "BusUpgr");
+        assertEquals(State.MODIFIED, bus.getState(1, 64));
+        assertEquals(State.INVALID, bus.getState(0, 64));
+        assertEquals(1, bus.getInvalidations(0));
+
+        assertEquals(8, a.access(64, true), "BusRdX behind the BusUpgr, served by a flush");
+        assertEquals(State.MODIFIED, bus.getState(0, 64));
+        assertEquals(State.INVALID, bus.getState(1, 64));
+
+        assertEquals(2, bus.getStat(CoherenceBus.BUS_READS));
+        assertEquals(1, bus.getStat(CoherenceBus.BUS_READ_EXCLUSIVES));
+        assertEquals(1, bus.getStat(CoherenceBus.BUS_UPGRADES));
+        assertEquals(2, bus.getStat(CoherenceBus.FLUSHES));
+        assertEquals(1, bus.getStat(CoherenceBus.MEMORY_READS));
+        assertEquals(24, bus.getWaitCycles());
+    }
+
+    @Test
+    void testDirtyVictimWrittenBack() {
+        CoherenceBus bus = new CoherenceBus();
+        CacheHierarchy caches = hierarchy();
+        bus.connect(caches);
+        bus.tick();
+        caches.access(0, true);
+        for (int i = 0; i < 100; i++) bus.tick();
+        caches.access(256, false); // same set in a 256-byte direct-mapped cache
+        assertEquals(1, bus.getStat(CoherenceBus.WRITEBACKS));
+        assertEquals(State.INVALID, bus.getState(0, 0));
+        assertEquals(State.EXCLUSIVE, bus.getState(0, 256));
+    }
+
+    @Test
+    void testParallelSum() {
+        MulticoreController multicore = multicore(4, PARALLEL_SUM);
+        int expected = 0;
+        for (int i = 0; i < 32; i++) {
+            multicore.getDataMemory().storeWord(i * 4, i * 3 + 1);
+            expected += i * 3 + 1;
+        }
+        runToIdle(multicore);
+
+        assertEquals(expected, multicore.getCore(0).getCpuState().registerFile.get(2));
+        for (int core = 0; core < 4; core++) {
+            assertEquals(core, multicore.getCore(core).getCpuState().registerFile.get(4));
+            assertEquals(1, multicore.getCore(core).getCpuState().registerFile.get(25));
+            Cache l1 = multicore.getCore(core).getCaches().getDataCache();
+            long reads = l1.getStat(Cache.READ_HITS) + l1.getStat(Cache.READ_MISSES);
+            if (core == 0) {
+                assertTrue(reads >= 8 + 6, "Its slice, then three flags and three partial sums");
+            } else {
+                assertEquals(8, reads);
+            }
+        }
+        assertTrue(multicore.getBus().getStat(CoherenceBus.MEMORY_READS) >= 8, "Each core misses on its own array lines");
+    }
+
+    @Test
+    void testFalseSharing() {
+        MulticoreController shared = multicore(2, counterLoop(2));
+        MulticoreController padded = multicore(2, counterLoop(4));
+        runToIdle(shared);
+        runToIdle(padded);
+
+        assertEquals(20, shared.getDataMemory().loadWord(0));
+        assertEquals(20, shared.getDataMemory().loadWord(4));
+        assertEquals(20, padded.getDataMemory().loadWord(16));
+
+        CoherenceBus sharedBus = shared.getBus();
+        CoherenceBus paddedBus = padded.getBus();
+        assertTrue(sharedBus.getInvalidations(0) + sharedBus.getInvalidations(1) > 10);
+        assertEquals(0, paddedBus.getInvalidations(0) + paddedBus.getInvalidations(1));
+        assertEquals(2, paddedBus.getTransactions(), "One BusRd per core, then silent upgrades");
+        assertTrue(shared.getCycles() > padded.getCycles());
+    }
+
+    @Test
+    void testStartPcAndValidation() {
+        MulticoreController multicore = multicore(2, "addi $t0, $zero, 1", "addi $t1, $zero, 2");
+        multicore.setPc(1, 4);
+        runToIdle(multicore);
+        assertEquals(1, multicore.getCore(0).getCpuState().registerFile.get(8));
+        assertEquals(0, multicore.getCore(1).getCpuState().registerFile.get(8));
+        assertEquals(2, multicore.getCore(1).getCpuState().registerFile.get(9));
+
+        assertThrows(IllegalArgumentException.class, () -> multicore.setPc(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> multicore.getCore(2));
+        assertThrows(IllegalArgumentException.class, () -> multicore.presetCoreId(0));
+        InstructionMemory im = new InstructionMemory();
+        assertThrows(IllegalArgumentException.class,
+                () -> new MulticoreController(im, new DataMemory(), 0, new Cache(256, 16, 1)));
+        Cache writeThrough = new Cache(256, 16, 1);
+        writeThrough.setWriteBack(false);
+        assertThrows(IllegalArgumentException.class,
+                () -> new MulticoreController(im, new DataMemory(), 2, writeThrough));
+    }
+
+    private static String[] counterLoop(int strideShift) {
+        return new String[]{
+                "sll $t0, $a0, " + strideShift,
+                "addi $t1, $zero, 20",
+                "loop: lw $t2, 0($t0)",
+                "addi $t2, $t2, 1",
+                "sw $t2, 0($t0)",
+                "addi $t1, $t1, -1",
+                "bne $t1, $zero, loop"
+        };
+    }
+
+    private static CacheHierarchy hierarchy() {
+        CacheHierarchy caches = new CacheHierarchy();
+        caches.setDataCache(new Cache(256, 16, 1));
+        return caches;
+    }
+
+    private static MulticoreController multicore(int cores, String... program) {
+        InstructionMemory instructionMemory = new InstructionMemory();
+        DataMemory dataMemory = new DataMemory();
+        ProgramLoader.loadFromAssembly(new CPUState(instructionMemory, dataMemory), program, 0);
+        MulticoreController multicore = new MulticoreController(instructionMemory, dataMemory, cores, new Cache(256, 16, 1));
+        multicore.presetCoreId(4);
+        return multicore;
+    }
+
+    private static void runToIdle(MulticoreController multicore) {
+        for (int i = 0; !multicore.isIdle(); i++) {
+            assertTrue(i < 100_000, "Did not finish");
+            multicore.runCycle();
+            for (int core = 0; core < multicore.getCoreCount(); core++) {
+                multicore.getCore(core).getHistory().clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package tests;
+
+import model.control.prediction.BranchTargetBuffer;
+import model.control.prediction.CounterPredictor;
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.ooo.OutOfOrderConfig;
+import org.junit.jupiter.api.Test;
+import simulator.OutOfOrderController;
+import simulator.OutOfOrderController.Structure;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutOfOrderTest {
+
+    @Test
+    void testWorkloadsMatchInOrderPipeline() {
+        OutOfOrderConfig narrow = new OutOfOrderConfig();
+        narrow.setFetchWidth(1);
+        narrow.setIssueWidth(1);
+        narrow.setCommitWidth(1);
+        narrow.setRobEntries(2);
+        narrow.setStationEntries(1);
+        narrow.setLsqEntries(1);
+
+        OutOfOrderConfig wide = new OutOfOrderConfig();
+        wide.setFetchWidth(4);
+        wide.setIssueWidth(4);
+        wide.setCommitWidth(4);
+        wide.setRobEntries(128);
+        wide.setStationEntries(64);
+        wide.setLsqEntries(64);
+        wide.setAluLatency(3);
+        wide.setLoadLatency(20);
+
+        for (OutOfOrderConfig config : new OutOfOrderConfig[]{new OutOfOrderConfig(), narrow, wide}) {
+            for (Workload workload : Workload.values()) {
+                OutOfOrderController controller = controller(config, workload.source());
+                runToIdle(controller);
+                assertEquals(workload.getExpectedDigest(), Workload.digest(controller.getCpuState()),
+                        config + " " + workload.getName());
+            }
+        }
+    }
+
+    @Test
+    void testFasterThanInOrderPipeline() {
+        for (Workload workload : Workload.values()) {
+            OutOfOrderController controller = controller(new OutOfOrderConfig(), workload.source());
+            int cycles = runToIdle(controller);
+            assertTrue(cycles < workload.getExpectedCycles(), workload.getName() + " " + cycles);
+            assertTrue(controller.getCounters().getIpc() > 1, workload.getName());
+        }
+    }
+
+    @Test
+    void testLoadForwardedFromOlderStore() {
+        OutOfOrderController controller = controller(new OutOfOrderConfig(),
+                "addi $t0, $zero, 7",
+                "addi $t1, $zero, 9",
+                "sw $t0, 8($zero)",
+                "sw $t1, 12($zero)",
+                "lw $t2, 8($zero)",
+                "sw $t1, 8($zero)",
+                "lw $t3, 8($zero)",
+                "lw $t4, 16($zero)");
+        runToIdle(controller);
+        CPUState state = controller.getCpuState();
+        assertEquals(7, state.registerFile.get(10));
+        assertEquals(9, state.registerFile.get(11));
+        assertEquals(0, state.registerFile.get(12));
+        assertEquals(9, state.dataMemory.loadWord(8));
+    }
+
+    @Test
+    void testWrongPathSquashed() {
+        OutOfOrderController controller = controller(new OutOfOrderConfig(),
+                "addi $t0, $zero, 5",
+                "beq $t0, $t0, done",
+                "sw $t0, 0($zero)",
+                "addi $t1, $zero, 1",
+                "jal done",
+                "done: addi $t2, $t0, 1");
+        runToIdle(controller);
+        CPUState state = controller.getCpuState();
+        assertEquals(0, state.dataMemory.loadWord(0), "Store on the wrong path never reaches memory");
+        assertEquals(0, state.registerFile.get(9));
+        assertEquals(0, state.registerFile.get(31));
+        assertEquals(6, state.registerFile.get(10));
+        assertEquals(1, controller.getCounters().getMispredictions());
+        assertEquals(3, controller.getCounters().getRetired());
+    }
+
+    @Test
+    void testIndependentWorkOverlapsSlowLoad() {
+        OutOfOrderConfig config = new OutOfOrderConfig();
+        config.setLoadLatency(20);
+        String[] independent = {"lw $t0, 0($zero)", "addi $t1, $zero, 1", "addi $t2, $t1, 1",
+                "addi $t3, $t2, 1", "addi $t4, $t3, 1", "addi $t5, $t4, 1"};
+        String[] dependent = {"lw $t0, 0($zero)", "addi $t1, $t0, 1", "addi $t2, $t1, 1",
+                "addi $t3, $t2, 1", "addi $t4, $t3, 1", "addi $t5, $t4, 1"};
+
+        OutOfOrderController overlapped = controller(config, independent);
+        int overlappedCycles = runToIdle(overlapped);
+        int serialCycles = runToIdle(controller(config, dependent));
+        // The chain finishes under the load; only committing two per cycle behind it remains
+        assertEquals(serialCycles - 3, overlappedCycles);
+        assertEquals(5, overlapped.getCpuState().registerFile.get(13));
+        assertEquals(6, overlapped.getPeakOccupancy(Structure.ROB));
+    }
+
+    @Test
+    void testOccupancyAndFullStalls() {
+        OutOfOrderConfig config = new OutOfOrderConfig();
+        config.setRobEntries(4);
+        OutOfOrderController controller = controller(config, Workload.MEMCPY.source());
+        runToIdle(controller);
+
+        assertEquals(4, controller.getCapacity(Structure.ROB));
+        assertEquals(4, controller.getPeakOccupancy(Structure.ROB));
+        assertTrue(controller.getFullStalls(Structure.ROB) > 0);
+        assertEquals(0, controller.getFullStalls(Structure.STATIONS));
+        for (Structure structure : Structure.values()) {
+            assertTrue(controller.getAverageOccupancy(structure) <= controller.getPeakOccupancy(structure));
+            assertTrue(controller.getPeakOccupancy(structure) <= controller.getCapacity(structure), structure.name());
+        }
+    }
+
+    @Test
+    void testBranchPrediction() {
+        String[] loop = {"addi $t0, $zero, 20", "loop: addi $t0, $t0, -1", "bne $t0, $zero, loop"};
+        OutOfOrderController plain = controller(new OutOfOrderConfig(), loop);
+        int plainCycles = runToIdle(plain);
+        assertEquals(19, plain.getCounters().getMispredictions());
+
+        OutOfOrderController predicted = controller(new OutOfOrderConfig(), loop);
+        predicted.setBranchPrediction(new CounterPredictor(2, 64), new BranchTargetBuffer(16));
+        assertTrue(runToIdle(predicted) < plainCycles);
+        // Predictor and BTB learn at commit, so the second iteration is fetched before the first taken branch is known
+        assertEquals(3, predicted.getCounters().getMispredictions());
+        assertEquals(20, predicted.getCounters().getBranches());
+
+        for (Workload workload : Workload.values()) {
+            OutOfOrderController controller = controller(new OutOfOrderConfig(), workload.source());
+            controller.setBranchPrediction(new CounterPredictor(2, 256), new BranchTargetBuffer(64));
+            runToIdle(controller);
+            assertEquals(workload.getExpectedDigest(), Workload.digest(controller.getCpuState()), workload.getName());
+        }
+    }
+
+    @Test
+    void testConfigValidation() {
+        OutOfOrderConfig config = new OutOfOrderConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.setRobEntries(1));
+        assertThrows(IllegalArgumentException.class, () -> config.setFetchWidth(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setLoadLatency(0));
+
+        config.setIssueWidth(3);
+        OutOfOrderController controller = controller(config, "addi $t0, $zero, 1");
+        config.setIssueWidth(1);
+        assertEquals(3, controller.getConfig().getIssueWidth(), "Controller keeps its own copy");
+    }
+
+    private static OutOfOrderController controller(OutOfOrderConfig config, String... program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        return new OutOfOrderController(cpuState, config);
+    }
+
+    private static int runToIdle(OutOfOrderController controller) {
+        int cycles = 0;
+        while (!controller.isIdle()) {
+            controller.runCycle();
+            cycles++;
+        }
+        return cycles;
+    }
+}
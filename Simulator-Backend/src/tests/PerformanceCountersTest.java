@@ -0,0 +1,105 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.Test;
+import simulator.Clock;
+import simulator.PerformanceCounters;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerformanceCountersTest {
+
+    @Test
+    void testLoadUseStallAndMemWbForwarding() {
+        PerformanceCounters counters = run(10, "lw $t0, 0($zero)", "add $t1, $t0, $t0");
+
+        assertEquals(10, counters.getCycles());
+        assertEquals(2, counters.getRetired());
+        assertEquals(1, counters.getLoadUseStalls());
+        assertEquals(1, counters.getForwardAMemWb());
+        assertEquals(1, counters.getForwardBMemWb());
+        assertEquals(0, counters.getForwardAExMem());
+        assertEquals(1, counters.getOpcodeCount(0x23));
+        assertEquals(1, counters.getFunctCount(0x20));
+        assertEquals(5.0, counters.getCpi(), 1e-9);
+    }
+
+    @Test
+    void testExMemForwarding() {
+        PerformanceCounters counters = run(8, "addi $t0, $zero, 5", "add $t1, $zero, $t0");
+
+        assertEquals(0, counters.getLoadUseStalls());
+        assertEquals(1, counters.getForwardBExMem());
+        assertEquals(0, counters.getForwardAExMem());
+        assertEquals(1, counters.getOpcodeCount(0x08));
+    }
+
+    @Test
+    void testBranchFlushesAndMix() {
+        PerformanceCounters counters = run(200,
+                "addi $t0, $zero, 20",
+                "loop: addi $t0, $t0, -1",
+                "bne $t0, $zero, loop");
+
+        assertEquals(19, counters.getBranchFlushes());
+        assertEquals(41, counters.getRetired());
+        assertEquals(21, counters.getOpcodeCount(0x08));
+        assertEquals(20, counters.getOpcodeCount(0x05));
+    }
+
+    @Test
+    void testJumpsAndReset() {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, new String[]{
+                "j skip",
+                "addi $t0, $zero, 1",
+                "skip: addi $t1, $zero, 2"
+        }, 0);
+        PipelineController controller = new PipelineController(cpuState);
+        new Clock(controller).run(8);
+
+        PerformanceCounters counters = controller.getCounters();
+        assertEquals(1, counters.getJumpBubbles());
+        assertEquals(1, counters.getOpcodeCount(0x08));
+        assertEquals(0, cpuState.registerFile.get(8));
+
+        controller.clearHistory();
+        assertEquals(0, counters.getCycles());
+        assertEquals(0, counters.getRetired());
+        assertEquals(0, counters.getOpcodeCount(0x02));
+        assertEquals(0.0, counters.getCpi());
+    }
+
+    @Test
+    void testRewindRestoresCounters() {
+        PerformanceCounters straight = run(600, Workload.BUBBLE_SORT.source());
+
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, Workload.BUBBLE_SORT.source(), 0);
+        PipelineController controller = new PipelineController(cpuState);
+        Clock clock = new Clock(controller);
+        clock.run(600);
+        assertEquals(300, clock.rewind(300));
+        assertEquals(300, controller.getCounters().getCycles());
+        clock.run(300);
+
+        PerformanceCounters counters = controller.getCounters();
+        assertEquals(600, counters.getCycles());
+        assertEquals(straight.getRetired(), counters.getRetired());
+        assertEquals(straight.getMispredictions(), counters.getMispredictions());
+        assertEquals(straight.getForwardAExMem(), counters.getForwardAExMem());
+        assertEquals(straight.getOpcodeCount(0x23), counters.getOpcodeCount(0x23));
+    }
+
+    private static PerformanceCounters run(int cycles, String... program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        PipelineController controller = new PipelineController(cpuState);
+        new Clock(controller).run(cycles);
+        return controller.getCounters();
+    }
+}
@@ -4,7 +4,10 @@ import model.cpu.CPUState;
 import model.instruction.ITypeInstruction;
 import model.instruction.RTypeInstruction;
 import model.memory.InstructionMemory;
+import simulator.Checkpoint;
+import simulator.Clock;
 import simulator.PipelineController;
+import simulator.ProgramLoader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -285,4 +288,70 @@ class PipelineControllerTest {
         assertTrue(hadFlush, "Should have pipeline flush for taken branch");
         System.out.println("Flush detected: " + hadFlush);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testForkContinuesIndependently() {
+        // add $6, $1, $2  (100 + 200 = 300)
+        // add $7, $6, $3  (300 + 300 = 600)
+        cpu.instructionMemory.setInstruction(0, new RTypeInstruction(0, encodeRType(32, 1, 2, 6, 0)));
+        cpu.instructionMemory.setInstruction(4, new RTypeInstruction(0, encodeRType(32, 6, 3, 7, 0)));
+
+        for (int i = 0; i < 2; i++) {
+            controller.runCycle();
+        }
+
+        PipelineController fork = controller.fork();
+        fork.getCpuState().registerFile.set(3, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            controller.runCycle();
+            fork.runCycle();
+        }
+
+        assertEquals(600, cpu.registerFile.get(7), "Original run uses $3 = 300");
+        assertEquals(1300, fork.getCpuState().registerFile.get(7), "Fork uses its own $3 = 1000");
+        assertEquals(300, fork.getCpuState().registerFile.get(6), "In-flight add should complete in the fork");
+        assertEquals(5, fork.getHistory().size(), "Fork starts with an empty history");
+    }
+
+    @Test
+    void testStepBackRestoresEarlierCycle() {
+        String[] program = {
+                "addi $t0, $zero, 3",
+                "loop: sw $t0, 8($zero)",
+                "lw $t1, 8($zero)",
+                "add $t2, $t2, $t1",
+                "addi $t0, $t0, -1",
+                "jal next",
+                "next: bne $t0, $zero, loop"
+        };
+        ProgramLoader.loadFromAssembly(cpu, program, 0);
+        Clock clock = new Clock(controller);
+
+        clock.run(7);
+        byte[] atSeven = Checkpoint.save(controller, clock);
+        clock.run(25);
+
+        assertEquals(25, clock.rewind(25));
+        assertEquals(7, clock.getCycle());
+        assertArrayEquals(atSeven, Checkpoint.save(controller, clock), "Rewound state should match cycle 7 exactly");
+
+        clock.run(25);
+        assertEquals(6, cpu.registerFile.get(10), "Replaying after a rewind should give the same result");
+    }
+
+    @Test
+    void testStepBackIsBoundedByUndoDepth() {
+        cpu.instructionMemory.setInstruction(0, new RTypeInstruction(0, encodeRType(32, 1, 2, 6, 0)));
+        controller.setUndoDepth(4);
+
+        for (int i = 0; i < 10; i++) {
+            controller.runCycle();
+        }
+
+        assertEquals(4, controller.getUndoAvailable());
+        assertEquals(4, controller.stepBack(8));
+        assertEquals(0, controller.stepBack(1));
+        assertEquals(6, controller.getHistory().size());
+    }
+}
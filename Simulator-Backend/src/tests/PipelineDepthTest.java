@@ -0,0 +1,158 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.pipeline.stages.PipelineLayout;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageInfo;
+import model.pipeline.state.StageState;
+import org.junit.jupiter.api.Test;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.Workload;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+import static tests.TestPrograms.runToIdle;
+
+class PipelineDepthTest {
+
+    private static final String[] LOOP = {
+            "addi $t0, $zero, 20",
+            "loop: addi $t0, $t0, -1",
+            "bne $t0, $zero, loop",
+            "addi $t1, $zero, 7"
+    };
+
+    private static final String[] LOAD_USE = {
+            "addi $t0, $zero, 5",
+            "sw $t0, 0($zero)",
+            "lw $t1, 0($zero)",
+            "add $t2, $t1, $t1"
+    };
+
+    @Test
+    void testLayoutNames() {
+        assertEquals(List.of("IF", "ID", "EX", "MEM", "WB"), PipelineLayout.CLASSIC.getStageNames());
+        assertEquals("IF1 IF2 ID EX MEM1 MEM2 WB", PipelineLayout.of(2, 2).toString());
+        assertEquals(8, PipelineLayout.of(2, 3).getDepth());
+        assertSame(PipelineLayout.CLASSIC, PipelineLayout.of(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> PipelineLayout.of(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> PipelineLayout.of(1, 4));
+    }
+
+    @Test
+    void testSnapshotsRecordSplitStages() {
+        PipelineController controller = controller(PipelineLayout.of(2, 3), LOAD_USE);
+        for (int i = 0; i < 6; i++) {
+            controller.runCycle();
+        }
+
+        // Cycle 6 of IF1 IF2 ID EX MEM1 MEM2 MEM3 WB: the addi entered MEM1 a cycle before the sw
+        PipelineSnapshot snapshot = controller.getHistory().get(5);
+        StageInfo[] fetch = snapshot.getSplitFetchStages();
+        StageInfo[] memory = snapshot.getSplitMemoryStages();
+        assertEquals(1, fetch.length);
+        assertEquals(2, memory.length);
+        assertEquals(StageState.EMPTY, fetch[0].getState());
+        assertEquals(0xAC080000, memory[0].getInstruction().getBinary()); // sw $t0, 0($zero)
+        assertEquals(0x20080005, memory[1].getInstruction().getBinary()); // addi $t0, $zero, 5
+        assertEquals(StageState.EMPTY, snapshot.getMemStage().getState());
+
+        PipelineController classic = controller(PipelineLayout.CLASSIC, LOAD_USE);
+        classic.runCycle();
+        assertEquals(0, classic.getHistory().get(0).getSplitFetchStages().length);
+        assertEquals(0, classic.getHistory().get(0).getSplitMemoryStages().length);
+    }
+
+    @Test
+    void testLoadUseStallPerMemoryStage() {
+        for (int memoryStages = 1; memoryStages <= 3; memoryStages++) {
+            PipelineController controller = controller(PipelineLayout.of(1, memoryStages), LOAD_USE);
+            runToIdle(controller);
+            assertEquals(memoryStages, controller.getCounters().getLoadUseStalls());
+            assertEquals(10, controller.getCpuState().registerFile.get(10));
+        }
+    }
+
+    @Test
+    void testMispredictionBubblePerFetchStage() {
+        int classic = runToIdle(controller(PipelineLayout.CLASSIC, LOOP));
+        PipelineController deep = controller(PipelineLayout.of(3, 1), LOOP);
+        int cycles = runToIdle(deep);
+
+        // Two more cycles to fill, and two more bubbles for each of the 19 taken branches
+        assertEquals(classic + 2 + 2 * 19, cycles);
+        assertEquals(19, deep.getCounters().getMispredictions());
+        assertEquals(7, deep.getCpuState().registerFile.get(9));
+
+        PipelineController early = controller(PipelineLayout.of(3, 1), LOOP);
+        early.setEarlyBranchResolution(true);
+        assertEquals(cycles - 19 + 20, runToIdle(early), "One bubble less per misprediction, one stall per iteration");
+        assertEquals(20, early.getCounters().getBranchStalls());
+    }
+
+    @Test
+    void testJumpFlushesFetchStages() {
+        String[] program = {"j skip", "addi $t0, $zero, 1", "addi $t0, $zero, 2", "skip: addi $t1, $zero, 3"};
+        PipelineController controller = controller(PipelineLayout.of(3, 2), program);
+        runToIdle(controller);
+        assertEquals(0, controller.getCpuState().registerFile.get(8));
+        assertEquals(3, controller.getCpuState().registerFile.get(9));
+    }
+
+    @Test
+    void testWorkloadsUnchangedByDepth() {
+        PipelineLayout[] layouts = {PipelineLayout.of(1, 2), PipelineLayout.of(2, 2), PipelineLayout.of(2, 3)};
+        for (PipelineLayout layout : layouts) {
+            for (Workload workload : Workload.values()) {
+                for (boolean early : new boolean[]{false, true}) {
+                    CPUState cpuState = new CPUState(new InstructionMemory());
+                    ProgramLoader.loadFromAssembly(cpuState, workload.source(), 0);
+                    PipelineController controller = new PipelineController(cpuState);
+                    controller.setLayout(layout);
+                    controller.setUndoDepth(0);
+                    controller.setEarlyBranchResolution(early);
+
+                    int cycles = runToIdle(controller);
+                    String name = layout + " " + workload.getName() + (early ? " id" : "");
+                    assertEquals(workload.getExpectedDigest(), Workload.digest(cpuState), name);
+                    if (!early) {
+                        assertTrue(cycles > workload.getExpectedCycles(), name);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testStepBackAndFork() {
+        PipelineController controller = controller(PipelineLayout.of(2, 3), LOAD_USE);
+        for (int i = 0; i < 6; i++) controller.runCycle();
+        PipelineController fork = controller.fork();
+        assertEquals(controller.getLayout(), fork.getLayout());
+
+        for (int i = 0; i < 4; i++) controller.runCycle();
+        assertEquals(4, controller.stepBack(4));
+        for (int i = 0; i < 12; i++) {
+            controller.runCycle();
+            fork.runCycle();
+            assertEquals(fork.getCpuState().pc.get(), controller.getCpuState().pc.get(), "cycle " + i);
+        }
+        assertEquals(10, controller.getCpuState().registerFile.get(10));
+        assertEquals(10, fork.getCpuState().registerFile.get(10));
+        assertTrue(controller.isIdle());
+    }
+
+    @Test
+    void testLayoutNeedsEmptyPipeline() {
+        PipelineController controller = controller(PipelineLayout.CLASSIC, LOAD_USE);
+        controller.runCycle();
+        assertThrows(IllegalArgumentException.class, () -> controller.setLayout(PipelineLayout.of(2, 2)));
+        controller.clearPipeline();
+        controller.setLayout(PipelineLayout.of(2, 2));
+        assertEquals(7, controller.getLayout().getDepth());
+    }
+}
@@ -0,0 +1,108 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.pipeline.stages.PipelineLayout;
+import org.junit.jupiter.api.Test;
+import simulator.Clock;
+import simulator.PipelineController;
+import simulator.Profiler;
+import simulator.ProgramLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfilerTest {
+
+    @Test
+    void testBranchProfile() {
+        Profiler profiler = run(60,
+                "addi $t0, $zero, 5",
+                "loop: addi $t0, $t0, -1",
+                "bne $t0, $zero, loop",
+                "addi $t1, $zero, 7");
+
+        assertEquals(1, profiler.getExecutions(0));
+        assertEquals(5, profiler.getExecutions(4));
+        assertEquals(5, profiler.getExecutions(8));
+        assertEquals(4, profiler.getTaken(8));
+        assertEquals(1, profiler.getNotTaken(8));
+        assertEquals(4, profiler.getFlushes(8), "Each taken branch discards the fall-through instruction");
+        assertEquals(1, profiler.getExecutions(12));
+        assertEquals(0, profiler.getTaken(4));
+        assertEquals(9, profiler.getCost(8));
+    }
+
+    @Test
+    void testJumpsAreProfiled() {
+        Profiler profiler = run(20,
+                "j skip",
+                "addi $t0, $zero, 1",
+                "skip: jal func",
+                "addi $t1, $zero, 2",
+                "func: addi $t2, $zero, 3");
+
+        assertEquals(1, profiler.getExecutions(0));
+        assertEquals(0, profiler.getExecutions(4));
+        assertEquals(1, profiler.getExecutions(8));
+    }
+
+    @Test
+    void testFlushesCountEveryFetchStage() {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, new String[]{
+                "addi $t0, $zero, 5",
+                "loop: addi $t0, $t0, -1",
+                "bne $t0, $zero, loop",
+                "addi $t1, $zero, 7",
+                "addi $t2, $zero, 8",
+                "addi $t3, $zero, 9"}, 0);
+        PipelineController controller = new PipelineController(cpuState);
+        controller.setLayout(PipelineLayout.of(3, 1));
+        new Clock(controller).run(80);
+        Profiler profiler = controller.getProfiler();
+
+        assertEquals(4, profiler.getTaken(8));
+        assertEquals(12, profiler.getFlushes(8), "Each taken branch discards one instruction per fetch stage");
+    }
+
+    @Test
+    void testStallsChargedToWaitingInstruction() {
+        Profiler profiler = run(10, "lw $t0, 0($zero)", "add $t1, $t0, $t0");
+
+        assertEquals(0, profiler.getStallCycles(0));
+        assertEquals(1, profiler.getStallCycles(4));
+        assertEquals(1, profiler.getExecutions(4));
+    }
+
+    @Test
+    void testTopOrdersByCost() {
+        Profiler profiler = run(60,
+                "addi $t0, $zero, 5",
+                "loop: addi $t0, $t0, -1",
+                "bne $t0, $zero, loop",
+                "addi $t1, $zero, 7");
+
+        assertArrayEquals(new int[]{8, 4}, profiler.top(2));
+        assertArrayEquals(new int[]{8, 4, 0, 12}, profiler.top(10));
+        assertEquals(0, profiler.top(0).length);
+
+        profiler.reset();
+        assertEquals(0, profiler.top(10).length);
+        assertEquals(0, profiler.getExecutions(8));
+    }
+
+    @Test
+    void testTopBreaksTiesByAddress() {
+        Profiler profiler = run(10, "addi $t0, $zero, 1", "addi $t1, $zero, 2", "addi $t2, $zero, 3");
+
+        assertArrayEquals(new int[]{0, 4, 8}, profiler.top(3));
+    }
+
+    private static Profiler run(int cycles, String... program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        PipelineController controller = new PipelineController(cpuState);
+        new Clock(controller).run(cycles);
+        return controller.getProfiler();
+    }
+}
@@ -0,0 +1,114 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.instruction.Instruction;
+import model.memory.InstructionMemory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import simulator.PipelineController;
+import simulator.ProgramCache;
+import simulator.ProgramImage;
+import simulator.ProgramLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgramCacheTest {
+
+    private static final String PROGRAM = "addi $t0, $zero, 10\naddi $t1, $zero, 5\nadd $t2, $t0, $t1\n";
+
+    private ProgramCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProgramCache(2);
+    }
+
+    @Test
+    void testRepeatLoadReturnsSameImage() {
+        ProgramImage first = cache.getOrAssemble(PROGRAM, 0);
+        ProgramImage second = cache.getOrAssemble(PROGRAM, 0);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, first.size());
+        assertEquals(3, first.getSourceLine(2));
+    }
+
+    @Test
+    void testNormalizesLineEndingsAndTrailingWhitespace() {
+        ProgramImage unix = cache.getOrAssemble(PROGRAM, 0);
+        ProgramImage windows = cache.getOrAssemble(PROGRAM.replace("\n", "  \r\n"), 0);
+
+        assertSame(unix, windows);
+    }
+
+    @Test
+    void testStartAddressIsPartOfKey() {
+        ProgramImage atZero = cache.getOrAssemble(PROGRAM, 0);
+        ProgramImage atSixteen = cache.getOrAssemble(PROGRAM, 16);
+
+        assertNotSame(atZero, atSixteen);
+        assertEquals(16, atSixteen.getStartAddress());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        ProgramImage a = cache.getOrAssemble("add $t0, $t0, $t0", 0);
+        cache.getOrAssemble("sub $t0, $t0, $t0", 0);
+        cache.getOrAssemble("add $t0, $t0, $t0", 0); // touch a
+        cache.getOrAssemble("or $t0, $t0, $t0", 0);  // evicts sub
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.getOrAssemble("add $t0, $t0, $t0", 0));
+        long misses = cache.getMisses();
+        cache.getOrAssemble("sub $t0, $t0, $t0", 0);
+        assertEquals(misses + 1, cache.getMisses(), "Evicted source should be reassembled");
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrAssemble("bogus $t0", 0));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSharedImageIsNotModifiedByLoadedMemory() {
+        CPUState a = new CPUState(new InstructionMemory());
+        CPUState b = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(a, PROGRAM, 0, cache);
+        ProgramLoader.loadFromAssembly(b, PROGRAM, 0, cache);
+
+        Instruction replacement = a.instructionMemory.fetch(0).copy();
+        a.instructionMemory.setInstruction(4, replacement);
+
+        assertEquals(0x20090005, b.instructionMemory.fetch(4).getBinary());
+        assertEquals(0x20090005, cache.getOrAssemble(PROGRAM, 0).getWord(1));
+        assertNotSame(a.instructionMemory.fetch(4), b.instructionMemory.fetch(4));
+    }
+
+    @Test
+    void testCachedProgramRuns() {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        cache.getOrAssemble(PROGRAM, 0);
+        ProgramLoader.ProgramLoadResult result = ProgramLoader.loadFromAssembly(cpuState, PROGRAM, 0, cache);
+
+        assertEquals(3, result.loadedCount);
+        assertEquals(8, result.endAddress);
+
+        PipelineController controller = new PipelineController(cpuState);
+        for (int i = 0; i < 9; i++) {
+            controller.runCycle();
+        }
+        assertEquals(15, cpuState.registerFile.get(10));
+    }
+
+    @Test
+    void testImageLargerThanMemoryIsClipped() {
+        CPUState cpuState = new CPUState(new InstructionMemory(2));
+        ProgramLoader.ProgramLoadResult result = ProgramLoader.loadFromAssembly(cpuState, PROGRAM, 0, cache);
+
+        assertEquals(2, result.loadedCount);
+        assertEquals(1, result.warnings.size());
+    }
+}
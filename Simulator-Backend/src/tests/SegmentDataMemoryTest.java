@@ -0,0 +1,135 @@
+package tests;
+
+import model.memory.DataMemory;
+import model.memory.SegmentDataMemory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentDataMemoryTest {
+
+    private SegmentDataMemory memory;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        memory = new SegmentDataMemory(1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memory.close();
+    }
+
+    @Test
+    void testStoreAndLoadWord() {
+        memory.storeWord(0, 12345);
+        memory.storeWord(4092, -1);
+
+        assertEquals(12345, memory.loadWord(0));
+        assertEquals(-1, memory.loadWord(4092));
+        assertEquals(4096, memory.sizeBytes());
+    }
+
+    @Test
+    void testOutOfRangeAccessIsIgnored() {
+        assertDoesNotThrow(() -> memory.storeWord(4096, 1));
+        assertDoesNotThrow(() -> memory.storeWord(-4, 1));
+        assertEquals(0, memory.loadWord(4096));
+        assertEquals(0, memory.loadWord(-4));
+    }
+
+    @Test
+    void testClearZeroesAllWords() {
+        memory.storeWord(0, 1);
+        memory.storeWord(2048, 2);
+        memory.clear();
+
+        assertEquals(0, memory.loadWord(0));
+        assertEquals(0, memory.loadWord(2048));
+    }
+
+    @Test
+    void testLoadImageIsBigEndian() {
+        ByteBuffer image = ByteBuffer.wrap(new byte[]{0x12, 0x34, 0x56, 0x78, 0, 0, 0, 0x2A});
+        memory.loadImage(image, 8);
+
+        assertEquals(0x12345678, memory.loadWord(8));
+        assertEquals(42, memory.loadWord(12));
+        assertEquals(0, image.position(), "Loading should not consume the source buffer");
+    }
+
+    @Test
+    void testSavedImageRoundTripsThroughHeapMemory() throws Exception {
+        memory.storeWord(0, 7);
+        memory.storeWord(100, 0xCAFEBABE);
+        Path file = tempDir.resolve("mem.bin");
+        memory.saveImage(file);
+
+        DataMemory heap = new DataMemory();
+        heap.loadImage(ByteBuffer.wrap(Files.readAllBytes(file)), 0);
+
+        assertEquals(7, heap.loadWord(0));
+        assertEquals(0xCAFEBABE, heap.loadWord(100));
+    }
+
+    @Test
+    void testMappedFileSharesStores() throws Exception {
+        Path file = tempDir.resolve("shared.bin");
+        try (SegmentDataMemory mapped = SegmentDataMemory.map(file, 256)) {
+            mapped.storeWord(16, 99);
+            mapped.force();
+        }
+        assertEquals(1024, Files.size(file));
+
+        try (SegmentDataMemory reopened = SegmentDataMemory.map(file, 256)) {
+            assertEquals(99, reopened.loadWord(16), "Stores should persist in the mapped file");
+        }
+    }
+
+    @Test
+    void testPrivateMappingDoesNotWriteThrough() throws Exception {
+        Path file = tempDir.resolve("image.bin");
+        Files.write(file, new byte[]{0, 0, 0, 5, 0, 0, 0, 6});
+
+        try (SegmentDataMemory image = SegmentDataMemory.open(file)) {
+            assertEquals(8, image.sizeBytes());
+            assertEquals(5, image.loadWord(0));
+            image.storeWord(4, 60);
+            assertEquals(60, image.loadWord(4));
+        }
+        assertEquals(6, Files.readAllBytes(file)[7], "Private mapping must leave the file untouched");
+    }
+
+    @Test
+    void testCheckpointRoundTripsWithHeapMemory() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SegmentDataMemory large = new SegmentDataMemory(4096)) {
+            large.storeWord(8, 7);
+            large.storeWord(4000, -3);
+            large.writeTo(new DataOutputStream(bytes));
+        }
+        assertEquals(4 + 8 + 4096 + 4, bytes.size(), "Only the non-zero 4KB chunk is written");
+
+        DataMemory heap = new DataMemory(4096);
+        heap.storeWord(12000, 99);
+        heap.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(7, heap.loadWord(8));
+        assertEquals(-3, heap.loadWord(4000));
+        assertEquals(0, heap.loadWord(12000), "Restoring replaces the previous contents");
+    }
+}
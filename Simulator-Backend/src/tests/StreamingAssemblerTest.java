@@ -0,0 +1,154 @@
+package tests;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import simulator.StreamingAssembler;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingAssemblerTest {
+
+    private static final int START_ADDRESS = 0x00400000;
+
+    @Test
+    @DisplayName("Encodes every supported instruction")
+    void testEveryInstruction() throws IOException {
+        String[] assembly = {
+                "# every mnemonic once",
+                "main:",
+                "    add $t0, $s1, $s2",
+                "    SUB $t1, $t2, $t3",
+                "    and $v0, $a0, $a1",
+                "    or $v1, $a2, $a3",
+                "    xor $s0, $s1, $s2",
+                "    nor $s3, $s4, $s5",
+                "    slt $t4, $t5, $t6",
+                "    sll $t0, $s1, 5",
+                "    srl $t1, $s2, 3",
+                "loop: addi $t1, $s2, -50",
+                "    andi $t3, $s4, 0xFF",
+                "    ori $t4, $s5, 0X55",
+                "    slti $t5, $s6, 10",
+                "    lw $t2, 100 ( $s3 )",
+                "    sw $t3,-50($s4)",
+                "    beq $t0, $zero, end   # forward",
+                "    bne $t0, $31, loop    # backward",
+                "    beq $0, $zero, 2",
+                "    j loop",
+                "    jal end",
+                "    j 0x100",
+                "end:",
+                "    sw $ra, 0($sp)"
+        };
+
+        int[] expected = {
+                0x02324020, 0x014B4822, 0x00851024, 0x00C71825, 0x02328026, 0x02959827,
+                0x01AE602A, 0x00114140, 0x001248C2, 0x2249FFCE, 0x328B00FF, 0x36AC0055,
+                0x2ACD000A, 0x8E6A0064, 0xAE8BFFCE, 0x11000005, 0x151FFFF8, 0x10000002,
+                0x08100009, 0x0C100015, 0x08000100, 0xAFBF0000
+        };
+        StreamingAssembler.Result actual = assemble(String.join("\n", assembly));
+
+        assertTrue(actual.errors.isEmpty(), "Should have no errors: " + actual.errors);
+        assertArrayEquals(expected, actual.machineCode);
+    }
+
+    @Test
+    @DisplayName("Records the source line of every word")
+    void testSourceLines() throws IOException {
+        StreamingAssembler.Result result = assemble("# header\n\nstart:\naddi $t0, $zero, 1\r\n  j start\n");
+
+        assertArrayEquals(new int[]{4, 5}, result.sourceLines);
+        assertEquals(0x100000, result.machineCode[1] & 0x3FFFFFF);
+    }
+
+    @Test
+    @DisplayName("Reports errors with source line numbers")
+    void testErrors() throws IOException {
+        StreamingAssembler.Result result = assemble(String.join("\n",
+                "add $t0, $s1, $s2",
+                "unknown $t1, $t2",
+                "add $t99, $t1, $t2",
+                "addi $t2, $s3, 0xGGG",
+                "lw $t2, $s3",
+                "beq $t0, $t1, missing",
+                "addi $t0, $zero, 99999999999"));
+
+        assertEquals(6, result.errors.size(), "Errors: " + result.errors);
+        assertTrue(result.errors.get(0).startsWith("Line 2: Unknown instruction: unknown"));
+        assertTrue(result.errors.get(1).startsWith("Line 3: Invalid register: $t99"));
+        assertTrue(result.errors.get(2).startsWith("Line 4: Invalid immediate value: 0xggg"));
+        assertTrue(result.errors.get(3).startsWith("Line 5: Invalid format for lw"));
+        assertTrue(result.errors.get(4).startsWith("Line 7: Invalid immediate value"));
+        assertTrue(result.errors.get(5).startsWith("Line 6: Invalid immediate value: missing"));
+        assertEquals(7, result.machineCode.length, "Failed lines keep their slot");
+    }
+
+    @Test
+    @DisplayName("Rejects duplicate labels")
+    void testDuplicateLabel() throws IOException {
+        StreamingAssembler.Result result = assemble("a: add $t0, $t0, $t0\nA: add $t0, $t0, $t0");
+
+        assertEquals(1, result.errors.size());
+        assertTrue(result.errors.get(0).contains("Duplicate label: a"));
+    }
+
+    @Test
+    @DisplayName("Resolves many forward references")
+    void testLargeProgram() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int blocks = 50_000;
+        for (int i = 0; i < blocks; i++) {
+            sb.append("L").append(i).append(": beq $t0, $t1, L").append(i + 1).append('\n');
+            sb.append("  addi $t0, $t0, 1\n");
+        }
+        sb.append("L").append(blocks).append(": j L0\n");
+
+        StreamingAssembler.Result result = assemble(sb.toString());
+
+        assertTrue(result.errors.isEmpty(), "Errors: " + result.errors);
+        assertEquals(2 * blocks + 1, result.machineCode.length);
+        assertEquals(1, result.machineCode[0] & 0xFFFF, "Each branch skips one instruction");
+        assertEquals(1, result.machineCode[2 * blocks - 2] & 0xFFFF);
+        assertEquals(START_ADDRESS / 4, result.machineCode[2 * blocks] & 0x3FFFFFF);
+    }
+
+    @Test
+    @DisplayName("Parallel encoding matches the single pass, errors included")
+    void testParallelMatchesSinglePass() {
+        String source = generateProgram(100_000, 997);
+
+        StreamingAssembler.Result single = StreamingAssembler.assemble(source, START_ADDRESS, false);
+        StreamingAssembler.Result parallel = StreamingAssembler.assemble(source, START_ADDRESS, true);
+
+        assertTrue(single.errors.size() > 300, "Program should contain failing lines");
+        assertArrayEquals(single.machineCode, parallel.machineCode);
+        assertArrayEquals(single.sourceLines, parallel.sourceLines);
+        assertEquals(single.errors, parallel.errors);
+    }
+
+    /**
+     * Loop blocks with forward and backward branches. Every errorEvery-th block has an unknown
+     * mnemonic, a duplicate label and a branch to a label that is never defined.
+     */
+    private static String generateProgram(int blocks, int errorEvery) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < blocks; i++) {
+            boolean broken = errorEvery > 0 && i % errorEvery == 0;
+            sb.append("L").append(i).append(": addi $t0, $t0, ").append(i & 0xFF).append("  # block ").append(i).append('\n');
+            sb.append(broken ? "bogus" : "bne").append(" $t0, $t1, L").append(i + 1).append('\n');
+            if (broken) {
+                sb.append('\n').append("L").append(i).append(": beq $t0, $zero, missing").append(i).append('\n');
+            }
+            sb.append("beq $t0, $zero, L").append(Math.max(0, i - 1)).append('\n');
+        }
+        return sb.append("L").append(blocks).append(": j L0").toString();
+    }
+
+    private static StreamingAssembler.Result assemble(String source) throws IOException {
+        return StreamingAssembler.assemble(new StringReader(source), START_ADDRESS);
+    }
+}
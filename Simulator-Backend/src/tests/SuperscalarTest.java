@@ -0,0 +1,138 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.pipeline.state.PipelineSnapshot;
+import model.pipeline.state.StageState;
+import org.junit.jupiter.api.Test;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+import simulator.SuperscalarController;
+import simulator.Workload;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuperscalarTest {
+
+    @Test
+    void testIndependentPairsDualIssue() {
+        SuperscalarController controller = controller(
+                "addi $t0, $zero, 1", "addi $t1, $zero, 2",
+                "addi $t2, $zero, 3", "addi $t3, $zero, 4",
+                "add $t4, $t0, $t1", "add $t5, $t2, $t3");
+        int cycles = runToIdle(controller);
+
+        assertEquals(3, controller.getDualIssueCycles());
+        assertEquals(6, controller.getCounters().getRetired());
+        assertEquals(7, cycles, "Three pairs: one cycle each plus four to drain");
+        assertTrue(controller.getCounters().getIpc() > 0.8);
+        assertEquals(3, controller.getCpuState().registerFile.get(12));
+        assertEquals(7, controller.getCpuState().registerFile.get(13));
+    }
+
+    @Test
+    void testIssueRestrictions() {
+        // Dependent pair, two memory accesses, a branch in the older slot
+        assertEquals(0, dualIssueCycles("addi $t0, $zero, 1", "addi $t1, $t0, 1"));
+        assertEquals(0, dualIssueCycles("sw $zero, 0($zero)", "lw $t1, 4($zero)"));
+        assertEquals(0, dualIssueCycles("beq $zero, $t0, 0", "addi $t1, $zero, 1"));
+        assertEquals(1, dualIssueCycles("addi $t1, $zero, 1", "beq $zero, $t0, 0"));
+        assertEquals(1, dualIssueCycles("addi $t1, $zero, 1", "sw $t0, 0($zero)"));
+    }
+
+    @Test
+    void testLoadUseStallsBothSlots() {
+        SuperscalarController controller = controller(
+                "addi $t0, $zero, 9", "sw $t0, 0($zero)",
+                "lw $t1, 0($zero)", "addi $t3, $zero, 1",
+                "add $t2, $t1, $t1");
+        runToIdle(controller);
+        assertEquals(1, controller.getCounters().getLoadUseStalls());
+        assertEquals(18, controller.getCpuState().registerFile.get(10));
+    }
+
+    @Test
+    void testTakenBranchFlushesBothSlots() {
+        SuperscalarController controller = controller(
+                "addi $t0, $zero, 3",
+                "loop: addi $t0, $t0, -1",
+                "bne $t0, $zero, loop",
+                "addi $t1, $zero, 5", "addi $t2, $zero, 6");
+        runToIdle(controller);
+        assertEquals(3, controller.getCounters().getBranches());
+        assertEquals(2, controller.getCounters().getBranchFlushes());
+        assertEquals(5, controller.getCpuState().registerFile.get(9));
+        assertEquals(6, controller.getCpuState().registerFile.get(10));
+
+        boolean flushed = controller.getHistory().stream()
+                .anyMatch(s -> s.getIfStage().getState() == StageState.FLUSH
+                        && s.getSecondSlot().getIfStage().getState() == StageState.FLUSH);
+        assertTrue(flushed);
+    }
+
+    @Test
+    void testHistoryRecordsBothSlots() {
+        SuperscalarController controller = controller("addi $t0, $zero, 1", "addi $t1, $zero, 2");
+        controller.runCycle();
+        PipelineSnapshot snapshot = controller.getHistory().get(0);
+        assertEquals(StageState.INSTR, snapshot.getIfStage().getState());
+        assertEquals(StageState.INSTR, snapshot.getSecondSlot().getIfStage().getState());
+        assertNull(snapshot.getSecondSlot().getSecondSlot());
+    }
+
+    @Test
+    void testJumpDiscardsYoungerSlot() {
+        SuperscalarController controller = controller(
+                "jal target", "addi $t0, $zero, 1",
+                "target: addi $t1, $zero, 2", "addi $t2, $zero, 3");
+        runToIdle(controller);
+        assertEquals(0, controller.getCpuState().registerFile.get(8));
+        assertEquals(2, controller.getCpuState().registerFile.get(9));
+        assertEquals(3, controller.getCpuState().registerFile.get(10));
+        assertEquals(4, controller.getCpuState().registerFile.get(31));
+    }
+
+    @Test
+    void testWorkloadsMatchScalar() {
+        for (Workload workload : Workload.values()) {
+            CPUState cpuState = new CPUState(new InstructionMemory());
+            ProgramLoader.loadFromAssembly(cpuState, workload.source(), 0);
+            SuperscalarController controller = new SuperscalarController(cpuState);
+
+            int cycles = runToIdle(controller);
+            assertEquals(workload.getExpectedDigest(), Workload.digest(cpuState), workload.getName());
+            assertTrue(cycles < workload.getExpectedCycles(), workload.getName() + " " + cycles);
+
+            CPUState scalarState = new CPUState(new InstructionMemory());
+            ProgramLoader.loadFromAssembly(scalarState, workload.source(), 0);
+            PipelineController scalar = new PipelineController(scalarState);
+            scalar.setUndoDepth(0);
+            while (!scalar.isIdle()) {
+                scalar.runCycle();
+                scalar.getHistory().clear();
+            }
+            assertEquals(scalar.getCounters().getRetired(), controller.getCounters().getRetired());
+        }
+    }
+
+    private static SuperscalarController controller(String... program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        return new SuperscalarController(cpuState);
+    }
+
+    private static long dualIssueCycles(String... program) {
+        SuperscalarController controller = controller(program);
+        runToIdle(controller);
+        return controller.getDualIssueCycles();
+    }
+
+    private static int runToIdle(SuperscalarController controller) {
+        int cycles = 0;
+        while (!controller.isIdle()) {
+            controller.runCycle();
+            cycles++;
+        }
+        return cycles;
+    }
+}
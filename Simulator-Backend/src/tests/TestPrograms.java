@@ -0,0 +1,48 @@
+package tests;
+
+import model.cpu.CPUState;
+import model.memory.InstructionMemory;
+import model.pipeline.stages.PipelineLayout;
+import model.pipeline.state.PipelineSnapshot;
+import simulator.PipelineController;
+import simulator.ProgramLoader;
+
+import java.util.List;
+
+/**
+ * Pipeline fixtures shared by the controller tests: a controller with a program assembled at
+ * address 0, and a loop that runs it until the pipeline drains.
+ */
+final class TestPrograms {
+
+    static final int HISTORY = 64;
+
+    private TestPrograms() {}
+
+    static PipelineController controller(String... program) {
+        CPUState cpuState = new CPUState(new InstructionMemory());
+        ProgramLoader.loadFromAssembly(cpuState, program, 0);
+        return new PipelineController(cpuState);
+    }
+
+    static PipelineController controller(PipelineLayout layout, String... program) {
+        PipelineController controller = controller(program);
+        controller.setLayout(layout);
+        return controller;
+    }
+
+    /**
+     * Runs until the pipeline is idle and returns the cycles run. The history keeps only the last
+     * HISTORY snapshots, enough to check how a short program ended.
+     */
+    static int runToIdle(PipelineController controller) {
+        int cycles = 0;
+        while (!controller.isIdle()) {
+            controller.runCycle();
+            List<PipelineSnapshot> history = controller.getHistory();
+            history.subList(0, Math.max(0, history.size() - HISTORY)).clear();
+            cycles++;
+        }
+        return cycles;
+    }
+}
@@ -0,0 +1,92 @@
+package tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import simulator.Checkpoint;
+import simulator.Clock;
+import simulator.PipelineController;
+import simulator.Timeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static tests.TestPrograms.controller;
+
+class TimelineTest {
+
+    private static final String[] PROGRAM = {
+            "addi $t0, $zero, 20",
+            "loop: sw $t0, 0($t1)",
+            "lw $t2, 0($t1)",
+            "add $t3, $t3, $t2",
+            "addi $t1, $t1, 4",
+            "addi $t0, $t0, -1",
+            "bne $t0, $zero, loop"
+    };
+
+    private PipelineController controller;
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        controller = controller(PROGRAM);
+        clock = new Clock(controller);
+        clock.setTimeline(new Timeline(8, 4));
+    }
+
+    @Test
+    void testStateAtMatchesReplayFromStart() {
+        clock.run(150);
+
+        for (int cycle : new int[]{0, 1, 7, 8, 63, 100, 149, 150}) {
+            PipelineController past = clock.stateAt(cycle);
+
+            PipelineController expected = controller(PROGRAM);
+            Clock expectedClock = new Clock(expected);
+            expectedClock.run(cycle);
+
+            assertArrayEquals(Checkpoint.save(expected, expectedClock), Checkpoint.save(past, expectedClock),
+                    "State after cycle " + cycle);
+        }
+    }
+
+    @Test
+    void testKeyframesStayBounded() {
+        clock.run(500);
+
+        Timeline timeline = clock.getTimeline();
+        assertTrue(timeline.getKeyframeCount() <= 4);
+        assertEquals(0, timeline.getEarliestCycle());
+        assertTrue(timeline.getInterval() > 8, "Interval should grow as the run gets longer");
+    }
+
+    @Test
+    void testQueryDoesNotDisturbLiveRun() {
+        clock.run(40);
+        clock.stateAt(13);
+        clock.run(40);
+
+        PipelineController expected = controller(PROGRAM);
+        Clock expectedClock = new Clock(expected);
+        expectedClock.run(80);
+
+        assertArrayEquals(Checkpoint.save(expected, expectedClock), Checkpoint.save(controller, clock));
+    }
+
+    @Test
+    void testRewindDropsLaterKeyframes() {
+        clock.run(40);
+        clock.rewind(20);
+        clock.run(5);
+
+        assertThrows(IllegalArgumentException.class, () -> clock.stateAt(30));
+        assertNotNull(clock.stateAt(22));
+    }
+
+    @Test
+    void testRejectsFutureAndForgottenCycles() {
+        clock.run(10);
+        assertThrows(IllegalArgumentException.class, () -> clock.stateAt(11));
+
+        clock.resetTimeline();
+        assertThrows(IllegalArgumentException.class, () -> clock.stateAt(5));
+    }
+}
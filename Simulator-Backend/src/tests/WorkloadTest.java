@@ -0,0 +1,138 @@
+package tests;
+
+import model.cpu.CPUState;
+import org.junit.jupiter.api.Test;
+import simulator.Workload;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadTest {
+
+    @Test
+    void testReferenceResults() {
+        for (Workload workload : Workload.values()) {
+            Workload.Result result = workload.run();
+            assertEquals(workload.getExpectedDigest(), result.digest, workload.getName() + " digest");
+            assertEquals(workload.getExpectedCycles(), result.cycles, workload.getName() + " cycles");
+        }
+    }
+
+    @Test
+    void testFibonacci() {
+        Workload.Result result = Workload.FIBONACCI.run();
+        assertEquals(102334155, result.getResult());
+
+        int a = 0, b = 1;
+        for (int i = 0; i < 40; i++) {
+            assertEquals(a, word(result.state, i * 4));
+            int next = a + b;
+            a = b;
+            b = next;
+        }
+    }
+
+    @Test
+    void testBubbleSort() {
+        for (int n : new int[]{64, 5}) {
+            Workload.Result result = Workload.BUBBLE_SORT.run(n);
+            int[] expected = random(12345, n);
+            Arrays.sort(expected);
+            assertArrayEquals(expected, words(result.state, 0, n));
+            assertEquals(expected[0], result.getResult());
+        }
+    }
+
+    @Test
+    void testMemcpy() {
+        for (int n : new int[]{256, 17}) {
+            Workload.Result result = Workload.MEMCPY.run(n);
+            int[] source = random(12345, n);
+            assertArrayEquals(source, words(result.state, 0, n));
+            assertArrayEquals(source, words(result.state, n * 4, n));
+            assertEquals(source[n - 1], result.getResult());
+        }
+    }
+
+    @Test
+    void testPrefixSum() {
+        for (int n : new int[]{512, 9}) {
+            Workload.Result result = Workload.PREFIX_SUM.run(n);
+            int[] expected = random(12345, n);
+            for (int i = 0; i < n; i++) expected[i] &= 0xFFFF;
+            Arrays.parallelPrefix(expected, Integer::sum);
+            assertArrayEquals(expected, words(result.state, 0, n));
+            assertEquals(expected[n - 1], result.getResult());
+        }
+    }
+
+    @Test
+    void testMatmul() {
+        for (int n : new int[]{8, 3}) {
+            Workload.Result result = Workload.MATMUL.run(n);
+            int[] a = random(12345, n * n);
+            int[] b = random(23456, n * n);
+            int[] c = new int[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    for (int k = 0; k < n; k++) {
+                        c[i * n + j] += (a[i * n + k] & 0xFF) * (b[k * n + j] & 0xFF);
+                    }
+                }
+            }
+            assertArrayEquals(c, words(result.state, 2 * n * n * 4, n * n));
+            assertEquals(c[0], result.getResult());
+        }
+    }
+
+    @Test
+    void testLinkedList() {
+        for (int n : new int[]{128, 4}) {
+            Workload.Result result = Workload.LINKED_LIST.run(n);
+            int sum = 0;
+            for (int value : random(12345, n)) sum += value;
+            assertEquals(sum, result.getResult());
+            assertEquals(n, result.state.registerFile.get(3));
+            assertEquals(sum, word(result.state, 0));
+        }
+    }
+
+    @Test
+    void testInvalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> Workload.MATMUL.source(0));
+        assertThrows(IllegalArgumentException.class, () -> Workload.MATMUL.source(17));
+        assertThrows(IllegalArgumentException.class, () -> Workload.LINKED_LIST.source(100));
+        assertThrows(IllegalArgumentException.class, () -> Workload.byName("quicksort"));
+    }
+
+    @Test
+    void testByName() {
+        assertSame(Workload.BUBBLE_SORT, Workload.byName("bubblesort"));
+        assertSame(Workload.PREFIX_SUM, Workload.byName("PrefixSum"));
+    }
+
+    private static int[] random(int seed, int n) {
+        int[] values = new int[n];
+        int x = seed;
+        for (int i = 0; i < n; i++) {
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            values[i] = x;
+        }
+        return values;
+    }
+
+    private static int word(CPUState state, int address) {
+        return state.dataMemory.loadWord(address);
+    }
+
+    private static int[] words(CPUState state, int address, int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = word(state, address + i * 4);
+        }
+        return values;
+    }
+}